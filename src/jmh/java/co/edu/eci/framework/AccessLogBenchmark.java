@@ -0,0 +1,68 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide el costo para el hilo de la solicitud de registrar un acceso en
+ * {@link AccessLog}, con el hilo escritor escribiendo en un archivo
+ * temporal. Con el perfilador de GC, {@code gc.alloc.rate.norm} debe ser
+ * cero: el evento se copia al búfer circular sin crear objetos.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessLogBenchmark {
+
+    private Path directory;
+    private AccessLog accessLog;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("access-log-bench");
+        accessLog = new AccessLog(directory.resolve("access.log")).maxFileSize(16 * 1024 * 1024).maxFiles(1).start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        accessLog.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public boolean record() {
+        return accessLog.record("GET", "/hello", 200, 142, 87_000);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean recordContended() {
+        return accessLog.record("GET", "/hello", 200, 142, 87_000);
+    }
+}
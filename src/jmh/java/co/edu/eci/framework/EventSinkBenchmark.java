@@ -0,0 +1,65 @@
+package co.edu.eci.framework;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide el costo para el productor de encolar un evento en {@link EventSink},
+ * con el hilo escritor vaciando la cola hacia un {@link MemoryEventBackend}
+ * que no conserva eventos. Con {@code BLOCK} se incluye la espera cuando el
+ * escritor no da abasto; con {@code DROP_NEWEST} se descarta en su lugar.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSinkBenchmark {
+
+    @Param({ "DROP_NEWEST", "BLOCK" })
+    public EventSink.Overflow overflow;
+
+    private EventSink sink;
+    private Map<String, Object> event;
+
+    @Setup
+    public void setUp() {
+        sink = new EventSink(new MemoryEventBackend(0)).overflow(overflow).start();
+        event = Map.of("method", "GET", "path", "/hello", "route", "/hello", "status", 200,
+                "durationMicros", 120L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sink.close();
+    }
+
+    @Benchmark
+    public boolean offer() {
+        return sink.offer(event);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean offerContended() {
+        return sink.offer(event);
+    }
+}
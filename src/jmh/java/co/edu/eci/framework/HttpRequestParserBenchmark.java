@@ -0,0 +1,108 @@
+package co.edu.eci.framework;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide el parseo de la línea de solicitud y los encabezados con
+ * {@link HttpRequestParser}, leyendo siempre de un búfer ya lleno. El caso
+ * {@code legacyParse} mide con las mismas entradas el parseo original con
+ * {@link BufferedReader} y {@link String#split} ({@link LegacyRequestParser}),
+ * reutilizando el reader como si la conexión fuera persistente, lo que le
+ * favorece: el original creaba uno por conexión. El caso
+ * {@code blankLines} alimenta solo CRLF y mide el rechazo de las líneas vacías
+ * previas a la solicitud; con {@code -prof gc} su asignación por operación debe
+ * mantenerse constante, sin que el búfer crezca con el flujo.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpRequestParserBenchmark {
+
+    /** Solicitud mínima de curl y solicitud típica de un navegador. */
+    @Param({ "curl", "browser" })
+    public String request;
+
+    private HttpRequestParser parser;
+    private BufferedReader reader;
+
+    @Setup
+    public void setUp() {
+        String raw = "curl".equals(request)
+                ? "GET /hello HTTP/1.1\r\n"
+                        + "Host: localhost:8080\r\n"
+                        + "User-Agent: curl/8.5.0\r\n"
+                        + "Accept: */*\r\n\r\n"
+                : "GET /greeting?name=Angie&lang=es HTTP/1.1\r\n"
+                        + "Host: localhost:8080\r\n"
+                        + "Connection: keep-alive\r\n"
+                        + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko)"
+                        + " Chrome/126.0.0.0 Safari/537.36\r\n"
+                        + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n"
+                        + "Accept-Encoding: gzip, deflate, br\r\n"
+                        + "Accept-Language: es-CO,es;q=0.9,en;q=0.8\r\n"
+                        + "Cache-Control: max-age=0\r\n"
+                        + "Cookie: session=4f3c2a1b9d8e7f6a5b4c3d2e1f0a9b8c; theme=dark\r\n"
+                        + "If-None-Match: \"5d41402abc4b2a76b9719d911017c592\"\r\n\r\n";
+        byte[] bytes = raw.getBytes(StandardCharsets.US_ASCII);
+        parser = new HttpRequestParser(new RepeatingInputStream(bytes), new ServerConfig(),
+                new BufferPool("heap", false, 1, false));
+        reader = new BufferedReader(new InputStreamReader(new RepeatingInputStream(bytes)));
+    }
+
+    @Benchmark
+    public HttpRequestData parse() throws IOException {
+        return parser.parse();
+    }
+
+    @Benchmark
+    public LegacyRequestParser.HttpRequestData legacyParse() throws IOException {
+        return LegacyRequestParser.parseHttpRequest(reader);
+    }
+
+    @Benchmark
+    public int blankLines(BlankLines state) throws IOException {
+        try {
+            state.parser.parse();
+            throw new IllegalStateException("Se esperaba el rechazo de las líneas vacías");
+        } catch (HttpParseException e) {
+            return e.getStatusCode();
+        }
+    }
+
+    /**
+     * Parser sobre un flujo que solo envía CRLF.
+     */
+    @State(Scope.Thread)
+    public static class BlankLines {
+
+        HttpRequestParser parser;
+
+        @Setup
+        public void setUp() {
+            parser = new HttpRequestParser(new RepeatingInputStream("\r\n".getBytes(StandardCharsets.US_ASCII)),
+                    new ServerConfig(), new BufferPool("heap", false, 1, false));
+        }
+    }
+}
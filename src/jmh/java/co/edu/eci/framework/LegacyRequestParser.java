@@ -0,0 +1,84 @@
+package co.edu.eci.framework;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copia del parseo original de {@code HttpServer.parseHttpRequest}, con
+ * {@link BufferedReader} y {@link String#split}, que se conserva solo como
+ * referencia para comparar con {@link HttpRequestParser} en
+ * {@link HttpRequestParserBenchmark}.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class LegacyRequestParser {
+
+    private LegacyRequestParser() {
+    }
+
+    /**
+     * Parsea la solicitud HTTP desde el reader.
+     *
+     * @param reader El BufferedReader de donde leer la solicitud
+     * @return HttpRequestData con la información de la solicitud, o null si es
+     *         inválida
+     * @throws IOException Si hay un error al leer
+     */
+    static HttpRequestData parseHttpRequest(BufferedReader reader) throws IOException {
+        String requestLine = reader.readLine();
+        if (requestLine == null || requestLine.isEmpty()) {
+            return null;
+        }
+
+        String[] requestParts = requestLine.split(" ");
+        if (requestParts.length != 3) {
+            return null;
+        }
+
+        String method = requestParts[0];
+        String fullPath = requestParts[1];
+
+        String path;
+        String queryString = "";
+        if (fullPath.contains("?")) {
+            int queryIndex = fullPath.indexOf('?');
+            path = fullPath.substring(0, queryIndex);
+            queryString = fullPath.substring(queryIndex + 1);
+        } else {
+            path = fullPath;
+        }
+
+        Map<String, String> headers = new HashMap<>();
+        String headerLine;
+        while ((headerLine = reader.readLine()) != null && !headerLine.isEmpty()) {
+            int colonIndex = headerLine.indexOf(':');
+            if (colonIndex > 0) {
+                String headerName = headerLine.substring(0, colonIndex).trim();
+                String headerValue = headerLine.substring(colonIndex + 1).trim();
+                headers.put(headerName, headerValue);
+            }
+        }
+
+        return new HttpRequestData(method, path, queryString, headers);
+    }
+
+    /**
+     * Datos de la solicitud tal como los devolvía el parseo original.
+     */
+    static final class HttpRequestData {
+        final String method;
+        final String path;
+        final String queryString;
+        final Map<String, String> headers;
+
+        HttpRequestData(String method, String path, String queryString, Map<String, String> headers) {
+            this.method = method;
+            this.path = path;
+            this.queryString = queryString;
+            this.headers = headers;
+        }
+    }
+}
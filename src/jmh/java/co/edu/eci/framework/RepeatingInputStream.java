@@ -0,0 +1,41 @@
+package co.edu.eci.framework;
+
+import java.io.InputStream;
+
+/**
+ * Flujo de entrada que repite indefinidamente los mismos bytes. Simula una
+ * conexión persistente que envía siempre la misma solicitud, para medir el
+ * parser y el despacho en régimen estable sin crear flujos en cada operación.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class RepeatingInputStream extends InputStream {
+
+    private final byte[] data;
+    private int position;
+
+    /**
+     * Crea el flujo.
+     *
+     * @param data Los bytes que se repiten
+     */
+    RepeatingInputStream(byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public int read() {
+        int b = data[position] & 0xFF;
+        position = (position + 1) % data.length;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        int count = Math.min(len, data.length - position);
+        System.arraycopy(data, position, b, off, count);
+        position = (position + count) % data.length;
+        return count;
+    }
+}
@@ -0,0 +1,58 @@
+package co.edu.eci.framework;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la creación de un {@link Request} y la lectura de un parámetro de la
+ * cadena de consulta, que es lo que hace un manejador como el de
+ * {@code /greeting}.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBenchmark {
+
+    @Param({ "none", "simple", "encoded" })
+    public String query;
+
+    private String queryString;
+    private Map<String, String> headers;
+
+    @Setup
+    public void setUp() {
+        queryString = switch (query) {
+            case "none" -> null;
+            case "simple" -> "name=Angie";
+            default -> "name=Angie%20Ramos&city=Bogot%C3%A1&tags=a%2Cb%2Cc&page=2&sort=-date&q=hola+mundo";
+        };
+        headers = new HashMap<>();
+        headers.put("Host", "localhost:8080");
+        headers.put("Accept", "*/*");
+    }
+
+    @Benchmark
+    public String queryParameter() {
+        Request request = new Request("GET", "/greeting", queryString, headers);
+        return request.getValues("name");
+    }
+}
@@ -0,0 +1,99 @@
+package co.edu.eci.framework;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide una solicitud completa en memoria por el mismo camino que el servidor:
+ * {@link ConnectionHandler#process} parsea, busca la ruta, ejecuta el
+ * manejador (o toma la respuesta de la caché de la ruta, o la precodificada si
+ * la ruta es constante) o sirve el archivo, registra las métricas y serializa
+ * la respuesta, sin sockets de por medio. La conexión repite la misma
+ * solicitud como un cliente con conexión persistente y solicitudes
+ * encadenadas; {@code newConnection} abre en cambio una conexión por
+ * solicitud, como los clientes sin keep-alive, y mide además los búferes de
+ * la conexión.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestPipelineBenchmark {
+
+    @Param({ "/hello", "/constant", "/greeting?name=Angie", "/cached?name=Angie", "/users/42", "/index.html",
+            "/missing" })
+    public String target;
+
+    private ConnectionHandler handler;
+    private HttpConnection connection;
+    private ServerConfig config;
+    private BufferPool buffers;
+    private byte[] request;
+
+    @Setup
+    public void setUp() {
+        Router router = new Router();
+        router.addRoute("GET", "/hello", (request, response) -> "Hello Docker!");
+        router.addConstantRoute("GET", "/constant", "text/plain; charset=utf-8", "Hello Docker!");
+        router.addRoute("GET", "/greeting", (request, response) -> "Hello, " + request.getValues("name") + "!");
+        router.addRoute("GET", "/cached", (request, response) -> "Hello, " + request.getValues("name") + "!",
+                new CachePolicy().varyByQuery("name"));
+        router.addRoute("GET", "/users/{id}", (request, response) -> {
+            response.json();
+            return "{\"id\":\"" + request.getPathParam("id") + "\"}";
+        });
+        StaticFileHandler staticFileHandler = new StaticFileHandler();
+        staticFileHandler.setStaticFilesDirectory("/bench-public");
+
+        config = new ServerConfig().maxRequestsPerConnection(Integer.MAX_VALUE);
+        AdmissionController admission = new AdmissionController(Runnable::run, 1, config);
+        ServerMetrics metrics = new ServerMetrics(admission);
+        handler = new ConnectionHandler(router, staticFileHandler, config, metrics, admission, () -> true);
+
+        request = ("GET " + target + " HTTP/1.1\r\n"
+                + "Host: localhost:8080\r\n"
+                + "User-Agent: curl/8.5.0\r\n"
+                + "Accept: */*\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        buffers = new BufferPool("heap", false, config.getBufferPoolSize(), false);
+        connection = new HttpConnection(new RepeatingInputStream(request), OutputStream.nullOutputStream(), null,
+                config, buffers);
+    }
+
+    @Benchmark
+    public boolean process() throws IOException {
+        return handler.process(connection);
+    }
+
+    @Benchmark
+    public boolean newConnection() throws IOException {
+        HttpConnection fresh = new HttpConnection(new ByteArrayInputStream(request), OutputStream.nullOutputStream(),
+                null, config, buffers);
+        try {
+            boolean keepAlive = handler.process(fresh);
+            fresh.flush();
+            return keepAlive;
+        } finally {
+            fresh.release();
+        }
+    }
+}
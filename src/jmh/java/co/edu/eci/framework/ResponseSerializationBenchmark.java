@@ -0,0 +1,68 @@
+package co.edu.eci.framework;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la serialización de una respuesta: solo los encabezados con
+ * {@link ResponseHeaders}, y los encabezados más el cuerpo escritos y enviados
+ * por una {@link HttpConnection} hacia una salida que descarta los bytes.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private ResponseHeaders headers;
+    private HttpConnection connection;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        headers = new ResponseHeaders();
+        connection = new HttpConnection(new ByteArrayInputStream(new byte[0]), OutputStream.nullOutputStream(), null,
+                new ServerConfig(), new BufferPool("heap", false, 1, false));
+        body = "Hello Docker!".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ResponseHeaders headers() {
+        return headers.start(200)
+                .contentType("text/html")
+                .add("X-Request-Id", "4f3c2a1b")
+                .contentLength(body.length)
+                .connection(true, 5)
+                .end();
+    }
+
+    @Benchmark
+    public void headersAndBody() throws IOException {
+        ResponseHeaders response = connection.startResponse(200)
+                .contentType("text/html")
+                .contentLength(body.length)
+                .connection(true, 5)
+                .end();
+        connection.writeResponse(response, body, 0, body.length);
+        connection.flush();
+    }
+}
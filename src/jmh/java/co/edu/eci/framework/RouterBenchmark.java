@@ -0,0 +1,80 @@
+package co.edu.eci.framework;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide {@link Router#findRoute} y {@link Router#match} con tablas de distinto
+ * tamaño: la mitad de las rutas son literales y la otra mitad tienen un
+ * parámetro. Cada operación busca una ruta distinta de un conjunto de 1024,
+ * para no medir solo la caché del procesador.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark {
+
+    private static final int PATHS = 1024;
+
+    @Param({ "10", "1000", "10000" })
+    public int routes;
+
+    private Router router;
+    private final String[] staticPaths = new String[PATHS];
+    private final String[] paramPaths = new String[PATHS];
+    private final String[] missingPaths = new String[PATHS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        router = new Router();
+        for (int i = 0; i < routes; i++) {
+            if (i % 2 == 0) {
+                router.addRoute("GET", "/api/v1/res" + i + "/items", (request, response) -> "");
+            } else {
+                router.addRoute("GET", "/api/v1/res" + i + "/{id}/detail", (request, response) -> "");
+            }
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < PATHS; i++) {
+            int k = random.nextInt(routes / 2) * 2;
+            staticPaths[i] = "/api/v1/res" + k + "/items";
+            paramPaths[i] = "/api/v1/res" + (k + 1) + "/" + i + "/detail";
+            missingPaths[i] = "/api/v1/res" + k + "/missing";
+        }
+    }
+
+    @Benchmark
+    public Optional<Route> findStatic() {
+        return router.findRoute("GET", staticPaths[next++ & (PATHS - 1)]);
+    }
+
+    @Benchmark
+    public Optional<RouteMatch> matchWithParam() {
+        return router.match("GET", paramPaths[next++ & (PATHS - 1)]);
+    }
+
+    @Benchmark
+    public Optional<RouteMatch> matchMissing() {
+        return router.match("GET", missingPaths[next++ & (PATHS - 1)]);
+    }
+}
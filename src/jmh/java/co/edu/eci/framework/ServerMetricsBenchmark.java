@@ -0,0 +1,66 @@
+package co.edu.eci.framework;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide el costo de registrar una solicitud en {@link ServerMetrics}: buscar
+ * las métricas de la ruta, contar el estado y registrar la latencia en el
+ * histograma, con uno y con varios hilos compitiendo por la misma ruta.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerMetricsBenchmark {
+
+    private ServerMetrics metrics;
+    private Route route;
+
+    @Setup
+    public void setUp() {
+        ServerConfig config = new ServerConfig();
+        metrics = new ServerMetrics(new AdmissionController(Runnable::run, 1, config));
+        route = new Route("GET", "/hello", (request, response) -> "");
+    }
+
+    @Benchmark
+    public void record(LatencyState state) {
+        metrics.forRoute(route).record(200, state.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended(LatencyState state) {
+        metrics.forRoute(route).record(200, state.next());
+    }
+
+    /**
+     * Latencias variadas por hilo, para repartir las muestras entre cubetas.
+     */
+    @State(Scope.Thread)
+    public static class LatencyState {
+        private long value = 50_000;
+
+        long next() {
+            value = value * 6364136223846793005L + 1442695040888963407L;
+            return 20_000 + (value >>> 44);
+        }
+    }
+}
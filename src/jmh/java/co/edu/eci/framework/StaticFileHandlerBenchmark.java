@@ -0,0 +1,74 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide {@link StaticFileHandler#serveStaticFile} para un recurso del
+ * classpath (con y sin caché), para un archivo de un directorio externo y
+ * para una ruta que no existe.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaticFileHandlerBenchmark {
+
+    @Param({ "classpath-cached", "classpath-uncached", "external", "missing" })
+    public String source;
+
+    private StaticFileHandler handler;
+    private Path externalDirectory;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        handler = new StaticFileHandler();
+        handler.setStaticFilesDirectory("/bench-public");
+        path = "missing".equals(source) ? "/missing.html" : "/index.html";
+        if ("classpath-uncached".equals(source)) {
+            handler.setCacheMaxBytes(0);
+        }
+        if ("external".equals(source)) {
+            externalDirectory = Files.createTempDirectory("bench-public");
+            try (var content = StaticFileHandlerBenchmark.class.getResourceAsStream("/bench-public/index.html")) {
+                Files.copy(content, externalDirectory.resolve("index.html"));
+            }
+            handler.setExternalStaticFilesDirectory(externalDirectory.toString());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (externalDirectory != null) {
+            Files.deleteIfExists(externalDirectory.resolve("index.html"));
+            Files.deleteIfExists(externalDirectory);
+        }
+    }
+
+    @Benchmark
+    public StaticFileHandler.StaticFileResult serve() {
+        return handler.serveStaticFile(path);
+    }
+}
@@ -0,0 +1,531 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de accesos asíncrono. Cada solicitud se guarda como un evento de
+ * tamaño fijo (fecha, método, ruta, estado, bytes y duración) en un búfer
+ * circular reservado al iniciar, sin crear objetos ni tomar bloqueos en el
+ * hilo de la solicitud. Un único hilo escritor da formato a los eventos y
+ * los escribe en el archivo por bloques, rotándolo al alcanzar
+ * {@link #maxFileSize}. Si el búfer está lleno, el evento se descarta y se
+ * cuenta; la solicitud nunca espera al disco.
+ * Cada línea tiene la forma
+ * {@code 2025-03-01T12:00:00.125Z GET /hello 200 142 87}: fecha UTC, método,
+ * ruta (con los bytes no imprimibles codificados como %XX), estado, bytes
+ * enviados con encabezados y duración en microsegundos.
+ *
+ * <pre>
+ * AccessLog accessLog = new AccessLog(Path.of("logs/access.log")).maxFileSize(64 * 1024 * 1024).start();
+ * WebFramework.config().accessLog(accessLog);
+ * </pre>
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class AccessLog implements AutoCloseable {
+
+    private static final DateTimeFormatter SECOND_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneOffset.UTC);
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private int capacity = 16384;
+    private long maxFileSize = 64L * 1024 * 1024;
+    private int maxFiles = 5;
+    private int flushIntervalMillis = 100;
+
+    private int mask;
+    private long[] times;
+    private long[] durations;
+    private long[] sizes;
+    private int[] statuses;
+    private String[] methods;
+    private String[] paths;
+    private AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+    private final LongAdder dropped = new LongAdder();
+    private volatile long written;
+    private volatile long failed;
+
+    private FileChannel channel;
+    private long fileSize;
+    private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private int bufferedLines;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private long cachedSecond = Long.MIN_VALUE;
+    private byte[] secondPrefix;
+
+    /**
+     * Crea un registro de accesos que escribe en el archivo indicado. Los
+     * archivos rotados se llaman como el original con el sufijo .1, .2...
+     *
+     * @param file Ruta del archivo de registro
+     */
+    public AccessLog(Path file) {
+        if (file == null) {
+            throw new IllegalArgumentException("El archivo del registro de accesos no puede ser nulo");
+        }
+        this.file = file;
+    }
+
+    /**
+     * Establece cuántos eventos caben en el búfer circular.
+     *
+     * @param events Capacidad del búfer (mayor que cero); se redondea a una
+     *               potencia de dos
+     * @return Este registro para encadenamiento de métodos
+     */
+    public AccessLog capacity(int events) {
+        checkNotStarted();
+        if (events <= 0) {
+            throw new IllegalArgumentException("La capacidad del registro de accesos debe ser mayor que cero");
+        }
+        this.capacity = events;
+        return this;
+    }
+
+    /**
+     * Establece el tamaño a partir del cual el archivo se rota.
+     *
+     * @param bytes Tamaño máximo en bytes (mayor que cero)
+     * @return Este registro para encadenamiento de métodos
+     */
+    public AccessLog maxFileSize(long bytes) {
+        checkNotStarted();
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo del registro de accesos debe ser mayor que cero");
+        }
+        this.maxFileSize = bytes;
+        return this;
+    }
+
+    /**
+     * Establece cuántos archivos rotados se conservan; los más antiguos se
+     * eliminan.
+     *
+     * @param count Número de archivos rotados (no negativo)
+     * @return Este registro para encadenamiento de métodos
+     */
+    public AccessLog maxFiles(int count) {
+        checkNotStarted();
+        if (count < 0) {
+            throw new IllegalArgumentException("El número de archivos rotados no puede ser negativo");
+        }
+        this.maxFiles = count;
+        return this;
+    }
+
+    /**
+     * Establece cada cuánto revisa el hilo escritor si hay eventos nuevos
+     * cuando está inactivo. Si el búfer se llena hasta la mitad, el primer
+     * productor que lo note lo despierta antes.
+     *
+     * @param millis Intervalo en milisegundos (mayor que cero)
+     * @return Este registro para encadenamiento de métodos
+     */
+    public AccessLog flushInterval(int millis) {
+        checkNotStarted();
+        if (millis <= 0) {
+            throw new IllegalArgumentException("El intervalo de escritura debe ser mayor que cero");
+        }
+        this.flushIntervalMillis = millis;
+        return this;
+    }
+
+    /**
+     * Reserva el búfer circular e inicia el hilo escritor. Llamarlo de nuevo
+     * no tiene efecto.
+     *
+     * @return Este registro para encadenamiento de métodos
+     */
+    public synchronized AccessLog start() {
+        if (writer == null) {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            mask = size - 1;
+            times = new long[size];
+            durations = new long[size];
+            sizes = new long[size];
+            statuses = new int[size];
+            methods = new String[size];
+            paths = new String[size];
+            sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+            Thread thread = new Thread(this::runWriter, "AccessLog-Writer");
+            thread.setDaemon(true);
+            writer = thread;
+            thread.start();
+        }
+        return this;
+    }
+
+    /**
+     * Registra una solicitud atendida. No crea objetos ni espera: si el búfer
+     * está lleno el evento se descarta.
+     *
+     * @param method        El método HTTP
+     * @param path          La ruta solicitada
+     * @param status        El código de estado de la respuesta
+     * @param bytes         Los bytes enviados, encabezados incluidos
+     * @param durationNanos La duración de la solicitud en nanosegundos
+     * @return true si el evento quedó registrado, false si se descartó
+     */
+    public boolean record(String method, String path, int status, long bytes, long durationNanos) {
+        Thread thread = writer;
+        if (thread == null) {
+            start();
+            thread = writer;
+        }
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    times[index] = System.currentTimeMillis();
+                    methods[index] = method;
+                    paths[index] = path;
+                    statuses[index] = status;
+                    sizes[index] = bytes;
+                    durations[index] = durationNanos;
+                    sequences.set(index, position + 1);
+                    if (writerParked && position - head > mask >> 1) {
+                        LockSupport.unpark(thread);
+                    }
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Obtiene una instantánea de los contadores del registro.
+     *
+     * @return Las estadísticas actuales
+     */
+    public AccessLogStats getStats() {
+        long recorded = tail.get();
+        return new AccessLogStats(recorded, dropped.sum(), written, failed,
+                (int) Math.max(0, recorded - head));
+    }
+
+    /**
+     * Deja de registrar eventos, escribe los que quedan en el búfer y cierra
+     * el archivo. Espera al hilo escritor hasta 10 segundos.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = writer;
+        }
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Bucle del hilo escritor: da formato a todos los eventos publicados, los
+     * escribe en bloques de hasta 64 KB y espera si no hay más.
+     */
+    private void runWriter() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        long position = head;
+        while (true) {
+            boolean closing = closed;
+            long start = position;
+            while (true) {
+                int index = (int) position & mask;
+                if (sequences.get(index) != position + 1) {
+                    break;
+                }
+                formatLine(index);
+                methods[index] = null;
+                paths[index] = null;
+                sequences.set(index, position + mask + 1);
+                position++;
+                if (lineLength > buffer.remaining()) {
+                    head = position;
+                    writeBuffer();
+                }
+                if (lineLength > buffer.remaining()) {
+                    writeLarge();
+                } else {
+                    buffer.put(line, 0, lineLength);
+                    bufferedLines++;
+                }
+            }
+            head = position;
+            if (buffer.position() > 0) {
+                writeBuffer();
+            }
+            if (position == start) {
+                if (closing) {
+                    break;
+                }
+                writerParked = true;
+                if (tail.get() == position && !closed) {
+                    LockSupport.parkNanos(this, intervalNanos);
+                }
+                writerParked = false;
+            }
+        }
+        closeChannel();
+    }
+
+    /**
+     * Da formato al evento de una casilla en {@link #line}.
+     *
+     * @param index La casilla del búfer circular
+     */
+    private void formatLine(int index) {
+        lineLength = 0;
+        long millis = times[index];
+        long second = Math.floorDiv(millis, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            secondPrefix = SECOND_FORMAT.format(Instant.ofEpochSecond(second)).getBytes(StandardCharsets.US_ASCII);
+        }
+        appendBytes(secondPrefix);
+        appendByte('.');
+        int fraction = Math.floorMod(millis, 1000);
+        appendByte('0' + fraction / 100);
+        appendByte('0' + fraction / 10 % 10);
+        appendByte('0' + fraction % 10);
+        appendByte('Z');
+        appendByte(' ');
+        appendToken(methods[index]);
+        appendByte(' ');
+        appendToken(paths[index]);
+        appendByte(' ');
+        appendNumber(statuses[index]);
+        appendByte(' ');
+        appendNumber(sizes[index]);
+        appendByte(' ');
+        appendNumber(durations[index] / 1000);
+        appendByte('\n');
+    }
+
+    /**
+     * Añade un texto codificando como %XX los bytes UTF-8 que no son ASCII
+     * imprimible, de modo que cada campo quede sin espacios.
+     *
+     * @param value El texto
+     */
+    private void appendToken(String value) {
+        if (value == null || value.isEmpty()) {
+            appendByte('-');
+            return;
+        }
+        ensureLine(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > ' ' && c < 0x7f && c != '%') {
+                appendByte(c);
+            } else if (c < 0x80) {
+                appendEscaped(c);
+            } else {
+                int end = i + 1;
+                if (Character.isHighSurrogate(c) && end < value.length()) {
+                    end++;
+                }
+                for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    appendEscaped(b & 0xff);
+                }
+                i = end - 1;
+            }
+        }
+    }
+
+    private void appendEscaped(int b) {
+        ensureLine(3);
+        line[lineLength++] = '%';
+        line[lineLength++] = HEX[b >> 4];
+        line[lineLength++] = HEX[b & 0xf];
+    }
+
+    private void appendNumber(long value) {
+        if (value < 0) {
+            appendByte('-');
+            value = -value;
+        }
+        ensureLine(20);
+        int start = lineLength;
+        do {
+            line[lineLength++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = lineLength - 1; i < j; i++, j--) {
+            byte swap = line[i];
+            line[i] = line[j];
+            line[j] = swap;
+        }
+    }
+
+    private void appendBytes(byte[] bytes) {
+        ensureLine(bytes.length);
+        System.arraycopy(bytes, 0, line, lineLength, bytes.length);
+        lineLength += bytes.length;
+    }
+
+    private void appendByte(int b) {
+        ensureLine(1);
+        line[lineLength++] = (byte) b;
+    }
+
+    private void ensureLine(int extra) {
+        if (lineLength + extra > line.length) {
+            byte[] grown = new byte[Math.max(line.length * 2, lineLength + extra)];
+            System.arraycopy(line, 0, grown, 0, lineLength);
+            line = grown;
+        }
+    }
+
+    /**
+     * Escribe el bloque acumulado en el archivo, rotándolo si lo exige el
+     * tamaño máximo. Si la escritura falla, las líneas del bloque se cuentan
+     * como fallidas.
+     */
+    private void writeBuffer() {
+        buffer.flip();
+        int lines = bufferedLines;
+        bufferedLines = 0;
+        try {
+            writeToFile(buffer);
+            written += lines;
+        } catch (IOException e) {
+            System.err.println("Error al escribir el registro de accesos " + file + ": " + e.getMessage());
+            failed += lines;
+            closeChannel();
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Escribe una línea que no cabe en el bloque de escritura.
+     */
+    private void writeLarge() {
+        try {
+            writeToFile(ByteBuffer.wrap(line, 0, lineLength));
+            written++;
+        } catch (IOException e) {
+            System.err.println("Error al escribir el registro de accesos " + file + ": " + e.getMessage());
+            failed++;
+            closeChannel();
+        }
+    }
+
+    private void writeToFile(ByteBuffer data) throws IOException {
+        if (channel != null && fileSize > 0 && fileSize + data.remaining() > maxFileSize) {
+            rotate();
+        }
+        if (channel == null) {
+            open();
+        }
+        while (data.hasRemaining()) {
+            fileSize += channel.write(data);
+        }
+    }
+
+    /**
+     * Abre el archivo para añadir líneas, creándolo si no existe.
+     *
+     * @throws IOException Si no se puede abrir
+     */
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        fileSize = channel.size();
+    }
+
+    /**
+     * Cierra el archivo actual, desplaza los rotados (.1 pasa a .2...) y deja
+     * el actual como .1; con {@link #maxFiles} en cero simplemente se
+     * reemplaza.
+     *
+     * @throws IOException Si no se puede rotar
+     */
+    private void rotate() throws IOException {
+        closeChannel();
+        if (maxFiles == 0) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rotated(i);
+            if (Files.exists(source)) {
+                Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotated(int number) {
+        return file.resolveSibling(file.getFileName() + "." + number);
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar el registro de accesos: " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Comprueba que el registro aún no se ha iniciado.
+     */
+    private void checkNotStarted() {
+        if (writer != null) {
+            throw new IllegalStateException("El registro de accesos ya está iniciado");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package co.edu.eci.framework;
+
+/**
+ * Instantánea de las estadísticas de un {@link AccessLog}.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class AccessLogStats {
+    private final long recorded;
+    private final long dropped;
+    private final long written;
+    private final long failed;
+    private final int queued;
+
+    /**
+     * Constructor de la instantánea de estadísticas.
+     */
+    public AccessLogStats(long recorded, long dropped, long written, long failed, int queued) {
+        this.recorded = recorded;
+        this.dropped = dropped;
+        this.written = written;
+        this.failed = failed;
+        this.queued = queued;
+    }
+
+    /**
+     * Obtiene el número de eventos guardados en el búfer circular.
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Obtiene el número de eventos descartados por encontrar el búfer lleno
+     * o el registro cerrado.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Obtiene el número de líneas escritas en el archivo.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Obtiene el número de líneas perdidas por errores de escritura.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Obtiene el número de eventos que esperan en el búfer.
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    @Override
+    public String toString() {
+        return "AccessLogStats{recorded=" + recorded + ", dropped=" + dropped + ", written=" + written
+                + ", failed=" + failed + ", queued=" + queued + "}";
+    }
+}
@@ -0,0 +1,199 @@
+package co.edu.eci.framework;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Control de admisión del pool de trabajo. Limita las tareas pendientes (en
+ * cola o en ejecución) y descarta las que esperaron demasiado, para que ante
+ * una sobrecarga el servidor rechace pronto con un {@code 503} barato en lugar
+ * de acumular conexiones y latencia sin límite.
+ * Una tarea es un lote de solicitudes ya recibidas de una misma conexión: las
+ * conexiones inactivas esperan fuera del pool (en el selector del transporte
+ * NIO o en el {@link KeepAliveWatcher} del bloqueante) y vuelven a pasar por
+ * la admisión al llegar su siguiente solicitud.
+ * El descarte por espera sigue la idea de CoDel: la cola solo se considera
+ * sobrecargada si la espera de las tareas supera el objetivo durante todo un
+ * intervalo, así que una ráfaga corta no provoca rechazos.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class AdmissionController {
+
+    /** Intervalo durante el que la espera debe superar el objetivo. */
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Executor executor;
+    private final int workers;
+    private final int maxPending;
+    private final long targetNanos;
+    private final byte[] rejection;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder shedQueueFull = new LongAdder();
+    private final LongAdder shedQueueDelay = new LongAdder();
+    /** Fin del intervalo con la espera sobre el objetivo, o 0 si está debajo. */
+    private volatile long aboveTargetUntil;
+
+    /**
+     * Constructor del control de admisión.
+     *
+     * @param executor   El ejecutor de las tareas admitidas
+     * @param maxPending Máximo de tareas en cola o en ejecución
+     * @param config     Las opciones de configuración del servidor
+     */
+    AdmissionController(Executor executor, int maxPending, ServerConfig config) {
+        this(executor, maxPending, maxPending, config);
+    }
+
+    /**
+     * Constructor del control de admisión con el número de tareas que el
+     * ejecutor corre a la vez.
+     *
+     * @param executor   El ejecutor de las tareas admitidas
+     * @param workers    Máximo de tareas que el ejecutor corre a la vez
+     * @param maxPending Máximo de tareas en cola o en ejecución
+     * @param config     Las opciones de configuración del servidor
+     */
+    AdmissionController(Executor executor, int workers, int maxPending, ServerConfig config) {
+        this.executor = executor;
+        this.workers = workers;
+        this.maxPending = maxPending;
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(config.getQueueDelayTargetMillis());
+        this.rejection = ("HTTP/1.1 503 " + ResponseHeaders.statusMessage(503) + "\r\n"
+                + "Retry-After: " + config.getRetryAfterSeconds() + "\r\n"
+                + "Content-Length: 0\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Ejecuta una tarea si hay capacidad. Si la cola está llena, {@code shed}
+     * se ejecuta de inmediato en el hilo que llama; si la tarea espera en la
+     * cola más de lo permitido, se ejecuta {@code shed} en su lugar.
+     *
+     * @param task La tarea
+     * @param shed Lo que se hace al rechazar la tarea, normalmente enviar
+     *             {@link #rejection()} y cerrar la conexión
+     */
+    void execute(Runnable task, Runnable shed) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            shedQueueFull.increment();
+            shed.run();
+            return;
+        }
+        long enqueued = System.nanoTime();
+        try {
+            executor.execute(() -> run(task, shed, enqueued));
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            shedQueueFull.increment();
+            shed.run();
+        }
+    }
+
+    /**
+     * Ejecuta en el pool la continuación de una solicitud ya admitida, como la
+     * respuesta de un manejador asíncrono que acaba de completarse. No pasa por
+     * el límite de admisión: si el pool no la acepta, se ejecuta en el hilo que
+     * llama.
+     *
+     * @param task La continuación
+     */
+    void resume(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    /**
+     * Indica si, contando la tarea que llama, queda algún hilo del ejecutor
+     * sin trabajo y nada espera en la cola. Una conexión inactiva solo debe
+     * retener su hilo mientras esto se cumpla.
+     *
+     * @return true si otra tarea admitida empezaría sin esperar
+     */
+    boolean hasIdleWorker() {
+        return pending.get() < workers;
+    }
+
+    /**
+     * Obtiene la respuesta de rechazo: {@code 503} con {@code Retry-After} y
+     * {@code Connection: close}, codificada una sola vez.
+     *
+     * @return Los bytes de la respuesta; no deben modificarse
+     */
+    byte[] rejection() {
+        return rejection;
+    }
+
+    /**
+     * Obtiene una instantánea de los contadores.
+     *
+     * @return Las estadísticas de admisión
+     */
+    AdmissionStats stats() {
+        int running = active.get();
+        return new AdmissionStats(admitted.sum(), shedQueueFull.sum(), shedQueueDelay.sum(),
+                Math.max(0, pending.get() - running), running);
+    }
+
+    /**
+     * Ejecuta en el pool una tarea sacada de la cola, o la descarta si la cola
+     * está sobrecargada.
+     *
+     * @param task     La tarea
+     * @param shed     El rechazo de la tarea
+     * @param enqueued Instante en que la tarea entró en la cola
+     */
+    private void run(Runnable task, Runnable shed, long enqueued) {
+        try {
+            if (overloaded(System.nanoTime() - enqueued)) {
+                shedQueueDelay.increment();
+                shed.run();
+                return;
+            }
+            admitted.increment();
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    /**
+     * Decide si se descarta una tarea según su espera en la cola: solo cuando
+     * esa espera supera el objetivo y las esperas lo superan sin interrupción
+     * desde hace al menos un intervalo.
+     *
+     * @param waitNanos La espera de la tarea en la cola
+     * @return true si la tarea debe rechazarse
+     */
+    private boolean overloaded(long waitNanos) {
+        if (targetNanos == 0 || waitNanos < targetNanos) {
+            if (aboveTargetUntil != 0) {
+                aboveTargetUntil = 0;
+            }
+            return false;
+        }
+        long now = System.nanoTime();
+        long until = aboveTargetUntil;
+        if (until == 0) {
+            aboveTargetUntil = now + INTERVAL_NANOS;
+            return false;
+        }
+        return now - until >= 0;
+    }
+}
@@ -0,0 +1,74 @@
+package co.edu.eci.framework;
+
+/**
+ * Instantánea de las estadísticas del control de admisión del servidor.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class AdmissionStats {
+    private final long admitted;
+    private final long shedQueueFull;
+    private final long shedQueueDelay;
+    private final int queued;
+    private final int active;
+
+    /**
+     * Constructor de la instantánea de estadísticas.
+     */
+    public AdmissionStats(long admitted, long shedQueueFull, long shedQueueDelay, int queued, int active) {
+        this.admitted = admitted;
+        this.shedQueueFull = shedQueueFull;
+        this.shedQueueDelay = shedQueueDelay;
+        this.queued = queued;
+        this.active = active;
+    }
+
+    /**
+     * Obtiene el número de tareas admitidas y ejecutadas.
+     */
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    /**
+     * Obtiene el número total de tareas rechazadas con 503.
+     */
+    public long getShed() {
+        return shedQueueFull + shedQueueDelay;
+    }
+
+    /**
+     * Obtiene el número de tareas rechazadas por tener la cola llena.
+     */
+    public long getShedQueueFull() {
+        return shedQueueFull;
+    }
+
+    /**
+     * Obtiene el número de tareas rechazadas por esperar demasiado en la cola.
+     */
+    public long getShedQueueDelay() {
+        return shedQueueDelay;
+    }
+
+    /**
+     * Obtiene el número de tareas que esperan en la cola.
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Obtiene el número de tareas en ejecución.
+     */
+    public int getActive() {
+        return active;
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionStats{admitted=" + admitted + ", shedQueueFull=" + shedQueueFull + ", shedQueueDelay="
+                + shedQueueDelay + ", queued=" + queued + ", active=" + active + "}";
+    }
+}
@@ -0,0 +1,34 @@
+package co.edu.eci.framework;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Interfaz funcional para manejadores de ruta asíncronos, que devuelven el
+ * cuerpo de la respuesta cuando termina una operación externa (una consulta a
+ * otro servicio, a la base de datos...) sin ocupar un hilo mientras esperan.
+ * Con el transporte NIO la conexión queda suspendida hasta que la etapa se
+ * completa y ningún hilo del pool espera por ella; con el transporte
+ * bloqueante el hilo de la conexión espera el resultado.
+ * Si la etapa falla se responde {@code 500}, y si no se completa dentro de
+ * {@link ServerConfig#getAsyncTimeoutMillis()} se responde {@code 504} y se
+ * cancela.
+ * El cuerpo de la solicitud debe leerse antes de devolver la etapa.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface AsyncRouteHandler {
+
+    /**
+     * Inicia el manejo de la solicitud. El estado y los encabezados de
+     * {@code response} pueden fijarse hasta que la etapa se complete.
+     *
+     * @param request  La solicitud HTTP
+     * @param response La respuesta HTTP
+     * @return Una etapa que se completa con el cuerpo de la respuesta
+     * @throws Exception Si ocurre un error al iniciar el manejo de la
+     *                   solicitud
+     */
+    CompletionStage<String> handle(Request request, Response response) throws Exception;
+}
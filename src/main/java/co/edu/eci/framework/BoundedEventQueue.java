@@ -0,0 +1,111 @@
+package co.edu.eci.framework;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cola acotada sin bloqueos para varios productores y consumidores, sobre un
+ * arreglo circular con un número de secuencia por casilla (el algoritmo de
+ * Dmitry Vyukov). Encolar y desencolar cuestan una comparación e intercambio
+ * cuando no hay competencia, y una cola llena se detecta sin esperar.
+ *
+ * @param <E> El tipo de los elementos
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class BoundedEventQueue<E> {
+
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Crea una cola con al menos la capacidad indicada, redondeada a una
+     * potencia de dos.
+     *
+     * @param capacity La capacidad mínima (mayor que cero)
+     */
+    BoundedEventQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Encola un elemento si hay espacio.
+     *
+     * @param element El elemento
+     * @return false si la cola está llena
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Desencola el elemento más antiguo.
+     *
+     * @return El elemento, o null si la cola está vacía
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = (E) buffer[index];
+                    buffer[index] = null;
+                    sequences.set(index, position + mask + 1);
+                    return element;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Obtiene el número aproximado de elementos en cola.
+     *
+     * @return El número de elementos
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    /**
+     * Obtiene la capacidad real de la cola.
+     *
+     * @return La capacidad
+     */
+    int capacity() {
+        return buffer.length;
+    }
+}
@@ -0,0 +1,286 @@
+package co.edu.eci.framework;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de búferes de E/S por clases de tamaño (potencias de dos de 4 KB a
+ * 64 KB), para que las conexiones reutilicen sus búferes de lectura y
+ * escritura en lugar de crearlos en cada conexión.
+ * Tiene dos niveles: una caché pequeña por hilo, que atiende sin
+ * sincronización el caso habitual de un hilo que libera un búfer y luego
+ * pide otro, y un nivel compartido acotado donde caen los búferes que no
+ * caben en la caché del hilo. Los hilos virtuales usan solo el nivel
+ * compartido, porque su caché moriría con cada conexión. Las peticiones
+ * mayores que la clase más grande se crean sin pool.
+ * Con la detección de fugas, cada búfer prestado guarda dónde se adquirió; si
+ * el recolector lo encuentra inalcanzable sin haberse devuelto, se informa
+ * por la salida de error con ese origen. También se detectan las
+ * devoluciones dobles, que de otro modo entregarían el mismo búfer a dos
+ * conexiones.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class BufferPool {
+
+    /** Tamaño de la clase más pequeña. */
+    static final int MIN_SIZE = 4 * 1024;
+    /** Tamaño de la clase más grande; las peticiones mayores no usan el pool. */
+    static final int MAX_SIZE = 64 * 1024;
+
+    private static final int CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE / MIN_SIZE) + 1;
+    private static final int LOCAL_CAPACITY = 4;
+
+    private final String name;
+    private final boolean direct;
+    private final int maxShared;
+    private final boolean leakDetection;
+    private final ByteBuffer[][] shared;
+    private final int[] sharedCount;
+    private final ThreadLocal<LocalCache> local;
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder pooled = new LongAdder();
+    private final LongAdder pooledBytes = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final Map<Integer, List<Lease>> leases = new HashMap<>();
+    private final ReferenceQueue<ByteBuffer> collected = new ReferenceQueue<>();
+
+    /**
+     * Crea un pool.
+     *
+     * @param name          Nombre del pool en las métricas
+     * @param direct        true para búferes directos, fuera del heap
+     * @param maxShared     Búferes por clase de tamaño en el nivel compartido
+     *                      (0 deshabilita el pool)
+     * @param leakDetection true para registrar el origen de cada búfer
+     *                      prestado e informar de los que no se devuelven
+     */
+    BufferPool(String name, boolean direct, int maxShared, boolean leakDetection) {
+        this.name = name;
+        this.direct = direct;
+        this.maxShared = maxShared;
+        this.leakDetection = leakDetection;
+        this.shared = new ByteBuffer[CLASSES][maxShared];
+        this.sharedCount = new int[CLASSES];
+        this.local = maxShared > 0 ? ThreadLocal.withInitial(LocalCache::new) : null;
+    }
+
+    /**
+     * Presta un búfer vacío de al menos la capacidad pedida. Los búferes de
+     * pool tienen la capacidad de su clase; los del heap exponen su arreglo
+     * con {@link ByteBuffer#array()}.
+     *
+     * @param minCapacity Capacidad mínima en bytes
+     * @return El búfer, que debe devolverse con {@link #release}
+     */
+    ByteBuffer acquire(int minCapacity) {
+        acquired.increment();
+        int index = classIndex(minCapacity);
+        ByteBuffer buffer = index < 0 ? null : take(index);
+        if (buffer == null) {
+            misses.increment();
+            int capacity = index < 0 ? minCapacity : MIN_SIZE << index;
+            buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        } else {
+            pooled.decrement();
+            pooledBytes.add(-buffer.capacity());
+            buffer.clear();
+        }
+        if (leakDetection) {
+            track(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Devuelve un búfer prestado. El llamador no debe volver a usarlo.
+     *
+     * @param buffer El búfer, o null para no hacer nada
+     */
+    void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        if (leakDetection && !untrack(buffer)) {
+            return;
+        }
+        released.increment();
+        int index = buffer.capacity() <= MAX_SIZE && Integer.bitCount(buffer.capacity()) == 1
+                ? classIndex(buffer.capacity())
+                : -1;
+        if (index < 0 || buffer.isDirect() != direct || !put(index, buffer)) {
+            dropped.increment();
+            return;
+        }
+        pooled.increment();
+        pooledBytes.add(buffer.capacity());
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas del pool.
+     *
+     * @return Las estadísticas
+     */
+    BufferPoolStats stats() {
+        if (leakDetection) {
+            synchronized (leases) {
+                expunge();
+            }
+        }
+        long acquiredCount = acquired.sum();
+        long releasedCount = released.sum();
+        return new BufferPoolStats(name, direct, acquiredCount, misses.sum(), releasedCount, dropped.sum(),
+                pooled.sum(), pooledBytes.sum(), acquiredCount - releasedCount, leaks.sum());
+    }
+
+    private ByteBuffer take(int index) {
+        if (local != null && !Thread.currentThread().isVirtual()) {
+            LocalCache cache = local.get();
+            int count = cache.counts[index];
+            if (count > 0) {
+                ByteBuffer buffer = cache.buffers[index][--count];
+                cache.buffers[index][count] = null;
+                cache.counts[index] = count;
+                return buffer;
+            }
+        }
+        if (maxShared == 0) {
+            return null;
+        }
+        synchronized (shared[index]) {
+            int count = sharedCount[index];
+            if (count == 0) {
+                return null;
+            }
+            ByteBuffer buffer = shared[index][--count];
+            shared[index][count] = null;
+            sharedCount[index] = count;
+            return buffer;
+        }
+    }
+
+    private boolean put(int index, ByteBuffer buffer) {
+        if (local != null && !Thread.currentThread().isVirtual()) {
+            LocalCache cache = local.get();
+            int count = cache.counts[index];
+            if (count < LOCAL_CAPACITY) {
+                cache.buffers[index][count] = buffer;
+                cache.counts[index] = count + 1;
+                return true;
+            }
+        }
+        if (maxShared == 0) {
+            return false;
+        }
+        synchronized (shared[index]) {
+            int count = sharedCount[index];
+            if (count == maxShared) {
+                return false;
+            }
+            shared[index][count] = buffer;
+            sharedCount[index] = count + 1;
+            return true;
+        }
+    }
+
+    /**
+     * Obtiene la clase de tamaño que atiende una capacidad.
+     *
+     * @param capacity La capacidad pedida
+     * @return El índice de la clase, o -1 si supera la clase más grande
+     */
+    private static int classIndex(int capacity) {
+        if (capacity > MAX_SIZE) {
+            return -1;
+        }
+        if (capacity <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - Integer.numberOfTrailingZeros(MIN_SIZE);
+    }
+
+    private void track(ByteBuffer buffer) {
+        Lease lease = new Lease(buffer, collected, new Throwable("Búfer de " + buffer.capacity()
+                + " bytes adquirido del pool " + name));
+        synchronized (leases) {
+            expunge();
+            leases.computeIfAbsent(lease.identity, k -> new ArrayList<>(1)).add(lease);
+        }
+    }
+
+    private boolean untrack(ByteBuffer buffer) {
+        int identity = System.identityHashCode(buffer);
+        synchronized (leases) {
+            expunge();
+            List<Lease> candidates = leases.get(identity);
+            if (candidates != null) {
+                for (Iterator<Lease> it = candidates.iterator(); it.hasNext();) {
+                    Lease lease = it.next();
+                    if (lease.get() == buffer) {
+                        it.remove();
+                        lease.clear();
+                        if (candidates.isEmpty()) {
+                            leases.remove(identity);
+                        }
+                        return true;
+                    }
+                }
+            }
+        }
+        new IllegalStateException("Búfer devuelto dos veces o ajeno al pool " + name).printStackTrace();
+        return false;
+    }
+
+    /**
+     * Informa de los búferes que el recolector encontró inalcanzables sin
+     * haberse devuelto. Debe llamarse con el candado de {@code leases}.
+     */
+    private void expunge() {
+        Lease lease;
+        while ((lease = (Lease) collected.poll()) != null) {
+            List<Lease> candidates = leases.get(lease.identity);
+            if (candidates != null && candidates.remove(lease)) {
+                if (candidates.isEmpty()) {
+                    leases.remove(lease.identity);
+                }
+                leaks.increment();
+                System.err.println("Fuga de búfer: no se devolvió al pool " + name + " antes de descartarse");
+                lease.origin.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Caché de búferes de un hilo, por clase de tamaño.
+     */
+    private static final class LocalCache {
+        final ByteBuffer[][] buffers = new ByteBuffer[CLASSES][LOCAL_CAPACITY];
+        final int[] counts = new int[CLASSES];
+    }
+
+    /**
+     * Préstamo registrado con la detección de fugas: una referencia débil al
+     * búfer con el lugar donde se adquirió.
+     */
+    private static final class Lease extends WeakReference<ByteBuffer> {
+        final int identity;
+        final Throwable origin;
+
+        Lease(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue, Throwable origin) {
+            super(buffer, queue);
+            this.identity = System.identityHashCode(buffer);
+            this.origin = origin;
+        }
+    }
+}
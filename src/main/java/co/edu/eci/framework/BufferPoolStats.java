@@ -0,0 +1,110 @@
+package co.edu.eci.framework;
+
+/**
+ * Instantánea de las estadísticas de un pool de búferes de E/S.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class BufferPoolStats {
+    private final String name;
+    private final boolean direct;
+    private final long acquired;
+    private final long misses;
+    private final long released;
+    private final long dropped;
+    private final long pooled;
+    private final long pooledBytes;
+    private final long outstanding;
+    private final long leaks;
+
+    /**
+     * Constructor de la instantánea de estadísticas.
+     */
+    public BufferPoolStats(String name, boolean direct, long acquired, long misses, long released, long dropped,
+            long pooled, long pooledBytes, long outstanding, long leaks) {
+        this.name = name;
+        this.direct = direct;
+        this.acquired = acquired;
+        this.misses = misses;
+        this.released = released;
+        this.dropped = dropped;
+        this.pooled = pooled;
+        this.pooledBytes = pooledBytes;
+        this.outstanding = outstanding;
+        this.leaks = leaks;
+    }
+
+    /**
+     * Obtiene el nombre del pool ({@code heap} o {@code direct}).
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Indica si el pool entrega búferes directos, fuera del heap.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Obtiene el número de búferes prestados.
+     */
+    public long getAcquired() {
+        return acquired;
+    }
+
+    /**
+     * Obtiene el número de préstamos que no encontraron un búfer libre y
+     * tuvieron que crear uno.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Obtiene el número de búferes devueltos.
+     */
+    public long getReleased() {
+        return released;
+    }
+
+    /**
+     * Obtiene el número de búferes devueltos que se descartaron por encontrar
+     * el pool lleno o por no pertenecer a ninguna clase de tamaño.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Obtiene el número de búferes libres guardados en el pool.
+     */
+    public long getPooled() {
+        return pooled;
+    }
+
+    /**
+     * Obtiene los bytes de los búferes libres guardados en el pool.
+     */
+    public long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * Obtiene el número de búferes prestados que aún no se devuelven.
+     */
+    public long getOutstanding() {
+        return outstanding;
+    }
+
+    /**
+     * Obtiene el número de búferes descartados sin devolverse, detectados con
+     * la detección de fugas.
+     */
+    public long getLeaks() {
+        return leaks;
+    }
+}
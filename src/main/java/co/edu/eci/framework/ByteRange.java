@@ -0,0 +1,122 @@
+package co.edu.eci.framework;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rango de bytes solicitado con el encabezado {@code Range} (RFC 7233).
+ * Los extremos son inclusivos, igual que en {@code Content-Range}.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class ByteRange {
+
+    /** Máximo de rangos aceptados en una solicitud; con más se sirve el recurso completo. */
+    static final int MAX_RANGES = 16;
+
+    private final long start;
+    private final long end;
+
+    /**
+     * Crea un rango de bytes.
+     *
+     * @param start Primer byte del rango
+     * @param end   Último byte del rango (inclusivo)
+     */
+    ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Obtiene el primer byte del rango.
+     *
+     * @return La posición inicial
+     */
+    long getStart() {
+        return start;
+    }
+
+    /**
+     * Obtiene el último byte del rango (inclusivo).
+     *
+     * @return La posición final
+     */
+    long getEnd() {
+        return end;
+    }
+
+    /**
+     * Obtiene el número de bytes del rango.
+     *
+     * @return La longitud del rango
+     */
+    long length() {
+        return end - start + 1;
+    }
+
+    /**
+     * Construye el valor del encabezado {@code Content-Range} para el rango.
+     *
+     * @param totalLength Longitud total del recurso
+     * @return El valor del encabezado
+     */
+    String toContentRange(long totalLength) {
+        return "bytes " + start + "-" + end + "/" + totalLength;
+    }
+
+    /**
+     * Parsea el encabezado {@code Range} para un recurso de la longitud dada.
+     * Los rangos que quedan fuera del recurso se descartan.
+     *
+     * @param header Valor del encabezado (puede ser null)
+     * @param length Longitud total del recurso
+     * @return null si el encabezado no existe, no es válido o pide demasiados
+     *         rangos (se sirve el recurso completo); una lista vacía si ningún
+     *         rango es satisfacible (416); o los rangos a servir
+     */
+    static List<ByteRange> parse(String header, long length) {
+        if (header == null || !header.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String[] specs = header.substring(6).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            String trimmed = spec.trim();
+            int dash = trimmed.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                long start;
+                long end;
+                if (dash == 0) {
+                    long suffix = Long.parseLong(trimmed.substring(1));
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(trimmed.substring(0, dash));
+                    end = dash == trimmed.length() - 1 ? length - 1
+                            : Math.min(Long.parseLong(trimmed.substring(dash + 1)), length - 1);
+                    if (start > end && start < length) {
+                        return null;
+                    }
+                }
+                if (start < length && start <= end) {
+                    ranges.add(new ByteRange(start, end));
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ranges;
+    }
+}
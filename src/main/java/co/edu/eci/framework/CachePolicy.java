@@ -0,0 +1,140 @@
+package co.edu.eci.framework;
+
+import java.util.Arrays;
+
+/**
+ * Opciones de la caché de respuestas de una ruta GET. Solo conviene para
+ * manejadores que son funciones puras de la ruta, de los parámetros de
+ * consulta y de los encabezados que forman la clave.
+ * Los métodos de configuración devuelven la misma instancia para permitir el
+ * encadenamiento, igual que {@link ServerConfig}.
+ *
+ * <pre>
+ * WebFramework.get("/greeting", handler, new CachePolicy().ttl(30_000).varyByQuery("name"));
+ * </pre>
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class CachePolicy {
+
+    private int ttlMillis = 60_000;
+    private int maxEntries = 1000;
+    private long maxBytes = 8L * 1024 * 1024;
+    private String[] queryParams;
+    private String[] headers = new String[0];
+
+    /**
+     * Establece cuánto tiempo se reutiliza una respuesta en caché.
+     *
+     * @param millis Tiempo de vida en milisegundos (mayor que cero)
+     * @return Esta política para encadenamiento de métodos
+     */
+    public CachePolicy ttl(int millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("El tiempo de vida de la caché debe ser mayor que cero");
+        }
+        this.ttlMillis = millis;
+        return this;
+    }
+
+    /**
+     * Establece el máximo de respuestas en caché; al superarlo se desalojan
+     * las menos usadas.
+     *
+     * @param count Máximo de entradas (mayor que cero)
+     * @return Esta política para encadenamiento de métodos
+     */
+    public CachePolicy maxEntries(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("El máximo de entradas de la caché debe ser mayor que cero");
+        }
+        this.maxEntries = count;
+        return this;
+    }
+
+    /**
+     * Establece el presupuesto en bytes de las respuestas en caché; al
+     * superarlo se desalojan las menos usadas.
+     *
+     * @param bytes Máximo de bytes (mayor que cero)
+     * @return Esta política para encadenamiento de métodos
+     */
+    public CachePolicy maxBytes(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("El presupuesto de bytes de la caché debe ser mayor que cero");
+        }
+        this.maxBytes = bytes;
+        return this;
+    }
+
+    /**
+     * Limita la clave a los parámetros de consulta indicados. Por defecto la
+     * clave incluye la cadena de consulta completa; sin nombres, la consulta
+     * no forma parte de la clave.
+     *
+     * @param names Los nombres de los parámetros
+     * @return Esta política para encadenamiento de métodos
+     */
+    public CachePolicy varyByQuery(String... names) {
+        this.queryParams = names.clone();
+        Arrays.sort(this.queryParams);
+        return this;
+    }
+
+    /**
+     * Agrega a la clave los valores de los encabezados indicados.
+     *
+     * @param names Los nombres de los encabezados
+     * @return Esta política para encadenamiento de métodos
+     */
+    public CachePolicy varyByHeaders(String... names) {
+        this.headers = names.clone();
+        return this;
+    }
+
+    /**
+     * Obtiene el tiempo de vida de las respuestas en caché.
+     *
+     * @return El tiempo de vida en milisegundos
+     */
+    public int getTtlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * Obtiene el máximo de respuestas en caché.
+     *
+     * @return El máximo de entradas
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Obtiene el presupuesto en bytes de la caché.
+     *
+     * @return El máximo de bytes
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Obtiene los parámetros de consulta que forman la clave.
+     *
+     * @return Los nombres ordenados, o null si se usa la consulta completa
+     */
+    public String[] getQueryParams() {
+        return queryParams == null ? null : queryParams.clone();
+    }
+
+    /**
+     * Obtiene los encabezados que forman la clave.
+     *
+     * @return Los nombres de los encabezados
+     */
+    public String[] getHeaders() {
+        return headers.clone();
+    }
+}
@@ -0,0 +1,177 @@
+package co.edu.eci.framework;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Utilidades de compresión de respuestas: negociación de
+ * {@code Accept-Encoding}, selección de tipos MIME compresibles y compresión
+ * gzip/deflate.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class Compression {
+
+    /** Codificación gzip (RFC 1952). */
+    static final String GZIP = "gzip";
+
+    /** Codificación deflate: flujo zlib (RFC 1950), como define HTTP. */
+    static final String DEFLATE = "deflate";
+
+    /** Encabezado gzip mínimo: sin nombre de archivo, fecha ni banderas; SO desconocido. */
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    /**
+     * Deflaters reutilizables: crear uno reserva memoria nativa de zlib, lo que
+     * cuesta más que comprimir una respuesta pequeña.
+     */
+    private static final Queue<Deflater> RAW_DEFLATERS = new ConcurrentLinkedQueue<>();
+    private static final Queue<Deflater> ZLIB_DEFLATERS = new ConcurrentLinkedQueue<>();
+    private static final int MAX_POOLED_DEFLATERS = 64;
+
+    private Compression() {
+    }
+
+    /**
+     * Elige la codificación a usar según el encabezado {@code Accept-Encoding}.
+     * Se prefiere gzip ante igual calidad; las codificaciones con q=0 se
+     * excluyen y {@code *} acepta cualquiera no mencionada.
+     *
+     * @param acceptEncoding El valor del encabezado (puede ser null)
+     * @return {@link #GZIP}, {@link #DEFLATE} o null si no se debe comprimir
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = quality;
+                case "deflate" -> deflate = quality;
+                case "*" -> wildcard = quality;
+                default -> {
+                }
+            }
+        }
+        if (gzip < 0) {
+            gzip = wildcard;
+        }
+        if (deflate < 0) {
+            deflate = wildcard;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    /**
+     * Indica si vale la pena comprimir un tipo de contenido. Los formatos que
+     * ya están comprimidos (imágenes rasterizadas, audio, video, archivos
+     * comprimidos) se envían tal cual.
+     *
+     * @param contentType El tipo MIME (puede incluir parámetros)
+     * @return true si el tipo es compresible
+     */
+    static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/")
+                || type.startsWith("application/json")
+                || type.startsWith("application/javascript")
+                || type.startsWith("application/xml")
+                || type.startsWith("image/svg+xml")
+                || type.startsWith("image/x-icon");
+    }
+
+    /**
+     * Comprime un contenido con la codificación indicada.
+     *
+     * @param content  El contenido original
+     * @param encoding {@link #GZIP} o {@link #DEFLATE}
+     * @return El contenido comprimido
+     */
+    static byte[] compress(byte[] content, String encoding) {
+        boolean gzip = GZIP.equals(encoding);
+        Queue<Deflater> pool = gzip ? RAW_DEFLATERS : ZLIB_DEFLATERS;
+        Deflater deflater = pool.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+        }
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            byte[] chunk = new byte[Math.min(8192, Math.max(64, content.length))];
+            if (gzip) {
+                buffer.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+            }
+            deflater.setInput(content);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                buffer.write(chunk, 0, count);
+            }
+            if (gzip) {
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                writeIntLE(buffer, (int) crc.getValue());
+                writeIntLE(buffer, content.length);
+            }
+            return buffer.toByteArray();
+        } finally {
+            deflater.reset();
+            if (pool.size() < MAX_POOLED_DEFLATERS) {
+                pool.offer(deflater);
+            } else {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Escribe un entero de 32 bits en orden little-endian (trailer gzip).
+     *
+     * @param buffer El destino
+     * @param value  El valor a escribir
+     */
+    private static void writeIntLE(ByteArrayOutputStream buffer, int value) {
+        buffer.write(value);
+        buffer.write(value >>> 8);
+        buffer.write(value >>> 16);
+        buffer.write(value >>> 24);
+    }
+
+    /**
+     * Deriva el ETag de una variante comprimida, para que no coincida con el de
+     * la representación sin comprimir.
+     *
+     * @param etag     El ETag original entre comillas
+     * @param encoding La codificación de la variante
+     * @return El ETag de la variante
+     */
+    static String variantETag(String etag, String encoding) {
+        return etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+    }
+}
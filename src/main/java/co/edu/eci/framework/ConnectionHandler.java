@@ -0,0 +1,941 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Procesa las solicitudes HTTP de una conexión: parsea cada solicitud, la
+ * despacha al router o al manejador de archivos estáticos y escribe la
+ * respuesta. Es independiente del transporte, de modo que lo comparten el
+ * servidor bloqueante y el transporte NIO.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+class ConnectionHandler {
+
+    private final Router router;
+    private final StaticFileHandler staticFileHandler;
+    private final ServerConfig config;
+    private final ServerMetrics metrics;
+    private final AdmissionController admission;
+    private final BooleanSupplier running;
+
+    /**
+     * Constructor del procesador de conexiones.
+     *
+     * @param router            El router para manejar las rutas
+     * @param staticFileHandler El manejador de archivos estáticos
+     * @param config            Las opciones de configuración del servidor
+     * @param metrics           Las métricas donde registrar cada solicitud
+     * @param admission         El control de admisión que ejecuta los flujos
+     *                          HTTP/2
+     * @param running           Indica si el servidor sigue en ejecución
+     */
+    ConnectionHandler(Router router, StaticFileHandler staticFileHandler, ServerConfig config,
+            ServerMetrics metrics, AdmissionController admission, BooleanSupplier running) {
+        this.router = router;
+        this.staticFileHandler = staticFileHandler;
+        this.config = config;
+        this.metrics = metrics;
+        this.admission = admission;
+        this.running = running;
+    }
+
+    /**
+     * Lee, atiende y responde la siguiente solicitud de la conexión.
+     * Con solicitudes encadenadas (pipelining) ya recibidas, la respuesta queda
+     * en el búfer de salida para enviarla junto con las siguientes, hasta
+     * {@link ServerConfig#getMaxPipelinedRequests()} respuestas; si no queda
+     * ninguna solicitud pendiente se envía de inmediato. Las respuestas salen
+     * siempre en el orden de las solicitudes.
+     * Si la conexión empieza con el prefacio HTTP/2 o pide la actualización a
+     * h2c, el resto de la conexión la atiende un {@link Http2Connection}.
+     *
+     * @param connection La conexión de la que leer la solicitud
+     * @return true si la conexión debe mantenerse abierta para más solicitudes
+     * @throws IOException Si hay un error de lectura o escritura
+     */
+    boolean process(HttpConnection connection) throws IOException {
+        HttpRequestData requestData;
+        try {
+            requestData = connection.getParser().parse();
+        } catch (HttpParseException e) {
+            metrics.recordMalformed(e.getStatusCode());
+            sendErrorResponse(connection, e.getStatusCode(), e.getMessage(), false);
+            return false;
+        }
+        if (requestData == null) {
+            return false;
+        }
+        if (config.isHttp2Enabled()) {
+            if (Http2Connection.isPreface(requestData)) {
+                new Http2Connection(this, connection, config, admission, running).serve(null, null);
+                return false;
+            }
+            byte[] settings = Http2Connection.upgradeSettings(requestData);
+            if (settings != null) {
+                new Http2Connection(this, connection, config, admission, running).serve(requestData, settings);
+                return false;
+            }
+        }
+        int served = connection.incrementRequestCount();
+        RequestBodyStream body;
+        try {
+            body = RequestBodyStream.forRequest(requestData, connection, config);
+        } catch (HttpParseException e) {
+            metrics.recordMalformed(e.getStatusCode());
+            sendErrorResponse(connection, e.getStatusCode(), e.getMessage(), false);
+            return false;
+        }
+        boolean keepAlive = handleRequest(requestData, body, connection, shouldKeepAlive(requestData, served));
+        if (connection.getSuspension() != null) {
+            connection.flush();
+            return keepAlive;
+        }
+        return finishResponse(connection, keepAlive);
+    }
+
+    /**
+     * Atiende la solicitud de un flujo HTTP/2 sobre su conexión virtual. La
+     * conexión del flujo no se reutiliza ni se suspende: el manejador escribe
+     * la respuesta en este hilo y se envía completa.
+     *
+     * @param requestData Los datos de la solicitud
+     * @param connection  La conexión virtual del flujo
+     * @throws IOException Si hay un error de lectura o escritura
+     */
+    void processStream(HttpRequestData requestData, HttpConnection connection) throws IOException {
+        connection.incrementRequestCount();
+        RequestBodyStream body;
+        try {
+            body = RequestBodyStream.forRequest(requestData, connection, config);
+        } catch (HttpParseException e) {
+            sendStreamError(connection, e.getStatusCode(), e.getMessage());
+            return;
+        }
+        handleRequest(requestData, body, connection, true);
+        connection.flush();
+    }
+
+    /**
+     * Responde con un error un flujo HTTP/2 cuya solicitud es inválida.
+     *
+     * @param connection La conexión virtual del flujo
+     * @param statusCode El código de estado HTTP del error
+     * @param message    El mensaje de error
+     * @throws IOException Si hay un error al escribir
+     */
+    void sendStreamError(HttpConnection connection, int statusCode, String message) throws IOException {
+        metrics.recordMalformed(statusCode);
+        sendErrorResponse(connection, statusCode, message, true);
+        connection.flush();
+    }
+
+    /**
+     * Termina la solicitud de una conexión suspendida por un manejador
+     * asíncrono cuya etapa ya se completó: escribe su respuesta y la envía
+     * igual que {@link #process}.
+     *
+     * @param connection La conexión suspendida
+     * @return true si la conexión debe mantenerse abierta para más solicitudes
+     * @throws IOException Si hay un error de escritura
+     */
+    boolean resume(HttpConnection connection) throws IOException {
+        return finishResponse(connection, connection.resume());
+    }
+
+    /**
+     * Envía la respuesta recién escrita, o la deja en el búfer si ya hay otra
+     * solicitud encadenada y no se alcanzó el máximo de respuestas agrupadas.
+     *
+     * @param connection La conexión
+     * @param keepAlive  true si la conexión sigue abierta
+     * @return El mismo valor de {@code keepAlive}
+     * @throws IOException Si hay un error de escritura
+     */
+    private boolean finishResponse(HttpConnection connection, boolean keepAlive) throws IOException {
+        if (!keepAlive || !connection.hasBufferedInput()
+                || connection.addPendingResponse() >= config.getMaxPipelinedRequests()) {
+            connection.flush();
+        }
+        return keepAlive;
+    }
+
+    /**
+     * Maneja una petición HTTP individual y escribe su respuesta, registrando
+     * su estado y su latencia en las métricas.
+     * Antes de responder se descarta lo que el manejador no leyó del cuerpo,
+     * para que la conexión pueda atender la siguiente solicitud.
+     *
+     * @param requestData Los datos de la solicitud ya parseada
+     * @param body        El flujo del cuerpo de la solicitud
+     * @param connection  La conexión donde escribir la respuesta
+     * @param keepAlive   true si la conexión puede seguir abierta tras la
+     *                    respuesta
+     * @return true si la conexión sigue abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private boolean handleRequest(HttpRequestData requestData, RequestBodyStream body, HttpConnection connection,
+            boolean keepAlive) throws IOException {
+        long started = System.nanoTime();
+        Optional<RouteMatch> match = router.match(requestData.method, requestData.path);
+        ServerMetrics.RouteMetrics routeMetrics;
+
+        if (match.isPresent()) {
+            Route route = match.get().getRoute();
+            routeMetrics = metrics.forRoute(route);
+            ConstantResponse constant = route.getConstantResponse();
+            if (constant != null) {
+                keepAlive = keepAlive && body.discard(config.getMaxBodyDiscardSize());
+                sendConstantResponse(connection, requestData, constant, keepAlive);
+                recordRequest(routeMetrics, requestData, connection, started);
+                return keepAlive;
+            }
+            Request request = new Request(
+                    requestData.method,
+                    requestData.path,
+                    requestData.queryString,
+                    requestData.headers,
+                    body,
+                    match.get().getPathParams());
+            Response response = new Response();
+            if (route.isAsync()) {
+                return handleAsyncRoute(route, request, response, requestData, body, connection, keepAlive,
+                        routeMetrics, started);
+            }
+            if (route.isStreaming()) {
+                keepAlive = handleStreamingRoute(route, request, response, requestData, body, connection, keepAlive);
+            } else {
+                keepAlive = handleRoute(route, request, response, requestData, body, connection, keepAlive);
+            }
+        } else {
+            keepAlive = keepAlive && body.discard(config.getMaxBodyDiscardSize());
+            StaticFileHandler.StaticFileResult fileResult = staticFileHandler.serveStaticFile(requestData.path);
+
+            if (fileResult.isFound()) {
+                routeMetrics = metrics.forStaticFile(requestData.method);
+                sendStaticFileResponse(connection, requestData, fileResult, keepAlive);
+            } else {
+                routeMetrics = metrics.forUnmatched(requestData.method);
+                sendErrorResponse(connection, 404, "Not Found", keepAlive);
+            }
+        }
+        recordRequest(routeMetrics, requestData, connection, started);
+        return keepAlive;
+    }
+
+    /**
+     * Ejecuta una ruta cuyo manejador devuelve el cuerpo como String. Si el
+     * manejador falla se responde 500. Si la ruta tiene caché, la respuesta
+     * vigente se envía sin ejecutar el manejador, y si otra solicitud con la
+     * misma clave ya lo está ejecutando se espera su resultado.
+     *
+     * @param route       La ruta a ejecutar
+     * @param request     La solicitud HTTP
+     * @param response    La respuesta HTTP
+     * @param requestData Los datos de la solicitud
+     * @param body        El flujo del cuerpo de la solicitud
+     * @param connection  La conexión donde escribir la respuesta
+     * @param keepAlive   true si la conexión puede seguir abierta
+     * @return true si la conexión sigue abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private boolean handleRoute(Route route, Request request, Response response, HttpRequestData requestData,
+            RequestBodyStream body, HttpConnection connection, boolean keepAlive) throws IOException {
+        ResponseCache cache = route.getCache();
+        String key = null;
+        CompletableFuture<ResponseCache.Entry> flight = null;
+        if (cache != null) {
+            key = cache.key(request, requestData.headers);
+            ResponseCache.Entry cached = cache.get(key);
+            if (cached == null) {
+                flight = cache.claim(key);
+                if (flight == null) {
+                    cached = cache.await(key);
+                }
+            }
+            if (cached != null) {
+                keepAlive = keepAlive && body.discard(config.getMaxBodyDiscardSize());
+                sendCachedResponse(connection, requestData, cached, keepAlive);
+                return keepAlive;
+            }
+        }
+
+        ResponseCache.Entry entry = null;
+        String responseBody;
+        try {
+            responseBody = route.execute(request, response);
+            if (flight != null) {
+                entry = cache.put(key, response, responseBody.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (HttpParseException e) {
+            sendErrorResponse(connection, e.getStatusCode(), e.getMessage(), false);
+            return false;
+        } catch (Exception e) {
+            System.err.println("Error al ejecutar el manejador de ruta: " + e.getMessage());
+            keepAlive = keepAlive && body.discard(config.getMaxBodyDiscardSize());
+            sendErrorResponse(connection, 500, "Internal Server Error", keepAlive);
+            return keepAlive;
+        } finally {
+            if (flight != null) {
+                cache.release(key, flight, entry);
+            }
+        }
+        keepAlive = keepAlive && body.discard(config.getMaxBodyDiscardSize());
+        if (entry != null) {
+            sendCachedResponse(connection, requestData, entry, keepAlive);
+        } else {
+            sendResponse(connection, requestData, response, responseBody, keepAlive);
+        }
+        return keepAlive;
+    }
+
+    /**
+     * Inicia una ruta asíncrona. Si el transporte puede suspender la conexión
+     * y la etapa aún no termina, la conexión queda suspendida y el hilo
+     * vuelve al pool; si no, se espera el resultado en este hilo. En ambos
+     * casos la respuesta la escribe {@link #completeAsyncRoute}.
+     *
+     * @param route        La ruta a ejecutar
+     * @param request      La solicitud HTTP
+     * @param response     La respuesta HTTP
+     * @param requestData  Los datos de la solicitud
+     * @param body         El flujo del cuerpo de la solicitud
+     * @param connection   La conexión donde escribir la respuesta
+     * @param keepAlive    true si la conexión puede seguir abierta
+     * @param routeMetrics Las métricas de la ruta
+     * @param started      Instante en que empezó la solicitud, en nanosegundos
+     * @return true si la conexión sigue abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private boolean handleAsyncRoute(Route route, Request request, Response response, HttpRequestData requestData,
+            RequestBodyStream body, HttpConnection connection, boolean keepAlive,
+            ServerMetrics.RouteMetrics routeMetrics, long started) throws IOException {
+        CompletableFuture<String> result;
+        try {
+            result = route.executeAsync(request, response).toCompletableFuture();
+        } catch (HttpParseException e) {
+            result = CompletableFuture.failedFuture(e);
+            keepAlive = false;
+        } catch (Exception e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        boolean alive = keepAlive && body.discard(config.getMaxBodyDiscardSize());
+        CompletableFuture<String> handler = result;
+        CompletableFuture<String> timed = result.copy().orTimeout(config.getAsyncTimeoutMillis(),
+                TimeUnit.MILLISECONDS);
+        HttpConnection.Continuation continuation = () -> completeAsyncRoute(route, handler, timed, response,
+                requestData, connection, alive, routeMetrics, started);
+        if (timed.isDone() || !connection.canSuspend()) {
+            return continuation.resume();
+        }
+        connection.suspend(timed, continuation);
+        return alive;
+    }
+
+    /**
+     * Escribe la respuesta de una ruta asíncrona cuya etapa ya terminó (o,
+     * con el transporte bloqueante, espera a que termine): el cuerpo si se
+     * completó, {@code 504} si se agotó el tiempo y {@code 500} si falló.
+     *
+     * @param route        La ruta ejecutada
+     * @param handler      La etapa devuelta por el manejador
+     * @param timed        La misma etapa con el tiempo máximo aplicado
+     * @param response     La respuesta HTTP
+     * @param requestData  Los datos de la solicitud
+     * @param connection   La conexión donde escribir la respuesta
+     * @param keepAlive    true si la conexión puede seguir abierta
+     * @param routeMetrics Las métricas de la ruta
+     * @param started      Instante en que empezó la solicitud, en nanosegundos
+     * @return true si la conexión sigue abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private boolean completeAsyncRoute(Route route, CompletableFuture<String> handler,
+            CompletableFuture<String> timed, Response response, HttpRequestData requestData,
+            HttpConnection connection, boolean keepAlive, ServerMetrics.RouteMetrics routeMetrics, long started)
+            throws IOException {
+        try {
+            String responseBody = timed.join();
+            sendResponse(connection, requestData, response, responseBody != null ? responseBody : "", keepAlive);
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                handler.cancel(false);
+                System.err.println("Tiempo de espera agotado en el manejador asíncrono de " + route.getPath());
+                sendErrorResponse(connection, 504, "Gateway Timeout", keepAlive);
+            } else if (cause instanceof HttpParseException parseError) {
+                keepAlive = false;
+                sendErrorResponse(connection, parseError.getStatusCode(), parseError.getMessage(), false);
+            } else {
+                System.err.println("Error al ejecutar el manejador de ruta: " + cause.getMessage());
+                sendErrorResponse(connection, 500, "Internal Server Error", keepAlive);
+            }
+        }
+        recordRequest(routeMetrics, requestData, connection, started);
+        return keepAlive;
+    }
+
+    /**
+     * Registra una solicitud atendida en las métricas y, si están
+     * configurados, en el registro de accesos y en el sink de solicitudes.
+     *
+     * @param routeMetrics Las métricas de la ruta
+     * @param requestData  Los datos de la solicitud
+     * @param connection   La conexión con la respuesta ya escrita
+     * @param started      Instante en que empezó la solicitud, en nanosegundos
+     */
+    private void recordRequest(ServerMetrics.RouteMetrics routeMetrics, HttpRequestData requestData,
+            HttpConnection connection, long started) {
+        long nanos = System.nanoTime() - started;
+        int statusCode = connection.getResponseStatus();
+        routeMetrics.record(statusCode, nanos);
+        AccessLog accessLog = metrics.getAccessLog();
+        if (accessLog != null) {
+            accessLog.record(requestData.method, requestData.path, statusCode, connection.getResponseBytes(), nanos);
+        }
+        EventSink events = metrics.getRequestEvents();
+        if (events != null) {
+            Map<String, Object> event = new LinkedHashMap<>(8);
+            event.put("time", Instant.now());
+            event.put("method", requestData.method);
+            event.put("path", requestData.path);
+            event.put("route", routeMetrics.getRoute());
+            event.put("status", statusCode);
+            event.put("durationMicros", nanos / 1000);
+            events.offer(event);
+        }
+    }
+
+    /**
+     * Ejecuta una ruta cuyo manejador escribe la respuesta en un flujo.
+     * Si el manejador falla antes de enviar los encabezados se responde 500;
+     * si falla después, la respuesta queda incompleta y la conexión se cierra
+     * (en chunked, sin el fragmento final) para que el cliente lo detecte.
+     *
+     * @param route        La ruta a ejecutar
+     * @param request      La solicitud HTTP
+     * @param response     La respuesta HTTP
+     * @param requestData  Los datos de la solicitud
+     * @param body         El flujo del cuerpo de la solicitud
+     * @param connection   La conexión donde escribir la respuesta
+     * @param keepAlive    true si la conexión puede seguir abierta
+     * @return true si la conexión sigue abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private boolean handleStreamingRoute(Route route, Request request, Response response,
+            HttpRequestData requestData, RequestBodyStream body, HttpConnection connection, boolean keepAlive)
+            throws IOException {
+        ResponseBodyStream responseBody = new ResponseBodyStream(connection.getOutput(), response,
+                "HTTP/1.1".equals(requestData.version),
+                (contentLength, chunked, delimited) -> {
+                    boolean alive = keepAlive && delimited && body.isFinished();
+                    writeStreamingHeaders(connection, response, contentLength, chunked, alive);
+                    return alive;
+                });
+        try {
+            route.executeStreaming(request, response, responseBody);
+            if (!responseBody.isCommitted()) {
+                body.discard(config.getMaxBodyDiscardSize());
+            }
+            responseBody.close();
+        } catch (HttpParseException e) {
+            if (!responseBody.isCommitted()) {
+                sendErrorResponse(connection, e.getStatusCode(), e.getMessage(), false);
+            }
+            return false;
+        } catch (Exception e) {
+            System.err.println("Error al ejecutar el manejador de ruta: " + e.getMessage());
+            if (responseBody.isCommitted()) {
+                return false;
+            }
+            boolean alive = keepAlive && body.discard(config.getMaxBodyDiscardSize());
+            sendErrorResponse(connection, 500, "Internal Server Error", alive);
+            return alive;
+        }
+        return responseBody.isKeepAlive();
+    }
+
+    /**
+     * Escribe la línea de estado y los encabezados de una respuesta en flujo.
+     *
+     * @param connection    La conexión donde escribir los encabezados
+     * @param response      La respuesta con el estado y los encabezados
+     * @param contentLength La longitud del cuerpo, o -1 si no se conoce o ya
+     *                      está en los encabezados de la respuesta
+     * @param chunked       true si el cuerpo usa codificación chunked
+     * @param keepAlive     true si la conexión seguirá abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private void writeStreamingHeaders(HttpConnection connection, Response response, long contentLength,
+            boolean chunked, boolean keepAlive) throws IOException {
+        ResponseHeaders headers = connection.startResponse(response.getStatusCode())
+                .contentType(response.getContentType());
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            headers.add(header.getKey(), header.getValue());
+        }
+        if (contentLength >= 0) {
+            headers.contentLength(contentLength);
+        }
+        if (chunked) {
+            headers.add("Transfer-Encoding", "chunked");
+        }
+        appendConnectionHeaders(headers, keepAlive);
+        connection.writeHead(headers.end());
+    }
+
+    /**
+     * Decide si la conexión debe mantenerse abierta después de responder.
+     * En HTTP/1.1 la conexión es persistente salvo "Connection: close"; en
+     * HTTP/1.0 solo lo es si el cliente envía "Connection: keep-alive".
+     *
+     * @param requestData Los datos de la solicitud
+     * @param served      Número de solicitudes atendidas en la conexión
+     * @return true si la conexión debe permanecer abierta
+     */
+    private boolean shouldKeepAlive(HttpRequestData requestData, int served) {
+        if (!running.getAsBoolean() || !config.isKeepAliveEnabled()
+                || served >= config.getMaxRequestsPerConnection()) {
+            return false;
+        }
+        String connection = findHeader(requestData.headers, "Connection");
+        if ("HTTP/1.1".equals(requestData.version)) {
+            return !hasToken(connection, "close");
+        }
+        return "HTTP/1.0".equals(requestData.version) && hasToken(connection, "keep-alive");
+    }
+
+    /**
+     * Busca un encabezado sin distinguir mayúsculas de minúsculas. Los
+     * {@link RequestHeaders} ya buscan así, sin recorrer sus entradas.
+     *
+     * @param headers Mapa de encabezados
+     * @param name    Nombre del encabezado
+     * @return El valor del encabezado, o null si no existe
+     */
+    static String findHeader(Map<String, String> headers, String name) {
+        String value = headers.get(name);
+        if (value != null || headers instanceof RequestHeaders) {
+            return value;
+        }
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Comprueba si una lista de valores separada por comas contiene un token.
+     *
+     * @param value Valor del encabezado (puede ser null)
+     * @param token Token a buscar
+     * @return true si el token está presente
+     */
+    static boolean hasToken(String value, String token) {
+        if (value == null) {
+            return false;
+        }
+        for (String part : value.split(",")) {
+            if (part.trim().equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Envía una respuesta HTTP al cliente.
+     *
+     * @param connection   La conexión donde escribir la respuesta
+     * @param requestData  Los datos de la solicitud
+     * @param response     El objeto Response con los encabezados y estado
+     * @param responseBody El cuerpo de la respuesta
+     * @param keepAlive    true si la conexión seguirá abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private void sendResponse(HttpConnection connection, HttpRequestData requestData, Response response,
+            String responseBody, boolean keepAlive) throws IOException {
+        ResponseHeaders headers = connection.startResponse(response.getStatusCode())
+                .contentType(response.getContentType());
+
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            headers.add(header.getKey(), header.getValue());
+        }
+
+        byte[] bodyBytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        if (findHeader(response.getHeaders(), "Content-Encoding") == null
+                && isCompressionCandidate(response.getContentType(), bodyBytes.length)) {
+            headers.add("Vary", "Accept-Encoding");
+            String encoding = Compression.negotiate(findHeader(requestData.headers, "Accept-Encoding"));
+            if (encoding != null) {
+                bodyBytes = Compression.compress(bodyBytes, encoding);
+                headers.add("Content-Encoding", encoding);
+            }
+        }
+        headers.contentLength(bodyBytes.length);
+        appendConnectionHeaders(headers, keepAlive);
+
+        connection.writeResponse(headers.end(), bodyBytes, 0, bodyBytes.length);
+    }
+
+    /**
+     * Envía una respuesta guardada en la caché de una ruta. Los encabezados
+     * del manejador ya están codificados y las variantes comprimidas se crean
+     * una sola vez por entrada.
+     *
+     * @param connection  La conexión donde escribir la respuesta
+     * @param requestData Los datos de la solicitud
+     * @param entry       La respuesta en caché
+     * @param keepAlive   true si la conexión seguirá abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private void sendCachedResponse(HttpConnection connection, HttpRequestData requestData,
+            ResponseCache.Entry entry, boolean keepAlive) throws IOException {
+        ResponseHeaders headers = connection.startResponse(entry.statusCode).encoded(entry.head);
+        byte[] bodyBytes = entry.body;
+        if (!entry.encoded && isCompressionCandidate(entry.contentType, bodyBytes.length)) {
+            headers.add("Vary", "Accept-Encoding");
+            String encoding = Compression.negotiate(findHeader(requestData.headers, "Accept-Encoding"));
+            if (encoding != null) {
+                bodyBytes = entry.compressedBody(encoding);
+                headers.add("Content-Encoding", encoding);
+            }
+        }
+        headers.contentLength(bodyBytes.length);
+        appendConnectionHeaders(headers, keepAlive);
+
+        connection.writeResponse(headers.end(), bodyBytes, 0, bodyBytes.length);
+    }
+
+    /**
+     * Envía la respuesta precodificada de una ruta constante. Solo se negocia
+     * la compresión; la variante elegida ya tiene los encabezados y el cuerpo.
+     *
+     * @param connection  La conexión donde escribir la respuesta
+     * @param requestData Los datos de la solicitud
+     * @param constant    La respuesta constante de la ruta
+     * @param keepAlive   true si la conexión seguirá abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private void sendConstantResponse(HttpConnection connection, HttpRequestData requestData,
+            ConstantResponse constant, boolean keepAlive) throws IOException {
+        boolean compressible = isCompressionCandidate(constant.getContentType(), constant.getLength());
+        String encoding = compressible
+                ? Compression.negotiate(findHeader(requestData.headers, "Accept-Encoding"))
+                : null;
+        connection.writeEncoded(constant.getStatusCode(),
+                constant.wire(compressible, encoding, keepAlive, config.getKeepAliveTimeoutMillis() / 1000));
+    }
+
+    /**
+     * Indica si una respuesta puede variar según Accept-Encoding: la compresión
+     * está habilitada, el tipo es compresible y el cuerpo alcanza el tamaño
+     * mínimo.
+     *
+     * @param contentType El tipo de contenido de la respuesta
+     * @param length      La longitud del cuerpo sin comprimir
+     * @return true si la respuesta se comprime para los clientes que lo aceptan
+     */
+    private boolean isCompressionCandidate(String contentType, long length) {
+        return config.isCompressionEnabled() && length >= config.getCompressionMinSize()
+                && Compression.isCompressible(contentType);
+    }
+
+    /**
+     * Envía una respuesta de archivo estático al cliente. Las solicitudes GET
+     * con encabezado Range reciben 206 con el rango pedido, o un cuerpo
+     * multipart/byteranges si piden varios rangos.
+     *
+     * @param connection  La conexión donde escribir la respuesta
+     * @param requestData Los datos de la solicitud
+     * @param fileResult  El resultado del archivo estático
+     * @param keepAlive   true si la conexión seguirá abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private void sendStaticFileResponse(HttpConnection connection, HttpRequestData requestData,
+            StaticFileHandler.StaticFileResult fileResult, boolean keepAlive) throws IOException {
+        if (fileResult.getFile() == null) {
+            sendStaticContent(connection, requestData, fileResult, null, fileResult.getLength(), keepAlive);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(fileResult.getFile(), StandardOpenOption.READ)) {
+            sendStaticContent(connection, requestData, fileResult, file, file.size(), keepAlive);
+        }
+    }
+
+    /**
+     * Escribe los encabezados y el contenido (completo o por rangos) de un
+     * archivo estático.
+     *
+     * @param connection  La conexión donde escribir la respuesta
+     * @param requestData Los datos de la solicitud
+     * @param fileResult  El resultado del archivo estático
+     * @param file        El canal del archivo, o null si el contenido está en
+     *                    memoria
+     * @param length      La longitud total del contenido
+     * @param keepAlive   true si la conexión seguirá abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private void sendStaticContent(HttpConnection connection, HttpRequestData requestData,
+            StaticFileHandler.StaticFileResult fileResult, FileChannel file, long length, boolean keepAlive)
+            throws IOException {
+        OutputStream outputStream = connection.getOutput();
+        boolean head = "HEAD".equals(requestData.method);
+        boolean conditional = "GET".equals(requestData.method) || head;
+        if (conditional && isNotModified(requestData, fileResult)) {
+            ResponseHeaders headers = connection.startResponse(304);
+            appendValidators(headers, fileResult);
+            appendConnectionHeaders(headers, keepAlive);
+            connection.writeHead(headers.end());
+            return;
+        }
+
+        // Los rangos solo aplican a GET, así que HEAD nunca llega a las ramas 206.
+        List<ByteRange> ranges = "GET".equals(requestData.method) && rangeApplies(requestData, fileResult)
+                ? ByteRange.parse(findHeader(requestData.headers, "Range"), length)
+                : null;
+
+        if (ranges == null && file == null && isCompressionCandidate(fileResult.getContentType(), length)) {
+            String encoding = Compression.negotiate(findHeader(requestData.headers, "Accept-Encoding"));
+            byte[] content = encoding != null ? fileResult.getCompressedContent(encoding) : fileResult.getContent();
+            ResponseHeaders headers = connection.startResponse(200)
+                    .contentType(fileResult.getContentType())
+                    .contentLength(content.length)
+                    .add("Vary", "Accept-Encoding");
+            if (encoding != null) {
+                headers.add("Content-Encoding", encoding);
+                if (fileResult.getETag() != null) {
+                    headers.add("ETag", Compression.variantETag(fileResult.getETag(), encoding));
+                }
+                if (fileResult.getLastModifiedHeader() != null) {
+                    headers.add("Last-Modified", fileResult.getLastModifiedHeader());
+                }
+            } else {
+                headers.add("Accept-Ranges", "bytes");
+                appendValidators(headers, fileResult);
+            }
+            appendConnectionHeaders(headers, keepAlive);
+            if (head) {
+                connection.writeHead(headers.end());
+            } else {
+                connection.writeResponse(headers.end(), content, 0, content.length);
+                metrics.addStaticBytes(content.length);
+            }
+
+        } else if (ranges == null) {
+            ResponseHeaders headers = connection.startResponse(200)
+                    .contentType(fileResult.getContentType())
+                    .contentLength(length)
+                    .add("Accept-Ranges", "bytes");
+            appendValidators(headers, fileResult);
+            appendConnectionHeaders(headers, keepAlive);
+            if (head) {
+                connection.writeHead(headers.end());
+            } else if (file == null) {
+                connection.writeResponse(headers.end(), fileResult.getContent(), 0, (int) length);
+                metrics.addStaticBytes(length);
+            } else {
+                connection.writeHead(headers.end());
+                writeContent(connection, fileResult, file, 0, length);
+            }
+
+        } else if (ranges.isEmpty()) {
+            ResponseHeaders headers = connection.startResponse(416)
+                    .add("Content-Range", "bytes */" + length)
+                    .contentLength(0);
+            appendConnectionHeaders(headers, keepAlive);
+            connection.writeHead(headers.end());
+
+        } else if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            ResponseHeaders headers = connection.startResponse(206)
+                    .contentType(fileResult.getContentType())
+                    .add("Content-Range", range.toContentRange(length))
+                    .contentLength(range.length())
+                    .add("Accept-Ranges", "bytes");
+            appendValidators(headers, fileResult);
+            appendConnectionHeaders(headers, keepAlive);
+            connection.writeHead(headers.end());
+            writeContent(connection, fileResult, file, range.getStart(), range.length());
+
+        } else {
+            String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            byte[][] partHeaders = new byte[ranges.size()][];
+            long contentLength = 0;
+            for (int i = 0; i < ranges.size(); i++) {
+                ByteRange range = ranges.get(i);
+                partHeaders[i] = ("\r\n--" + boundary + "\r\nContent-Type: " + fileResult.getContentType()
+                        + "\r\nContent-Range: " + range.toContentRange(length) + "\r\n\r\n")
+                        .getBytes(StandardCharsets.UTF_8);
+                contentLength += partHeaders[i].length + range.length();
+            }
+            byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+            contentLength += closing.length;
+
+            ResponseHeaders headers = connection.startResponse(206)
+                    .contentType("multipart/byteranges; boundary=" + boundary)
+                    .contentLength(contentLength)
+                    .add("Accept-Ranges", "bytes");
+            appendValidators(headers, fileResult);
+            appendConnectionHeaders(headers, keepAlive);
+            connection.writeHead(headers.end());
+            for (int i = 0; i < ranges.size(); i++) {
+                outputStream.write(partHeaders[i]);
+                writeContent(connection, fileResult, file, ranges.get(i).getStart(), ranges.get(i).length());
+            }
+            outputStream.write(closing);
+        }
+    }
+
+    /**
+     * Evalúa las precondiciones If-None-Match e If-Modified-Since. Si ambas
+     * están presentes, If-None-Match tiene prioridad (RFC 7232 sección 6).
+     *
+     * @param requestData Los datos de la solicitud
+     * @param fileResult  El archivo con sus validadores
+     * @return true si el cliente ya tiene la versión actual (304)
+     */
+    private boolean isNotModified(HttpRequestData requestData, StaticFileHandler.StaticFileResult fileResult) {
+        String ifNoneMatch = findHeader(requestData.headers, "If-None-Match");
+        if (ifNoneMatch != null) {
+            if (fileResult.getETag() == null) {
+                return false;
+            }
+            String etag = fileResult.getETag();
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if ("*".equals(candidate) || candidate.equals(etag)
+                        || candidate.equals(Compression.variantETag(etag, Compression.GZIP))
+                        || candidate.equals(Compression.variantETag(etag, Compression.DEFLATE))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = HttpDates.parse(findHeader(requestData.headers, "If-Modified-Since"));
+        return ifModifiedSince >= 0 && fileResult.getLastModified() >= 0
+                && fileResult.getLastModified() <= ifModifiedSince;
+    }
+
+    /**
+     * Evalúa If-Range: el rango solo se aplica si el validador enviado coincide
+     * con la versión actual; en otro caso se envía el recurso completo.
+     *
+     * @param requestData Los datos de la solicitud
+     * @param fileResult  El archivo con sus validadores
+     * @return true si se debe atender el encabezado Range
+     */
+    private boolean rangeApplies(HttpRequestData requestData, StaticFileHandler.StaticFileResult fileResult) {
+        String ifRange = findHeader(requestData.headers, "If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(fileResult.getETag());
+        }
+        long date = HttpDates.parse(ifRange);
+        return date >= 0 && date == fileResult.getLastModified();
+    }
+
+    /**
+     * Agrega los encabezados ETag y Last-Modified del archivo, si se conocen.
+     *
+     * @param headers    Los encabezados de la respuesta
+     * @param fileResult El archivo con sus validadores
+     */
+    private void appendValidators(ResponseHeaders headers, StaticFileHandler.StaticFileResult fileResult) {
+        if (fileResult.getETag() != null) {
+            headers.add("ETag", fileResult.getETag());
+        }
+        if (fileResult.getLastModifiedHeader() != null) {
+            headers.add("Last-Modified", fileResult.getLastModifiedHeader());
+        }
+    }
+
+    /**
+     * Escribe una región del contenido estático: desde memoria o, para archivos
+     * externos, transfiriéndola directamente del archivo al socket.
+     *
+     * @param connection La conexión donde escribir
+     * @param fileResult El resultado del archivo estático
+     * @param file       El canal del archivo, o null si el contenido está en
+     *                   memoria
+     * @param start      Posición inicial de la región
+     * @param count      Número de bytes de la región
+     * @throws IOException Si hay un error de lectura o escritura
+     */
+    private void writeContent(HttpConnection connection, StaticFileHandler.StaticFileResult fileResult,
+            FileChannel file, long start, long count) throws IOException {
+        if (file != null) {
+            connection.transferFrom(file, start, count);
+        } else {
+            connection.getOutput().write(fileResult.getContent(), (int) start, (int) count);
+        }
+        metrics.addStaticBytes(count);
+    }
+
+    /**
+     * Envía una respuesta de error al cliente.
+     *
+     * @param connection   La conexión donde escribir la respuesta
+     * @param statusCode   El código de estado HTTP del error
+     * @param message      El mensaje de error
+     * @param keepAlive    true si la conexión seguirá abierta tras la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    private void sendErrorResponse(HttpConnection connection, int statusCode, String message, boolean keepAlive)
+            throws IOException {
+        String statusMessage = getStatusMessage(statusCode);
+        String responseBody = "<html><body><h1>" + statusCode + " " + statusMessage + "</h1><p>" + message
+                + "</p></body></html>";
+
+        byte[] bodyBytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        ResponseHeaders headers = connection.startResponse(statusCode)
+                .contentType("text/html; charset=utf-8")
+                .contentLength(bodyBytes.length);
+        appendConnectionHeaders(headers, keepAlive);
+
+        connection.writeResponse(headers.end(), bodyBytes, 0, bodyBytes.length);
+    }
+
+    /**
+     * Agrega los encabezados de control de conexión a la respuesta.
+     *
+     * @param headers   Los encabezados de la respuesta
+     * @param keepAlive true si la conexión seguirá abierta tras la respuesta
+     */
+    private void appendConnectionHeaders(ResponseHeaders headers, boolean keepAlive) {
+        headers.connection(keepAlive, config.getKeepAliveTimeoutMillis() / 1000);
+    }
+
+    /**
+     * Obtiene el mensaje correspondiente a un código de estado HTTP.
+     *
+     * @param statusCode El código de estado HTTP
+     * @return El mensaje correspondiente
+     */
+    private String getStatusMessage(int statusCode) {
+        return ResponseHeaders.statusMessage(statusCode);
+    }
+}
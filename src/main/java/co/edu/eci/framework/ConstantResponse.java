@@ -0,0 +1,151 @@
+package co.edu.eci.framework;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Respuesta de una ruta constante, que devuelve siempre el mismo cuerpo. La
+ * respuesta completa (línea de estado, encabezados y cuerpo) se codifica una
+ * vez por variante y se escribe tal cual, sin ejecutar un manejador, crear la
+ * solicitud ni serializar encabezados.
+ * Las variantes dependen de la compresión negociada y de si la conexión sigue
+ * abierta. Como el encabezado {@code Date} cambia cada segundo, una variante
+ * se vuelve a codificar cuando {@link HttpDates#currentDateHeader()} se
+ * renueva; los cuerpos comprimidos se crean una sola vez.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class ConstantResponse {
+
+    private static final int STATUS_CODE = 200;
+
+    private final String contentType;
+    private final byte[] body;
+    private final AtomicReferenceArray<Wire> wires = new AtomicReferenceArray<>(8);
+    private volatile byte[] gzipBody;
+    private volatile byte[] deflateBody;
+
+    /**
+     * Crea la respuesta constante.
+     *
+     * @param contentType El tipo MIME del cuerpo
+     * @param body        El cuerpo, que se codifica en UTF-8
+     */
+    ConstantResponse(String contentType, String body) {
+        this.contentType = contentType;
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Obtiene el tipo MIME del cuerpo.
+     *
+     * @return El tipo de contenido
+     */
+    String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Obtiene la longitud del cuerpo sin comprimir.
+     *
+     * @return La longitud en bytes
+     */
+    int getLength() {
+        return body.length;
+    }
+
+    /**
+     * Obtiene el código de estado de la respuesta.
+     *
+     * @return El código de estado HTTP
+     */
+    int getStatusCode() {
+        return STATUS_CODE;
+    }
+
+    /**
+     * Obtiene la respuesta codificada de una variante. Los encabezados siguen
+     * el mismo orden que las respuestas de los manejadores.
+     *
+     * @param compressible   true si la respuesta varía según Accept-Encoding
+     * @param encoding       La codificación negociada (gzip o deflate), o null
+     *                       para el cuerpo sin comprimir
+     * @param keepAlive      true si la conexión seguirá abierta tras la
+     *                       respuesta
+     * @param timeoutSeconds El tiempo de espera de la conexión persistente
+     * @return Los bytes de la respuesta completa; no deben modificarse
+     */
+    byte[] wire(boolean compressible, String encoding, boolean keepAlive, int timeoutSeconds) {
+        int index = (compressible ? 1 + encodingIndex(encoding) : 0) * 2 + (keepAlive ? 1 : 0);
+        byte[] date = HttpDates.currentDateHeader();
+        Wire wire = wires.get(index);
+        if (wire == null || wire.date != date || wire.timeoutSeconds != timeoutSeconds) {
+            wire = new Wire(date, timeoutSeconds, encode(compressible, encoding, keepAlive, timeoutSeconds));
+            wires.set(index, wire);
+        }
+        return wire.bytes;
+    }
+
+    private byte[] encode(boolean compressible, String encoding, boolean keepAlive, int timeoutSeconds) {
+        byte[] content = encoding != null ? compressedBody(encoding) : body;
+        ResponseHeaders headers = new ResponseHeaders().start(STATUS_CODE).contentType(contentType);
+        if (compressible) {
+            headers.add("Vary", "Accept-Encoding");
+            if (encoding != null) {
+                headers.add("Content-Encoding", encoding);
+            }
+        }
+        headers.contentLength(content.length).connection(keepAlive, timeoutSeconds).end();
+        byte[] encoded = new byte[headers.length() + content.length];
+        System.arraycopy(headers.array(), 0, encoded, 0, headers.length());
+        System.arraycopy(content, 0, encoded, headers.length(), content.length);
+        return encoded;
+    }
+
+    private static int encodingIndex(String encoding) {
+        if (encoding == null) {
+            return 0;
+        }
+        return Compression.GZIP.equals(encoding) ? 1 : 2;
+    }
+
+    /**
+     * Obtiene el cuerpo comprimido, creándolo la primera vez.
+     *
+     * @param encoding La codificación (gzip o deflate)
+     * @return El cuerpo comprimido
+     */
+    private byte[] compressedBody(String encoding) {
+        if (Compression.GZIP.equals(encoding)) {
+            byte[] variant = gzipBody;
+            if (variant == null) {
+                variant = Compression.compress(body, encoding);
+                gzipBody = variant;
+            }
+            return variant;
+        }
+        byte[] variant = deflateBody;
+        if (variant == null) {
+            variant = Compression.compress(body, encoding);
+            deflateBody = variant;
+        }
+        return variant;
+    }
+
+    /**
+     * Una variante codificada con el encabezado {@code Date} y el tiempo de
+     * espera con que se creó.
+     */
+    private static final class Wire {
+        final byte[] date;
+        final int timeoutSeconds;
+        final byte[] bytes;
+
+        Wire(byte[] date, int timeoutSeconds, byte[] bytes) {
+            this.date = date;
+            this.timeoutSeconds = timeoutSeconds;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Destino de los lotes de eventos de un {@link EventSink}: una colección de
+ * MongoDB, un archivo, la memoria... Cada evento es un documento con nombres
+ * de campo y valores simples (texto, números, booleanos, {@link java.time.Instant}).
+ * Solo lo llama el hilo escritor del sink, así que no necesita ser seguro
+ * para hilos.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public interface EventBackend extends AutoCloseable {
+
+    /**
+     * Escribe un lote de eventos en una sola operación, por ejemplo una
+     * inserción masiva.
+     *
+     * @param batch Los eventos del lote; la lista no se reutiliza después
+     * @throws Exception Si el lote no se pudo escribir
+     */
+    void write(List<Map<String, Object>> batch) throws Exception;
+
+    /**
+     * Libera los recursos del destino cuando el sink se cierra.
+     *
+     * @throws IOException Si ocurre un error al cerrar
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,371 @@
+package co.edu.eci.framework;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de eventos con escritura diferida por lotes. Los manejadores y el
+ * servidor encolan eventos en una cola acotada sin bloqueos y un hilo
+ * escritor los envía al {@link EventBackend} en lotes, cuando se juntan
+ * {@link #batchSize} eventos o pasa {@link #flushInterval} desde el primero,
+ * lo que ocurra antes. Así, registrar un evento no espera a la base de datos.
+ * Si la cola se llena, {@link Overflow} decide si el productor espera un
+ * tiempo acotado o si se descarta un evento.
+ * Los métodos de configuración devuelven la misma instancia para permitir el
+ * encadenamiento y solo pueden usarse antes de {@link #start()}.
+ *
+ * <pre>
+ * EventSink events = new EventSink(new FileEventBackend(Path.of("events.jsonl")))
+ *         .capacity(8192).batchSize(500).flushInterval(200).start();
+ * </pre>
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class EventSink implements AutoCloseable {
+
+    /**
+     * Qué hacer con un evento cuando la cola está llena.
+     */
+    public enum Overflow {
+        /**
+         * El productor espera hasta {@link EventSink#blockTimeout} a que el
+         * escritor libere espacio (contrapresión); si no lo hay, se descarta.
+         */
+        BLOCK,
+        /** Se descarta el evento nuevo. */
+        DROP_NEWEST,
+        /** Se descarta el evento más antiguo de la cola para hacer espacio. */
+        DROP_OLDEST
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    private final EventBackend backend;
+    private int capacity = 8192;
+    private int batchSize = 500;
+    private int flushIntervalMillis = 200;
+    private Overflow overflow = Overflow.DROP_NEWEST;
+    private int blockTimeoutMillis = 10;
+    private int maxRetries = 2;
+
+    private BoundedEventQueue<Map<String, Object>> queue;
+    private volatile Thread writer;
+    private volatile boolean writerWaiting;
+    private volatile boolean closed;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * Crea un sink que escribe en el destino indicado.
+     *
+     * @param backend El destino de los lotes
+     */
+    public EventSink(EventBackend backend) {
+        if (backend == null) {
+            throw new IllegalArgumentException("El destino de los eventos no puede ser nulo");
+        }
+        this.backend = backend;
+    }
+
+    /**
+     * Establece cuántos eventos pueden esperar en la cola.
+     *
+     * @param events Capacidad de la cola (mayor que cero); se redondea a una
+     *               potencia de dos
+     * @return Este sink para encadenamiento de métodos
+     */
+    public EventSink capacity(int events) {
+        checkNotStarted();
+        if (events <= 0) {
+            throw new IllegalArgumentException("La capacidad de la cola de eventos debe ser mayor que cero");
+        }
+        this.capacity = events;
+        return this;
+    }
+
+    /**
+     * Establece el tamaño de los lotes: al juntarse este número de eventos se
+     * escriben de inmediato.
+     *
+     * @param events Eventos por lote (mayor que cero)
+     * @return Este sink para encadenamiento de métodos
+     */
+    public EventSink batchSize(int events) {
+        checkNotStarted();
+        if (events <= 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser mayor que cero");
+        }
+        this.batchSize = events;
+        return this;
+    }
+
+    /**
+     * Establece cuánto puede esperar un evento en un lote incompleto antes de
+     * escribirlo.
+     *
+     * @param millis Espera máxima en milisegundos (mayor que cero)
+     * @return Este sink para encadenamiento de métodos
+     */
+    public EventSink flushInterval(int millis) {
+        checkNotStarted();
+        if (millis <= 0) {
+            throw new IllegalArgumentException("El intervalo de escritura debe ser mayor que cero");
+        }
+        this.flushIntervalMillis = millis;
+        return this;
+    }
+
+    /**
+     * Establece qué hacer cuando la cola está llena.
+     *
+     * @param overflow La política de desbordamiento
+     * @return Este sink para encadenamiento de métodos
+     */
+    public EventSink overflow(Overflow overflow) {
+        checkNotStarted();
+        if (overflow == null) {
+            throw new IllegalArgumentException("La política de desbordamiento no puede ser nula");
+        }
+        this.overflow = overflow;
+        return this;
+    }
+
+    /**
+     * Establece cuánto espera un productor con {@link Overflow#BLOCK} antes
+     * de descartar el evento.
+     *
+     * @param millis Espera máxima en milisegundos (no negativa)
+     * @return Este sink para encadenamiento de métodos
+     */
+    public EventSink blockTimeout(int millis) {
+        checkNotStarted();
+        if (millis < 0) {
+            throw new IllegalArgumentException("La espera por espacio en la cola no puede ser negativa");
+        }
+        this.blockTimeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * Establece cuántas veces se reintenta un lote que el destino rechaza,
+     * con esperas de 100 ms que se duplican; después se descarta.
+     *
+     * @param retries Número de reintentos (no negativo)
+     * @return Este sink para encadenamiento de métodos
+     */
+    public EventSink maxRetries(int retries) {
+        checkNotStarted();
+        if (retries < 0) {
+            throw new IllegalArgumentException("El número de reintentos no puede ser negativo");
+        }
+        this.maxRetries = retries;
+        return this;
+    }
+
+    /**
+     * Inicia el hilo escritor. Llamarlo de nuevo no tiene efecto.
+     *
+     * @return Este sink para encadenamiento de métodos
+     */
+    public synchronized EventSink start() {
+        if (writer == null) {
+            queue = new BoundedEventQueue<>(capacity);
+            Thread thread = new Thread(this::runWriter, "EventSink-Writer");
+            thread.setDaemon(true);
+            writer = thread;
+            thread.start();
+        }
+        return this;
+    }
+
+    /**
+     * Encola un evento. No espera a que se escriba; con {@link Overflow#BLOCK}
+     * puede esperar a lo sumo {@link #blockTimeout} si la cola está llena.
+     *
+     * @param event El evento, con nombres de campo y valores simples
+     * @return true si el evento quedó en la cola, false si se descartó
+     */
+    public boolean offer(Map<String, Object> event) {
+        if (event == null) {
+            throw new IllegalArgumentException("El evento no puede ser nulo");
+        }
+        Thread thread = writer;
+        if (thread == null) {
+            start();
+            thread = writer;
+        }
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+        if (!queue.offer(event) && !offerOnFull(event, thread)) {
+            dropped.increment();
+            return false;
+        }
+        accepted.increment();
+        if (writerWaiting && queue.size() >= batchSize) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    /**
+     * Aplica la política de desbordamiento a un evento que no cupo.
+     *
+     * @param event  El evento
+     * @param thread El hilo escritor
+     * @return true si al final el evento quedó en la cola
+     */
+    private boolean offerOnFull(Map<String, Object> event, Thread thread) {
+        switch (overflow) {
+            case DROP_OLDEST -> {
+                do {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                } while (!queue.offer(event));
+                return true;
+            }
+            case BLOCK -> {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+                do {
+                    LockSupport.unpark(thread);
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    if (queue.offer(event)) {
+                        return true;
+                    }
+                } while (System.nanoTime() - deadline < 0 && !closed);
+                return false;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Obtiene una instantánea de los contadores del sink.
+     *
+     * @return Las estadísticas actuales
+     */
+    public EventSinkStats getStats() {
+        BoundedEventQueue<Map<String, Object>> current = queue;
+        return new EventSinkStats(accepted.sum(), dropped.sum(), written.sum(), failed.sum(), batches.sum(),
+                current == null ? 0 : current.size());
+    }
+
+    /**
+     * Deja de aceptar eventos, escribe los que quedan en la cola y cierra el
+     * destino. Espera al hilo escritor hasta 10 segundos.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = writer;
+        }
+        if (thread == null) {
+            closeBackend();
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Bucle del hilo escritor: junta eventos hasta completar un lote o hasta
+     * que el primero lleve {@link #flushInterval} esperando, y los escribe.
+     */
+    private void runWriter() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+        while (true) {
+            Map<String, Object> event;
+            while (batch.size() < batchSize && (event = queue.poll()) != null) {
+                if (batch.isEmpty()) {
+                    deadline = System.nanoTime() + intervalNanos;
+                }
+                batch.add(event);
+            }
+            boolean closing = closed;
+            if (batch.size() >= batchSize
+                    || !batch.isEmpty() && (closing || System.nanoTime() - deadline >= 0)) {
+                writeBatch(batch);
+                batch = new ArrayList<>(batchSize);
+                continue;
+            }
+            if (closing && queue.size() == 0) {
+                break;
+            }
+            writerWaiting = true;
+            if (queue.size() < batchSize && !closed) {
+                LockSupport.parkNanos(this, batch.isEmpty() ? intervalNanos : deadline - System.nanoTime());
+            }
+            writerWaiting = false;
+        }
+        closeBackend();
+    }
+
+    /**
+     * Escribe un lote, reintentándolo si el destino falla.
+     *
+     * @param batch Los eventos del lote
+     */
+    private void writeBatch(List<Map<String, Object>> batch) {
+        for (int attempt = 0;; attempt++) {
+            try {
+                backend.write(batch);
+                written.add(batch.size());
+                batches.increment();
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    System.err.println("No se pudo escribir un lote de " + batch.size() + " eventos: "
+                            + e.getMessage());
+                    failed.add(batch.size());
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS << attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cierra el destino, registrando el error si lo hay.
+     */
+    private void closeBackend() {
+        try {
+            backend.close();
+        } catch (Exception e) {
+            System.err.println("Error al cerrar el destino de eventos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Comprueba que el sink aún no se ha iniciado.
+     */
+    private void checkNotStarted() {
+        if (writer != null) {
+            throw new IllegalStateException("El sink de eventos ya está iniciado");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package co.edu.eci.framework;
+
+/**
+ * Instantánea de las estadísticas de un {@link EventSink}.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class EventSinkStats {
+    private final long accepted;
+    private final long dropped;
+    private final long written;
+    private final long failed;
+    private final long batches;
+    private final int queued;
+
+    /**
+     * Constructor de la instantánea de estadísticas.
+     */
+    public EventSinkStats(long accepted, long dropped, long written, long failed, long batches, int queued) {
+        this.accepted = accepted;
+        this.dropped = dropped;
+        this.written = written;
+        this.failed = failed;
+        this.batches = batches;
+        this.queued = queued;
+    }
+
+    /**
+     * Obtiene el número de eventos aceptados en la cola, incluidos los que
+     * {@link EventSink.Overflow#DROP_OLDEST} descartó después.
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * Obtiene el número de eventos descartados por la política de
+     * desbordamiento o por llegar con el sink cerrado.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Obtiene el número de eventos escritos en el destino.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Obtiene el número de eventos de lotes que el destino rechazó tras los
+     * reintentos.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Obtiene el número de lotes escritos.
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Obtiene el número de eventos que esperan en la cola.
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    @Override
+    public String toString() {
+        return "EventSinkStats{accepted=" + accepted + ", dropped=" + dropped + ", written=" + written
+                + ", failed=" + failed + ", batches=" + batches + ", queued=" + queued + "}";
+    }
+}
@@ -0,0 +1,108 @@
+package co.edu.eci.framework;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Destino de eventos en un archivo, con un documento JSON por línea. Sirve
+ * como sustituto local de la base de datos: cada lote se añade al archivo
+ * con una sola escritura.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class FileEventBackend implements EventBackend {
+
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder(256);
+
+    /**
+     * Abre el archivo para añadir eventos, creándolo si no existe.
+     *
+     * @param file Ruta del archivo
+     * @throws IOException Si no se puede abrir el archivo
+     */
+    public FileEventBackend(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void write(List<Map<String, Object>> batch) throws IOException {
+        for (Map<String, Object> event : batch) {
+            line.setLength(0);
+            appendDocument(event);
+            line.append('\n');
+            writer.append(line);
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Añade un evento como objeto JSON.
+     *
+     * @param event El evento
+     */
+    private void appendDocument(Map<String, Object> event) {
+        line.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Object> field : event.entrySet()) {
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+            appendString(field.getKey());
+            line.append(':');
+            Object value = field.getValue();
+            if (value == null || value instanceof Number || value instanceof Boolean) {
+                line.append(value);
+            } else {
+                appendString(value.toString());
+            }
+        }
+        line.append('}');
+    }
+
+    /**
+     * Añade un texto entre comillas, escapando los caracteres que JSON no
+     * admite sin escapar.
+     *
+     * @param value El texto
+     */
+    private void appendString(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+}
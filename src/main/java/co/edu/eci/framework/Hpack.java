@@ -0,0 +1,628 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compresión de encabezados HPACK (RFC 7541) para HTTP/2: tabla estática,
+ * tabla dinámica, enteros con prefijo y cadenas literales con o sin código
+ * Huffman. Cada conexión tiene un {@link Decoder} para las solicitudes y un
+ * {@link Encoder} para las respuestas, porque cada sentido mantiene su propia
+ * tabla dinámica.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class Hpack {
+
+    /** Tamaño por defecto de la tabla dinámica en ambos sentidos. */
+    static final int DEFAULT_TABLE_SIZE = 4096;
+
+    /** Sobrecosto que la RFC suma a cada entrada de la tabla dinámica. */
+    private static final int ENTRY_OVERHEAD = 32;
+
+    private static final String[][] STATIC_TABLE = {
+            { ":authority", "" }, { ":method", "GET" }, { ":method", "POST" }, { ":path", "/" },
+            { ":path", "/index.html" }, { ":scheme", "http" }, { ":scheme", "https" }, { ":status", "200" },
+            { ":status", "204" }, { ":status", "206" }, { ":status", "304" }, { ":status", "400" },
+            { ":status", "404" }, { ":status", "500" }, { "accept-charset", "" },
+            { "accept-encoding", "gzip, deflate" }, { "accept-language", "" }, { "accept-ranges", "" },
+            { "accept", "" }, { "access-control-allow-origin", "" }, { "age", "" }, { "allow", "" },
+            { "authorization", "" }, { "cache-control", "" }, { "content-disposition", "" },
+            { "content-encoding", "" }, { "content-language", "" }, { "content-length", "" },
+            { "content-location", "" }, { "content-range", "" }, { "content-type", "" }, { "cookie", "" },
+            { "date", "" }, { "etag", "" }, { "expect", "" }, { "expires", "" }, { "from", "" }, { "host", "" },
+            { "if-match", "" }, { "if-modified-since", "" }, { "if-none-match", "" }, { "if-range", "" },
+            { "if-unmodified-since", "" }, { "last-modified", "" }, { "link", "" }, { "location", "" },
+            { "max-forwards", "" }, { "proxy-authenticate", "" }, { "proxy-authorization", "" }, { "range", "" },
+            { "referer", "" }, { "refresh", "" }, { "retry-after", "" }, { "server", "" }, { "set-cookie", "" },
+            { "strict-transport-security", "" }, { "transfer-encoding", "" }, { "user-agent", "" },
+            { "vary", "" }, { "via", "" }, { "www-authenticate", "" } };
+
+    /** Primer índice estático de cada nombre. */
+    private static final Map<String, Integer> STATIC_NAMES = new HashMap<>();
+
+    /** Índice estático de cada par nombre-valor con valor no vacío. */
+    private static final Map<String, Integer> STATIC_ENTRIES = new HashMap<>();
+
+    /** Códigos Huffman de los 256 octetos (RFC 7541, apéndice B), alineados a la derecha. */
+    private static final int[] HUFFMAN_CODES = {
+            0x1ff8, 0x7fffd8, 0xfffffe2, 0xfffffe3, 0xfffffe4, 0xfffffe5, 0xfffffe6, 0xfffffe7,
+            0xfffffe8, 0xffffea, 0x3ffffffc, 0xfffffe9, 0xfffffea, 0x3ffffffd, 0xfffffeb, 0xfffffec,
+            0xfffffed, 0xfffffee, 0xfffffef, 0xffffff0, 0xffffff1, 0xffffff2, 0x3ffffffe, 0xffffff3,
+            0xffffff4, 0xffffff5, 0xffffff6, 0xffffff7, 0xffffff8, 0xffffff9, 0xffffffa, 0xffffffb,
+            0x14, 0x3f8, 0x3f9, 0xffa, 0x1ff9, 0x15, 0xf8, 0x7fa,
+            0x3fa, 0x3fb, 0xf9, 0x7fb, 0xfa, 0x16, 0x17, 0x18,
+            0x0, 0x1, 0x2, 0x19, 0x1a, 0x1b, 0x1c, 0x1d,
+            0x1e, 0x1f, 0x5c, 0xfb, 0x7ffc, 0x20, 0xffb, 0x3fc,
+            0x1ffa, 0x21, 0x5d, 0x5e, 0x5f, 0x60, 0x61, 0x62,
+            0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69, 0x6a,
+            0x6b, 0x6c, 0x6d, 0x6e, 0x6f, 0x70, 0x71, 0x72,
+            0xfc, 0x73, 0xfd, 0x1ffb, 0x7fff0, 0x1ffc, 0x3ffc, 0x22,
+            0x7ffd, 0x3, 0x23, 0x4, 0x24, 0x5, 0x25, 0x26,
+            0x27, 0x6, 0x74, 0x75, 0x28, 0x29, 0x2a, 0x7,
+            0x2b, 0x76, 0x2c, 0x8, 0x9, 0x2d, 0x77, 0x78,
+            0x79, 0x7a, 0x7b, 0x7ffe, 0x7fc, 0x3ffd, 0x1ffd, 0xffffffc,
+            0xfffe6, 0x3fffd2, 0xfffe7, 0xfffe8, 0x3fffd3, 0x3fffd4, 0x3fffd5, 0x7fffd9,
+            0x3fffd6, 0x7fffda, 0x7fffdb, 0x7fffdc, 0x7fffdd, 0x7fffde, 0xffffeb, 0x7fffdf,
+            0xffffec, 0xffffed, 0x3fffd7, 0x7fffe0, 0xffffee, 0x7fffe1, 0x7fffe2, 0x7fffe3,
+            0x7fffe4, 0x1fffdc, 0x3fffd8, 0x7fffe5, 0x3fffd9, 0x7fffe6, 0x7fffe7, 0xffffef,
+            0x3fffda, 0x1fffdd, 0xfffe9, 0x3fffdb, 0x3fffdc, 0x7fffe8, 0x7fffe9, 0x1fffde,
+            0x7fffea, 0x3fffdd, 0x3fffde, 0xfffff0, 0x1fffdf, 0x3fffdf, 0x7fffeb, 0x7fffec,
+            0x1fffe0, 0x1fffe1, 0x3fffe0, 0x1fffe2, 0x7fffed, 0x3fffe1, 0x7fffee, 0x7fffef,
+            0xfffea, 0x3fffe2, 0x3fffe3, 0x3fffe4, 0x7ffff0, 0x3fffe5, 0x3fffe6, 0x7ffff1,
+            0x3ffffe0, 0x3ffffe1, 0xfffeb, 0x7fff1, 0x3fffe7, 0x7ffff2, 0x3fffe8, 0x1ffffec,
+            0x3ffffe2, 0x3ffffe3, 0x3ffffe4, 0x7ffffde, 0x7ffffdf, 0x3ffffe5, 0xfffff1, 0x1ffffed,
+            0x7fff2, 0x1fffe3, 0x3ffffe6, 0x7ffffe0, 0x7ffffe1, 0x3ffffe7, 0x7ffffe2, 0xfffff2,
+            0x1fffe4, 0x1fffe5, 0x3ffffe8, 0x3ffffe9, 0xffffffd, 0x7ffffe3, 0x7ffffe4, 0x7ffffe5,
+            0xfffec, 0xfffff3, 0xfffed, 0x1fffe6, 0x3fffe9, 0x1fffe7, 0x1fffe8, 0x7ffff3,
+            0x3fffea, 0x3fffeb, 0x1ffffee, 0x1ffffef, 0xfffff4, 0xfffff5, 0x3ffffea, 0x7ffff4,
+            0x3ffffeb, 0x7ffffe6, 0x3ffffec, 0x3ffffed, 0x7ffffe7, 0x7ffffe8, 0x7ffffe9, 0x7ffffea,
+            0x7ffffeb, 0xffffffe, 0x7ffffec, 0x7ffffed, 0x7ffffee, 0x7ffffef, 0x7fffff0, 0x3ffffee
+    };
+
+    /** Longitud en bits de cada código Huffman. */
+    private static final byte[] HUFFMAN_LENGTHS = {
+            13, 23, 28, 28, 28, 28, 28, 28,
+            28, 24, 30, 28, 28, 30, 28, 28,
+            28, 28, 28, 28, 28, 28, 30, 28,
+            28, 28, 28, 28, 28, 28, 28, 28,
+            6, 10, 10, 12, 13, 6, 8, 11,
+            10, 10, 8, 11, 8, 6, 6, 6,
+            5, 5, 5, 6, 6, 6, 6, 6,
+            6, 6, 7, 8, 15, 6, 12, 10,
+            13, 6, 7, 7, 7, 7, 7, 7,
+            7, 7, 7, 7, 7, 7, 7, 7,
+            7, 7, 7, 7, 7, 7, 7, 7,
+            8, 7, 8, 13, 19, 13, 14, 6,
+            15, 5, 6, 5, 6, 5, 6, 6,
+            6, 5, 7, 7, 6, 6, 6, 5,
+            6, 7, 6, 5, 5, 6, 7, 7,
+            7, 7, 7, 15, 11, 14, 13, 28,
+            20, 22, 20, 20, 22, 22, 22, 23,
+            22, 23, 23, 23, 23, 23, 24, 23,
+            24, 24, 22, 23, 24, 23, 23, 23,
+            23, 21, 22, 23, 22, 23, 23, 24,
+            22, 21, 20, 22, 22, 23, 23, 21,
+            23, 22, 22, 24, 21, 22, 23, 23,
+            21, 21, 22, 21, 23, 22, 23, 23,
+            20, 22, 22, 22, 23, 22, 22, 23,
+            26, 26, 20, 19, 22, 23, 22, 25,
+            26, 26, 26, 27, 27, 26, 24, 25,
+            19, 21, 26, 27, 27, 26, 27, 24,
+            21, 21, 26, 26, 28, 27, 27, 27,
+            20, 24, 20, 21, 22, 21, 21, 23,
+            22, 22, 25, 25, 24, 24, 26, 23,
+            26, 27, 26, 26, 27, 27, 27, 27,
+            27, 28, 27, 27, 27, 27, 27, 26
+    };
+
+    /** Código del símbolo EOS, que nunca debe aparecer en una cadena. */
+    private static final int EOS_CODE = 0x3fffffff;
+    private static final int EOS_LENGTH = 30;
+    private static final int EOS = 256;
+
+    /**
+     * Árbol de decodificación Huffman: el nodo {@code n} tiene sus hijos en
+     * {@code 2n} (bit 0) y {@code 2n + 1} (bit 1). Un hijo positivo es otro
+     * nodo, uno negativo es la hoja del símbolo {@code -hijo - 1} y cero es un
+     * código inexistente.
+     */
+    private static final int[] HUFFMAN_TREE;
+
+    static {
+        for (int i = STATIC_TABLE.length - 1; i >= 0; i--) {
+            STATIC_NAMES.put(STATIC_TABLE[i][0], i + 1);
+            if (!STATIC_TABLE[i][1].isEmpty()) {
+                STATIC_ENTRIES.put(STATIC_TABLE[i][0] + '\0' + STATIC_TABLE[i][1], i + 1);
+            }
+        }
+        int[] tree = new int[2 * 512];
+        int nodes = 1;
+        for (int symbol = 0; symbol <= EOS; symbol++) {
+            int code = symbol == EOS ? EOS_CODE : HUFFMAN_CODES[symbol];
+            int length = symbol == EOS ? EOS_LENGTH : HUFFMAN_LENGTHS[symbol];
+            int node = 0;
+            for (int bit = length - 1; bit > 0; bit--) {
+                int slot = 2 * node + ((code >>> bit) & 1);
+                if (tree[slot] == 0) {
+                    tree[slot] = nodes++;
+                }
+                node = tree[slot];
+            }
+            tree[2 * node + (code & 1)] = -symbol - 1;
+        }
+        HUFFMAN_TREE = tree;
+    }
+
+    private Hpack() {
+    }
+
+    /**
+     * Tabla dinámica: las entradas más recientes tienen los índices más bajos
+     * y las más antiguas se desalojan cuando el tamaño supera el máximo.
+     */
+    private static final class DynamicTable {
+        private String[] names = new String[16];
+        private String[] values = new String[16];
+        private long inserted;
+        private int count;
+        private int size;
+        private int maxSize;
+
+        DynamicTable(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        String name(int index) {
+            return names[slot(index)];
+        }
+
+        String value(int index) {
+            return values[slot(index)];
+        }
+
+        /**
+         * Convierte un índice relativo (0 es la entrada más reciente) en la
+         * posición dentro del arreglo circular.
+         */
+        private int slot(int index) {
+            return (int) ((inserted - 1 - index) & (names.length - 1));
+        }
+
+        /**
+         * Agrega una entrada al inicio de la tabla. Una entrada mayor que la
+         * tabla la deja vacía sin insertarse.
+         *
+         * @return La secuencia de la entrada insertada, o -1 si no cupo
+         */
+        long add(String name, String value, Evictions evictions) {
+            int entrySize = entrySize(name, value);
+            while (count > 0 && size + entrySize > maxSize) {
+                evict(evictions);
+            }
+            if (entrySize > maxSize) {
+                return -1;
+            }
+            if (count == names.length) {
+                grow();
+            }
+            int slot = (int) (inserted & (names.length - 1));
+            names[slot] = name;
+            values[slot] = value;
+            count++;
+            size += entrySize;
+            return inserted++;
+        }
+
+        void resize(int newMaxSize, Evictions evictions) {
+            maxSize = newMaxSize;
+            while (count > 0 && size > maxSize) {
+                evict(evictions);
+            }
+        }
+
+        private void evict(Evictions evictions) {
+            int index = count - 1;
+            int slot = slot(index);
+            if (evictions != null) {
+                evictions.evicted(names[slot], values[slot], inserted - count);
+            }
+            size -= entrySize(names[slot], values[slot]);
+            names[slot] = null;
+            values[slot] = null;
+            count--;
+        }
+
+        private void grow() {
+            String[] newNames = new String[names.length * 2];
+            String[] newValues = new String[values.length * 2];
+            for (int i = 0; i < count; i++) {
+                long sequence = inserted - count + i;
+                newNames[(int) (sequence & (newNames.length - 1))] = names[(int) (sequence & (names.length - 1))];
+                newValues[(int) (sequence & (newValues.length - 1))] = values[(int) (sequence & (values.length - 1))];
+            }
+            names = newNames;
+            values = newValues;
+        }
+    }
+
+    /**
+     * Aviso de las entradas desalojadas, para que el codificador olvide sus
+     * índices.
+     */
+    @FunctionalInterface
+    private interface Evictions {
+        void evicted(String name, String value, long sequence);
+    }
+
+    /**
+     * Decodifica los bloques de encabezados recibidos de un par. No es seguro
+     * para varios hilos: lo usa solo el hilo que lee la conexión.
+     */
+    static final class Decoder {
+        private final DynamicTable table = new DynamicTable(DEFAULT_TABLE_SIZE);
+        private final int maxTableSize;
+        private byte[] block;
+        private int position;
+        private int end;
+
+        /**
+         * Crea un decodificador.
+         *
+         * @param maxTableSize El tamaño máximo de tabla anunciado al par
+         */
+        Decoder(int maxTableSize) {
+            this.maxTableSize = maxTableSize;
+        }
+
+        /**
+         * Decodifica un bloque de encabezados completo. El bloque se recorre
+         * entero aunque los encabezados superen el límite, para que la tabla
+         * dinámica siga sincronizada con la del par.
+         *
+         * @param block   El bloque de encabezados
+         * @param offset  Posición inicial del bloque
+         * @param length  Longitud del bloque
+         * @param headers Lista donde se agregan nombre y valor alternados
+         * @return El tamaño de la lista de encabezados según la RFC 7540
+         *         (longitudes más 32 octetos por campo)
+         * @throws IOException Si el bloque no es HPACK válido
+         */
+        long decode(byte[] block, int offset, int length, List<String> headers) throws IOException {
+            this.block = block;
+            this.position = offset;
+            this.end = offset + length;
+            long listSize = 0;
+            boolean fieldSeen = false;
+            while (position < end) {
+                int b = block[position] & 0xff;
+                String name;
+                String value;
+                if ((b & 0x80) != 0) {
+                    int index = readInteger(7);
+                    if (index == 0) {
+                        throw new IOException("Índice HPACK cero");
+                    }
+                    name = nameAt(index);
+                    value = valueAt(index);
+                } else if ((b & 0x40) != 0) {
+                    int index = readInteger(6);
+                    name = index == 0 ? readString() : nameAt(index);
+                    value = readString();
+                    table.add(name, value, null);
+                } else if ((b & 0x20) != 0) {
+                    if (fieldSeen) {
+                        throw new IOException("Actualización de tamaño de tabla después de un campo");
+                    }
+                    int newSize = readInteger(5);
+                    if (newSize > maxTableSize) {
+                        throw new IOException("Tamaño de tabla HPACK por encima del anunciado");
+                    }
+                    table.resize(newSize, null);
+                    continue;
+                } else {
+                    int index = readInteger(4);
+                    name = index == 0 ? readString() : nameAt(index);
+                    value = readString();
+                }
+                fieldSeen = true;
+                headers.add(name);
+                headers.add(value);
+                listSize += entrySize(name, value);
+            }
+            this.block = null;
+            return listSize;
+        }
+
+        private String nameAt(int index) throws IOException {
+            if (index <= STATIC_TABLE.length) {
+                return STATIC_TABLE[index - 1][0];
+            }
+            return table.name(dynamicIndex(index));
+        }
+
+        private String valueAt(int index) throws IOException {
+            if (index <= STATIC_TABLE.length) {
+                return STATIC_TABLE[index - 1][1];
+            }
+            return table.value(dynamicIndex(index));
+        }
+
+        private int dynamicIndex(int index) throws IOException {
+            int dynamic = index - STATIC_TABLE.length - 1;
+            if (dynamic >= table.count) {
+                throw new IOException("Índice HPACK fuera de la tabla: " + index);
+            }
+            return dynamic;
+        }
+
+        private int readInteger(int prefixBits) throws IOException {
+            int max = (1 << prefixBits) - 1;
+            int value = block[position++] & max;
+            if (value < max) {
+                return value;
+            }
+            int shift = 0;
+            int b;
+            do {
+                if (position == end) {
+                    throw new IOException("Entero HPACK truncado");
+                }
+                b = block[position++] & 0xff;
+                if (shift > 21) {
+                    throw new IOException("Entero HPACK demasiado grande");
+                }
+                value += (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private String readString() throws IOException {
+            if (position == end) {
+                throw new IOException("Cadena HPACK truncada");
+            }
+            boolean huffman = (block[position] & 0x80) != 0;
+            int length = readInteger(7);
+            if (length > end - position) {
+                throw new IOException("Cadena HPACK truncada");
+            }
+            int start = position;
+            position += length;
+            return huffman ? decodeHuffman(block, start, length)
+                    : new String(block, start, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * Codifica los bloques de encabezados enviados al par. No es seguro para
+     * varios hilos: quien escribe en la conexión lo usa con el candado de
+     * escritura, en el mismo orden en que envía los bloques.
+     */
+    static final class Encoder {
+        private final Map<String, Long> entries = new HashMap<>();
+        private final Map<String, Long> names = new HashMap<>();
+        private final Evictions evictions = (name, value, sequence) -> {
+            entries.remove(name + '\0' + value, sequence);
+            names.remove(name, sequence);
+        };
+        private final DynamicTable table = new DynamicTable(DEFAULT_TABLE_SIZE);
+        private int pendingTableSize = -1;
+        private byte[] buffer = new byte[512];
+        private int length;
+
+        /**
+         * Aplica el tamaño de tabla que el par anunció en
+         * {@code SETTINGS_HEADER_TABLE_SIZE}; el siguiente bloque empieza con
+         * la actualización de tamaño.
+         *
+         * @param maxSize El nuevo tamaño máximo
+         */
+        void setMaxTableSize(int maxSize) {
+            int size = Math.min(maxSize, DEFAULT_TABLE_SIZE);
+            table.resize(size, evictions);
+            pendingTableSize = size;
+        }
+
+        /**
+         * Empieza un bloque de encabezados nuevo.
+         */
+        void start() {
+            length = 0;
+            if (pendingTableSize >= 0) {
+                writeInteger(0x20, 5, pendingTableSize);
+                pendingTableSize = -1;
+            }
+        }
+
+        /**
+         * Codifica un campo. Se usa un índice si la tabla estática o la
+         * dinámica ya tienen el par; si no, un literal que se agrega a la tabla
+         * dinámica, salvo los campos sensibles, que nunca se indexan.
+         *
+         * @param name  El nombre en minúsculas
+         * @param value El valor
+         */
+        void header(String name, String value) {
+            Integer staticIndex = STATIC_ENTRIES.get(name + '\0' + value);
+            if (staticIndex != null) {
+                writeInteger(0x80, 7, staticIndex);
+                return;
+            }
+            String key = name + '\0' + value;
+            Long sequence = entries.get(key);
+            if (sequence != null) {
+                writeInteger(0x80, 7, dynamicIndex(sequence));
+                return;
+            }
+            int nameIndex = nameIndex(name);
+            if (isSensitive(name)) {
+                writeInteger(0x10, 4, nameIndex);
+            } else if (entrySize(name, value) > table.maxSize / 2) {
+                writeInteger(0x00, 4, nameIndex);
+            } else {
+                writeInteger(0x40, 6, nameIndex);
+                long inserted = table.add(name, value, evictions);
+                if (inserted >= 0) {
+                    entries.put(key, inserted);
+                    names.put(name, inserted);
+                }
+            }
+            if (nameIndex == 0) {
+                writeString(name);
+            }
+            writeString(value);
+        }
+
+        /**
+         * Obtiene el arreglo con el bloque codificado.
+         *
+         * @return El arreglo; los bytes válidos van de 0 a {@link #length()}
+         */
+        byte[] array() {
+            return buffer;
+        }
+
+        /**
+         * Obtiene la longitud del bloque codificado.
+         *
+         * @return El número de bytes del bloque
+         */
+        int length() {
+            return length;
+        }
+
+        private int nameIndex(String name) {
+            Integer staticIndex = STATIC_NAMES.get(name);
+            if (staticIndex != null) {
+                return staticIndex;
+            }
+            Long sequence = names.get(name);
+            return sequence != null ? dynamicIndex(sequence) : 0;
+        }
+
+        private int dynamicIndex(long sequence) {
+            return (int) (table.inserted - 1 - sequence) + STATIC_TABLE.length + 1;
+        }
+
+        private static boolean isSensitive(String name) {
+            return "set-cookie".equals(name) || "authorization".equals(name)
+                    || "proxy-authorization".equals(name);
+        }
+
+        private void writeInteger(int pattern, int prefixBits, int value) {
+            ensure(6);
+            int max = (1 << prefixBits) - 1;
+            if (value < max) {
+                buffer[length++] = (byte) (pattern | value);
+                return;
+            }
+            buffer[length++] = (byte) (pattern | max);
+            value -= max;
+            while (value >= 0x80) {
+                buffer[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        /**
+         * Escribe una cadena con código Huffman cuando resulta más corta que
+         * el literal.
+         */
+        private void writeString(String value) {
+            int chars = value.length();
+            long bits = 0;
+            for (int i = 0; i < chars; i++) {
+                bits += HUFFMAN_LENGTHS[value.charAt(i) & 0xff];
+            }
+            int huffmanLength = (int) ((bits + 7) >>> 3);
+            if (huffmanLength < chars) {
+                writeInteger(0x80, 7, huffmanLength);
+                ensure(huffmanLength);
+                long current = 0;
+                int pending = 0;
+                for (int i = 0; i < chars; i++) {
+                    int symbol = value.charAt(i) & 0xff;
+                    current = (current << HUFFMAN_LENGTHS[symbol]) | HUFFMAN_CODES[symbol];
+                    pending += HUFFMAN_LENGTHS[symbol];
+                    while (pending >= 8) {
+                        pending -= 8;
+                        buffer[length++] = (byte) (current >>> pending);
+                    }
+                }
+                if (pending > 0) {
+                    buffer[length++] = (byte) ((current << (8 - pending)) | (0xff >>> pending));
+                }
+            } else {
+                writeInteger(0x00, 7, chars);
+                ensure(chars);
+                for (int i = 0; i < chars; i++) {
+                    buffer[length++] = (byte) value.charAt(i);
+                }
+            }
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+
+    /**
+     * Decodifica una cadena con código Huffman. El relleno final debe ser de
+     * menos de 8 bits, todos en uno, y el símbolo EOS no puede aparecer.
+     *
+     * @param data   Los bytes codificados
+     * @param offset Posición inicial
+     * @param length Número de bytes
+     * @return La cadena decodificada, un carácter por octeto
+     * @throws IOException Si la codificación es inválida
+     */
+    static String decodeHuffman(byte[] data, int offset, int length) throws IOException {
+        StringBuilder decoded = new StringBuilder(length + length / 2);
+        int node = 0;
+        int bitsSinceSymbol = 0;
+        boolean allOnes = true;
+        for (int i = offset; i < offset + length; i++) {
+            int b = data[i] & 0xff;
+            for (int bit = 7; bit >= 0; bit--) {
+                int set = (b >>> bit) & 1;
+                int next = HUFFMAN_TREE[2 * node + set];
+                bitsSinceSymbol++;
+                allOnes &= set == 1;
+                if (next < 0) {
+                    int symbol = -next - 1;
+                    if (symbol == EOS) {
+                        throw new IOException("Símbolo EOS en una cadena Huffman");
+                    }
+                    decoded.append((char) symbol);
+                    node = 0;
+                    bitsSinceSymbol = 0;
+                    allOnes = true;
+                } else if (next == 0) {
+                    throw new IOException("Código Huffman inválido");
+                } else {
+                    node = next;
+                }
+            }
+        }
+        if (bitsSinceSymbol > 7 || !allOnes) {
+            throw new IOException("Relleno Huffman inválido");
+        }
+        return decoded.toString();
+    }
+
+    /**
+     * Calcula el tamaño de una entrada según la RFC 7541, sección 4.1.
+     */
+    private static int entrySize(String name, String value) {
+        return name.length() + value.length() + ENTRY_OVERHEAD;
+    }
+}
@@ -0,0 +1,1512 @@
+package co.edu.eci.framework;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sesión HTTP/2 en texto plano (h2c, RFC 7540) sobre una conexión ya
+ * aceptada por cualquiera de los transportes. El hilo de la conexión lee las
+ * tramas; cada flujo se despacha al pool por el control de admisión y se
+ * atiende con el mismo {@link ConnectionHandler} que HTTP/1.1, sobre una
+ * {@link HttpConnection} propia cuyos flujos traducen entre tramas y el
+ * formato HTTP/1.1. Así los manejadores de ruta no cambian.
+ * <p>
+ * La respuesta HTTP/1.1 que escribe el manejador se convierte en una trama
+ * HEADERS comprimida con HPACK y tramas DATA que respetan el control de flujo
+ * del cliente; los encabezados propios de la conexión (Connection,
+ * Transfer-Encoding...) se eliminan y el cuerpo chunked se decodifica. El
+ * cuerpo de la solicitud llega por un búfer por flujo que devuelve crédito al
+ * cliente (WINDOW_UPDATE) a medida que el manejador lo lee.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class Http2Connection {
+
+    /** Prefacio que todo cliente HTTP/2 envía al abrir la conexión. */
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    /** Bytes del prefacio que el parser HTTP/1.1 ya consumió como "solicitud" PRI. */
+    private static final int PREFACE_REQUEST_LENGTH = 18;
+
+    private static final byte[] SWITCHING_PROTOCOLS = ("HTTP/1.1 101 Switching Protocols\r\n"
+            + "Connection: Upgrade\r\nUpgrade: h2c\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    private static final int DATA = 0x0;
+    private static final int HEADERS = 0x1;
+    private static final int PRIORITY = 0x2;
+    private static final int RST_STREAM = 0x3;
+    private static final int SETTINGS = 0x4;
+    private static final int PUSH_PROMISE = 0x5;
+    private static final int PING = 0x6;
+    private static final int GOAWAY = 0x7;
+    private static final int WINDOW_UPDATE = 0x8;
+    private static final int CONTINUATION = 0x9;
+
+    private static final int FLAG_END_STREAM = 0x1;
+    private static final int FLAG_ACK = 0x1;
+    private static final int FLAG_END_HEADERS = 0x4;
+    private static final int FLAG_PADDED = 0x8;
+    private static final int FLAG_PRIORITY = 0x20;
+
+    private static final int NO_ERROR = 0x0;
+    private static final int PROTOCOL_ERROR = 0x1;
+    private static final int INTERNAL_ERROR = 0x2;
+    private static final int FLOW_CONTROL_ERROR = 0x3;
+    private static final int STREAM_CLOSED = 0x5;
+    private static final int FRAME_SIZE_ERROR = 0x6;
+    private static final int REFUSED_STREAM = 0x7;
+    private static final int COMPRESSION_ERROR = 0x9;
+    private static final int ENHANCE_YOUR_CALM = 0xb;
+
+    private static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+    private static final int SETTINGS_ENABLE_PUSH = 0x2;
+    private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+    private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+    private static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+    private static final int FRAME_HEADER_SIZE = 9;
+    private static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+    private static final int MAX_ALLOWED_FRAME_SIZE = 16_777_215;
+    private static final int DEFAULT_WINDOW = 65535;
+    private static final long MAX_WINDOW = Integer.MAX_VALUE;
+
+    /** Ventana de recepción de cada flujo: lo que un cliente puede enviar sin esperar a que se lea. */
+    private static final int STREAM_WINDOW = 256 * 1024;
+
+    /** Ventana de recepción de la conexión, compartida por todos sus flujos. */
+    private static final int CONNECTION_WINDOW = 4 * 1024 * 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // Estados del traductor de respuestas y de su decodificador chunked.
+    private static final int OUT_HEAD = 0;
+    private static final int OUT_LENGTH = 1;
+    private static final int OUT_CHUNKED = 2;
+    private static final int OUT_UNTIL_END = 3;
+    private static final int OUT_DONE = 4;
+    private static final int CHUNK_SIZE = 0;
+    private static final int CHUNK_DATA = 1;
+    private static final int CHUNK_DATA_END = 2;
+    private static final int CHUNK_TRAILER = 3;
+
+    private final ConnectionHandler handler;
+    private final ServerConfig config;
+    private final AdmissionController admission;
+    private final BooleanSupplier running;
+    private final HttpRequestParser input;
+    private final OutputStream output;
+
+    /** Candado de escritura: cada trama, y el estado HPACK que la codifica, sale completa. */
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Condition windowAvailable = writeLock.newCondition();
+    private final byte[] outHeader = new byte[FRAME_HEADER_SIZE];
+    private final Hpack.Encoder encoder = new Hpack.Encoder();
+    private int peerInitialWindow = DEFAULT_WINDOW;
+    private int peerMaxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    private long connectionSendWindow = DEFAULT_WINDOW;
+    private boolean closed;
+
+    private final Map<Integer, Stream> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionReceiveWindow = new AtomicInteger(CONNECTION_WINDOW);
+    private final AtomicInteger connectionUnacknowledged = new AtomicInteger();
+
+    // Estado del hilo lector.
+    private final byte[] inHeader = new byte[FRAME_HEADER_SIZE];
+    private final BufferPool buffers;
+    private final ByteBuffer payloadLease;
+    private final byte[] payload;
+    private final Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+    private final List<String> fields = new ArrayList<>();
+    private ByteBuffer headerBlockLease;
+    private byte[] headerBlock;
+    private int headerBlockLength;
+    private int headerStreamId;
+    private int headerFlags;
+    private boolean expectingContinuation;
+    private boolean settingsReceived;
+    private int lastStreamId;
+    private volatile boolean goAwaySent;
+
+    /**
+     * Crea la sesión sobre una conexión cuyo parser acaba de leer el inicio
+     * del prefacio o una solicitud de actualización a h2c.
+     *
+     * @param handler    El procesador que atiende cada flujo
+     * @param connection La conexión del transporte
+     * @param config     Las opciones del servidor
+     * @param admission  El control de admisión que ejecuta los flujos
+     * @param running    Indica si el servidor sigue en ejecución
+     */
+    Http2Connection(ConnectionHandler handler, HttpConnection connection, ServerConfig config,
+            AdmissionController admission, BooleanSupplier running) {
+        this.handler = handler;
+        this.config = config;
+        this.admission = admission;
+        this.running = running;
+        this.input = connection.getParser();
+        this.output = connection.getOutput();
+        this.buffers = connection.getBufferPool();
+        this.payloadLease = buffers.acquire(DEFAULT_MAX_FRAME_SIZE);
+        this.payload = payloadLease.array();
+        this.headerBlockLease = buffers.acquire(DEFAULT_MAX_FRAME_SIZE);
+        this.headerBlock = headerBlockLease.array();
+    }
+
+    /**
+     * Indica si la solicitud parseada es el inicio del prefacio HTTP/2, es
+     * decir, un cliente que usa HTTP/2 por conocimiento previo.
+     *
+     * @param requestData La solicitud parseada
+     * @return true si la conexión habla HTTP/2 desde el principio
+     */
+    static boolean isPreface(HttpRequestData requestData) {
+        return "PRI".equals(requestData.method) && "*".equals(requestData.path)
+                && "HTTP/2.0".equals(requestData.version) && requestData.headers.isEmpty();
+    }
+
+    /**
+     * Valida una solicitud de actualización a h2c (RFC 7540 sección 3.2):
+     * HTTP/1.1, {@code Upgrade: h2c}, un único {@code HTTP2-Settings} listado
+     * en {@code Connection} y sin cuerpo. Las solicitudes con cuerpo se
+     * atienden con HTTP/1.1.
+     *
+     * @param requestData La solicitud parseada
+     * @return El contenido decodificado de HTTP2-Settings, o null si la
+     *         solicitud no es una actualización válida
+     */
+    static byte[] upgradeSettings(HttpRequestData requestData) {
+        RequestHeaders headers = requestData.headers;
+        String settings = ConnectionHandler.findHeader(headers, "HTTP2-Settings");
+        String connection = ConnectionHandler.findHeader(headers, "Connection");
+        if (!"HTTP/1.1".equals(requestData.version) || settings == null
+                || !ConnectionHandler.hasToken(ConnectionHandler.findHeader(headers, "Upgrade"), "h2c")
+                || !ConnectionHandler.hasToken(connection, "Upgrade")
+                || !ConnectionHandler.hasToken(connection, "HTTP2-Settings")) {
+            return null;
+        }
+        String contentLength = ConnectionHandler.findHeader(headers, "Content-Length");
+        if (ConnectionHandler.findHeader(headers, "Transfer-Encoding") != null
+                || contentLength != null && !"0".equals(contentLength.trim())) {
+            return null;
+        }
+        try {
+            byte[] decoded = Base64.getUrlDecoder().decode(settings.trim());
+            return decoded.length % 6 == 0 ? decoded : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Atiende la conexión con HTTP/2 hasta que el cliente la cierre, se
+     * agote el tiempo de inactividad sin flujos abiertos o haya un error de
+     * protocolo. En una actualización, la solicitud original se atiende como
+     * el flujo 1.
+     *
+     * @param upgradeRequest La solicitud HTTP/1.1 que pidió la actualización,
+     *                       o null con conocimiento previo
+     * @param upgradeSettings Los parámetros de HTTP2-Settings, o null
+     * @throws IOException Si hay un error de lectura o escritura
+     */
+    void serve(HttpRequestData upgradeRequest, byte[] upgradeSettings) throws IOException {
+        try {
+            if (upgradeRequest != null) {
+                writeLock.lock();
+                try {
+                    output.write(SWITCHING_PROTOCOLS);
+                } finally {
+                    writeLock.unlock();
+                }
+                applySettings(upgradeSettings, 0, upgradeSettings.length);
+            }
+            sendPreamble();
+            readPreface(upgradeRequest != null ? 0 : PREFACE_REQUEST_LENGTH);
+            if (upgradeRequest != null) {
+                lastStreamId = 1;
+                Stream stream = openStream(1, upgradeRequest.method);
+                stream.input.finish();
+                dispatch(stream, withoutUpgradeHeaders(upgradeRequest), 0, null);
+            }
+            readFrames();
+        } catch (Http2Exception e) {
+            goAway(e.errorCode, e.getMessage());
+        } catch (EOFException e) {
+            // El cliente cerró la conexión en medio de una trama.
+        } finally {
+            close();
+            buffers.release(payloadLease);
+            buffers.release(headerBlockLease);
+            headerBlockLease = null;
+        }
+    }
+
+    /**
+     * Envía los parámetros del servidor y amplía la ventana de la conexión.
+     */
+    private void sendPreamble() throws IOException {
+        byte[] settings = new byte[18];
+        putSetting(settings, 0, SETTINGS_MAX_CONCURRENT_STREAMS, config.getHttp2MaxConcurrentStreams());
+        putSetting(settings, 6, SETTINGS_INITIAL_WINDOW_SIZE, STREAM_WINDOW);
+        putSetting(settings, 12, SETTINGS_MAX_HEADER_LIST_SIZE, config.getMaxHeaderSize());
+        byte[] increment = new byte[4];
+        putInt(increment, 0, CONNECTION_WINDOW - DEFAULT_WINDOW);
+        writeLock.lock();
+        try {
+            writeFrameHeader(settings.length, SETTINGS, 0, 0);
+            output.write(settings);
+            writeFrameHeader(4, WINDOW_UPDATE, 0, 0);
+            output.write(increment);
+            output.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lee y verifica el prefacio del cliente a partir de la posición dada.
+     */
+    private void readPreface(int from) throws IOException {
+        byte[] received = new byte[PREFACE.length - from];
+        readFully(received, received.length, false);
+        if (!Arrays.equals(received, 0, received.length, PREFACE, from, PREFACE.length)) {
+            throw new Http2Exception(PROTOCOL_ERROR, "Prefacio HTTP/2 inválido");
+        }
+    }
+
+    /**
+     * Bucle de lectura de tramas del hilo de la conexión.
+     */
+    private void readFrames() throws IOException {
+        while (true) {
+            if (!running.getAsBoolean() && !goAwaySent) {
+                goAway(NO_ERROR, null);
+            }
+            if (goAwaySent && streams.isEmpty()) {
+                return;
+            }
+            if (!readFully(inHeader, FRAME_HEADER_SIZE, true)) {
+                return;
+            }
+            int length = ((inHeader[0] & 0xff) << 16) | ((inHeader[1] & 0xff) << 8) | (inHeader[2] & 0xff);
+            int type = inHeader[3] & 0xff;
+            int flags = inHeader[4] & 0xff;
+            int streamId = getInt(inHeader, 5) & 0x7fffffff;
+            if (length > DEFAULT_MAX_FRAME_SIZE) {
+                throw new Http2Exception(FRAME_SIZE_ERROR, "Trama de " + length + " bytes");
+            }
+            readFully(payload, length, false);
+            if (expectingContinuation && type != CONTINUATION) {
+                throw new Http2Exception(PROTOCOL_ERROR, "Se esperaba CONTINUATION");
+            }
+            if (!settingsReceived && type != SETTINGS) {
+                throw new Http2Exception(PROTOCOL_ERROR, "Se esperaba SETTINGS");
+            }
+            switch (type) {
+                case DATA -> onData(flags, streamId, length);
+                case HEADERS -> onHeaders(flags, streamId, length);
+                case PRIORITY -> {
+                    if (streamId == 0) {
+                        throw new Http2Exception(PROTOCOL_ERROR, "PRIORITY en el flujo 0");
+                    }
+                }
+                case RST_STREAM -> onReset(streamId, length);
+                case SETTINGS -> onSettings(flags, streamId, length);
+                case PUSH_PROMISE -> throw new Http2Exception(PROTOCOL_ERROR, "PUSH_PROMISE de un cliente");
+                case PING -> onPing(flags, streamId, length);
+                case GOAWAY -> {
+                    if (streamId != 0) {
+                        throw new Http2Exception(PROTOCOL_ERROR, "GOAWAY fuera del flujo 0");
+                    }
+                    goAwaySent = true;
+                }
+                case WINDOW_UPDATE -> onWindowUpdate(streamId, length);
+                case CONTINUATION -> onContinuation(flags, streamId, length);
+                default -> {
+                    // Los tipos desconocidos se ignoran (RFC 7540 sección 4.1).
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee exactamente {@code length} bytes. Mientras haya flujos abiertos, un
+     * tiempo de espera agotado no cierra la conexión, porque el cliente puede
+     * estar esperando las respuestas.
+     *
+     * @param target     Destino de los bytes
+     * @param length     Número de bytes
+     * @param frameStart true si se lee el encabezado de una trama nueva
+     * @return false si la conexión terminó limpiamente antes de la trama, o
+     *         si estuvo inactiva sin flujos abiertos
+     */
+    private boolean readFully(byte[] target, int length, boolean frameStart) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count;
+            try {
+                count = input.readBody(target, read, length - read);
+            } catch (SocketTimeoutException e) {
+                if (!streams.isEmpty()) {
+                    continue;
+                }
+                if (frameStart && read == 0) {
+                    goAway(NO_ERROR, null);
+                    return false;
+                }
+                throw e;
+            }
+            if (count < 0) {
+                if (frameStart && read == 0) {
+                    return false;
+                }
+                throw new EOFException("Conexión cerrada en medio de una trama");
+            }
+            read += count;
+        }
+        return true;
+    }
+
+    private void onData(int flags, int streamId, int length) throws IOException {
+        if (streamId == 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "DATA en el flujo 0");
+        }
+        if (connectionReceiveWindow.addAndGet(-length) < 0) {
+            throw new Http2Exception(FLOW_CONTROL_ERROR, "Ventana de la conexión excedida");
+        }
+        int offset = 0;
+        int end = length;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (length == 0 || (payload[0] & 0xff) >= length) {
+                throw new Http2Exception(PROTOCOL_ERROR, "Relleno inválido");
+            }
+            offset = 1;
+            end = length - (payload[0] & 0xff);
+        }
+        boolean endStream = (flags & FLAG_END_STREAM) != 0;
+        Stream stream = streams.get(streamId);
+        if (stream == null) {
+            if (streamId > lastStreamId) {
+                throw new Http2Exception(PROTOCOL_ERROR, "DATA en un flujo inactivo");
+            }
+            // Flujo ya terminado: se descartan los datos y se devuelve el crédito.
+            releaseConnectionWindow(length);
+            return;
+        }
+        int accepted = stream.input.offer(payload, offset, end - offset, length, endStream);
+        if (accepted < 0) {
+            releaseConnectionWindow(length);
+            reset(stream, accepted == -1 ? FLOW_CONTROL_ERROR : STREAM_CLOSED);
+        } else if (accepted < length) {
+            releaseConnectionWindow(length - accepted);
+        }
+    }
+
+    private void onHeaders(int flags, int streamId, int length) throws IOException {
+        if (streamId == 0 || (streamId & 1) == 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "Identificador de flujo inválido: " + streamId);
+        }
+        int offset = 0;
+        int end = length;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (length == 0) {
+                throw new Http2Exception(PROTOCOL_ERROR, "Relleno inválido");
+            }
+            offset = 1;
+            end -= payload[0] & 0xff;
+        }
+        if ((flags & FLAG_PRIORITY) != 0) {
+            offset += 5;
+        }
+        if (end < offset) {
+            throw new Http2Exception(PROTOCOL_ERROR, "Relleno inválido");
+        }
+        headerStreamId = streamId;
+        headerFlags = flags;
+        headerBlockLength = 0;
+        appendHeaderBlock(offset, end - offset);
+        if ((flags & FLAG_END_HEADERS) != 0) {
+            onHeaderBlock();
+        } else {
+            expectingContinuation = true;
+        }
+    }
+
+    private void onContinuation(int flags, int streamId, int length) throws IOException {
+        if (!expectingContinuation || streamId != headerStreamId) {
+            throw new Http2Exception(PROTOCOL_ERROR, "CONTINUATION inesperada");
+        }
+        appendHeaderBlock(0, length);
+        if ((flags & FLAG_END_HEADERS) != 0) {
+            expectingContinuation = false;
+            onHeaderBlock();
+        }
+    }
+
+    private void appendHeaderBlock(int offset, int length) throws Http2Exception {
+        int limit = Math.max(DEFAULT_MAX_FRAME_SIZE, 2 * config.getMaxHeaderSize());
+        if (headerBlockLength + length > limit) {
+            throw new Http2Exception(ENHANCE_YOUR_CALM, "Bloque de encabezados demasiado grande");
+        }
+        if (headerBlockLength + length > headerBlock.length) {
+            ByteBuffer larger = buffers.acquire(Math.min(limit, 2 * (headerBlockLength + length)));
+            System.arraycopy(headerBlock, 0, larger.array(), 0, headerBlockLength);
+            buffers.release(headerBlockLease);
+            headerBlockLease = larger;
+            headerBlock = larger.array();
+        }
+        System.arraycopy(payload, offset, headerBlock, headerBlockLength, length);
+        headerBlockLength += length;
+    }
+
+    /**
+     * Procesa un bloque de encabezados completo: abre un flujo nuevo con la
+     * solicitud, o cierra la entrada de uno existente si son trailers.
+     */
+    private void onHeaderBlock() throws IOException {
+        int streamId = headerStreamId;
+        boolean endStream = (headerFlags & FLAG_END_STREAM) != 0;
+        fields.clear();
+        long listSize;
+        try {
+            listSize = decoder.decode(headerBlock, 0, headerBlockLength, fields);
+        } catch (IOException e) {
+            throw new Http2Exception(COMPRESSION_ERROR, e.getMessage());
+        }
+        Stream existing = streams.get(streamId);
+        if (existing != null) {
+            // Trailers de la solicitud: se descartan y terminan el cuerpo.
+            if (!endStream || existing.input.isFinished()) {
+                reset(existing, PROTOCOL_ERROR);
+            } else {
+                existing.input.finish();
+            }
+            return;
+        }
+        if (streamId <= lastStreamId) {
+            throw new Http2Exception(STREAM_CLOSED, "HEADERS en un flujo cerrado");
+        }
+        lastStreamId = streamId;
+        if (goAwaySent || streams.size() >= config.getHttp2MaxConcurrentStreams()) {
+            sendReset(streamId, REFUSED_STREAM);
+            return;
+        }
+        Stream stream = openStream(streamId, value(fields, ":method"));
+        if (endStream) {
+            stream.input.finish();
+        }
+        if (listSize > config.getMaxHeaderSize()) {
+            dispatch(stream, null, 431, "Encabezados demasiado grandes");
+            return;
+        }
+        HttpRequestData requestData;
+        try {
+            requestData = toRequest(fields, stream, !endStream);
+        } catch (HttpParseException e) {
+            dispatch(stream, null, e.getStatusCode(), e.getMessage());
+            return;
+        }
+        dispatch(stream, requestData, 0, null);
+    }
+
+    /**
+     * Construye la solicitud a partir de los pseudo-encabezados y los
+     * encabezados decodificados; {@code :authority} pasa a ser Host. Si hay
+     * cuerpo sin Content-Length, se entrega al manejador como chunked.
+     */
+    private HttpRequestData toRequest(List<String> fields, Stream stream, boolean hasBody)
+            throws HttpParseException {
+        String method = null;
+        String scheme = null;
+        String path = null;
+        String authority = null;
+        RequestHeaders headers = new RequestHeaders();
+        String cookie = null;
+        boolean regularSeen = false;
+        for (int i = 0; i < fields.size(); i += 2) {
+            String name = fields.get(i);
+            String value = fields.get(i + 1);
+            if (name.startsWith(":")) {
+                if (regularSeen) {
+                    throw new HttpParseException(400, "Pseudo-encabezado después de los encabezados");
+                }
+                switch (name) {
+                    case ":method" -> method = single(method, value, name);
+                    case ":scheme" -> scheme = single(scheme, value, name);
+                    case ":path" -> path = single(path, value, name);
+                    case ":authority" -> authority = single(authority, value, name);
+                    default -> throw new HttpParseException(400, "Pseudo-encabezado desconocido: " + name);
+                }
+                continue;
+            }
+            regularSeen = true;
+            if (!isLowerCase(name)) {
+                throw new HttpParseException(400, "Nombre de encabezado en mayúsculas: " + name);
+            }
+            if (isConnectionSpecific(name) || "te".equals(name) && !"trailers".equals(value)) {
+                throw new HttpParseException(400, "Encabezado propio de la conexión: " + name);
+            }
+            if ("cookie".equals(name)) {
+                // Los fragmentos de Cookie se unen con "; " (RFC 7540 sección 8.1.2.5), no con comas.
+                cookie = cookie == null ? value : cookie + "; " + value;
+            } else {
+                headers.add(name, value);
+            }
+        }
+        if (cookie != null) {
+            headers.add("cookie", cookie);
+        }
+        if (method == null || scheme == null || path == null || path.isEmpty()) {
+            throw new HttpParseException(400, "Faltan pseudo-encabezados obligatorios");
+        }
+        if (authority != null && !headers.containsKey("Host")) {
+            headers.add("Host", authority);
+        }
+        if (hasBody && !headers.containsKey("Content-Length")) {
+            headers.add("Transfer-Encoding", "chunked");
+            stream.input.chunked = true;
+        }
+        // HPACK entrega un carácter por octeto; la ruta se decodifica como UTF-8, igual que en HTTP/1.1.
+        path = new String(path.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+        int query = path.indexOf('?');
+        return query < 0
+                ? new HttpRequestData(method, path, "", "HTTP/1.1", headers)
+                : new HttpRequestData(method, path.substring(0, query), path.substring(query + 1), "HTTP/1.1",
+                        headers);
+    }
+
+    private static String single(String current, String value, String name) throws HttpParseException {
+        if (current != null) {
+            throw new HttpParseException(400, "Pseudo-encabezado repetido: " + name);
+        }
+        return value;
+    }
+
+    private static String value(List<String> fields, String name) {
+        for (int i = 0; i < fields.size(); i += 2) {
+            if (fields.get(i).equals(name)) {
+                return fields.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isLowerCase(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConnectionSpecific(String name) {
+        return "connection".equals(name) || "keep-alive".equals(name) || "proxy-connection".equals(name)
+                || "transfer-encoding".equals(name) || "upgrade".equals(name);
+    }
+
+    /**
+     * Copia la solicitud de actualización sin los encabezados que solo
+     * tenían sentido en HTTP/1.1.
+     */
+    private static HttpRequestData withoutUpgradeHeaders(HttpRequestData requestData) {
+        RequestHeaders headers = new RequestHeaders();
+        for (int i = 0; i < requestData.headers.fieldCount(); i++) {
+            String name = requestData.headers.name(i);
+            if (!name.equalsIgnoreCase("Upgrade") && !name.equalsIgnoreCase("HTTP2-Settings")
+                    && !name.equalsIgnoreCase("Connection")) {
+                headers.add(name, requestData.headers.value(i));
+            }
+        }
+        return new HttpRequestData(requestData.method, requestData.path, requestData.queryString,
+                requestData.version, headers);
+    }
+
+    private Stream openStream(int streamId, String method) {
+        Stream stream = new Stream(streamId, method, peerInitialWindow);
+        streams.put(streamId, stream);
+        return stream;
+    }
+
+    /**
+     * Entrega un flujo al pool. Si el control de admisión lo rechaza, el
+     * flujo se reinicia con REFUSED_STREAM para que el cliente pueda
+     * reintentarlo.
+     *
+     * @param stream        El flujo
+     * @param requestData   La solicitud, o null para responder un error
+     * @param errorStatus   El estado del error cuando no hay solicitud
+     * @param errorMessage  El mensaje del error cuando no hay solicitud
+     */
+    private void dispatch(Stream stream, HttpRequestData requestData, int errorStatus, String errorMessage) {
+        admission.execute(() -> runStream(stream, requestData, errorStatus, errorMessage), () -> {
+            streams.remove(stream.id);
+            stream.reset = true;
+            stream.input.fail(new IOException("Flujo rechazado"));
+            releaseConnectionWindow(stream.input.abandon());
+            sendResetQuietly(stream.id, REFUSED_STREAM);
+        });
+    }
+
+    /**
+     * Atiende un flujo en un hilo del pool.
+     */
+    private void runStream(Stream stream, HttpRequestData requestData, int errorStatus, String errorMessage) {
+        try {
+            if (requestData != null) {
+                handler.processStream(requestData, stream.connection);
+            } else {
+                handler.sendStreamError(stream.connection, errorStatus, errorMessage);
+            }
+            stream.output.finish();
+        } catch (IOException | RuntimeException e) {
+            if (!stream.reset && running.getAsBoolean() && !isClosed()) {
+                System.err.println("Error al atender el flujo HTTP/2 " + stream.id + ": " + e.getMessage());
+                reset(stream, INTERNAL_ERROR);
+            }
+        } finally {
+            stream.connection.release();
+            streams.remove(stream.id);
+            int unread = stream.input.abandon();
+            if (!stream.reset && !stream.input.isFinished()) {
+                // El cliente sigue enviando un cuerpo que ya no se leerá.
+                sendResetQuietly(stream.id, NO_ERROR);
+            }
+            releaseConnectionWindow(unread);
+        }
+    }
+
+    private void onReset(int streamId, int length) throws IOException {
+        if (length != 4) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "RST_STREAM de " + length + " bytes");
+        }
+        if (streamId == 0 || streamId > lastStreamId) {
+            throw new Http2Exception(PROTOCOL_ERROR, "RST_STREAM en un flujo inactivo");
+        }
+        Stream stream = streams.get(streamId);
+        if (stream != null) {
+            stream.reset = true;
+            stream.input.fail(new IOException("Flujo cancelado por el cliente"));
+            signalWindows();
+        }
+    }
+
+    private void onSettings(int flags, int streamId, int length) throws IOException {
+        if (streamId != 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "SETTINGS fuera del flujo 0");
+        }
+        if ((flags & FLAG_ACK) != 0) {
+            if (length != 0) {
+                throw new Http2Exception(FRAME_SIZE_ERROR, "SETTINGS ACK con contenido");
+            }
+            return;
+        }
+        settingsReceived = true;
+        applySettings(payload, 0, length);
+        sendFrame(SETTINGS, FLAG_ACK, 0, EMPTY, 0);
+    }
+
+    /**
+     * Aplica los parámetros del cliente. Un cambio en la ventana inicial se
+     * aplica también a los flujos abiertos (RFC 7540 sección 6.9.2).
+     */
+    private void applySettings(byte[] data, int offset, int length) throws IOException {
+        if (length % 6 != 0) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "SETTINGS de " + length + " bytes");
+        }
+        writeLock.lock();
+        try {
+            for (int i = offset; i < offset + length; i += 6) {
+                int id = ((data[i] & 0xff) << 8) | (data[i + 1] & 0xff);
+                long value = getInt(data, i + 2) & 0xffffffffL;
+                switch (id) {
+                    case SETTINGS_HEADER_TABLE_SIZE -> encoder.setMaxTableSize((int) Math.min(value, MAX_WINDOW));
+                    case SETTINGS_ENABLE_PUSH -> {
+                        if (value > 1) {
+                            throw new Http2Exception(PROTOCOL_ERROR, "SETTINGS_ENABLE_PUSH inválido");
+                        }
+                    }
+                    case SETTINGS_INITIAL_WINDOW_SIZE -> {
+                        if (value > MAX_WINDOW) {
+                            throw new Http2Exception(FLOW_CONTROL_ERROR, "SETTINGS_INITIAL_WINDOW_SIZE inválido");
+                        }
+                        int delta = (int) value - peerInitialWindow;
+                        peerInitialWindow = (int) value;
+                        for (Stream stream : streams.values()) {
+                            stream.sendWindow += delta;
+                            if (stream.sendWindow > MAX_WINDOW) {
+                                throw new Http2Exception(FLOW_CONTROL_ERROR, "Ventana de flujo desbordada");
+                            }
+                        }
+                        windowAvailable.signalAll();
+                    }
+                    case SETTINGS_MAX_FRAME_SIZE -> {
+                        if (value < DEFAULT_MAX_FRAME_SIZE || value > MAX_ALLOWED_FRAME_SIZE) {
+                            throw new Http2Exception(PROTOCOL_ERROR, "SETTINGS_MAX_FRAME_SIZE inválido");
+                        }
+                        peerMaxFrameSize = (int) value;
+                    }
+                    default -> {
+                        // Los demás parámetros no afectan al servidor.
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void onPing(int flags, int streamId, int length) throws IOException {
+        if (streamId != 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "PING fuera del flujo 0");
+        }
+        if (length != 8) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "PING de " + length + " bytes");
+        }
+        if ((flags & FLAG_ACK) == 0) {
+            sendFrame(PING, FLAG_ACK, 0, payload, 8);
+        }
+    }
+
+    private void onWindowUpdate(int streamId, int length) throws IOException {
+        if (length != 4) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "WINDOW_UPDATE de " + length + " bytes");
+        }
+        int increment = getInt(payload, 0) & 0x7fffffff;
+        if (streamId == 0) {
+            if (increment == 0) {
+                throw new Http2Exception(PROTOCOL_ERROR, "WINDOW_UPDATE con incremento cero");
+            }
+            writeLock.lock();
+            try {
+                connectionSendWindow += increment;
+                if (connectionSendWindow > MAX_WINDOW) {
+                    throw new Http2Exception(FLOW_CONTROL_ERROR, "Ventana de la conexión desbordada");
+                }
+                windowAvailable.signalAll();
+            } finally {
+                writeLock.unlock();
+            }
+            return;
+        }
+        if (streamId > lastStreamId) {
+            throw new Http2Exception(PROTOCOL_ERROR, "WINDOW_UPDATE en un flujo inactivo");
+        }
+        Stream stream = streams.get(streamId);
+        if (stream == null) {
+            return;
+        }
+        if (increment == 0) {
+            reset(stream, PROTOCOL_ERROR);
+            return;
+        }
+        boolean overflow;
+        writeLock.lock();
+        try {
+            stream.sendWindow += increment;
+            overflow = stream.sendWindow > MAX_WINDOW;
+            windowAvailable.signalAll();
+        } finally {
+            writeLock.unlock();
+        }
+        if (overflow) {
+            reset(stream, FLOW_CONTROL_ERROR);
+        }
+    }
+
+    /**
+     * Devuelve al cliente crédito de la conexión por bytes ya leídos o
+     * descartados, agrupado hasta la mitad de la ventana.
+     *
+     * @param bytes Los bytes liberados
+     */
+    private void releaseConnectionWindow(int bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        if (connectionUnacknowledged.addAndGet(bytes) >= CONNECTION_WINDOW / 2) {
+            int increment = connectionUnacknowledged.getAndSet(0);
+            if (increment > 0) {
+                connectionReceiveWindow.addAndGet(increment);
+                sendWindowUpdate(0, increment);
+            }
+        }
+    }
+
+    private void sendWindowUpdate(int streamId, int increment) {
+        byte[] frame = new byte[4];
+        putInt(frame, 0, increment);
+        try {
+            sendFrame(WINDOW_UPDATE, 0, streamId, frame, 4);
+        } catch (IOException e) {
+            // La conexión se cerró; el hilo lector lo detectará.
+        }
+    }
+
+    /**
+     * Reinicia un flujo por un error: avisa al cliente y despierta al hilo
+     * que lo atiende.
+     */
+    private void reset(Stream stream, int errorCode) {
+        if (stream.reset) {
+            return;
+        }
+        stream.reset = true;
+        stream.input.fail(new IOException("Flujo reiniciado"));
+        sendResetQuietly(stream.id, errorCode);
+        signalWindows();
+    }
+
+    private void sendReset(int streamId, int errorCode) throws IOException {
+        byte[] frame = new byte[4];
+        putInt(frame, 0, errorCode);
+        sendFrame(RST_STREAM, 0, streamId, frame, 4);
+    }
+
+    private void sendResetQuietly(int streamId, int errorCode) {
+        try {
+            sendReset(streamId, errorCode);
+        } catch (IOException e) {
+            // La conexión se cerró; el hilo lector lo detectará.
+        }
+    }
+
+    /**
+     * Envía GOAWAY: el cliente no debe abrir más flujos y los ya aceptados
+     * (hasta el último identificador) se terminan de atender.
+     */
+    private void goAway(int errorCode, String message) {
+        goAwaySent = true;
+        byte[] debug = message != null ? message.getBytes(StandardCharsets.UTF_8) : EMPTY;
+        byte[] frame = new byte[8 + debug.length];
+        putInt(frame, 0, lastStreamId);
+        putInt(frame, 4, errorCode);
+        System.arraycopy(debug, 0, frame, 8, debug.length);
+        try {
+            sendFrame(GOAWAY, 0, 0, frame, frame.length);
+        } catch (IOException e) {
+            // El cliente ya no está.
+        }
+    }
+
+    /**
+     * Marca la sesión como cerrada y despierta a los flujos que esperan
+     * datos o ventana, que terminan con error.
+     */
+    private void close() {
+        writeLock.lock();
+        try {
+            closed = true;
+            windowAvailable.signalAll();
+        } finally {
+            writeLock.unlock();
+        }
+        for (Stream stream : streams.values()) {
+            stream.input.fail(new IOException("Conexión HTTP/2 cerrada"));
+        }
+    }
+
+    private boolean isClosed() {
+        writeLock.lock();
+        try {
+            return closed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void signalWindows() {
+        writeLock.lock();
+        try {
+            windowAvailable.signalAll();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Escribe y envía una trama de control.
+     */
+    private void sendFrame(int type, int flags, int streamId, byte[] frame, int length) throws IOException {
+        writeLock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Conexión HTTP/2 cerrada");
+            }
+            writeFrameHeader(length, type, flags, streamId);
+            output.write(frame, 0, length);
+            output.flush();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Escribe el encabezado de una trama. Debe llamarse con el candado de
+     * escritura.
+     */
+    private void writeFrameHeader(int length, int type, int flags, int streamId) throws IOException {
+        outHeader[0] = (byte) (length >>> 16);
+        outHeader[1] = (byte) (length >>> 8);
+        outHeader[2] = (byte) length;
+        outHeader[3] = (byte) type;
+        outHeader[4] = (byte) flags;
+        putInt(outHeader, 5, streamId);
+        output.write(outHeader, 0, FRAME_HEADER_SIZE);
+    }
+
+    /**
+     * Codifica y escribe los encabezados de una respuesta, divididos en
+     * HEADERS y CONTINUATION si superan el tamaño de trama del cliente.
+     */
+    private void sendHeaders(Stream stream, int status, List<String> headers, boolean endStream)
+            throws IOException {
+        writeLock.lock();
+        try {
+            checkWritable(stream);
+            encoder.start();
+            encoder.header(":status", Integer.toString(status));
+            for (int i = 0; i < headers.size(); i += 2) {
+                encoder.header(headers.get(i), headers.get(i + 1));
+            }
+            byte[] block = encoder.array();
+            int length = encoder.length();
+            int offset = 0;
+            int type = HEADERS;
+            do {
+                int size = Math.min(length - offset, peerMaxFrameSize);
+                int flags = offset + size == length ? FLAG_END_HEADERS : 0;
+                if (type == HEADERS && endStream) {
+                    flags |= FLAG_END_STREAM;
+                }
+                writeFrameHeader(size, type, flags, stream.id);
+                output.write(block, offset, size);
+                offset += size;
+                type = CONTINUATION;
+            } while (offset < length);
+            if (endStream) {
+                stream.endSent = true;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Escribe datos de un flujo en tramas DATA, esperando a que el cliente
+     * amplíe la ventana del flujo o de la conexión cuando se agota.
+     */
+    private void sendData(Stream stream, byte[] b, int off, int len, boolean endStream) throws IOException {
+        writeLock.lock();
+        try {
+            do {
+                checkWritable(stream);
+                int allowed = (int) Math.min(Math.min(len, peerMaxFrameSize),
+                        Math.min(stream.sendWindow, connectionSendWindow));
+                if (len > 0 && allowed <= 0) {
+                    output.flush();
+                    if (!windowAvailable.await(config.getKeepAliveTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                        throw new SocketTimeoutException("El cliente no amplió la ventana de envío");
+                    }
+                    continue;
+                }
+                boolean last = allowed == len;
+                writeFrameHeader(allowed, DATA, last && endStream ? FLAG_END_STREAM : 0, stream.id);
+                output.write(b, off, allowed);
+                stream.sendWindow -= allowed;
+                connectionSendWindow -= allowed;
+                off += allowed;
+                len -= allowed;
+            } while (len > 0);
+            if (endStream) {
+                stream.endSent = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Espera interrumpida", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void flush() throws IOException {
+        writeLock.lock();
+        try {
+            if (!closed) {
+                output.flush();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Verifica que el flujo aún admite escrituras. Debe llamarse con el
+     * candado de escritura.
+     */
+    private void checkWritable(Stream stream) throws IOException {
+        if (closed) {
+            throw new IOException("Conexión HTTP/2 cerrada");
+        }
+        if (stream.reset) {
+            throw new IOException("Flujo cancelado");
+        }
+    }
+
+    private static void putSetting(byte[] target, int offset, int id, int value) {
+        target[offset] = (byte) (id >>> 8);
+        target[offset + 1] = (byte) id;
+        putInt(target, offset + 2, value);
+    }
+
+    private static void putInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static int getInt(byte[] source, int offset) {
+        return ((source[offset] & 0xff) << 24) | ((source[offset + 1] & 0xff) << 16)
+                | ((source[offset + 2] & 0xff) << 8) | (source[offset + 3] & 0xff);
+    }
+
+    /**
+     * Error de protocolo que cierra la conexión con GOAWAY.
+     */
+    private static final class Http2Exception extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int errorCode;
+
+        Http2Exception(int errorCode, String message) {
+            super(message);
+            this.errorCode = errorCode;
+        }
+    }
+
+    /**
+     * Un flujo: su entrada, su traductor de salida y la conexión HTTP/1.1
+     * virtual sobre la que lo atiende el {@link ConnectionHandler}.
+     */
+    private final class Stream {
+        final int id;
+        final String method;
+        final StreamInput input = new StreamInput();
+        final StreamOutput output = new StreamOutput();
+        final HttpConnection connection;
+        volatile boolean reset;
+
+        // Protegidos por el candado de escritura.
+        long sendWindow;
+        boolean endSent;
+
+        Stream(int id, String method, int sendWindow) {
+            this.id = id;
+            this.method = method;
+            this.sendWindow = sendWindow;
+            this.connection = new HttpConnection(input, output, null, config, buffers);
+        }
+
+        /**
+         * Cuerpo de la solicitud: los datos de las tramas DATA en orden. Con
+         * {@code chunked} se presentan con la codificación chunked que espera
+         * el parser HTTP/1.1, porque el cliente no envió Content-Length.
+         */
+        private final class StreamInput extends InputStream {
+            private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+            private int chunkPosition;
+            private byte[] framing;
+            private int framingPosition;
+            private boolean chunkStarted;
+            private boolean trailerQueued;
+            private boolean finished;
+            private boolean abandoned;
+            private int receiveWindow = STREAM_WINDOW;
+            private int unacknowledged;
+            private int consumed;
+            private IOException failure;
+            private boolean chunked;
+
+            /**
+             * Agrega los datos de una trama DATA desde el hilo lector.
+             *
+             * @param data      El contenido de la trama
+             * @param offset    Inicio de los datos, sin relleno
+             * @param length    Longitud de los datos
+             * @param frameSize Tamaño de la trama para el control de flujo
+             * @param endStream true si la trama termina el cuerpo
+             * @return Los bytes retenidos para el manejador (el resto de la
+             *         trama se devuelve de inmediato como crédito de la
+             *         conexión), -1 si se excedió la ventana del flujo o -2 si
+             *         el cuerpo ya había terminado
+             */
+            synchronized int offer(byte[] data, int offset, int length, int frameSize, boolean endStream) {
+                if (finished) {
+                    return -2;
+                }
+                if (frameSize > receiveWindow) {
+                    return -1;
+                }
+                receiveWindow -= frameSize;
+                finished = endStream;
+                notifyAll();
+                if (abandoned) {
+                    return 0;
+                }
+                unacknowledged += frameSize - length;
+                if (length > 0) {
+                    chunks.add(Arrays.copyOfRange(data, offset, offset + length));
+                }
+                return length;
+            }
+
+            synchronized void finish() {
+                finished = true;
+                notifyAll();
+            }
+
+            synchronized boolean isFinished() {
+                return finished;
+            }
+
+            synchronized void fail(IOException error) {
+                if (failure == null) {
+                    failure = error;
+                }
+                notifyAll();
+            }
+
+            /**
+             * Descarta lo que el manejador no leyó cuando el flujo termina.
+             *
+             * @return Los bytes descartados, que aún ocupaban la ventana de la
+             *         conexión
+             */
+            synchronized int abandon() {
+                abandoned = true;
+                int unread = -chunkPosition;
+                for (byte[] chunk : chunks) {
+                    unread += chunk.length;
+                }
+                chunks.clear();
+                chunkPosition = 0;
+                return unread;
+            }
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+            }
+
+            /**
+             * Lee datos del cuerpo y devuelve el crédito de lo leído: a la
+             * conexión siempre, y al flujo al llegar a la mitad de su ventana.
+             */
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                int count;
+                int connectionCredit;
+                int streamCredit = 0;
+                synchronized (this) {
+                    count = take(b, off, len);
+                    connectionCredit = consumed;
+                    unacknowledged += consumed;
+                    consumed = 0;
+                    if (unacknowledged >= STREAM_WINDOW / 2 && !finished) {
+                        streamCredit = unacknowledged;
+                        receiveWindow += streamCredit;
+                        unacknowledged = 0;
+                    }
+                }
+                if (streamCredit > 0) {
+                    sendWindowUpdate(id, streamCredit);
+                }
+                releaseConnectionWindow(connectionCredit);
+                return count;
+            }
+
+            /**
+             * Copia bytes al destino, esperando datos si no los hay. Debe
+             * llamarse con el monitor del flujo.
+             */
+            private int take(byte[] b, int off, int len) throws IOException {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getKeepAliveTimeoutMillis());
+                while (true) {
+                    if (framing != null) {
+                        int n = Math.min(len, framing.length - framingPosition);
+                        System.arraycopy(framing, framingPosition, b, off, n);
+                        framingPosition += n;
+                        if (framingPosition == framing.length) {
+                            framing = null;
+                        }
+                        return n;
+                    }
+                    byte[] chunk = chunks.peek();
+                    if (chunk != null) {
+                        if (chunked && !chunkStarted) {
+                            chunkStarted = true;
+                            setFraming(Integer.toHexString(chunk.length) + "\r\n");
+                            continue;
+                        }
+                        int n = Math.min(len, chunk.length - chunkPosition);
+                        System.arraycopy(chunk, chunkPosition, b, off, n);
+                        chunkPosition += n;
+                        consumed += n;
+                        if (chunkPosition == chunk.length) {
+                            chunks.poll();
+                            chunkPosition = 0;
+                            if (chunked) {
+                                chunkStarted = false;
+                                setFraming("\r\n");
+                            }
+                        }
+                        return n;
+                    }
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    if (finished) {
+                        if (chunked && !trailerQueued) {
+                            trailerQueued = true;
+                            setFraming("0\r\n\r\n");
+                            continue;
+                        }
+                        return -1;
+                    }
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        throw new SocketTimeoutException("Tiempo de espera agotado leyendo el cuerpo");
+                    }
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Espera interrumpida", e);
+                    }
+                }
+            }
+
+            private void setFraming(String bytes) {
+                framing = bytes.getBytes(StandardCharsets.US_ASCII);
+                framingPosition = 0;
+            }
+        }
+
+        /**
+         * Traduce la respuesta HTTP/1.1 que escribe el manejador a tramas:
+         * la línea de estado y los encabezados a HEADERS, y el cuerpo
+         * (delimitado por Content-Length, chunked o por el fin de la
+         * respuesta) a DATA. Las respuestas 1xx se envían como HEADERS
+         * informativos.
+         */
+        private final class StreamOutput extends OutputStream {
+            private int state = OUT_HEAD;
+            private byte[] head = new byte[512];
+            private int headLength;
+            private long remaining;
+            private int chunkState = CHUNK_SIZE;
+            private long chunkSize;
+            private boolean sizeDigits;
+            private boolean extension;
+            private int lineLength;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                int end = off + len;
+                while (off < end) {
+                    switch (state) {
+                        case OUT_HEAD -> off = readHead(b, off, end);
+                        case OUT_LENGTH -> {
+                            int n = (int) Math.min(end - off, remaining);
+                            remaining -= n;
+                            sendData(Stream.this, b, off, n, remaining == 0);
+                            off += n;
+                            if (remaining == 0) {
+                                state = OUT_DONE;
+                            }
+                        }
+                        case OUT_UNTIL_END -> {
+                            sendData(Stream.this, b, off, end - off, false);
+                            off = end;
+                        }
+                        case OUT_CHUNKED -> off = readChunked(b, off, end);
+                        default -> off = end;
+                    }
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                Http2Connection.this.flush();
+            }
+
+            /**
+             * Termina el flujo cuando el manejador ya escribió la respuesta.
+             *
+             * @throws IOException Si la respuesta quedó incompleta
+             */
+            void finish() throws IOException {
+                if (state == OUT_UNTIL_END) {
+                    sendData(Stream.this, EMPTY, 0, 0, true);
+                    state = OUT_DONE;
+                } else if (state != OUT_DONE) {
+                    throw new IOException("Respuesta incompleta");
+                }
+                Http2Connection.this.flush();
+            }
+
+            /**
+             * Acumula la cabecera de la respuesta hasta la línea vacía.
+             */
+            private int readHead(byte[] b, int off, int end) throws IOException {
+                while (off < end) {
+                    if (headLength == head.length) {
+                        if (head.length >= 65536) {
+                            throw new IOException("Encabezados de respuesta demasiado grandes");
+                        }
+                        head = Arrays.copyOf(head, head.length * 2);
+                    }
+                    head[headLength++] = b[off++];
+                    if (headLength >= 4 && head[headLength - 1] == '\n' && head[headLength - 2] == '\r'
+                            && head[headLength - 3] == '\n' && head[headLength - 4] == '\r') {
+                        processHead();
+                        headLength = 0;
+                        return off;
+                    }
+                }
+                return off;
+            }
+
+            private void processHead() throws IOException {
+                String[] lines = new String(head, 0, headLength - 4, StandardCharsets.ISO_8859_1).split("\r\n");
+                int status;
+                try {
+                    status = Integer.parseInt(lines[0].substring(9, 12));
+                } catch (RuntimeException e) {
+                    throw new IOException("Línea de estado inválida: " + lines[0]);
+                }
+                if (status < 200) {
+                    sendHeaders(Stream.this, status, List.of(), false);
+                    return;
+                }
+                List<String> headers = new ArrayList<>(2 * lines.length);
+                long contentLength = -1;
+                boolean chunkedBody = false;
+                for (int i = 1; i < lines.length; i++) {
+                    int colon = lines[i].indexOf(':');
+                    if (colon <= 0) {
+                        continue;
+                    }
+                    String name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                    String value = lines[i].substring(colon + 1).trim();
+                    if ("transfer-encoding".equals(name)) {
+                        chunkedBody = ConnectionHandler.hasToken(value, "chunked");
+                        continue;
+                    }
+                    if (isConnectionSpecific(name)) {
+                        continue;
+                    }
+                    if ("content-length".equals(name)) {
+                        contentLength = Long.parseLong(value);
+                    }
+                    headers.add(name);
+                    headers.add(value);
+                }
+                boolean bodyless = "HEAD".equals(method) || status == 204 || status == 304
+                        || !chunkedBody && contentLength == 0;
+                sendHeaders(Stream.this, status, headers, bodyless);
+                if (bodyless) {
+                    state = OUT_DONE;
+                } else if (chunkedBody) {
+                    state = OUT_CHUNKED;
+                } else if (contentLength > 0) {
+                    state = OUT_LENGTH;
+                    remaining = contentLength;
+                } else {
+                    state = OUT_UNTIL_END;
+                }
+            }
+
+            /**
+             * Decodifica el cuerpo chunked y envía solo los datos.
+             */
+            private int readChunked(byte[] b, int off, int end) throws IOException {
+                if (chunkState == CHUNK_DATA) {
+                    int n = (int) Math.min(end - off, chunkSize);
+                    sendData(Stream.this, b, off, n, false);
+                    chunkSize -= n;
+                    if (chunkSize == 0) {
+                        chunkState = CHUNK_DATA_END;
+                    }
+                    return off + n;
+                }
+                byte c = b[off++];
+                switch (chunkState) {
+                    case CHUNK_SIZE -> {
+                        if (c == '\n') {
+                            if (!sizeDigits) {
+                                throw new IOException("Fragmento chunked inválido en la respuesta");
+                            }
+                            sizeDigits = false;
+                            extension = false;
+                            chunkState = chunkSize == 0 ? CHUNK_TRAILER : CHUNK_DATA;
+                            lineLength = 0;
+                        } else if (c == ';') {
+                            extension = true;
+                        } else if (!extension && Character.digit(c, 16) >= 0) {
+                            chunkSize = chunkSize * 16 + Character.digit(c, 16);
+                            sizeDigits = true;
+                        }
+                    }
+                    case CHUNK_DATA_END -> {
+                        if (c == '\n') {
+                            chunkState = CHUNK_SIZE;
+                        }
+                    }
+                    default -> {
+                        if (c == '\n') {
+                            if (lineLength == 0) {
+                                sendData(Stream.this, EMPTY, 0, 0, true);
+                                state = OUT_DONE;
+                            }
+                            lineLength = 0;
+                        } else if (c != '\r') {
+                            lineLength++;
+                        }
+                    }
+                }
+                return off;
+            }
+        }
+    }
+}
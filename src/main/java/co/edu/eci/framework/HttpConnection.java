@@ -0,0 +1,419 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Estado de una conexión HTTP compartido entre solicitudes sucesivas: el
+ * parser con su búfer de lectura, el búfer de escritura, el serializador de
+ * encabezados y el número de solicitudes atendidas. Mientras un manejador
+ * asíncrono no termina, la conexión puede quedar suspendida con la
+ * continuación que escribirá su respuesta.
+ * Los búferes de lectura y escritura se toman de un {@link BufferPool} cuando
+ * hacen falta y vuelven a él al vaciarse; el transporte llama a
+ * {@link #release()} al cerrar la conexión.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+class HttpConnection {
+
+    /** Tamaño del búfer de salida; las respuestas que caben se envían en una sola escritura. */
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+    private final InputStream input;
+    private final HttpRequestParser parser;
+    private final CountingOutputStream output;
+    private final WritableByteChannel channel;
+    private final BufferPool buffers;
+    private final ResponseHeaders responseHeaders = new ResponseHeaders();
+    private int requestCount;
+    private int pendingResponses;
+    private int responseStatus;
+    private long responseStart;
+    private CompletableFuture<?> suspension;
+    private Continuation continuation;
+
+    /**
+     * Crea el estado de una conexión sobre los flujos del transporte.
+     *
+     * @param input   El flujo de entrada de la conexión
+     * @param output  El flujo de salida de la conexión
+     * @param channel El canal del socket para transferencias directas desde
+     *                archivos, o null si el transporte no lo ofrece
+     * @param config  Las opciones con los límites de las solicitudes
+     * @param buffers El pool de los búferes de lectura y escritura
+     */
+    HttpConnection(InputStream input, OutputStream output, WritableByteChannel channel, ServerConfig config,
+            BufferPool buffers) {
+        this.input = input;
+        this.buffers = buffers;
+        this.parser = new HttpRequestParser(input, config, buffers);
+        this.output = new CountingOutputStream(output, buffers);
+        this.channel = channel != null ? channel : Channels.newChannel(output);
+    }
+
+    /**
+     * Obtiene el parser de solicitudes de la conexión.
+     *
+     * @return El parser con el búfer de lectura de la conexión
+     */
+    HttpRequestParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Obtiene el flujo de salida con búfer de la conexión.
+     *
+     * @return El flujo de salida
+     */
+    OutputStream getOutput() {
+        return output;
+    }
+
+    /**
+     * Obtiene el pool de los búferes de la conexión.
+     *
+     * @return El pool
+     */
+    BufferPool getBufferPool() {
+        return buffers;
+    }
+
+    /**
+     * Empieza los encabezados de una respuesta en el serializador reutilizable
+     * de la conexión.
+     *
+     * @param statusCode El código de estado HTTP
+     * @return El serializador con la línea de estado y el encabezado Date
+     */
+    ResponseHeaders startResponse(int statusCode) {
+        responseStatus = statusCode;
+        responseStart = output.count;
+        return responseHeaders.start(statusCode);
+    }
+
+    /**
+     * Obtiene el código de estado de la última respuesta empezada.
+     *
+     * @return El código de estado HTTP
+     */
+    int getResponseStatus() {
+        return responseStatus;
+    }
+
+    /**
+     * Obtiene los bytes escritos desde que empezó la última respuesta,
+     * encabezados incluidos.
+     *
+     * @return El número de bytes de la respuesta
+     */
+    long getResponseBytes() {
+        return output.count - responseStart;
+    }
+
+    /**
+     * Escribe los encabezados serializados en el búfer de salida.
+     *
+     * @param headers Los encabezados terminados con {@link ResponseHeaders#end()}
+     * @throws IOException Si hay un error al escribir
+     */
+    void writeHead(ResponseHeaders headers) throws IOException {
+        output.write(headers.array(), 0, headers.length());
+    }
+
+    /**
+     * Escribe una respuesta completa ya codificada, con su línea de estado,
+     * encabezados y cuerpo. Si no cabe en el búfer de salida se envía sin
+     * copiarla.
+     *
+     * @param statusCode El código de estado de la respuesta
+     * @param response   Los bytes de la respuesta
+     * @throws IOException Si hay un error al escribir
+     */
+    void writeEncoded(int statusCode, byte[] response) throws IOException {
+        responseStatus = statusCode;
+        responseStart = output.count;
+        output.write(response, 0, response.length);
+    }
+
+    /**
+     * Escribe los encabezados y el cuerpo de una respuesta. Si caben en el
+     * búfer de salida se copian a él y viajan en una sola escritura al
+     * vaciarlo; si no, se envían juntos con una escritura agrupada
+     * ({@link GatheringByteChannel}) sin copiar el cuerpo.
+     *
+     * @param headers Los encabezados terminados con {@link ResponseHeaders#end()}
+     * @param body    El cuerpo de la respuesta
+     * @param offset  Posición inicial del cuerpo
+     * @param length  Longitud del cuerpo
+     * @throws IOException Si hay un error al escribir
+     */
+    void writeResponse(ResponseHeaders headers, byte[] body, int offset, int length) throws IOException {
+        if (headers.length() + length <= OUTPUT_BUFFER_SIZE || !(channel instanceof GatheringByteChannel)) {
+            output.write(headers.array(), 0, headers.length());
+            output.write(body, offset, length);
+            return;
+        }
+        output.flush();
+        GatheringByteChannel gathering = (GatheringByteChannel) channel;
+        ByteBuffer[] buffers = {
+                ByteBuffer.wrap(headers.array(), 0, headers.length()),
+                ByteBuffer.wrap(body, offset, length) };
+        while (buffers[1].hasRemaining()) {
+            if (gathering.write(buffers) == 0) {
+                awaitWritable();
+            }
+        }
+        output.count += headers.length() + length;
+    }
+
+    /**
+     * Transfiere una región de un archivo directamente al socket. Cuando el
+     * destino es un {@code SocketChannel}, {@link FileChannel#transferTo} usa
+     * sendfile y los bytes no pasan por el heap.
+     * Vacía antes el búfer de salida para conservar el orden de los datos.
+     *
+     * @param file     El archivo de origen
+     * @param position Posición inicial en el archivo
+     * @param count    Número de bytes a transferir
+     * @throws IOException Si hay un error de lectura o escritura
+     */
+    void transferFrom(FileChannel file, long position, long count) throws IOException {
+        output.flush();
+        while (count > 0) {
+            long transferred = file.transferTo(position, count, channel);
+            if (transferred == 0) {
+                if (position >= file.size()) {
+                    throw new IOException("El archivo se truncó durante la transferencia");
+                }
+                awaitWritable();
+            }
+            position += transferred;
+            count -= transferred;
+            output.count += transferred;
+        }
+    }
+
+    /**
+     * Espera a que el socket admita más datos. Los transportes bloqueantes no
+     * necesitan esperar; el transporte NIO lo redefine.
+     *
+     * @throws IOException Si se agota el tiempo de espera
+     */
+    void awaitWritable() throws IOException {
+    }
+
+    /**
+     * Indica si el transporte puede liberar el hilo mientras la conexión
+     * espera a un manejador asíncrono. Los transportes bloqueantes esperan en
+     * el hilo de la conexión; el transporte NIO lo redefine.
+     *
+     * @return true si la conexión admite {@link #suspend}
+     */
+    boolean canSuspend() {
+        return false;
+    }
+
+    /**
+     * Suspende la conexión hasta que se complete una operación. El transporte
+     * debe llamar a {@link #resume()} cuando {@code pending} termine.
+     *
+     * @param pending      La operación pendiente
+     * @param continuation Lo que escribe la respuesta al reanudar
+     */
+    void suspend(CompletableFuture<?> pending, Continuation continuation) {
+        this.suspension = pending;
+        this.continuation = continuation;
+    }
+
+    /**
+     * Obtiene la operación por la que está suspendida la conexión.
+     *
+     * @return La operación pendiente, o null si la conexión no está
+     *         suspendida
+     */
+    CompletableFuture<?> getSuspension() {
+        return suspension;
+    }
+
+    /**
+     * Reanuda la conexión suspendida ejecutando su continuación.
+     *
+     * @return true si la conexión debe mantenerse abierta
+     * @throws IOException Si hay un error al escribir la respuesta
+     */
+    boolean resume() throws IOException {
+        Continuation next = continuation;
+        suspension = null;
+        continuation = null;
+        return next.resume();
+    }
+
+    /**
+     * Cuenta una respuesta que queda en el búfer de salida sin enviar.
+     *
+     * @return El número de respuestas pendientes de enviar
+     */
+    int addPendingResponse() {
+        return ++pendingResponses;
+    }
+
+    /**
+     * Envía al cliente las respuestas que están en el búfer de salida. Los
+     * búferes que quedan vacíos vuelven al pool.
+     *
+     * @throws IOException Si hay un error al escribir
+     */
+    void flush() throws IOException {
+        pendingResponses = 0;
+        output.flush();
+        output.releaseBuffer();
+        parser.releaseIfEmpty();
+    }
+
+    /**
+     * Devuelve al pool los búferes de la conexión y descarta lo que quede en
+     * ellos sin enviar ni procesar. Puede llamarse más de una vez.
+     */
+    void release() {
+        output.discard();
+        parser.release();
+    }
+
+    /**
+     * Indica si ya hay datos de otra solicitud disponibles sin bloquear.
+     *
+     * @return true si hay datos pendientes de leer
+     * @throws IOException Si hay un error al consultar el flujo
+     */
+    boolean hasBufferedInput() throws IOException {
+        return parser.hasBufferedData() || input.available() > 0;
+    }
+
+    /**
+     * Obtiene el número de solicitudes atendidas en la conexión.
+     *
+     * @return El número de solicitudes
+     */
+    int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Incrementa el número de solicitudes atendidas.
+     *
+     * @return El número de solicitudes tras el incremento
+     */
+    int incrementRequestCount() {
+        return ++requestCount;
+    }
+
+    /**
+     * Flujo con búfer que cuenta los bytes escritos, para el registro de
+     * accesos. El búfer se toma del pool con la primera escritura; las
+     * escrituras que no caben en él se envían sin copiarse.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private static final byte[] EMPTY = new byte[0];
+
+        private final OutputStream out;
+        private final BufferPool pool;
+        private ByteBuffer lease;
+        private byte[] buf = EMPTY;
+        private int size;
+        private long count;
+
+        CountingOutputStream(OutputStream out, BufferPool pool) {
+            this.out = out;
+            this.pool = pool;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (size == buf.length) {
+                drain();
+                ensureBuffer();
+            }
+            buf[size++] = (byte) b;
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len >= OUTPUT_BUFFER_SIZE) {
+                drain();
+                out.write(b, off, len);
+            } else {
+                if (len > buf.length - size) {
+                    drain();
+                    ensureBuffer();
+                }
+                System.arraycopy(b, off, buf, size, len);
+                size += len;
+            }
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        /**
+         * Devuelve el búfer al pool si está vacío.
+         */
+        void releaseBuffer() {
+            if (size == 0 && lease != null) {
+                pool.release(lease);
+                lease = null;
+                buf = EMPTY;
+            }
+        }
+
+        /**
+         * Descarta lo que quede en el búfer y lo devuelve al pool.
+         */
+        void discard() {
+            size = 0;
+            releaseBuffer();
+        }
+
+        private void ensureBuffer() {
+            if (lease == null) {
+                lease = pool.acquire(OUTPUT_BUFFER_SIZE);
+                buf = lease.array();
+            }
+        }
+
+        private void drain() throws IOException {
+            if (size > 0) {
+                out.write(buf, 0, size);
+                size = 0;
+            }
+        }
+    }
+
+    /**
+     * Trabajo pendiente de una conexión suspendida.
+     */
+    @FunctionalInterface
+    interface Continuation {
+
+        /**
+         * Termina la solicitud suspendida.
+         *
+         * @return true si la conexión debe mantenerse abierta
+         * @throws IOException Si hay un error al escribir
+         */
+        boolean resume() throws IOException;
+    }
+}
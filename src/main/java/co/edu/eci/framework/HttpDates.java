@@ -0,0 +1,93 @@
+package co.edu.eci.framework;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utilidades para fechas HTTP (IMF-fixdate, RFC 7231 sección 7.1.1.1),
+ * por ejemplo {@code Sun, 06 Nov 1994 08:49:37 GMT}.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class HttpDates {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter
+            .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH)
+            .withZone(ZoneOffset.UTC);
+
+    /**
+     * Encabezado {@code Date} de la respuesta, con su CRLF, ya codificado.
+     * Un hilo demonio lo renueva una vez por segundo, de modo que las
+     * respuestas solo copian bytes en lugar de formatear la fecha.
+     */
+    private static volatile byte[] dateHeader = encodeDateHeader(System.currentTimeMillis());
+
+    static {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "HTTP-Date");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long delay = 1000 - System.currentTimeMillis() % 1000;
+        ticker.scheduleAtFixedRate(() -> dateHeader = encodeDateHeader(System.currentTimeMillis()), delay, 1000,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private HttpDates() {
+    }
+
+    /**
+     * Obtiene el encabezado {@code Date} del segundo actual.
+     *
+     * @return Los bytes de {@code Date: ...\r\n}; no deben modificarse
+     */
+    static byte[] currentDateHeader() {
+        return dateHeader;
+    }
+
+    /**
+     * Codifica el encabezado {@code Date} de un instante.
+     *
+     * @param epochMillis Milisegundos desde la época
+     * @return Los bytes del encabezado con su CRLF
+     */
+    private static byte[] encodeDateHeader(long epochMillis) {
+        return ("Date: " + format(epochMillis) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Formatea un instante como fecha HTTP.
+     *
+     * @param epochMillis Milisegundos desde la época
+     * @return La fecha en formato IMF-fixdate
+     */
+    static String format(long epochMillis) {
+        return FORMAT.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /**
+     * Parsea una fecha HTTP.
+     *
+     * @param value El valor del encabezado (puede ser null)
+     * @return Milisegundos desde la época, o -1 si la fecha no es válida
+     */
+    static long parse(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
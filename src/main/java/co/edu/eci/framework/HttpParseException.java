@@ -0,0 +1,37 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+
+/**
+ * Error al parsear una solicitud HTTP. Indica el código de estado con el que
+ * se debe responder antes de cerrar la conexión.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+class HttpParseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    /**
+     * Crea la excepción con el código de estado de la respuesta.
+     *
+     * @param statusCode El código de estado HTTP (400, 414, 431...)
+     * @param message    La descripción del error
+     */
+    HttpParseException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Obtiene el código de estado con el que responder.
+     *
+     * @return El código de estado HTTP
+     */
+    int getStatusCode() {
+        return statusCode;
+    }
+}
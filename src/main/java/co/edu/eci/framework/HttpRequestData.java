@@ -0,0 +1,23 @@
+package co.edu.eci.framework;
+
+/**
+ * Datos de una solicitud HTTP tal como se leyeron de la conexión.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class HttpRequestData {
+    final String method;
+    final String path;
+    final String queryString;
+    final String version;
+    final RequestHeaders headers;
+
+    HttpRequestData(String method, String path, String queryString, String version, RequestHeaders headers) {
+        this.method = method;
+        this.path = path;
+        this.queryString = queryString;
+        this.version = version;
+        this.headers = headers;
+    }
+}
@@ -0,0 +1,461 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parser de solicitudes HTTP/1.x que trabaja directamente sobre bytes.
+ * Lee de la conexión a un búfer reutilizable y recorre la línea de solicitud
+ * y los encabezados como una máquina de estados, sin {@code Reader}, sin
+ * expresiones regulares y sin copias intermedias por línea.
+ * Aplica límites al tamaño de la línea de solicitud (414), al número de
+ * encabezados y a sus bytes totales (431), de modo que un cliente no puede
+ * forzar asignaciones sin límite.
+ * Los bytes leídos después del final de los encabezados quedan en el búfer
+ * para la siguiente solicitud de la conexión. El búfer se toma de un
+ * {@link BufferPool} al leer y se devuelve cuando queda vacío, de modo que una
+ * conexión inactiva no retiene memoria.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class HttpRequestParser {
+
+    private static final int INITIAL_BUFFER_SIZE = BufferPool.MIN_SIZE;
+    private static final byte[] EMPTY = new byte[0];
+
+    /** Métodos y versiones frecuentes, reutilizados sin crear nuevas cadenas. */
+    private static final String[] KNOWN_METHODS = { "GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "PATCH" };
+    private static final String[] KNOWN_VERSIONS = { "HTTP/1.1", "HTTP/1.0" };
+
+    /**
+     * Nombres de encabezado frecuentes. Se reutilizan solo si los bytes
+     * coinciden exactamente, para no alterar las mayúsculas enviadas.
+     */
+    private static final String[] KNOWN_HEADERS = { "Host", "Connection", "Accept", "Accept-Encoding",
+            "Accept-Language", "User-Agent", "Content-Length", "Content-Type", "Transfer-Encoding", "Cookie",
+            "Cache-Control", "If-None-Match", "If-Modified-Since", "Range", "If-Range", "Referer", "Origin",
+            "Upgrade", "Authorization", "host", "connection", "accept", "accept-encoding", "user-agent",
+            "content-length", "content-type" };
+
+    private final InputStream input;
+    private final ServerConfig config;
+    private final BufferPool pool;
+    private ByteBuffer lease;
+    private byte[] buffer = EMPTY;
+    private int position;
+    private int limit;
+
+    /**
+     * Crea un parser sobre el flujo de entrada de una conexión.
+     *
+     * @param input  El flujo de entrada de la conexión
+     * @param config Las opciones con los límites de la solicitud
+     * @param pool   El pool del que tomar el búfer de lectura
+     */
+    HttpRequestParser(InputStream input, ServerConfig config, BufferPool pool) {
+        this.input = input;
+        this.config = config;
+        this.pool = pool;
+    }
+
+    /**
+     * Lee y parsea la siguiente solicitud de la conexión (sin el cuerpo).
+     *
+     * @return Los datos de la solicitud, o null si la conexión se cerró antes de
+     *         recibir una nueva solicitud
+     * @throws HttpParseException Si la solicitud es inválida o supera los límites
+     * @throws IOException        Si hay un error de lectura
+     */
+    HttpRequestData parse() throws IOException {
+        compact();
+
+        // Se ignoran líneas vacías previas a la línea de solicitud (RFC 7230 3.5).
+        // Se descartan del búfer a medida que se leen y su total cuenta contra el
+        // límite de la línea de solicitud, para que un flujo de CRLF no lo amplíe.
+        int skipped = 0;
+        int lineStart;
+        int lineEnd;
+        while (true) {
+            lineStart = position;
+            lineEnd = findLineEnd(lineStart, config.getMaxRequestLineSize(), 414,
+                    "Línea de solicitud demasiado larga");
+            if (lineEnd < 0) {
+                return null;
+            }
+            if (contentEnd(lineStart, lineEnd) > lineStart) {
+                break;
+            }
+            skipped += lineEnd + 1 - lineStart;
+            if (skipped > config.getMaxRequestLineSize()) {
+                throw new HttpParseException(400, "Demasiadas líneas vacías antes de la solicitud");
+            }
+            position = lineEnd + 1;
+            compact();
+        }
+        int requestLineEnd = contentEnd(lineStart, lineEnd);
+
+        int firstSpace = indexOf((byte) ' ', lineStart, requestLineEnd);
+        int secondSpace = firstSpace < 0 ? -1 : indexOf((byte) ' ', firstSpace + 1, requestLineEnd);
+        if (firstSpace <= lineStart || secondSpace <= firstSpace + 1 || secondSpace == requestLineEnd - 1
+                || indexOf((byte) ' ', secondSpace + 1, requestLineEnd) >= 0) {
+            throw new HttpParseException(400, "Línea de solicitud inválida");
+        }
+        for (int i = lineStart; i < firstSpace; i++) {
+            if (!isTokenChar(buffer[i])) {
+                throw new HttpParseException(400, "Método inválido");
+            }
+        }
+        String method = toKnownString(lineStart, firstSpace, KNOWN_METHODS);
+        String version = toKnownString(secondSpace + 1, requestLineEnd, KNOWN_VERSIONS);
+        if (!version.startsWith("HTTP/")) {
+            throw new HttpParseException(400, "Versión HTTP inválida");
+        }
+
+        int targetStart = firstSpace + 1;
+        int query = indexOf((byte) '?', targetStart, secondSpace);
+        String path;
+        String queryString;
+        if (query < 0) {
+            path = new String(buffer, targetStart, secondSpace - targetStart, StandardCharsets.UTF_8);
+            queryString = "";
+        } else {
+            path = new String(buffer, targetStart, query - targetStart, StandardCharsets.UTF_8);
+            queryString = new String(buffer, query + 1, secondSpace - query - 1, StandardCharsets.UTF_8);
+        }
+
+        RequestHeaders headers = new RequestHeaders();
+        int headerBytes = 0;
+        int headerCount = 0;
+        lineStart = lineEnd + 1;
+        while (true) {
+            int budget = config.getMaxHeaderSize() - headerBytes;
+            lineEnd = findLineEnd(lineStart, budget, 431, "Encabezados demasiado grandes");
+            if (lineEnd < 0) {
+                throw new HttpParseException(400, "Conexión cerrada en medio de los encabezados");
+            }
+            int end = contentEnd(lineStart, lineEnd);
+            if (end == lineStart) {
+                break;
+            }
+            headerBytes += lineEnd + 1 - lineStart;
+            if (headerBytes > config.getMaxHeaderSize()) {
+                throw new HttpParseException(431, "Encabezados demasiado grandes");
+            }
+            if (++headerCount > config.getMaxHeaderCount()) {
+                throw new HttpParseException(431, "Demasiados encabezados");
+            }
+            parseHeader(lineStart, end, headers);
+            lineStart = lineEnd + 1;
+        }
+        position = lineEnd + 1;
+
+        return new HttpRequestData(method, path, queryString, version, headers);
+    }
+
+    /**
+     * Indica si quedan en el búfer bytes de otra solicitud.
+     *
+     * @return true si hay datos sin procesar en el búfer
+     */
+    boolean hasBufferedData() {
+        return position < limit;
+    }
+
+    /**
+     * Espera a que llegue al menos un byte de la siguiente solicitud. Si la
+     * lectura se agota por el tiempo de espera del socket, el parser queda
+     * como estaba y puede volver a llamarse.
+     *
+     * @return false si la conexión llegó al fin del flujo
+     * @throws IOException Si hay un error de lectura o se agota la espera
+     */
+    boolean awaitData() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        position = 0;
+        limit = 0;
+        return fill();
+    }
+
+    /**
+     * Lee bytes del cuerpo de la solicitud actual: primero los que quedaron en
+     * el búfer tras los encabezados y después de la conexión. Con el búfer
+     * vacío, las lecturas grandes van directo al destino sin copia intermedia.
+     *
+     * @param b   Destino de los bytes
+     * @param off Posición inicial en el destino
+     * @param len Máximo de bytes a leer
+     * @return El número de bytes leídos, o -1 si la conexión llegó al fin del
+     *         flujo
+     * @throws IOException Si hay un error de lectura
+     */
+    int readBody(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == limit) {
+            position = 0;
+            limit = 0;
+            if (len >= buffer.length && len >= INITIAL_BUFFER_SIZE) {
+                return input.read(b, off, len);
+            }
+            if (!fill()) {
+                return -1;
+            }
+        }
+        int count = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Lee un byte del cuerpo de la solicitud actual, usando el búfer de la
+     * conexión (para las líneas de tamaño de los fragmentos chunked).
+     *
+     * @return El byte leído, o -1 si la conexión llegó al fin del flujo
+     * @throws IOException Si hay un error de lectura
+     */
+    int readBodyByte() throws IOException {
+        if (position == limit) {
+            position = 0;
+            limit = 0;
+            if (!fill()) {
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    /**
+     * Indica cuántos bytes del cuerpo hay en el búfer, sin leer de la conexión.
+     *
+     * @return El número de bytes en el búfer
+     */
+    int bufferedBodyBytes() {
+        return limit - position;
+    }
+
+    /**
+     * Parsea una línea de encabezado {@code nombre: valor}.
+     *
+     * @param start   Inicio de la línea
+     * @param end     Fin de la línea sin CRLF
+     * @param headers Encabezados donde agregar la línea
+     * @throws HttpParseException Si la línea es inválida
+     */
+    private void parseHeader(int start, int end, RequestHeaders headers) throws HttpParseException {
+        if (isWhitespace(buffer[start])) {
+            // Plegado de líneas obsoleto (obs-fold), rechazado por RFC 7230 3.2.4.
+            throw new HttpParseException(400, "Encabezado plegado no admitido");
+        }
+        int colon = indexOf((byte) ':', start, end);
+        if (colon <= start) {
+            throw new HttpParseException(400, "Encabezado inválido");
+        }
+        for (int i = start; i < colon; i++) {
+            if (!isTokenChar(buffer[i])) {
+                throw new HttpParseException(400, "Nombre de encabezado inválido");
+            }
+        }
+        int valueStart = colon + 1;
+        while (valueStart < end && isWhitespace(buffer[valueStart])) {
+            valueStart++;
+        }
+        int valueEnd = end;
+        while (valueEnd > valueStart && isWhitespace(buffer[valueEnd - 1])) {
+            valueEnd--;
+        }
+        String name = toKnownString(start, colon, KNOWN_HEADERS);
+        headers.add(name, new String(buffer, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Busca el fin de línea (LF) a partir de una posición, leyendo más datos de
+     * la conexión si hace falta.
+     *
+     * @param start   Inicio de la línea
+     * @param maxSize Máximo de bytes permitidos para la línea
+     * @param status  Código de estado si se supera el máximo
+     * @param message Descripción del error si se supera el máximo
+     * @return La posición del LF, o -1 si la conexión se cerró sin datos
+     *         pendientes
+     * @throws IOException Si hay un error de lectura o se supera el límite
+     */
+    private int findLineEnd(int start, int maxSize, int status, String message) throws IOException {
+        int scan = start;
+        while (true) {
+            for (; scan < limit; scan++) {
+                if (buffer[scan] == '\n') {
+                    if (scan + 1 - start > maxSize) {
+                        throw new HttpParseException(status, message);
+                    }
+                    return scan;
+                }
+            }
+            if (limit - start >= maxSize) {
+                throw new HttpParseException(status, message);
+            }
+            if (!fill()) {
+                if (limit == position) {
+                    return -1;
+                }
+                throw new HttpParseException(400, "Conexión cerrada en medio de la solicitud");
+            }
+        }
+    }
+
+    /**
+     * Lee más datos de la conexión al final del búfer, ampliándolo si está
+     * lleno. Los límites de la solicitud acotan el crecimiento.
+     *
+     * @return false si la conexión llegó al fin del flujo
+     * @throws IOException Si hay un error de lectura
+     */
+    private boolean fill() throws IOException {
+        if (limit == buffer.length) {
+            ByteBuffer larger = pool.acquire(Math.max(INITIAL_BUFFER_SIZE, buffer.length * 2));
+            System.arraycopy(buffer, 0, larger.array(), 0, limit);
+            pool.release(lease);
+            lease = larger;
+            buffer = larger.array();
+        }
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Devuelve el búfer al pool si no quedan bytes sin procesar. La próxima
+     * lectura toma otro.
+     */
+    void releaseIfEmpty() {
+        if (position == limit) {
+            release();
+        }
+    }
+
+    /**
+     * Devuelve el búfer al pool y descarta los bytes que queden en él.
+     */
+    void release() {
+        if (lease != null) {
+            pool.release(lease);
+            lease = null;
+            buffer = EMPTY;
+        }
+        position = 0;
+        limit = 0;
+    }
+
+    /**
+     * Mueve al inicio del búfer los bytes pendientes de la solicitud anterior.
+     */
+    private void compact() {
+        if (position == 0) {
+            return;
+        }
+        int remaining = limit - position;
+        if (remaining > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+    }
+
+    /**
+     * Obtiene el fin del contenido de una línea, sin el CR final.
+     *
+     * @param start Inicio de la línea
+     * @param lf    Posición del LF
+     * @return La posición tras el último byte de contenido
+     */
+    private int contentEnd(int start, int lf) {
+        return lf > start && buffer[lf - 1] == '\r' ? lf - 1 : lf;
+    }
+
+    /**
+     * Busca un byte en un intervalo del búfer.
+     *
+     * @param value El byte buscado
+     * @param from  Inicio del intervalo (inclusivo)
+     * @param to    Fin del intervalo (exclusivo)
+     * @return La posición del byte, o -1 si no está
+     */
+    private int indexOf(byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Convierte un intervalo ASCII en cadena, reutilizando una cadena conocida si
+     * los bytes coinciden exactamente.
+     *
+     * @param from  Inicio del intervalo
+     * @param to    Fin del intervalo
+     * @param known Cadenas conocidas
+     * @return La cadena correspondiente
+     */
+    private String toKnownString(int from, int to, String[] known) {
+        int length = to - from;
+        for (String candidate : known) {
+            if (candidate.length() == length && matches(candidate, from)) {
+                return candidate;
+            }
+        }
+        return new String(buffer, from, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Compara los bytes del búfer con una cadena ASCII.
+     *
+     * @param candidate La cadena a comparar
+     * @param from      Posición inicial en el búfer
+     * @return true si coinciden
+     */
+    private boolean matches(String candidate, int from) {
+        for (int i = 0; i < candidate.length(); i++) {
+            if (buffer[from + i] != candidate.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indica si un byte es espacio o tabulador.
+     *
+     * @param b El byte
+     * @return true si es espacio en blanco opcional (OWS)
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /**
+     * Indica si un byte es un carácter válido de token (RFC 7230 3.2.6).
+     *
+     * @param b El byte
+     * @return true si es un tchar
+     */
+    private static boolean isTokenChar(byte b) {
+        if (b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9') {
+            return true;
+        }
+        return switch (b) {
+            case '!', '#', '$', '%', '&', '\'', '*', '+', '-', '.', '^', '_', '`', '|', '~' -> true;
+            default -> false;
+        };
+    }
+}
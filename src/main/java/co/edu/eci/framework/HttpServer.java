@@ -1,36 +1,67 @@
 package co.edu.eci.framework;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Servidor HTTP con mejoras para manejo de concurrencia y apagado elegante.
  * Esta clase utiliza un pool de hilos para manejar múltiples conexiones
- * simultáneas.
+ * simultáneas, o bien un hilo virtual por conexión según
+ * {@link ServerConfig#getExecution()}. Según {@link ServerConfig#getTransport()}
+ * las conexiones se aceptan con sockets bloqueantes o con el transporte NIO de
+ * {@link NioTransport}. En el transporte bloqueante, las conexiones
+ * persistentes inactivas esperan en un {@link KeepAliveWatcher} y no retienen
+ * un hilo del pool.
+ * La cola del pool está acotada y un {@link AdmissionController} rechaza con
+ * {@code 503 Service Unavailable} el trabajo que no cabe o que esperó
+ * demasiado, para que la latencia no crezca sin límite ante una sobrecarga.
+ * Antes de abrir el puerto puede calentar las rutas con un {@link Warmup}, y
+ * la ruta de disponibilidad indica a los balanceadores si acepta tráfico.
+ * Los búferes de E/S de las conexiones salen de dos {@link BufferPool}: uno
+ * del heap para el parser y la salida, y uno directo para las lecturas del
+ * transporte NIO.
  * 
  * @author Angie Ramos
  * @version 2.0
  */
 public class HttpServer {
 
+    private static final int LINGER_TIMEOUT_MILLIS = 1000;
+    private static final long LINGER_MAX_BYTES = 256 * 1024;
+    /** Intervalo con que un hilo que espera la siguiente solicitud revisa el pool. */
+    private static final int IDLE_POLL_MILLIS = 10;
+    private static final int REQUEST = 0;
+    private static final int PARK = 1;
+    private static final int CLOSE = 2;
+
     private final int port;
-    private final Router router;
-    private final StaticFileHandler staticFileHandler;
+    private final ServerConfig config;
+    private final ConnectionHandler connectionHandler;
+    private final AdmissionController admission;
+    private final ServerMetrics metrics;
+    private final BufferPool heapBuffers;
+    private final BufferPool directBuffers;
+    private final Warmup warmup;
     private ServerSocket serverSocket;
+    private NioTransport nioTransport;
+    private KeepAliveWatcher keepAliveWatcher;
     private ExecutorService threadPool;
     private volatile boolean running = false;
+    private volatile boolean ready = false;
     private Thread serverThread;
 
     /**
@@ -41,26 +72,180 @@ public class HttpServer {
      * @param staticFileHandler El manejador de archivos estáticos
      */
     public HttpServer(int port, Router router, StaticFileHandler staticFileHandler) {
+        this(port, router, staticFileHandler, new ServerConfig());
+    }
+
+    /**
+     * Constructor para inicializar el servidor HTTP con una configuración
+     * específica.
+     *
+     * @param port              El puerto en el que escuchará el servidor
+     * @param router            El router para manejar las rutas
+     * @param staticFileHandler El manejador de archivos estáticos
+     * @param config            Las opciones de configuración del servidor
+     */
+    public HttpServer(int port, Router router, StaticFileHandler staticFileHandler, ServerConfig config) {
         this.port = port;
-        this.router = router;
-        this.staticFileHandler = staticFileHandler;
-        this.threadPool = Executors.newFixedThreadPool(10);
+        this.config = config;
+        this.threadPool = createThreadPool(config);
+        int maxPending = config.getExecution() == ServerConfig.Execution.VIRTUAL_THREADS
+                ? config.getMaxConcurrentRequests()
+                : config.getWorkerThreads() + config.getMaxQueuedRequests();
+        int workers = config.getExecution() == ServerConfig.Execution.VIRTUAL_THREADS
+                ? maxPending
+                : config.getWorkerThreads();
+        this.admission = new AdmissionController(threadPool, workers, maxPending, config);
+        this.heapBuffers = new BufferPool("heap", false, config.getBufferPoolSize(),
+                config.isBufferLeakDetectionEnabled());
+        this.directBuffers = new BufferPool("direct", true, config.getBufferPoolSize(),
+                config.isBufferLeakDetectionEnabled());
+        this.metrics = new ServerMetrics(admission, config.getRequestEvents(), config.getAccessLog(), heapBuffers,
+                directBuffers);
+        this.connectionHandler = new ConnectionHandler(router, staticFileHandler, config, metrics, admission,
+                () -> running);
+        if (config.isMetricsEnabled()) {
+            registerMetricsRoute(router, config.getMetricsPath());
+        }
+        if (config.isReadinessEnabled()) {
+            registerReadinessRoute(router, config.getReadinessPath());
+        }
+        this.warmup = config.getWarmupIterations() > 0
+                ? new Warmup(router, staticFileHandler, config, admission, heapBuffers)
+                : null;
+    }
+
+    /**
+     * Registra la ruta GET que expone las métricas en formato Prometheus, salvo
+     * que la aplicación ya tenga una ruta propia con ese patrón.
+     *
+     * @param router El router donde registrar la ruta
+     * @param path   La ruta de métricas
+     */
+    private void registerMetricsRoute(Router router, String path) {
+        Optional<Route> existing = router.findRoute("GET", path);
+        if (existing.isPresent() && existing.get().getPath().equals(path)) {
+            System.err.println("La ruta de métricas " + path + " ya está registrada; no se reemplaza");
+            return;
+        }
+        router.addRoute("GET", path, (request, response) -> {
+            response.type(ServerMetrics.CONTENT_TYPE);
+            return metrics.toPrometheus();
+        });
+    }
+
+    /**
+     * Registra la ruta GET de disponibilidad, salvo que la aplicación ya tenga
+     * una ruta propia con ese patrón. Responde {@code 200} cuando el servidor
+     * terminó el calentamiento y acepta conexiones, y {@code 503} desde que
+     * empieza a detenerse, para que el balanceador deje de enviarle tráfico.
+     *
+     * @param router El router donde registrar la ruta
+     * @param path   La ruta de disponibilidad
+     */
+    private void registerReadinessRoute(Router router, String path) {
+        Optional<Route> existing = router.findRoute("GET", path);
+        if (existing.isPresent() && existing.get().getPath().equals(path)) {
+            System.err.println("La ruta de disponibilidad " + path + " ya está registrada; no se reemplaza");
+            return;
+        }
+        router.addRoute("GET", path, (request, response) -> {
+            response.header("Cache-Control", "no-store");
+            if (!ready) {
+                response.status(503);
+                return "not ready";
+            }
+            return "ready";
+        });
     }
 
     /**
-     * Inicia el servidor HTTP y comienza a escuchar conexiones.
+     * Indica si el servidor terminó el calentamiento y acepta tráfico.
+     *
+     * @return true si el servidor está disponible
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas del control de admisión:
+     * tareas admitidas, rechazadas, en cola y en ejecución.
+     *
+     * @return Las estadísticas de admisión
+     */
+    public AdmissionStats getAdmissionStats() {
+        return admission.stats();
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas de los pools de búferes de
+     * E/S: préstamos, fallos, búferes libres y prestados.
+     *
+     * @return Las estadísticas del pool del heap y del pool directo
+     */
+    public List<BufferPoolStats> getBufferPoolStats() {
+        return List.of(heapBuffers.stats(), directBuffers.stats());
+    }
+
+    /**
+     * Crea el ejecutor de solicitudes según el modo de ejecución configurado.
+     * El pool de hilos de plataforma usa una cola acotada.
+     *
+     * @param config Las opciones de configuración del servidor
+     * @return El ejecutor de solicitudes
+     */
+    private static ExecutorService createThreadPool(ServerConfig config) {
+        if (config.getExecution() == ServerConfig.Execution.VIRTUAL_THREADS) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("HTTP-Worker-", 0).factory());
+        }
+        return new ThreadPoolExecutor(config.getWorkerThreads(), config.getWorkerThreads(), 0L,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getMaxQueuedRequests()));
+    }
+
+    /**
+     * Inicia el servidor HTTP y comienza a escuchar conexiones. Si hay
+     * calentamiento configurado, se ejecuta antes de abrir el puerto.
      *
      * @throws IOException Si no se puede crear el socket del servidor
      */
     public void start() throws IOException {
-        serverSocket = new ServerSocket(port);
+        if (warmup != null) {
+            long started = System.nanoTime();
+            int served = warmup.run();
+            System.out.println("Calentamiento: " + served + " solicitudes en "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
         running = true;
+        if (config.getTransport() == ServerConfig.Transport.NIO) {
+            nioTransport = new NioTransport(port, connectionHandler, admission, metrics, config, heapBuffers,
+                    directBuffers);
+            try {
+                nioTransport.start();
+            } catch (IOException e) {
+                running = false;
+                throw e;
+            }
+        } else {
+            try {
+                // Socket respaldado por un canal, para poder transferir archivos
+                // con FileChannel.transferTo.
+                ServerSocketChannel serverChannel = ServerSocketChannel.open();
+                serverChannel.bind(new InetSocketAddress(port), config.getAcceptBacklog());
+                serverSocket = serverChannel.socket();
+                keepAliveWatcher = new KeepAliveWatcher(config);
+                keepAliveWatcher.start();
+            } catch (IOException e) {
+                running = false;
+                throw e;
+            }
+            serverThread = new Thread(this::acceptConnections);
+            serverThread.setName("HTTP-Server-Main");
+            serverThread.start();
+        }
 
-        serverThread = new Thread(this::acceptConnections);
-        serverThread.setName("HTTP-Server-Main");
-        serverThread.start();
-
-        System.out.println("Servidor HTTP iniciado en el puerto " + port);
+        ready = true;
+        System.out.println("Servidor HTTP iniciado en el puerto " + port + " (transporte " + config.getTransport()
+                + ", ejecución " + config.getExecution() + ")");
     }
 
     /**
@@ -74,6 +259,7 @@ public class HttpServer {
         }
 
         System.out.println("Iniciando apagado elegante del servidor...");
+        ready = false;
         running = false;
 
         try {
@@ -83,6 +269,12 @@ public class HttpServer {
         } catch (IOException e) {
             System.err.println("Error al cerrar socket del servidor: " + e.getMessage());
         }
+        if (nioTransport != null) {
+            nioTransport.stop();
+        }
+        if (keepAliveWatcher != null) {
+            keepAliveWatcher.stop();
+        }
 
         if (threadPool != null) {
             threadPool.shutdown();
@@ -100,14 +292,24 @@ public class HttpServer {
 
     /**
      * Bucle principal del servidor que acepta conexiones entrantes.
-     * Cada conexión se maneja en un hilo separado del pool de hilos.
+     * Cada conexión se maneja en un hilo separado del pool de hilos, o se
+     * rechaza si el control de admisión no la acepta. Si no hay hilos libres,
+     * pasa por el control de admisión cuando llega su primera solicitud.
      */
     private void acceptConnections() {
         while (running) {
             try {
                 Socket clientSocket = serverSocket.accept();
-                if (running) {
-                    threadPool.submit(() -> handleRequest(clientSocket));
+                if (running && admission.hasIdleWorker()) {
+                    admission.execute(() -> handleConnection(clientSocket), () -> reject(clientSocket));
+                } else if (running) {
+                    // Sin hilos libres, la conexión se admite cuando envíe su
+                    // primera solicitud y no mientras el cliente la prepara.
+                    keepAliveWatcher.watch(clientSocket.getChannel(),
+                            System.currentTimeMillis() + config.getKeepAliveTimeoutMillis(),
+                            () -> admission.execute(() -> handleConnection(clientSocket),
+                                    () -> reject(clientSocket)),
+                            () -> discard(clientSocket));
                 }
             } catch (SocketException e) {
                 if (running) {
@@ -122,221 +324,212 @@ public class HttpServer {
     }
 
     /**
-     * Maneja una petición HTTP individual de un socket cliente.
+     * Prepara una conexión de cliente recién aceptada y empieza a atenderla.
      *
      * @param clientSocket El socket del cliente
      */
-    private void handleRequest(Socket clientSocket) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-                OutputStream outputStream = clientSocket.getOutputStream()) {
-
-            HttpRequestData requestData = parseHttpRequest(reader);
-            if (requestData == null) {
-                sendErrorResponse(outputStream, 400, "Bad Request");
-                return;
+    private void handleConnection(Socket clientSocket) {
+        metrics.connectionOpened();
+        HttpConnection connection;
+        try {
+            // Sin Nagle: en conexiones persistentes el retardo del ACK bloquearía
+            // cada respuesta pequeña hasta 40 ms.
+            clientSocket.setTcpNoDelay(true);
+            clientSocket.setSoTimeout(config.getKeepAliveTimeoutMillis());
+            connection = new HttpConnection(clientSocket.getInputStream(), clientSocket.getOutputStream(),
+                    clientSocket.getChannel(), config, heapBuffers);
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Error al manejar la solicitud: " + e.getMessage());
             }
+            close(clientSocket, null);
+            return;
+        }
+        serve(clientSocket, connection, System.currentTimeMillis() + config.getKeepAliveTimeoutMillis());
+    }
 
-            Request request = new Request(
-                    requestData.method,
-                    requestData.path,
-                    requestData.queryString,
-                    requestData.headers);
-            Response response = new Response();
-
-            Optional<Route> route = router.findRoute(requestData.method, requestData.path);
-
-            if (route.isPresent()) {
-                try {
-                    String responseBody = route.get().execute(request, response);
-                    sendResponse(outputStream, response, responseBody);
-                } catch (Exception e) {
-                    System.err.println("Error al ejecutar el manejador de ruta: " + e.getMessage());
-                    sendErrorResponse(outputStream, 500, "Internal Server Error");
+    /**
+     * Atiende solicitudes sucesivas de una conexión persistente (keep-alive)
+     * hasta que el cliente la cierre, se alcance el máximo de solicitudes por
+     * conexión o expire el tiempo de inactividad. Entre solicitudes la conexión
+     * solo retiene el hilo mientras quede otro libre; si no, se entrega al
+     * {@link KeepAliveWatcher} y el hilo vuelve al pool, de modo que las
+     * conexiones inactivas no dejan sin hilos a las que sí tienen solicitudes.
+     *
+     * @param clientSocket El socket del cliente
+     * @param connection   La conexión
+     * @param idleDeadline Instante en milisegundos en que vence la espera de
+     *                     la siguiente solicitud
+     */
+    private void serve(Socket clientSocket, HttpConnection connection, long idleDeadline) {
+        boolean parked = false;
+        try {
+            while (true) {
+                int next = awaitRequest(clientSocket, connection, idleDeadline);
+                if (next == PARK) {
+                    park(clientSocket, connection, idleDeadline);
+                    parked = true;
+                    return;
                 }
-            } else {
-                StaticFileHandler.StaticFileResult fileResult = staticFileHandler.serveStaticFile(requestData.path);
-
-                if (fileResult.isFound()) {
-                    sendStaticFileResponse(outputStream, fileResult);
-                } else {
-                    sendErrorResponse(outputStream, 404, "Not Found");
+                if (next == CLOSE || !connectionHandler.process(connection)) {
+                    break;
                 }
+                idleDeadline = System.currentTimeMillis() + config.getKeepAliveTimeoutMillis();
+            }
+            connection.flush();
+            if (connection.hasBufferedInput()) {
+                discardRemainingInput(clientSocket);
             }
 
+        } catch (SocketTimeoutException e) {
+            // Conexión inactiva: se cierra sin registrar error.
         } catch (IOException e) {
             if (running) {
                 System.err.println("Error al manejar la solicitud: " + e.getMessage());
             }
         } finally {
-            try {
-                clientSocket.close();
-            } catch (IOException e) {
-                if (running) {
-                    System.err.println("Error al cerrar socket cliente: " + e.getMessage());
-                }
+            if (!parked) {
+                close(clientSocket, connection);
             }
         }
     }
 
     /**
-     * Parsea la solicitud HTTP desde el reader.
+     * Espera el primer byte de la siguiente solicitud en el hilo actual, por
+     * intervalos cortos y solo mientras el pool tenga otro hilo libre, para no
+     * pagar el paso por el selector cuando sobran hilos.
      *
-     * @param reader El BufferedReader de donde leer la solicitud
-     * @return HttpRequestData con la información de la solicitud, o null si es
-     *         inválida
-     * @throws IOException Si hay un error al leer
+     * @param clientSocket El socket del cliente
+     * @param connection   La conexión
+     * @param idleDeadline Instante en milisegundos en que vence la espera
+     * @return {@link #REQUEST} si llegaron datos, {@link #PARK} si la conexión
+     *         debe liberar el hilo o {@link #CLOSE} si debe cerrarse
+     * @throws IOException Si hay un error de lectura
      */
-    private HttpRequestData parseHttpRequest(BufferedReader reader) throws IOException {
-        String requestLine = reader.readLine();
-        if (requestLine == null || requestLine.isEmpty()) {
-            return null;
-        }
-
-        String[] requestParts = requestLine.split(" ");
-        if (requestParts.length != 3) {
-            return null;
-        }
-
-        String method = requestParts[0];
-        String fullPath = requestParts[1];
-
-        String path;
-        String queryString = "";
-        if (fullPath.contains("?")) {
-            int queryIndex = fullPath.indexOf('?');
-            path = fullPath.substring(0, queryIndex);
-            queryString = fullPath.substring(queryIndex + 1);
-        } else {
-            path = fullPath;
+    private int awaitRequest(Socket clientSocket, HttpConnection connection, long idleDeadline)
+            throws IOException {
+        if (connection.hasBufferedInput()) {
+            return REQUEST;
         }
-
-        Map<String, String> headers = new HashMap<>();
-        String headerLine;
-        while ((headerLine = reader.readLine()) != null && !headerLine.isEmpty()) {
-            int colonIndex = headerLine.indexOf(':');
-            if (colonIndex > 0) {
-                String headerName = headerLine.substring(0, colonIndex).trim();
-                String headerValue = headerLine.substring(colonIndex + 1).trim();
-                headers.put(headerName, headerValue);
+        clientSocket.setSoTimeout(IDLE_POLL_MILLIS);
+        try {
+            while (running && admission.hasIdleWorker()) {
+                try {
+                    return connection.getParser().awaitData() ? REQUEST : CLOSE;
+                } catch (SocketTimeoutException e) {
+                    if (System.currentTimeMillis() >= idleDeadline) {
+                        return CLOSE;
+                    }
+                }
             }
+        } finally {
+            clientSocket.setSoTimeout(config.getKeepAliveTimeoutMillis());
         }
-
-        return new HttpRequestData(method, path, queryString, headers);
+        return running ? PARK : CLOSE;
     }
 
     /**
-     * Envía una respuesta HTTP al cliente.
+     * Entrega una conexión inactiva al vigilante, que la devuelve al control
+     * de admisión cuando llega su siguiente solicitud.
      *
-     * @param outputStream El OutputStream donde escribir la respuesta
-     * @param response     El objeto Response con los encabezados y estado
-     * @param responseBody El cuerpo de la respuesta
-     * @throws IOException Si hay un error al escribir
+     * @param clientSocket El socket del cliente
+     * @param connection   La conexión
+     * @param idleDeadline Instante en milisegundos en que vence la espera
+     * @throws IOException Si hay un error al enviar respuestas pendientes
      */
-    private void sendResponse(OutputStream outputStream, Response response, String responseBody) throws IOException {
-        StringBuilder headers = new StringBuilder();
-        headers.append("HTTP/1.1 ").append(response.getStatusCode()).append(" ")
-                .append(getStatusMessage(response.getStatusCode())).append("\r\n");
-        headers.append("Content-Type: ").append(response.getContentType()).append("\r\n");
-
-        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
-            headers.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
-        }
-
-        byte[] bodyBytes = responseBody.getBytes(StandardCharsets.UTF_8);
-        headers.append("Content-Length: ").append(bodyBytes.length).append("\r\n");
-        headers.append("Connection: close\r\n");
-        headers.append("\r\n");
-
-        outputStream.write(headers.toString().getBytes(StandardCharsets.UTF_8));
-        outputStream.write(bodyBytes);
-        outputStream.flush();
+    private void park(Socket clientSocket, HttpConnection connection, long idleDeadline) throws IOException {
+        connection.flush();
+        keepAliveWatcher.watch(clientSocket.getChannel(), idleDeadline,
+                () -> admission.execute(() -> serve(clientSocket, connection, idleDeadline), () -> {
+                    reject(clientSocket);
+                    close(clientSocket, connection);
+                }),
+                () -> close(clientSocket, connection));
     }
 
     /**
-     * Envía una respuesta de archivo estático al cliente.
+     * Cierra una conexión de cliente y devuelve sus búferes al pool.
      *
-     * @param outputStream El OutputStream donde escribir la respuesta
-     * @param fileResult   El resultado del archivo estático
-     * @throws IOException Si hay un error al escribir
+     * @param clientSocket El socket del cliente
+     * @param connection   La conexión, o null si no llegó a crearse
      */
-    private void sendStaticFileResponse(OutputStream outputStream, StaticFileHandler.StaticFileResult fileResult)
-            throws IOException {
-        StringBuilder headers = new StringBuilder();
-        headers.append("HTTP/1.1 200 OK\r\n");
-        headers.append("Content-Type: ").append(fileResult.getContentType()).append("\r\n");
-        headers.append("Content-Length: ").append(fileResult.getContent().length).append("\r\n");
-        headers.append("Connection: close\r\n");
-        headers.append("\r\n");
-
-        outputStream.write(headers.toString().getBytes(StandardCharsets.UTF_8));
-        outputStream.write(fileResult.getContent());
-        outputStream.flush();
+    private void close(Socket clientSocket, HttpConnection connection) {
+        if (connection != null) {
+            connection.release();
+        }
+        metrics.connectionClosed();
+        try {
+            clientSocket.close();
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Error al cerrar socket cliente: " + e.getMessage());
+            }
+        }
     }
 
     /**
-     * Envía una respuesta de error al cliente.
+     * Rechaza una conexión por sobrecarga: envía el {@code 503} precodificado
+     * y la cierra. Se descarta la entrada ya recibida y se cierra primero la
+     * escritura, para que la respuesta no se pierda por un RST; no se espera
+     * al cliente, porque este camino no debe ocupar hilos.
      *
-     * @param outputStream El OutputStream donde escribir la respuesta
-     * @param statusCode   El código de estado HTTP del error
-     * @param message      El mensaje de error
-     * @throws IOException Si hay un error al escribir
+     * @param clientSocket El socket del cliente
      */
-    private void sendErrorResponse(OutputStream outputStream, int statusCode, String message) throws IOException {
-        String statusMessage = getStatusMessage(statusCode);
-        String responseBody = "<html><body><h1>" + statusCode + " " + statusMessage + "</h1><p>" + message
-                + "</p></body></html>";
-
-        StringBuilder headers = new StringBuilder();
-        headers.append("HTTP/1.1 ").append(statusCode).append(" ").append(statusMessage).append("\r\n");
-        headers.append("Content-Type: text/html; charset=utf-8\r\n");
-
-        byte[] bodyBytes = responseBody.getBytes(StandardCharsets.UTF_8);
-        headers.append("Content-Length: ").append(bodyBytes.length).append("\r\n");
-        headers.append("Connection: close\r\n");
-        headers.append("\r\n");
-
-        outputStream.write(headers.toString().getBytes(StandardCharsets.UTF_8));
-        outputStream.write(bodyBytes);
-        outputStream.flush();
+    private void reject(Socket clientSocket) {
+        try {
+            clientSocket.getOutputStream().write(admission.rejection());
+            InputStream input = clientSocket.getInputStream();
+            int available;
+            while ((available = input.available()) > 0) {
+                input.skip(available);
+            }
+            clientSocket.shutdownOutput();
+        } catch (IOException e) {
+            // El cliente ya no está: no hay nada que rechazar.
+        } finally {
+            try {
+                clientSocket.close();
+            } catch (IOException e) {
+                // Se ignora: la conexión se descarta de todas formas.
+            }
+        }
     }
 
     /**
-     * Obtiene el mensaje correspondiente a un código de estado HTTP.
+     * Cierra una conexión que nunca llegó a atenderse.
      *
-     * @param statusCode El código de estado HTTP
-     * @return El mensaje correspondiente
+     * @param clientSocket El socket del cliente
      */
-    private String getStatusMessage(int statusCode) {
-        return switch (statusCode) {
-            case 200 -> "OK";
-            case 201 -> "Created";
-            case 204 -> "No Content";
-            case 400 -> "Bad Request";
-            case 401 -> "Unauthorized";
-            case 403 -> "Forbidden";
-            case 404 -> "Not Found";
-            case 405 -> "Method Not Allowed";
-            case 500 -> "Internal Server Error";
-            case 501 -> "Not Implemented";
-            case 503 -> "Service Unavailable";
-            default -> "Unknown Status";
-        };
+    private void discard(Socket clientSocket) {
+        try {
+            clientSocket.close();
+        } catch (IOException e) {
+            // Se ignora: la conexión se descarta de todas formas.
+        }
     }
 
     /**
-     * Clase interna para almacenar datos de la solicitud HTTP.
+     * Cierre diferido: si el cliente envió datos que no se leyeron (por ejemplo
+     * tras un 414 o 431), cerrar el socket directamente provocaría un RST que
+     * puede descartar la respuesta antes de que el cliente la lea. Se cierra
+     * primero la escritura y se descarta la entrada pendiente por un tiempo
+     * acotado.
+     *
+     * @param clientSocket El socket del cliente
+     * @throws IOException Si hay un error de lectura
      */
-    private static class HttpRequestData {
-        final String method;
-        final String path;
-        final String queryString;
-        final Map<String, String> headers;
-
-        HttpRequestData(String method, String path, String queryString, Map<String, String> headers) {
-            this.method = method;
-            this.path = path;
-            this.queryString = queryString;
-            this.headers = headers;
+    private void discardRemainingInput(Socket clientSocket) throws IOException {
+        clientSocket.shutdownOutput();
+        clientSocket.setSoTimeout(LINGER_TIMEOUT_MILLIS);
+        ByteBuffer discard = heapBuffers.acquire(BufferPool.MIN_SIZE);
+        try {
+            long remaining = LINGER_MAX_BYTES;
+            int read;
+            while (remaining > 0 && (read = clientSocket.getInputStream().read(discard.array())) >= 0) {
+                remaining -= read;
+            }
+        } finally {
+            heapBuffers.release(discard);
         }
     }
-}
\ No newline at end of file
+}
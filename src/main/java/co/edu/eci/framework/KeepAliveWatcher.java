@@ -0,0 +1,182 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Vigila con un {@link Selector} las conexiones del transporte bloqueante que
+ * esperan su siguiente solicitud, para que no ocupen un hilo del pool mientras
+ * están inactivas. Cuando llegan datos, el canal vuelve al modo bloqueante y
+ * la conexión se entrega de nuevo al control de admisión; si vence su tiempo
+ * de espera, se cierra. Un único hilo atiende todas las conexiones vigiladas.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class KeepAliveWatcher {
+
+    private final long checkIntervalMillis;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Constructor del vigilante.
+     *
+     * @param config Las opciones de configuración del servidor
+     */
+    KeepAliveWatcher(ServerConfig config) {
+        this.checkIntervalMillis = Math.max(1, Math.min(1000, config.getKeepAliveTimeoutMillis()));
+    }
+
+    /**
+     * Abre el selector e inicia el hilo del vigilante.
+     *
+     * @throws IOException Si no se puede abrir el selector
+     */
+    void start() throws IOException {
+        selector = Selector.open();
+        running = true;
+        thread = new Thread(this::run);
+        thread.setName("HTTP-KeepAlive-Watcher");
+        thread.start();
+    }
+
+    /**
+     * Detiene el vigilante y cierra las conexiones que esperaban.
+     */
+    void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Vigila una conexión hasta que llegue su siguiente solicitud.
+     *
+     * @param channel    El canal de la conexión, en modo bloqueante
+     * @param deadline   Instante en milisegundos en que se deja de esperar
+     * @param onReadable Se ejecuta en el hilo del vigilante cuando llegan
+     *                   datos, con el canal ya en modo bloqueante
+     * @param onExpired  Se ejecuta si vence la espera, el cliente no responde
+     *                   o el vigilante se detiene; debe cerrar la conexión
+     */
+    void watch(SocketChannel channel, long deadline, Runnable onReadable, Runnable onExpired) {
+        if (!running) {
+            onExpired.run();
+            return;
+        }
+        tasks.add(() -> {
+            try {
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new Watched(channel, deadline, onReadable,
+                        onExpired));
+            } catch (IOException e) {
+                onExpired.run();
+            }
+        });
+        selector.wakeup();
+    }
+
+    /**
+     * Bucle del hilo del vigilante.
+     */
+    private void run() {
+        long nextCheck = System.currentTimeMillis() + checkIntervalMillis;
+        List<Watched> readable = new ArrayList<>();
+        while (running) {
+            try {
+                selector.select(checkIntervalMillis);
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    key.cancel();
+                    readable.add((Watched) key.attachment());
+                }
+                if (!readable.isEmpty()) {
+                    // El canal solo puede volver al modo bloqueante cuando la
+                    // cancelación de su clave se completó.
+                    selector.selectNow();
+                    for (Watched watched : readable) {
+                        watched.resume();
+                    }
+                    readable.clear();
+                }
+
+                long now = System.currentTimeMillis();
+                if (now >= nextCheck) {
+                    for (SelectionKey key : selector.keys()) {
+                        Watched watched = (Watched) key.attachment();
+                        if (key.isValid() && watched.deadline <= now) {
+                            key.cancel();
+                            watched.onExpired.run();
+                        }
+                    }
+                    nextCheck = now + checkIntervalMillis;
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Error en el vigilante de conexiones persistentes: " + e.getMessage());
+                }
+            }
+        }
+
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        for (SelectionKey key : selector.keys()) {
+            ((Watched) key.attachment()).onExpired.run();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar selector: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Una conexión vigilada con su plazo y sus acciones.
+     */
+    private static final class Watched {
+        final SocketChannel channel;
+        final long deadline;
+        final Runnable onReadable;
+        final Runnable onExpired;
+
+        Watched(SocketChannel channel, long deadline, Runnable onReadable, Runnable onExpired) {
+            this.channel = channel;
+            this.deadline = deadline;
+            this.onReadable = onReadable;
+            this.onExpired = onExpired;
+        }
+
+        /**
+         * Devuelve el canal al modo bloqueante y entrega la conexión.
+         */
+        void resume() {
+            try {
+                channel.configureBlocking(true);
+            } catch (IOException e) {
+                onExpired.run();
+                return;
+            }
+            onReadable.run();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package co.edu.eci.framework;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubetas fijas log-lineales: cada potencia de dos
+ * de nanosegundos se divide en dos cubetas lineales, desde 65,5 µs hasta
+ * 17,2 s. El índice de la cubeta se calcula con operaciones de bits y cada
+ * cubeta es un {@link LongAdder}, así que registrar una muestra no toma
+ * bloqueos ni compite entre hilos.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class LatencyHistogram {
+
+    /** Exponente del límite de la primera cubeta (2^16 ns). */
+    private static final int MIN_EXPONENT = 16;
+    /** Exponente a partir del cual las muestras van a la cubeta +Inf. */
+    private static final int MAX_EXPONENT = 34;
+    private static final int BUCKETS = 2 + (MAX_EXPONENT - MIN_EXPONENT) * 2;
+
+    /** Límites superiores (inclusivos) de las cubetas finitas, en segundos. */
+    private static final String[] BOUNDS = new String[BUCKETS - 1];
+
+    static {
+        BOUNDS[0] = seconds(1L << MIN_EXPONENT);
+        for (int exponent = MIN_EXPONENT; exponent < MAX_EXPONENT; exponent++) {
+            int index = 1 + (exponent - MIN_EXPONENT) * 2;
+            BOUNDS[index] = seconds((1L << exponent) + (1L << (exponent - 1)));
+            BOUNDS[index + 1] = seconds(1L << (exponent + 1));
+        }
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Crea un histograma vacío.
+     */
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registra una muestra.
+     *
+     * @param nanos La latencia en nanosegundos
+     */
+    void record(long nanos) {
+        buckets[bucketIndex(nanos)].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Escribe el histograma en el formato de texto de Prometheus: las
+     * cubetas acumuladas, la suma y la cuenta.
+     *
+     * @param out    Donde escribir
+     * @param name   El nombre de la métrica
+     * @param labels Las etiquetas ya formateadas, sin llaves
+     */
+    void writePrometheus(StringBuilder out, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += buckets[i].sum();
+            String bound = i < BOUNDS.length ? BOUNDS[i] : "+Inf";
+            out.append(name).append("_bucket{").append(labels).append(",le=\"").append(bound).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum{").append(labels).append("} ").append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+    }
+
+    /**
+     * Calcula la cubeta de una latencia: la primera cuyo límite superior es
+     * mayor o igual que la muestra.
+     *
+     * @param nanos La latencia en nanosegundos
+     * @return El índice de la cubeta
+     */
+    static int bucketIndex(long nanos) {
+        long value = nanos - 1;
+        if (value < 1L << MIN_EXPONENT) {
+            return 0;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int half = (int) (value >>> (exponent - 1)) & 1;
+        return 1 + (exponent - MIN_EXPONENT) * 2 + half;
+    }
+
+    /**
+     * Formatea nanosegundos como segundos en notación decimal exacta.
+     *
+     * @param nanos La duración en nanosegundos
+     * @return Los segundos, por ejemplo {@code 0.000065536}
+     */
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos).movePointLeft(9).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,89 @@
+package co.edu.eci.framework;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Destino de eventos en memoria, para probar y medir el {@link EventSink}
+ * sin una base de datos. Cuenta todos los eventos y lotes recibidos y
+ * conserva solo los más recientes.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class MemoryEventBackend implements EventBackend {
+
+    private final int retain;
+    private final Deque<Map<String, Object>> events = new ArrayDeque<>();
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * Crea un destino que conserva hasta 10000 eventos.
+     */
+    public MemoryEventBackend() {
+        this(10_000);
+    }
+
+    /**
+     * Crea un destino que conserva los eventos más recientes.
+     *
+     * @param retain Número de eventos a conservar (no negativo)
+     */
+    public MemoryEventBackend(int retain) {
+        if (retain < 0) {
+            throw new IllegalArgumentException("El número de eventos a conservar no puede ser negativo");
+        }
+        this.retain = retain;
+    }
+
+    @Override
+    public void write(List<Map<String, Object>> batch) {
+        if (retain > 0) {
+            synchronized (events) {
+                for (Map<String, Object> event : batch) {
+                    if (events.size() == retain) {
+                        events.removeFirst();
+                    }
+                    events.addLast(event);
+                }
+            }
+        }
+        eventCount.addAndGet(batch.size());
+        batchCount.incrementAndGet();
+    }
+
+    /**
+     * Obtiene el número total de eventos recibidos.
+     *
+     * @return El número de eventos
+     */
+    public long getEventCount() {
+        return eventCount.get();
+    }
+
+    /**
+     * Obtiene el número total de lotes recibidos.
+     *
+     * @return El número de lotes
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Obtiene una copia de los eventos conservados, del más antiguo al más
+     * reciente.
+     *
+     * @return Los eventos
+     */
+    public List<Map<String, Object>> getEvents() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+}
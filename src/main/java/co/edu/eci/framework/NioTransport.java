@@ -0,0 +1,679 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transporte no bloqueante basado en {@link ServerSocketChannel} y
+ * {@link Selector}.
+ * Un hilo aceptador reparte las conexiones entre N hilos de eventos, cada uno
+ * con su propio selector. Mientras una conexión está inactiva o recibe los
+ * encabezados de una solicitud, solo la atiende su hilo de eventos; cuando los
+ * encabezados están completos se despacha al pool de trabajo, que ejecuta el
+ * mismo {@link ConnectionHandler} que el transporte bloqueante. Así, un cliente
+ * lento o una conexión persistente inactiva no ocupan hilos del pool. Si el
+ * {@link AdmissionController} rechaza el despacho, el hilo de eventos responde
+ * con el {@code 503} precodificado sin pasar por el pool. Mientras un manejador
+ * asíncrono no termina, la conexión queda suspendida sin hilo y se reanuda en
+ * el pool cuando su etapa se completa.
+ * El búfer de lectura de cada conexión es un búfer directo tomado de un
+ * {@link BufferPool}: el canal lee en él sin la copia intermedia que exige un
+ * búfer del heap, y vuelve al pool cuando la conexión queda en espera sin
+ * bytes pendientes, de modo que las conexiones inactivas no retienen búferes.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+class NioTransport {
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private final int port;
+    private final ConnectionHandler connectionHandler;
+    private final AdmissionController admission;
+    private final ServerMetrics metrics;
+    private final ServerConfig config;
+    private final BufferPool heapBuffers;
+    private final BufferPool directBuffers;
+    private final EventLoop[] eventLoops;
+    private ServerSocketChannel serverChannel;
+    private Thread acceptorThread;
+    private volatile boolean running;
+
+    /**
+     * Constructor del transporte NIO.
+     *
+     * @param port              El puerto en el que escuchará el servidor
+     * @param connectionHandler El procesador de solicitudes
+     * @param admission         El control de admisión del pool que ejecuta
+     *                          las solicitudes
+     * @param metrics           Las métricas donde contar las conexiones
+     * @param config            Las opciones de configuración del servidor
+     * @param heapBuffers       El pool de los búferes del parser y de salida
+     * @param directBuffers     El pool de los búferes de lectura del socket
+     */
+    NioTransport(int port, ConnectionHandler connectionHandler, AdmissionController admission, ServerMetrics metrics,
+            ServerConfig config, BufferPool heapBuffers, BufferPool directBuffers) {
+        this.port = port;
+        this.connectionHandler = connectionHandler;
+        this.admission = admission;
+        this.metrics = metrics;
+        this.config = config;
+        this.heapBuffers = heapBuffers;
+        this.directBuffers = directBuffers;
+        this.eventLoops = new EventLoop[config.getEventLoops()];
+    }
+
+    /**
+     * Abre el canal del servidor e inicia el hilo aceptador y los hilos de
+     * eventos.
+     *
+     * @throws IOException Si no se puede abrir el canal o los selectores
+     */
+    void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), config.getAcceptBacklog());
+        running = true;
+
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop(Selector.open());
+            Thread loopThread = new Thread(eventLoops[i]);
+            loopThread.setName("HTTP-NIO-EventLoop-" + i);
+            loopThread.start();
+        }
+
+        acceptorThread = new Thread(this::acceptConnections);
+        acceptorThread.setName("HTTP-NIO-Acceptor");
+        acceptorThread.start();
+    }
+
+    /**
+     * Cierra el canal del servidor, los selectores y las conexiones abiertas.
+     */
+    void stop() {
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar canal del servidor: " + e.getMessage());
+        }
+        for (EventLoop loop : eventLoops) {
+            if (loop != null) {
+                loop.selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * Bucle del hilo aceptador: acepta conexiones y las reparte entre los hilos
+     * de eventos en orden circular.
+     */
+    private void acceptConnections() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                eventLoops[next].register(channel);
+                next = (next + 1) % eventLoops.length;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Error al aceptar conexión: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Hilo de eventos: espera disponibilidad de lectura/escritura en sus
+     * conexiones, acumula los encabezados de cada solicitud y cierra las
+     * conexiones inactivas.
+     */
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * Registra una conexión aceptada en este hilo de eventos.
+         *
+         * @param channel El canal de la conexión
+         */
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    NioConnection connection = new NioConnection(channel, this);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    metrics.connectionOpened();
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                }
+            });
+        }
+
+        /**
+         * Ejecuta una tarea en el hilo de eventos.
+         *
+         * @param task La tarea a ejecutar
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            long idleCheckInterval = Math.min(1000, config.getKeepAliveTimeoutMillis());
+            long nextIdleCheck = System.currentTimeMillis() + idleCheckInterval;
+            while (running) {
+                try {
+                    selector.select(idleCheckInterval);
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isValid()) {
+                            ((NioConnection) key.attachment()).onReady(key.readyOps());
+                        }
+                    }
+
+                    long now = System.currentTimeMillis();
+                    if (now >= nextIdleCheck) {
+                        closeIdleConnections(now);
+                        nextIdleCheck = now + idleCheckInterval;
+                    }
+                } catch (IOException e) {
+                    if (running) {
+                        System.err.println("Error en el hilo de eventos: " + e.getMessage());
+                    }
+                }
+            }
+
+            for (SelectionKey key : selector.keys()) {
+                ((NioConnection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar selector: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Cierra las conexiones que llevan más tiempo inactivas del permitido.
+         *
+         * @param now Instante actual en milisegundos
+         */
+        private void closeIdleConnections(long now) {
+            for (SelectionKey key : selector.keys()) {
+                NioConnection connection = (NioConnection) key.attachment();
+                if (connection.isIdleSince(now - config.getKeepAliveTimeoutMillis())) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Conexión gestionada por un hilo de eventos. Alterna entre dos estados:
+     * en espera (el hilo de eventos lee los encabezados) y despachada (un hilo
+     * del pool procesa solicitudes con flujos bloqueantes sobre el canal).
+     */
+    private final class NioConnection {
+
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition ready = lock.newCondition();
+        private final HttpConnection httpConnection;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private SelectionKey key;
+        private ByteBuffer readBuffer;
+        private boolean dispatched;
+        private boolean draining;
+        private int scanFrom;
+        private long lastActivity = System.currentTimeMillis();
+
+        NioConnection(SocketChannel channel, EventLoop loop) {
+            this.channel = channel;
+            this.loop = loop;
+            this.httpConnection = new HttpConnection(new ChannelInputStream(), new ChannelOutputStream(), channel,
+                    config, heapBuffers) {
+                @Override
+                void awaitWritable() throws IOException {
+                    lock.lock();
+                    try {
+                        awaitReady(SelectionKey.OP_WRITE);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+
+                @Override
+                boolean canSuspend() {
+                    return true;
+                }
+            };
+        }
+
+        /**
+         * Atiende un evento del selector en el hilo de eventos.
+         *
+         * @param readyOps Las operaciones listas
+         */
+        void onReady(int readyOps) {
+            lock.lock();
+            try {
+                if (dispatched) {
+                    // Un hilo del pool espera poder leer o escribir.
+                    key.interestOps(0);
+                    ready.signalAll();
+                    return;
+                }
+                if (draining) {
+                    readBuffer().clear();
+                    if (channel.read(readBuffer) < 0) {
+                        close();
+                    }
+                    return;
+                }
+                int read = channel.read(readBuffer());
+                if (read < 0) {
+                    close();
+                    return;
+                }
+                lastActivity = System.currentTimeMillis();
+                if (headersComplete() || !readBuffer.hasRemaining()) {
+                    dispatch();
+                }
+            } catch (IOException e) {
+                close();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Indica si la conexión está en espera desde antes del instante dado.
+         *
+         * @param threshold Instante límite en milisegundos
+         * @return true si la conexión está inactiva
+         */
+        boolean isIdleSince(long threshold) {
+            lock.lock();
+            try {
+                return !dispatched && lastActivity < threshold;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Obtiene el búfer de lectura, tomándolo del pool si la conexión no
+         * tiene uno. Debe llamarse con el candado.
+         *
+         * @return El búfer de lectura
+         * @throws ClosedChannelException Si la conexión ya se cerró
+         */
+        private ByteBuffer readBuffer() throws ClosedChannelException {
+            if (readBuffer == null) {
+                if (!channel.isOpen()) {
+                    throw new ClosedChannelException();
+                }
+                readBuffer = directBuffers.acquire(READ_BUFFER_SIZE);
+            }
+            return readBuffer;
+        }
+
+        /**
+         * Devuelve al pool los búferes de la conexión. Debe llamarse con el
+         * candado y sin ningún hilo del pool atendiendo la conexión.
+         */
+        private void releaseBuffers() {
+            directBuffers.release(readBuffer);
+            readBuffer = null;
+            httpConnection.release();
+        }
+
+        /**
+         * Busca el final de los encabezados en los bytes recibidos.
+         *
+         * @return true si ya se recibió una línea vacía
+         */
+        private boolean headersComplete() {
+            int end = readBuffer.position();
+            for (int i = Math.max(scanFrom, 1); i < end; i++) {
+                if (readBuffer.get(i) == '\n' && (readBuffer.get(i - 1) == '\n'
+                        || i >= 2 && readBuffer.get(i - 1) == '\r' && readBuffer.get(i - 2) == '\n')) {
+                    return true;
+                }
+            }
+            scanFrom = end;
+            return false;
+        }
+
+        /**
+         * Entrega la conexión al pool de trabajo. Debe llamarse con el candado.
+         */
+        private void dispatch() {
+            dispatched = true;
+            scanFrom = 0;
+            key.interestOps(0);
+            admission.execute(this::work, this::shed);
+        }
+
+        /**
+         * Rechaza la solicitud despachada por sobrecarga: envía el {@code 503}
+         * precodificado y, como en el cierre diferido, descarta la entrada
+         * hasta que el cliente cierre.
+         */
+        private void shed() {
+            lock.lock();
+            try {
+                dispatched = false;
+                ByteBuffer rejection = ByteBuffer.wrap(admission.rejection());
+                channel.write(rejection);
+                if (rejection.hasRemaining()) {
+                    close();
+                    return;
+                }
+                channel.shutdownOutput();
+                draining = true;
+                lastActivity = System.currentTimeMillis();
+                loop.execute(() -> {
+                    if (key.isValid()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                });
+            } catch (IOException e) {
+                close();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Procesa en el pool las solicitudes disponibles y devuelve la conexión al
+         * hilo de eventos cuando no quedan datos pendientes.
+         */
+        private void work() {
+            serve(false);
+        }
+
+        /**
+         * Reanuda en el pool una conexión suspendida por un manejador asíncrono
+         * cuya etapa ya terminó.
+         */
+        private void resume() {
+            serve(true);
+        }
+
+        /**
+         * Atiende solicitudes hasta que no quedan datos pendientes o un manejador
+         * asíncrono suspende la conexión. Una conexión suspendida sigue
+         * despachada (sin interés en el selector ni cierre por inactividad) y no
+         * ocupa ningún hilo hasta que su etapa se completa.
+         *
+         * @param resuming true si primero hay que terminar la solicitud
+         *                 suspendida
+         */
+        private void serve(boolean resuming) {
+            try {
+                serveRequests(resuming);
+            } finally {
+                if (!channel.isOpen() && httpConnection.getSuspension() == null) {
+                    // El cierre no devolvió los búferes porque este hilo los usaba.
+                    lock.lock();
+                    try {
+                        dispatched = false;
+                        releaseBuffers();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Cuerpo de {@link #serve}: atiende las solicitudes y devuelve la
+         * conexión al hilo de eventos o la cierra.
+         *
+         * @param resuming true si primero hay que terminar la solicitud
+         *                 suspendida
+         */
+        private void serveRequests(boolean resuming) {
+            try {
+                boolean keepAlive = resuming ? connectionHandler.resume(httpConnection)
+                        : connectionHandler.process(httpConnection);
+                while (keepAlive && httpConnection.getSuspension() == null && httpConnection.hasBufferedInput()) {
+                    keepAlive = connectionHandler.process(httpConnection);
+                }
+                CompletableFuture<?> suspension = httpConnection.getSuspension();
+                if (suspension != null) {
+                    suspension.whenComplete((result, error) -> admission.resume(this::resume));
+                    return;
+                }
+                httpConnection.flush();
+
+                if (!keepAlive && !httpConnection.hasBufferedInput()) {
+                    close();
+                    return;
+                }
+                lock.lock();
+                try {
+                    if (!keepAlive) {
+                        // Cierre diferido: se descarta la entrada pendiente hasta que el
+                        // cliente cierre, para que un RST no anule la respuesta enviada.
+                        channel.shutdownOutput();
+                        draining = true;
+                    }
+                    dispatched = false;
+                    lastActivity = System.currentTimeMillis();
+                    loop.execute(this::awaitNextRequest);
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SocketTimeoutException e) {
+                close();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Error al manejar la solicitud: " + e.getMessage());
+                }
+                close();
+            }
+        }
+
+        /**
+         * Devuelve la conexión al selector en el hilo de eventos. Si no quedan
+         * bytes pendientes, el búfer de lectura vuelve al pool desde este
+         * hilo, que es el que toma el siguiente, para que circule por su caché
+         * local.
+         */
+        private void awaitNextRequest() {
+            lock.lock();
+            try {
+                if (!dispatched && readBuffer != null && readBuffer.position() == 0) {
+                    directBuffers.release(readBuffer);
+                    readBuffer = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * Espera en un hilo del pool hasta que el canal esté listo para la
+         * operación indicada. Debe llamarse con el candado. El interés se suma
+         * al actual, porque en HTTP/2 un hilo puede esperar datos mientras
+         * otro espera poder escribir.
+         *
+         * @param op La operación esperada (lectura o escritura)
+         * @throws IOException Si se agota el tiempo o se interrumpe la espera
+         */
+        private void awaitReady(int op) throws IOException {
+            loop.execute(() -> {
+                if (key.isValid()) {
+                    key.interestOps(key.interestOps() | op);
+                }
+            });
+            try {
+                if (!ready.await(config.getKeepAliveTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new SocketTimeoutException("Tiempo de espera agotado");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Espera interrumpida", e);
+            }
+            if (!channel.isOpen()) {
+                throw new ClosedChannelException();
+            }
+        }
+
+        /**
+         * Cierra el canal y cancela su registro en el selector. Si ningún hilo
+         * del pool atiende la conexión, devuelve sus búferes; si no, los
+         * devuelve ese hilo al terminar.
+         */
+        void close() {
+            if (key != null) {
+                key.cancel();
+                if (closed.compareAndSet(false, true)) {
+                    metrics.connectionClosed();
+                }
+            }
+            closeQuietly(channel);
+            lock.lock();
+            try {
+                ready.signalAll();
+                if (!dispatched) {
+                    releaseBuffers();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Flujo de entrada bloqueante para el hilo del pool: entrega primero los
+         * bytes acumulados por el hilo de eventos y luego lee del canal.
+         */
+        private final class ChannelInputStream extends InputStream {
+
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                lock.lock();
+                try {
+                    ByteBuffer readBuffer = readBuffer();
+                    while (readBuffer.position() == 0) {
+                        int read = channel.read(readBuffer);
+                        if (read < 0) {
+                            return -1;
+                        }
+                        if (read == 0) {
+                            awaitReady(SelectionKey.OP_READ);
+                        }
+                    }
+                    readBuffer.flip();
+                    int count = Math.min(len, readBuffer.remaining());
+                    readBuffer.get(b, off, count);
+                    readBuffer.compact();
+                    return count;
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public int available() {
+                lock.lock();
+                try {
+                    return readBuffer == null ? 0 : readBuffer.position();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Flujo de salida bloqueante para el hilo del pool: escribe directamente
+         * en el canal y espera al hilo de eventos si el búfer del socket se llena.
+         */
+        private final class ChannelOutputStream extends OutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                lock.lock();
+                try {
+                    while (buffer.hasRemaining()) {
+                        if (channel.write(buffer) == 0) {
+                            awaitReady(SelectionKey.OP_WRITE);
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cierra un canal ignorando los errores.
+     *
+     * @param channel El canal a cerrar
+     */
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // El canal ya no es utilizable.
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package co.edu.eci.framework;
 
-import java.io.UnsupportedEncodingException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLDecoder;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Representa una solicitud HTTP con métodos para acceder a los datos de la
  * solicitud.
  * Esta clase encapsula toda la información de una solicitud HTTP,
- * incluyendo encabezados y parámetros de consulta.
+ * incluyendo encabezados, parámetros de consulta y el cuerpo.
+ * Los encabezados y la cadena de consulta se guardan tal como llegaron y se
+ * decodifican solo cuando el manejador los pide, de modo que una ruta que no
+ * los lee no paga por ellos. Los nombres de los encabezados no distinguen
+ * mayúsculas de minúsculas.
  * 
  * @author Angie Ramos
  * @version 1.0
@@ -20,7 +29,12 @@ public class Request {
     private final String path;
     private final String queryString;
     private final Map<String, String> headers;
-    private final Map<String, String> queryParams;
+    private final RequestBodyStream body;
+    private final Map<String, String> pathParams;
+    private Map<String, String> headersView;
+    private Map<String, String> pathParamsView;
+    private Map<String, List<String>> queryParams;
+    private byte[] bodyBytes;
 
     /**
      * Constructor para crear un objeto Request a partir de datos de una solicitud
@@ -32,11 +46,28 @@ public class Request {
      * @param headers     Mapa de encabezados HTTP
      */
     public Request(String method, String path, String queryString, Map<String, String> headers) {
+        this(method, path, queryString, headers, RequestBodyStream.empty(), Map.of());
+    }
+
+    /**
+     * Constructor para crear un objeto Request con el cuerpo leído de la
+     * conexión.
+     *
+     * @param method      El método HTTP (GET, POST, etc.)
+     * @param path        La ruta de la solicitud sin la cadena de consulta
+     * @param queryString La parte de la cadena de consulta de la URL
+     * @param headers     Mapa de encabezados HTTP
+     * @param body        El flujo del cuerpo de la solicitud
+     * @param pathParams  Los parámetros de la ruta encontrada
+     */
+    Request(String method, String path, String queryString, Map<String, String> headers, RequestBodyStream body,
+            Map<String, String> pathParams) {
+        this.body = body;
+        this.pathParams = pathParams;
         this.method = method;
         this.path = path;
         this.queryString = queryString;
-        this.headers = headers != null ? headers : new HashMap<>();
-        this.queryParams = parseQueryString(queryString);
+        this.headers = headers != null ? headers : Map.of();
     }
 
     /**
@@ -67,58 +98,251 @@ public class Request {
     }
 
     /**
-     * Obtiene un encabezado de la solicitud por su nombre.
+     * Obtiene un encabezado de la solicitud por su nombre, sin distinguir
+     * mayúsculas de minúsculas. Si el encabezado llegó repetido, los valores
+     * se unen con comas.
      *
      * @param name El nombre del encabezado
      * @return El valor del encabezado, o cadena vacía si no existe
      */
     public String getHeader(String name) {
-        return headers.getOrDefault(name, "");
+        String value = ConnectionHandler.findHeader(headers, name);
+        return value != null ? value : "";
+    }
+
+    /**
+     * Obtiene cada línea de un encabezado repetido por separado, sin
+     * distinguir mayúsculas de minúsculas en el nombre.
+     *
+     * @param name El nombre del encabezado
+     * @return Los valores en el orden en que llegaron (vacía si no existe)
+     */
+    public List<String> getHeaderValues(String name) {
+        if (headers instanceof RequestHeaders requestHeaders) {
+            return requestHeaders.getAll(name);
+        }
+        String value = ConnectionHandler.findHeader(headers, name);
+        return value != null ? List.of(value) : List.of();
     }
 
     /**
-     * Obtiene todos los encabezados de la solicitud.
+     * Obtiene todos los encabezados de la solicitud como una vista de solo
+     * lectura, sin copiarlos.
      *
      * @return Un mapa de encabezados
      */
     public Map<String, String> getHeaders() {
-        return new HashMap<>(headers);
+        if (headersView == null) {
+            headersView = Collections.unmodifiableMap(headers);
+        }
+        return headersView;
     }
 
     /**
-     * Obtiene el valor de un parámetro de consulta por su nombre.
+     * Obtiene el valor de un parámetro de consulta por su nombre. Si el
+     * parámetro se repite, devuelve el primero. Solo se decodifica el valor
+     * buscado, sin parsear el resto de la cadena de consulta.
      *
      * @param name El nombre del parámetro
      * @return El valor del parámetro, o cadena vacía si no existe
      */
     public String getValues(String name) {
-        return queryParams.getOrDefault(name, "");
+        if (queryParams != null) {
+            List<String> values = queryParams.get(name);
+            return values != null ? values.get(0) : "";
+        }
+        return findQueryValue(name);
+    }
+
+    /**
+     * Obtiene todos los valores de un parámetro de consulta repetido, como
+     * {@code tag} en {@code ?tag=a&tag=b}.
+     *
+     * @param name El nombre del parámetro
+     * @return Los valores en el orden en que llegaron (vacía si no existe)
+     */
+    public List<String> getQueryValues(String name) {
+        return getQueryParams().getOrDefault(name, List.of());
+    }
+
+    /**
+     * Obtiene todos los parámetros de consulta decodificados, en el orden en
+     * que llegaron. La cadena de consulta se parsea en la primera llamada.
+     *
+     * @return Un mapa de solo lectura de nombre a valores
+     */
+    public Map<String, List<String>> getQueryParams() {
+        if (queryParams == null) {
+            queryParams = parseQueryString(queryString);
+        }
+        return queryParams;
+    }
+
+    /**
+     * Obtiene el valor de un parámetro de la ruta, por ejemplo {@code id} en
+     * una ruta registrada como {@code /users/{id}}. El resto de la ruta
+     * capturado por un comodín final está en {@link Router#WILDCARD_PARAM}.
+     *
+     * @param name El nombre del parámetro
+     * @return El valor del parámetro, o cadena vacía si no existe
+     */
+    public String getPathParam(String name) {
+        return pathParams.getOrDefault(name, "");
+    }
+
+    /**
+     * Obtiene todos los parámetros de la ruta como una vista de solo lectura.
+     *
+     * @return Un mapa de nombre a valor
+     */
+    public Map<String, String> getPathParams() {
+        if (pathParamsView == null) {
+            pathParamsView = Collections.unmodifiableMap(pathParams);
+        }
+        return pathParamsView;
     }
 
     /**
-     * Parsea la cadena de consulta en un mapa de parámetros.
+     * Obtiene el cuerpo de la solicitud como flujo. Los datos se leen de la
+     * conexión a medida que se consumen, por lo que sirve para cuerpos de
+     * cualquier tamaño con memoria constante. Lo que el manejador no lea se
+     * descarta al terminar la solicitud.
+     *
+     * @return El flujo del cuerpo (vacío si la solicitud no tiene cuerpo)
+     */
+    public InputStream getBodyStream() {
+        return body;
+    }
+
+    /**
+     * Lee el cuerpo completo de la solicitud en memoria, hasta el máximo
+     * configurado en {@link ServerConfig#maxBufferedBodySize(int)}.
+     * Las llamadas siguientes devuelven el mismo contenido.
+     *
+     * @return El contenido del cuerpo
+     * @throws IOException Si hay un error de lectura o el cuerpo supera el
+     *                     máximo (la respuesta será 413 Payload Too Large)
+     */
+    public byte[] getBodyBytes() throws IOException {
+        if (bodyBytes == null) {
+            bodyBytes = body.readFully();
+        }
+        return bodyBytes;
+    }
+
+    /**
+     * Lee el cuerpo completo de la solicitud como texto UTF-8.
+     *
+     * @return El cuerpo como String
+     * @throws IOException Si hay un error de lectura o el cuerpo supera el
+     *                     máximo configurado
+     */
+    public String getBody() throws IOException {
+        return new String(getBodyBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Busca un parámetro en la cadena de consulta sin parsearla completa:
+     * los nombres sin secuencias de escape se comparan en su lugar.
+     *
+     * @param name El nombre del parámetro
+     * @return El valor decodificado del primer parámetro con ese nombre, o
+     *         cadena vacía si no existe
+     */
+    private String findQueryValue(String name) {
+        String query = queryString;
+        if (query == null) {
+            return "";
+        }
+        int length = query.length();
+        int start = 0;
+        while (start < length) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int equals = query.indexOf('=', start);
+            if (equals < 0 || equals > end) {
+                equals = end;
+            }
+            if (equals > start && keyMatches(query, start, equals, name)) {
+                return equals < end ? decode(query, equals + 1, end) : "";
+            }
+            start = end + 1;
+        }
+        return "";
+    }
+
+    /**
+     * Parsea la cadena de consulta en un mapa de parámetros con todos sus
+     * valores.
      *
      * @param queryString La cadena de consulta a parsear
-     * @return Un mapa de parámetros y sus valores
+     * @return Un mapa de solo lectura de parámetros y sus valores
      */
-    private Map<String, String> parseQueryString(String queryString) {
-        Map<String, String> params = new HashMap<>();
+    private static Map<String, List<String>> parseQueryString(String queryString) {
         if (queryString == null || queryString.isEmpty()) {
-            return params;
+            return Map.of();
         }
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        int length = queryString.length();
+        int start = 0;
+        while (start < length) {
+            int end = queryString.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int equals = queryString.indexOf('=', start);
+            if (equals < 0 || equals > end) {
+                equals = end;
+            }
+            if (equals > start) {
+                String value = equals < end ? decode(queryString, equals + 1, end) : "";
+                params.computeIfAbsent(decode(queryString, start, equals), k -> new ArrayList<>(1)).add(value);
+            }
+            start = end + 1;
+        }
+        params.replaceAll((name, values) -> Collections.unmodifiableList(values));
+        return Collections.unmodifiableMap(params);
+    }
 
-        String[] pairs = queryString.split("&");
-        for (String pair : pairs) {
-            int idx = pair.indexOf("=");
-            try {
-                String key = idx > 0 ? URLDecoder.decode(pair.substring(0, idx), "UTF-8")
-                        : URLDecoder.decode(pair, "UTF-8");
-                String value = idx > 0 && pair.length() > idx + 1 ? URLDecoder.decode(pair.substring(idx + 1), "UTF-8")
-                        : "";
-                params.put(key, value);
-            } catch (UnsupportedEncodingException e) {
+    private static boolean keyMatches(String query, int start, int end, String name) {
+        if (needsDecoding(query, start, end)) {
+            return decode(query, start, end).equals(name);
+        }
+        return end - start == name.length() && query.regionMatches(start, name, 0, name.length());
+    }
+
+    private static boolean needsDecoding(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '+') {
+                return true;
             }
         }
-        return params;
+        return false;
+    }
+
+    /**
+     * Decodifica una parte de la cadena de consulta como un formulario
+     * ({@code %XX} y {@code +} como espacio). Si no hay nada que decodificar
+     * solo se extrae la subcadena; si la secuencia no es válida, se devuelve
+     * tal como llegó.
+     *
+     * @param value La cadena de consulta
+     * @param start Inicio de la parte
+     * @param end   Fin de la parte
+     * @return La parte decodificada
+     */
+    private static String decode(String value, int start, int end) {
+        String part = value.substring(start, end);
+        if (!needsDecoding(value, start, end)) {
+            return part;
+        }
+        try {
+            return URLDecoder.decode(part, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return part;
+        }
     }
-}
\ No newline at end of file
+}
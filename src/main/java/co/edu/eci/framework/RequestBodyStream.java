@@ -0,0 +1,344 @@
+package co.edu.eci.framework;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flujo del cuerpo de una solicitud HTTP delimitado por {@code Content-Length}
+ * o codificado con {@code Transfer-Encoding: chunked}. Lee directamente de la
+ * conexión a medida que el manejador consume los datos, de modo que un cuerpo
+ * de cualquier tamaño se procesa con memoria constante.
+ * El flujo nunca lee más allá del final del cuerpo: los bytes siguientes
+ * pertenecen a la próxima solicitud de la conexión.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class RequestBodyStream extends InputStream {
+
+    private static final int MAX_CHUNK_LINE = 4096;
+    private static final int MAX_TRAILER_SIZE = 16384;
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final RequestBodyStream EMPTY = new RequestBodyStream(null, null, false, 0, 0);
+
+    private final HttpRequestParser source;
+    private final boolean chunked;
+    private final long maxBufferedSize;
+    private final byte[] single = new byte[1];
+    private OutputStream continueOutput;
+    private long remaining;
+    private boolean firstChunk = true;
+    private boolean finished;
+
+    /**
+     * Crea el flujo del cuerpo.
+     *
+     * @param source          El parser de la conexión, con su búfer de lectura
+     * @param continueOutput  Salida donde enviar {@code 100 Continue} antes de
+     *                        la primera lectura, o null si no se pidió
+     * @param chunked         true si el cuerpo usa codificación chunked
+     * @param length          Longitud del cuerpo si no es chunked
+     * @param maxBufferedSize Máximo de bytes para {@link #readFully()}
+     */
+    private RequestBodyStream(HttpRequestParser source, OutputStream continueOutput, boolean chunked,
+            long length, long maxBufferedSize) {
+        this.source = source;
+        this.continueOutput = continueOutput;
+        this.chunked = chunked;
+        this.remaining = length;
+        this.maxBufferedSize = maxBufferedSize;
+        this.finished = !chunked && length == 0;
+    }
+
+    /**
+     * Obtiene un cuerpo vacío.
+     *
+     * @return Un flujo sin datos
+     */
+    static RequestBodyStream empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Crea el flujo del cuerpo según los encabezados de la solicitud
+     * (RFC 7230 sección 3.3.3). Se rechazan las solicitudes con
+     * {@code Content-Length} y {@code Transfer-Encoding} a la vez, que
+     * permitirían delimitar el mensaje de dos formas distintas.
+     *
+     * @param requestData Los datos de la solicitud
+     * @param connection  La conexión de la que leer el cuerpo
+     * @param config      Las opciones con el límite de cuerpos en memoria
+     * @return El flujo del cuerpo (vacío si la solicitud no tiene cuerpo)
+     * @throws HttpParseException Si los encabezados del cuerpo no son válidos
+     */
+    static RequestBodyStream forRequest(HttpRequestData requestData, HttpConnection connection,
+            ServerConfig config) throws HttpParseException {
+        String transferEncoding = ConnectionHandler.findHeader(requestData.headers, "Transfer-Encoding");
+        String contentLength = ConnectionHandler.findHeader(requestData.headers, "Content-Length");
+        boolean chunked = false;
+        long length = 0;
+        if (transferEncoding != null) {
+            if (contentLength != null) {
+                throw new HttpParseException(400, "Content-Length y Transfer-Encoding no pueden combinarse");
+            }
+            String[] codings = transferEncoding.split(",");
+            if (!codings[codings.length - 1].trim().equalsIgnoreCase("chunked")) {
+                throw new HttpParseException(400, "Transfer-Encoding no admitido");
+            }
+            if (codings.length > 1) {
+                throw new HttpParseException(501, "Transfer-Encoding no admitido");
+            }
+            chunked = true;
+        } else if (contentLength != null) {
+            length = parseContentLength(contentLength);
+        }
+        if (!chunked && length == 0) {
+            return EMPTY;
+        }
+        String expect = ConnectionHandler.findHeader(requestData.headers, "Expect");
+        OutputStream continueOutput = null;
+        if (expect != null && "HTTP/1.1".equals(requestData.version)) {
+            if (!expect.equalsIgnoreCase("100-continue")) {
+                throw new HttpParseException(417, "Expectativa no admitida");
+            }
+            continueOutput = connection.getOutput();
+        }
+        return new RequestBodyStream(connection.getParser(), continueOutput, chunked, length,
+                config.getMaxBufferedBodySize());
+    }
+
+    /**
+     * Parsea el valor de {@code Content-Length}. Se aceptan valores repetidos
+     * idénticos separados por comas.
+     *
+     * @param value El valor del encabezado
+     * @return La longitud del cuerpo
+     * @throws HttpParseException Si el valor no es válido
+     */
+    private static long parseContentLength(String value) throws HttpParseException {
+        long length = -1;
+        for (String part : value.split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty() || trimmed.length() > 18) {
+                throw new HttpParseException(400, "Content-Length inválido");
+            }
+            for (int i = 0; i < trimmed.length(); i++) {
+                if (trimmed.charAt(i) < '0' || trimmed.charAt(i) > '9') {
+                    throw new HttpParseException(400, "Content-Length inválido");
+                }
+            }
+            long parsed = Long.parseLong(trimmed);
+            if (length >= 0 && parsed != length) {
+                throw new HttpParseException(400, "Content-Length inválido");
+            }
+            length = parsed;
+        }
+        return length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (finished || !ensureAvailable()) {
+            return -1;
+        }
+        int count = source.readBody(b, off, (int) Math.min(len, remaining));
+        if (count < 0) {
+            throw new HttpParseException(400, "Conexión cerrada antes de recibir el cuerpo completo");
+        }
+        remaining -= count;
+        if (!chunked && remaining == 0) {
+            finished = true;
+        }
+        return count;
+    }
+
+    @Override
+    public int available() {
+        if (finished || source == null) {
+            return 0;
+        }
+        return (int) Math.min(remaining, source.bufferedBodyBytes());
+    }
+
+    /**
+     * Cerrar el flujo no cierra la conexión; los bytes sin leer se descartan
+     * al terminar la solicitud.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Asegura que hay bytes del cuerpo por leer, pasando al siguiente fragmento
+     * si el cuerpo es chunked.
+     *
+     * @return false si el cuerpo terminó
+     * @throws IOException Si hay un error de lectura o el formato es inválido
+     */
+    private boolean ensureAvailable() throws IOException {
+        sendContinue();
+        if (remaining > 0) {
+            return true;
+        }
+        if (!chunked) {
+            finished = true;
+            return false;
+        }
+        if (!firstChunk && !readLine(MAX_CHUNK_LINE).isEmpty()) {
+            throw new HttpParseException(400, "Falta el fin de línea tras el fragmento");
+        }
+        firstChunk = false;
+        String line = readLine(MAX_CHUNK_LINE);
+        int semicolon = line.indexOf(';');
+        String size = (semicolon >= 0 ? line.substring(0, semicolon) : line).trim();
+        if (size.isEmpty() || size.length() > 15) {
+            throw new HttpParseException(400, "Tamaño de fragmento inválido");
+        }
+        try {
+            remaining = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+            throw new HttpParseException(400, "Tamaño de fragmento inválido");
+        }
+        if (remaining < 0) {
+            throw new HttpParseException(400, "Tamaño de fragmento inválido");
+        }
+        if (remaining == 0) {
+            skipTrailers();
+            finished = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Descarta los encabezados finales (trailers) de un cuerpo chunked.
+     *
+     * @throws IOException Si hay un error de lectura o superan el límite
+     */
+    private void skipTrailers() throws IOException {
+        int total = 0;
+        String line;
+        while (!(line = readLine(MAX_CHUNK_LINE)).isEmpty()) {
+            total += line.length() + 2;
+            if (total > MAX_TRAILER_SIZE) {
+                throw new HttpParseException(431, "Encabezados finales demasiado grandes");
+            }
+        }
+    }
+
+    /**
+     * Lee una línea terminada en LF (con CR opcional) del cuerpo chunked.
+     *
+     * @param maxSize Máximo de bytes de la línea
+     * @return La línea sin el fin de línea
+     * @throws IOException Si hay un error de lectura o la línea es demasiado
+     *                     larga
+     */
+    private String readLine(int maxSize) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = source.readBodyByte()) != '\n') {
+            if (b < 0) {
+                throw new HttpParseException(400, "Conexión cerrada antes de recibir el cuerpo completo");
+            }
+            if (line.length() >= maxSize) {
+                throw new HttpParseException(400, "Línea de fragmento demasiado larga");
+            }
+            line.append((char) b);
+        }
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Envía {@code 100 Continue} si el cliente lo pidió y aún no se envió, para
+     * que empiece a transmitir el cuerpo.
+     *
+     * @throws IOException Si hay un error al escribir
+     */
+    private void sendContinue() throws IOException {
+        if (continueOutput != null) {
+            OutputStream output = continueOutput;
+            continueOutput = null;
+            output.write(CONTINUE);
+            output.flush();
+        }
+    }
+
+    /**
+     * Lee el cuerpo completo en memoria.
+     *
+     * @return El contenido del cuerpo
+     * @throws HttpParseException Con estado 413 si el cuerpo supera el máximo
+     *                            configurado
+     * @throws IOException        Si hay un error de lectura
+     */
+    byte[] readFully() throws IOException {
+        if (!chunked && remaining > maxBufferedSize) {
+            throw new HttpParseException(413, "El cuerpo de la solicitud es demasiado grande");
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream(chunked ? 1024 : (int) remaining);
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = read(chunk, 0, chunk.length)) >= 0) {
+            if (content.size() + read > maxBufferedSize) {
+                throw new HttpParseException(413, "El cuerpo de la solicitud es demasiado grande");
+            }
+            content.write(chunk, 0, read);
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Indica si el cuerpo se leyó por completo.
+     *
+     * @return true si no quedan bytes del cuerpo en la conexión
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Descarta lo que quede del cuerpo para poder reutilizar la conexión.
+     * Si el cliente espera {@code 100 Continue} y el cuerpo no se empezó a
+     * leer, el cliente aún no lo envió y no se espera por él.
+     *
+     * @param maxBytes Máximo de bytes a descartar
+     * @return true si el cuerpo se consumió por completo y la conexión puede
+     *         atender otra solicitud
+     */
+    boolean discard(long maxBytes) {
+        if (finished) {
+            return true;
+        }
+        if (continueOutput != null || !chunked && remaining > maxBytes) {
+            return false;
+        }
+        try {
+            byte[] chunk = new byte[(int) Math.min(8192, Math.max(1, maxBytes))];
+            long discarded = 0;
+            int read;
+            while (discarded <= maxBytes && (read = read(chunk, 0, chunk.length)) >= 0) {
+                discarded += read;
+            }
+            return finished;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package co.edu.eci.framework;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Encabezados de una solicitud tal como llegaron, en orden y con los
+ * repetidos como líneas separadas. Se guardan en dos arreglos paralelos de
+ * nombres y valores, sin tabla hash: una solicitud trae pocos encabezados y
+ * recorrerlos es más barato que calcular hashes, y los nombres conocidos ya
+ * vienen internados por el parser, así que casi siempre basta comparar
+ * referencias.
+ * Como {@link Map}, la búsqueda no distingue mayúsculas de minúsculas y un
+ * encabezado repetido se ve como un único valor con las líneas unidas por
+ * comas (RFC 9110 sección 5.3); {@link #getAll} devuelve cada línea por
+ * separado.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class RequestHeaders extends AbstractMap<String, String> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int count;
+    private Set<Map.Entry<String, String>> entries;
+
+    /**
+     * Agrega una línea de encabezado, aunque ya exista otra con el mismo
+     * nombre.
+     *
+     * @param name  El nombre del encabezado
+     * @param value El valor del encabezado
+     */
+    void add(String name, String value) {
+        if (count == names.length) {
+            names = Arrays.copyOf(names, count * 2);
+            values = Arrays.copyOf(values, count * 2);
+        }
+        names[count] = name;
+        values[count] = value;
+        count++;
+    }
+
+    /**
+     * Obtiene el número de líneas de encabezado, contando las repetidas.
+     *
+     * @return El número de líneas
+     */
+    int fieldCount() {
+        return count;
+    }
+
+    /**
+     * Obtiene el nombre de una línea de encabezado.
+     *
+     * @param index La posición de la línea
+     * @return El nombre tal como llegó
+     */
+    String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * Obtiene el valor de una línea de encabezado.
+     *
+     * @param index La posición de la línea
+     * @return El valor
+     */
+    String value(int index) {
+        return values[index];
+    }
+
+    /**
+     * Obtiene el valor de un encabezado sin distinguir mayúsculas de
+     * minúsculas. Si el encabezado se repite, las líneas se unen con
+     * {@code ", "}; solo en ese caso se crea una cadena nueva.
+     *
+     * @param key El nombre del encabezado
+     * @return El valor, o null si no existe
+     */
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String name)) {
+            return null;
+        }
+        int first = indexOf(name, 0);
+        if (first < 0) {
+            return null;
+        }
+        int next = indexOf(name, first + 1);
+        if (next < 0) {
+            return values[first];
+        }
+        StringBuilder joined = new StringBuilder(values[first]);
+        for (int i = next; i >= 0; i = indexOf(name, i + 1)) {
+            joined.append(", ").append(values[i]);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Obtiene cada línea de un encabezado por separado, sin distinguir
+     * mayúsculas de minúsculas.
+     *
+     * @param name El nombre del encabezado
+     * @return Los valores en el orden en que llegaron (vacía si no existe)
+     */
+    List<String> getAll(String name) {
+        int first = indexOf(name, 0);
+        if (first < 0) {
+            return List.of();
+        }
+        int next = indexOf(name, first + 1);
+        if (next < 0) {
+            return List.of(values[first]);
+        }
+        List<String> all = new ArrayList<>();
+        all.add(values[first]);
+        for (int i = next; i >= 0; i = indexOf(name, i + 1)) {
+            all.add(values[i]);
+        }
+        return List.copyOf(all);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String name && indexOf(name, 0) >= 0;
+    }
+
+    /**
+     * Reemplaza todas las líneas de un encabezado por una sola.
+     *
+     * @param name  El nombre del encabezado
+     * @param value El valor nuevo
+     * @return El valor anterior, o null si no existía
+     */
+    @Override
+    public String put(String name, String value) {
+        String previous = remove(name);
+        add(name, value);
+        return previous;
+    }
+
+    @Override
+    public String remove(Object key) {
+        String previous = get(key);
+        if (previous == null) {
+            return null;
+        }
+        String name = (String) key;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!matches(names[i], name)) {
+                names[kept] = names[i];
+                values[kept] = values[i];
+                kept++;
+            }
+        }
+        Arrays.fill(names, kept, count, null);
+        Arrays.fill(values, kept, count, null);
+        count = kept;
+        return previous;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public int size() {
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (isFirst(i)) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (entries == null) {
+            entries = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return RequestHeaders.this.size();
+                }
+            };
+        }
+        return entries;
+    }
+
+    private int indexOf(String name, int from) {
+        for (int i = from; i < count; i++) {
+            if (matches(names[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isFirst(int index) {
+        for (int i = 0; i < index; i++) {
+            if (matches(names[i], names[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String stored, String name) {
+        return stored == name || stored.equalsIgnoreCase(name);
+    }
+
+    /**
+     * Recorre un encabezado por nombre distinto, con el nombre de su primera
+     * línea y el valor unido de todas.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+            while (next < count && !isFirst(next)) {
+                next++;
+            }
+            return next < count;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String name = names[next++];
+            return new AbstractMap.SimpleImmutableEntry<>(name, get(name));
+        }
+    }
+}
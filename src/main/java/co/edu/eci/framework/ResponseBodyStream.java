@@ -0,0 +1,237 @@
+package co.edu.eci.framework;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flujo del cuerpo de una respuesta escrita por un
+ * {@link StreamingRouteHandler}. Los encabezados se envían con la primera
+ * escritura que no cabe en el búfer o con el primer {@code flush()}, así que
+ * el manejador puede fijar el estado y los encabezados mientras no haya
+ * escrito nada.
+ * Si la respuesta fija {@code Content-Length} el cuerpo se envía tal cual; si
+ * no, en HTTP/1.1 se usa {@code Transfer-Encoding: chunked} y en HTTP/1.0 el
+ * fin del cuerpo lo marca el cierre de la conexión. Una respuesta que termina
+ * sin llenar el búfer ni llamar a {@code flush()} se envía con
+ * {@code Content-Length}.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class ResponseBodyStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] CRLF = { '\r', '\n' };
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Escribe la línea de estado y los encabezados de la respuesta.
+     */
+    @FunctionalInterface
+    interface HeaderWriter {
+
+        /**
+         * Escribe los encabezados en la salida de la conexión.
+         *
+         * @param contentLength La longitud del cuerpo, o -1 si no se conoce
+         * @param chunked       true si el cuerpo usa codificación chunked
+         * @param delimited     true si el fin del cuerpo queda delimitado sin
+         *                      cerrar la conexión
+         * @return true si la conexión se mantiene abierta tras la respuesta
+         * @throws IOException Si hay un error al escribir
+         */
+        boolean writeHeaders(long contentLength, boolean chunked, boolean delimited) throws IOException;
+    }
+
+    private final OutputStream output;
+    private final Response response;
+    private final boolean http11;
+    private final HeaderWriter headerWriter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+    private boolean committed;
+    private boolean chunked;
+    private long declaredLength = -1;
+    private long written;
+    private boolean closed;
+    private boolean keepAlive;
+
+    /**
+     * Crea el flujo del cuerpo de una respuesta.
+     *
+     * @param output       La salida de la conexión
+     * @param response     La respuesta con el estado y los encabezados
+     * @param http11       true si la solicitud es HTTP/1.1
+     * @param headerWriter Quien escribe los encabezados al confirmar la
+     *                     respuesta
+     */
+    ResponseBodyStream(OutputStream output, Response response, boolean http11, HeaderWriter headerWriter) {
+        this.output = output;
+        this.response = response;
+        this.http11 = http11;
+        this.headerWriter = headerWriter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) {
+            drainBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len <= buffer.length - count) {
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+            return;
+        }
+        drainBuffer();
+        if (len < buffer.length) {
+            System.arraycopy(b, off, buffer, 0, len);
+            count = len;
+        } else {
+            writeBody(b, off, len);
+        }
+    }
+
+    /**
+     * Envía al cliente lo escrito hasta ahora, confirmando los encabezados si
+     * aún no se enviaron.
+     *
+     * @throws IOException Si hay un error al escribir
+     */
+    @Override
+    public void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        drainBuffer();
+        output.flush();
+    }
+
+    /**
+     * Termina el cuerpo: envía lo pendiente y, si es chunked, el fragmento
+     * final. No cierra la conexión.
+     *
+     * @throws IOException Si hay un error al escribir o el cuerpo no tiene la
+     *                     longitud declarada
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (!committed) {
+            commit(count);
+        }
+        writeBody(buffer, 0, count);
+        count = 0;
+        closed = true;
+        if (chunked) {
+            output.write(LAST_CHUNK);
+        }
+        if (declaredLength >= 0 && written != declaredLength) {
+            throw new IOException("El cuerpo no tiene la longitud declarada en Content-Length");
+        }
+    }
+
+    /**
+     * Indica si los encabezados ya se enviaron.
+     *
+     * @return true si la respuesta está confirmada
+     */
+    boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * Indica si la conexión se mantiene abierta tras la respuesta, según lo
+     * anunciado en los encabezados.
+     *
+     * @return true si la respuesta anunció una conexión persistente
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Envía el contenido del búfer, confirmando antes los encabezados.
+     *
+     * @throws IOException Si hay un error al escribir
+     */
+    private void drainBuffer() throws IOException {
+        if (!committed) {
+            commit(-1);
+        }
+        if (count > 0) {
+            writeBody(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    /**
+     * Decide la delimitación del cuerpo y escribe los encabezados.
+     *
+     * @param knownLength La longitud total si ya se conoce, o -1
+     * @throws IOException Si hay un error al escribir
+     */
+    private void commit(long knownLength) throws IOException {
+        committed = true;
+        String header = ConnectionHandler.findHeader(response.getHeaders(), "Content-Length");
+        if (header != null) {
+            try {
+                declaredLength = Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Content-Length inválido en la respuesta: " + header);
+            }
+        } else if (knownLength >= 0) {
+            declaredLength = knownLength;
+        }
+        chunked = declaredLength < 0 && http11;
+        keepAlive = headerWriter.writeHeaders(header != null ? -1 : declaredLength, chunked,
+                chunked || declaredLength >= 0);
+    }
+
+    /**
+     * Escribe bytes del cuerpo en la salida, como fragmento si es chunked.
+     *
+     * @param b   Los bytes
+     * @param off Posición inicial
+     * @param len Número de bytes
+     * @throws IOException Si hay un error al escribir o se supera la longitud
+     *                     declarada
+     */
+    private void writeBody(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        if (declaredLength >= 0 && written + len > declaredLength) {
+            throw new IOException("El cuerpo supera la longitud declarada en Content-Length");
+        }
+        if (chunked) {
+            output.write(Integer.toHexString(len).getBytes(StandardCharsets.US_ASCII));
+            output.write(CRLF);
+            output.write(b, off, len);
+            output.write(CRLF);
+        } else {
+            output.write(b, off, len);
+        }
+        written += len;
+    }
+
+    /**
+     * Comprueba que el flujo no esté cerrado.
+     *
+     * @throws IOException Si el cuerpo ya terminó
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("El cuerpo de la respuesta ya se cerró");
+        }
+    }
+}
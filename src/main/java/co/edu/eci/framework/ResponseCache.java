@@ -0,0 +1,310 @@
+package co.edu.eci.framework;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de respuestas de una ruta, configurada con una {@link CachePolicy}.
+ * Las entradas guardan el cuerpo y los encabezados ya codificados en bytes,
+ * vencen tras su tiempo de vida y se desalojan en orden LRU al superar el
+ * máximo de entradas o de bytes. Las variantes comprimidas de una entrada
+ * también cuentan en el máximo de bytes.
+ * Cuando varias solicitudes con la misma clave fallan a la vez, solo la
+ * primera ejecuta el manejador ({@link #claim}); las demás esperan su
+ * resultado ({@link #await}) en lugar de repetir el trabajo.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class ResponseCache {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final String[] queryParams;
+    private final String[] headers;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private long currentBytes;
+
+    /**
+     * Crea la caché de una ruta.
+     *
+     * @param policy Las opciones de la caché
+     */
+    ResponseCache(CachePolicy policy) {
+        this.ttlNanos = policy.getTtlMillis() * 1_000_000L;
+        this.maxEntries = policy.getMaxEntries();
+        this.maxBytes = policy.getMaxBytes();
+        this.queryParams = policy.getQueryParams();
+        this.headers = policy.getHeaders();
+    }
+
+    /**
+     * Calcula la clave de una solicitud: método, ruta, los parámetros de
+     * consulta elegidos (o la consulta completa) y los encabezados elegidos.
+     *
+     * @param request        La solicitud
+     * @param requestHeaders Los encabezados de la solicitud
+     * @return La clave
+     */
+    String key(Request request, Map<String, String> requestHeaders) {
+        StringBuilder key = new StringBuilder(64).append(request.getMethod()).append(' ').append(request.getPath());
+        if (queryParams == null) {
+            String query = request.getQueryString();
+            if (query != null && !query.isEmpty()) {
+                key.append('?').append(query);
+            }
+        } else {
+            for (String name : queryParams) {
+                key.append(SEPARATOR).append(request.getValues(name));
+            }
+        }
+        for (String name : headers) {
+            String value = ConnectionHandler.findHeader(requestHeaders, name);
+            key.append(SEPARATOR).append(value == null ? "" : value);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Busca una respuesta vigente y la marca como usada recientemente.
+     *
+     * @param key La clave de la solicitud
+     * @return La entrada, o null si no está en caché o ya venció
+     */
+    Entry get(String key) {
+        Entry entry = lookup(key);
+        if (entry != null) {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Reclama la ejecución del manejador para una clave que no está en caché.
+     * Quien la obtiene debe llamar a {@link #release} al terminar, haya podido
+     * guardar la respuesta o no.
+     *
+     * @param key La clave de la solicitud
+     * @return La carga reclamada, o null si otra solicitud ya ejecuta el
+     *         manejador para esta clave
+     */
+    CompletableFuture<Entry> claim(String key) {
+        CompletableFuture<Entry> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, flight) != null) {
+            return null;
+        }
+        misses.increment();
+        return flight;
+    }
+
+    /**
+     * Espera a que la solicitud que ejecuta el manejador para una clave
+     * termine.
+     *
+     * @param key La clave de la solicitud
+     * @return La respuesta obtenida, o null si no se pudo guardar en caché y
+     *         el llamador debe ejecutar el manejador por su cuenta
+     */
+    Entry await(String key) {
+        CompletableFuture<Entry> flight = inFlight.get(key);
+        Entry entry = flight != null ? flight.join() : lookup(key);
+        if (entry != null) {
+            hits.increment();
+            coalesced.increment();
+        } else {
+            misses.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Guarda la respuesta de un manejador si se puede reutilizar: estado 2xx
+     * (salvo 206), sin {@code Cache-Control: no-store} ni {@code private}, sin
+     * {@code Set-Cookie} (la cookie de un cliente no debe entregarse a otros)
+     * y dentro del presupuesto de bytes.
+     *
+     * @param key      La clave de la solicitud
+     * @param response La respuesta con el estado y los encabezados
+     * @param body     El cuerpo de la respuesta en UTF-8
+     * @return La entrada guardada, o null si la respuesta no se guarda
+     */
+    Entry put(String key, Response response, byte[] body) {
+        int status = response.getStatusCode();
+        if (status < 200 || status >= 300 || status == 206) {
+            return null;
+        }
+        String cacheControl = ConnectionHandler.findHeader(response.getHeaders(), "Cache-Control");
+        if (cacheControl != null) {
+            String directives = cacheControl.toLowerCase(Locale.ROOT);
+            if (directives.contains("no-store") || directives.contains("private")) {
+                return null;
+            }
+        }
+        if (ConnectionHandler.findHeader(response.getHeaders(), "Set-Cookie") != null) {
+            return null;
+        }
+        Entry entry = new Entry(this, key, response, body, System.nanoTime() + ttlNanos);
+        if (entry.size > maxBytes) {
+            return null;
+        }
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                currentBytes -= previous.size;
+            }
+            currentBytes += entry.size;
+            evictToLimits();
+        }
+        return entry;
+    }
+
+    /**
+     * Suma al máximo de bytes una variante comprimida creada para una entrada,
+     * desalojando las menos usadas si se supera. Si la entrada ya no está en
+     * caché, no se cuenta.
+     *
+     * @param entry La entrada a la que pertenece la variante
+     * @param bytes El tamaño de la variante
+     */
+    private synchronized void charge(Entry entry, long bytes) {
+        if (entries.get(entry.key) != entry) {
+            return;
+        }
+        entry.size += bytes;
+        currentBytes += bytes;
+        evictToLimits();
+    }
+
+    /**
+     * Termina una carga reclamada con {@link #claim} y entrega su resultado a
+     * las solicitudes que la esperan.
+     *
+     * @param key    La clave de la solicitud
+     * @param flight La carga reclamada
+     * @param entry  La entrada guardada, o null si la respuesta no se guardó
+     */
+    void release(String key, CompletableFuture<Entry> flight, Entry entry) {
+        inFlight.remove(key, flight);
+        flight.complete(entry);
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas de la caché.
+     *
+     * @return Las estadísticas actuales
+     */
+    synchronized ResponseCacheStats stats() {
+        return new ResponseCacheStats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(),
+                expirations.sum(), entries.size(), currentBytes);
+    }
+
+    /**
+     * Busca una entrada vigente, descartándola si venció.
+     *
+     * @param key La clave de la solicitud
+     * @return La entrada, o null si no está o venció
+     */
+    private synchronized Entry lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key);
+            currentBytes -= entry.size;
+            expirations.increment();
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Desaloja entradas en orden LRU hasta respetar los límites.
+     */
+    private void evictToLimits() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((currentBytes > maxBytes || entries.size() > maxEntries) && iterator.hasNext()) {
+            currentBytes -= iterator.next().size;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Respuesta en caché: el estado, los encabezados del manejador ya
+     * codificados y el cuerpo, con sus variantes comprimidas creadas la
+     * primera vez que se piden.
+     */
+    static final class Entry {
+        final int statusCode;
+        final String contentType;
+        final byte[] head;
+        final boolean encoded;
+        final byte[] body;
+        final long expiresAt;
+        /** Bytes contados en el máximo de la caché; protegido por ella. */
+        long size;
+        private final ResponseCache cache;
+        private final String key;
+        private volatile byte[] gzipBody;
+        private volatile byte[] deflateBody;
+
+        private Entry(ResponseCache cache, String key, Response response, byte[] body, long expiresAt) {
+            StringBuilder head = new StringBuilder(64);
+            head.append("Content-Type: ").append(response.getContentType()).append("\r\n");
+            for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+                head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+            }
+            this.statusCode = response.getStatusCode();
+            this.contentType = response.getContentType();
+            this.head = head.toString().getBytes(StandardCharsets.UTF_8);
+            this.encoded = ConnectionHandler.findHeader(response.getHeaders(), "Content-Encoding") != null;
+            this.body = body;
+            this.expiresAt = expiresAt;
+            this.size = this.head.length + (long) body.length;
+            this.cache = cache;
+            this.key = key;
+        }
+
+        /**
+         * Obtiene el cuerpo comprimido, creándolo la primera vez y sumando su
+         * tamaño al máximo de bytes de la caché.
+         *
+         * @param encoding La codificación (gzip o deflate)
+         * @return El cuerpo comprimido
+         */
+        byte[] compressedBody(String encoding) {
+            boolean gzip = Compression.GZIP.equals(encoding);
+            byte[] variant = gzip ? gzipBody : deflateBody;
+            if (variant != null) {
+                return variant;
+            }
+            synchronized (this) {
+                variant = gzip ? gzipBody : deflateBody;
+                if (variant != null) {
+                    return variant;
+                }
+                variant = Compression.compress(body, encoding);
+                if (gzip) {
+                    gzipBody = variant;
+                } else {
+                    deflateBody = variant;
+                }
+            }
+            cache.charge(this, variant.length);
+            return variant;
+        }
+    }
+}
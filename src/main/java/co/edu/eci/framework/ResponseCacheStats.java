@@ -0,0 +1,97 @@
+package co.edu.eci.framework;
+
+/**
+ * Instantánea de las estadísticas de la caché de respuestas de una ruta.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class ResponseCacheStats {
+    private final long hits;
+    private final long misses;
+    private final long coalesced;
+    private final long evictions;
+    private final long expirations;
+    private final int entries;
+    private final long sizeBytes;
+
+    /**
+     * Constructor de la instantánea de estadísticas.
+     */
+    public ResponseCacheStats(long hits, long misses, long coalesced, long evictions, long expirations, int entries,
+            long sizeBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.coalesced = coalesced;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.entries = entries;
+        this.sizeBytes = sizeBytes;
+    }
+
+    /**
+     * Obtiene el número de solicitudes respondidas desde la caché, incluidas
+     * las que esperaron a otra solicitud idéntica.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Obtiene el número de solicitudes que ejecutaron el manejador.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Obtiene el número de solicitudes que esperaron a que otra solicitud
+     * idéntica ejecutara el manejador, en lugar de ejecutarlo de nuevo.
+     */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Obtiene la proporción de aciertos, de 0 a 1.
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Obtiene el número de entradas desalojadas por los límites de tamaño.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Obtiene el número de entradas descartadas por vencer su tiempo de vida.
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * Obtiene el número de entradas en caché.
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Obtiene los bytes de las respuestas en caché.
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCacheStats{hits=" + hits + ", misses=" + misses + ", coalesced=" + coalesced
+                + ", evictions=" + evictions + ", expirations=" + expirations + ", entries=" + entries
+                + ", sizeBytes=" + sizeBytes + "}";
+    }
+}
@@ -0,0 +1,325 @@
+package co.edu.eci.framework;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serializador reutilizable de la línea de estado y los encabezados de una
+ * respuesta. Escribe directamente en un arreglo de bytes propio de la conexión,
+ * sin {@code StringBuilder} ni conversiones intermedias a {@code String}.
+ * Las líneas de estado, los {@code Content-Type} frecuentes y los encabezados
+ * de conexión se codifican una sola vez y se copian en cada respuesta; el
+ * encabezado {@code Date} lo mantiene {@link HttpDates#currentDateHeader()}.
+ * No es seguro para hilos: cada conexión tiene el suyo.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class ResponseHeaders {
+
+    private static final byte[] CRLF = { '\r', '\n' };
+    private static final byte[] SEPARATOR = { ':', ' ' };
+    private static final byte[] CONTENT_LENGTH = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONNECTION_CLOSE = "Connection: close\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int MAX_CACHED_CONTENT_TYPES = 256;
+
+    /** Líneas de estado codificadas, por código de estado. */
+    private static final byte[][] STATUS_LINES = new byte[600][];
+
+    static {
+        for (int statusCode = 100; statusCode < STATUS_LINES.length; statusCode++) {
+            STATUS_LINES[statusCode] = encodeStatusLine(statusCode);
+        }
+    }
+
+    /** Encabezados {@code Content-Type} codificados, por tipo. */
+    private static final Map<String, byte[]> CONTENT_TYPES = new ConcurrentHashMap<>();
+
+    /** Encabezados de conexión persistente del último tiempo de espera usado. */
+    private static volatile KeepAliveHeader keepAliveHeader = new KeepAliveHeader(-1);
+
+    private byte[] bytes = new byte[512];
+    private int length;
+
+    /**
+     * Empieza una respuesta nueva con su línea de estado y el encabezado
+     * {@code Date}, descartando la anterior.
+     *
+     * @param statusCode El código de estado HTTP
+     * @return Este serializador para encadenamiento de métodos
+     */
+    ResponseHeaders start(int statusCode) {
+        length = 0;
+        append(statusLine(statusCode));
+        append(HttpDates.currentDateHeader());
+        return this;
+    }
+
+    /**
+     * Agrega un encabezado.
+     *
+     * @param name  El nombre del encabezado
+     * @param value El valor del encabezado
+     * @return Este serializador para encadenamiento de métodos
+     */
+    ResponseHeaders add(String name, String value) {
+        appendText(name);
+        append(SEPARATOR);
+        appendText(value);
+        append(CRLF);
+        return this;
+    }
+
+    /**
+     * Agrega un encabezado con valor numérico.
+     *
+     * @param name  El nombre del encabezado
+     * @param value El valor del encabezado
+     * @return Este serializador para encadenamiento de métodos
+     */
+    ResponseHeaders add(String name, long value) {
+        appendText(name);
+        append(SEPARATOR);
+        appendNumber(value);
+        append(CRLF);
+        return this;
+    }
+
+    /**
+     * Agrega {@code Content-Type}, usando la codificación en caché del tipo.
+     *
+     * @param contentType El tipo MIME
+     * @return Este serializador para encadenamiento de métodos
+     */
+    ResponseHeaders contentType(String contentType) {
+        byte[] encoded = CONTENT_TYPES.get(contentType);
+        if (encoded == null) {
+            encoded = encode("Content-Type: " + contentType + "\r\n");
+            if (CONTENT_TYPES.size() < MAX_CACHED_CONTENT_TYPES) {
+                CONTENT_TYPES.put(contentType, encoded);
+            }
+        }
+        append(encoded);
+        return this;
+    }
+
+    /**
+     * Agrega líneas de encabezado ya codificadas, cada una con su CRLF.
+     *
+     * @param lines Los bytes de las líneas
+     * @return Este serializador para encadenamiento de métodos
+     */
+    ResponseHeaders encoded(byte[] lines) {
+        append(lines);
+        return this;
+    }
+
+    /**
+     * Agrega {@code Content-Length}.
+     *
+     * @param contentLength La longitud del cuerpo
+     * @return Este serializador para encadenamiento de métodos
+     */
+    ResponseHeaders contentLength(long contentLength) {
+        append(CONTENT_LENGTH);
+        appendNumber(contentLength);
+        append(CRLF);
+        return this;
+    }
+
+    /**
+     * Agrega los encabezados de control de conexión.
+     *
+     * @param keepAlive      true si la conexión seguirá abierta tras la
+     *                       respuesta
+     * @param timeoutSeconds El tiempo de espera de la conexión persistente
+     * @return Este serializador para encadenamiento de métodos
+     */
+    ResponseHeaders connection(boolean keepAlive, int timeoutSeconds) {
+        if (!keepAlive) {
+            append(CONNECTION_CLOSE);
+            return this;
+        }
+        KeepAliveHeader header = keepAliveHeader;
+        if (header.timeoutSeconds != timeoutSeconds) {
+            header = new KeepAliveHeader(timeoutSeconds);
+            keepAliveHeader = header;
+        }
+        append(header.bytes);
+        return this;
+    }
+
+    /**
+     * Termina los encabezados con la línea vacía.
+     *
+     * @return Este serializador para encadenamiento de métodos
+     */
+    ResponseHeaders end() {
+        append(CRLF);
+        return this;
+    }
+
+    /**
+     * Obtiene el arreglo con los bytes serializados.
+     *
+     * @return El arreglo interno; los bytes válidos son los primeros
+     *         {@link #length()}
+     */
+    byte[] array() {
+        return bytes;
+    }
+
+    /**
+     * Obtiene el número de bytes serializados.
+     *
+     * @return La longitud de los encabezados
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Obtiene el mensaje estándar de un código de estado HTTP.
+     *
+     * @param statusCode El código de estado HTTP
+     * @return El mensaje correspondiente
+     */
+    static String statusMessage(int statusCode) {
+        return switch (statusCode) {
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 204 -> "No Content";
+            case 206 -> "Partial Content";
+            case 304 -> "Not Modified";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 413 -> "Payload Too Large";
+            case 414 -> "URI Too Long";
+            case 416 -> "Range Not Satisfiable";
+            case 417 -> "Expectation Failed";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 503 -> "Service Unavailable";
+            case 504 -> "Gateway Timeout";
+            default -> "Unknown Status";
+        };
+    }
+
+    /**
+     * Obtiene la línea de estado codificada de un código.
+     *
+     * @param statusCode El código de estado HTTP
+     * @return La línea de estado con su CRLF
+     */
+    private static byte[] statusLine(int statusCode) {
+        if (statusCode >= 100 && statusCode < STATUS_LINES.length) {
+            return STATUS_LINES[statusCode];
+        }
+        return encodeStatusLine(statusCode);
+    }
+
+    /**
+     * Codifica la línea de estado de un código.
+     *
+     * @param statusCode El código de estado HTTP
+     * @return La línea de estado con su CRLF
+     */
+    private static byte[] encodeStatusLine(int statusCode) {
+        return encode("HTTP/1.1 " + statusCode + " " + statusMessage(statusCode) + "\r\n");
+    }
+
+    /**
+     * Codifica un texto de encabezado en UTF-8, como las respuestas
+     * anteriores.
+     *
+     * @param text El texto
+     * @return Los bytes del texto
+     */
+    private static byte[] encode(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Agrega bytes al final, ampliando el arreglo si hace falta.
+     *
+     * @param source Los bytes a agregar
+     */
+    private void append(byte[] source) {
+        ensureCapacity(source.length);
+        System.arraycopy(source, 0, bytes, length, source.length);
+        length += source.length;
+    }
+
+    /**
+     * Agrega un texto. Los caracteres ASCII se copian directamente; el resto
+     * se codifica en UTF-8.
+     *
+     * @param text El texto
+     */
+    private void appendText(String text) {
+        int count = text.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                append(encode(text));
+                return;
+            }
+            bytes[length + i] = (byte) c;
+        }
+        length += count;
+    }
+
+    /**
+     * Agrega un número decimal no negativo sin crear cadenas.
+     *
+     * @param value El número
+     */
+    private void appendNumber(long value) {
+        if (value < 0) {
+            appendText(Long.toString(value));
+            return;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    /**
+     * Amplía el arreglo para que quepan más bytes.
+     *
+     * @param extra Bytes adicionales necesarios
+     */
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+
+    /**
+     * Encabezados de conexión persistente codificados para un tiempo de espera.
+     */
+    private static final class KeepAliveHeader {
+        final int timeoutSeconds;
+        final byte[] bytes;
+
+        KeepAliveHeader(int timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+            this.bytes = encode("Connection: keep-alive\r\nKeep-Alive: timeout=" + timeoutSeconds + "\r\n");
+        }
+    }
+}
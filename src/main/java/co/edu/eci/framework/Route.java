@@ -1,5 +1,8 @@
 package co.edu.eci.framework;
 
+import java.io.OutputStream;
+import java.util.concurrent.CompletionStage;
+
 /**
  * Representa una ruta registrada en la aplicación.
  * Esta clase almacena la información de una ruta y su manejador.
@@ -12,6 +15,10 @@ public class Route {
     private final String method;
     private final String path;
     private final RouteHandler handler;
+    private final StreamingRouteHandler streamingHandler;
+    private final AsyncRouteHandler asyncHandler;
+    private final ResponseCache cache;
+    private final ConstantResponse constant;
 
     /**
      * Constructor para crear una ruta.
@@ -21,9 +28,76 @@ public class Route {
      * @param handler El manejador para esta ruta
      */
     public Route(String method, String path, RouteHandler handler) {
+        this(method, path, handler, null, null, null, null);
+    }
+
+    /**
+     * Constructor para crear una ruta cuyas respuestas se guardan en caché.
+     *
+     * @param method  El método HTTP (GET, POST, etc.)
+     * @param path    La ruta URL (por ejemplo, "/greeting")
+     * @param handler El manejador para esta ruta
+     * @param policy  Las opciones de la caché de respuestas
+     */
+    public Route(String method, String path, RouteHandler handler, CachePolicy policy) {
+        this(method, path, handler, null, null, new ResponseCache(policy), null);
+    }
+
+    /**
+     * Constructor para crear una ruta cuyo manejador escribe la respuesta en un
+     * flujo.
+     *
+     * @param method  El método HTTP (GET, POST, etc.)
+     * @param path    La ruta URL (por ejemplo, "/export")
+     * @param handler El manejador de flujo para esta ruta
+     */
+    public Route(String method, String path, StreamingRouteHandler handler) {
+        this(method, path, null, handler, null, null, null);
+    }
+
+    private Route(String method, String path, RouteHandler handler, StreamingRouteHandler streamingHandler,
+            AsyncRouteHandler asyncHandler, ResponseCache cache, ConstantResponse constant) {
         this.method = method;
         this.path = path;
         this.handler = handler;
+        this.streamingHandler = streamingHandler;
+        this.asyncHandler = asyncHandler;
+        this.cache = cache;
+        this.constant = constant;
+    }
+
+    /**
+     * Crea una ruta cuyo manejador devuelve la respuesta de forma asíncrona.
+     * Es un método de fábrica porque una lambda de dos parámetros no permite
+     * distinguir un {@link AsyncRouteHandler} de un {@link RouteHandler}.
+     *
+     * @param method  El método HTTP (GET, POST, etc.)
+     * @param path    La ruta URL (por ejemplo, "/orders/{id}")
+     * @param handler El manejador asíncrono para esta ruta
+     * @return La ruta
+     */
+    public static Route async(String method, String path, AsyncRouteHandler handler) {
+        return new Route(method, path, null, null, handler, null, null);
+    }
+
+    /**
+     * Crea una ruta que responde siempre el mismo cuerpo con estado 200. Su
+     * respuesta completa se codifica una sola vez y se escribe sin ejecutar
+     * ningún manejador. {@link #execute} devuelve el mismo cuerpo, para quien
+     * invoque la ruta directamente.
+     *
+     * @param method      El método HTTP (GET, POST, etc.)
+     * @param path        La ruta URL (por ejemplo, "/hello")
+     * @param contentType El tipo MIME del cuerpo
+     * @param body        El cuerpo de la respuesta
+     * @return La ruta
+     */
+    public static Route constant(String method, String path, String contentType, String body) {
+        RouteHandler handler = (request, response) -> {
+            response.type(contentType);
+            return body;
+        };
+        return new Route(method, path, handler, null, null, null, new ConstantResponse(contentType, body));
     }
 
     /**
@@ -44,6 +118,42 @@ public class Route {
         return path;
     }
 
+    /**
+     * Obtiene las estadísticas de la caché de respuestas de esta ruta.
+     *
+     * @return Las estadísticas, o null si la ruta no usa caché
+     */
+    public ResponseCacheStats getCacheStats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    /**
+     * Indica si esta ruta responde siempre el mismo cuerpo.
+     *
+     * @return true si la ruta se creó con {@link #constant}
+     */
+    public boolean isConstant() {
+        return constant != null;
+    }
+
+    /**
+     * Obtiene la respuesta precodificada de esta ruta.
+     *
+     * @return La respuesta, o null si la ruta no es constante
+     */
+    ConstantResponse getConstantResponse() {
+        return constant;
+    }
+
+    /**
+     * Obtiene la caché de respuestas de esta ruta.
+     *
+     * @return La caché, o null si la ruta no usa caché
+     */
+    ResponseCache getCache() {
+        return cache;
+    }
+
     /**
      * Ejecuta el manejador de esta ruta con la solicitud y respuesta dadas.
      *
@@ -53,6 +163,58 @@ public class Route {
      * @throws Exception Si ocurre un error al manejar la solicitud
      */
     public String execute(Request request, Response response) throws Exception {
+        if (handler == null) {
+            throw new IllegalStateException("La ruta " + path + " no devuelve su respuesta como String");
+        }
         return handler.handle(request, response);
     }
+
+    /**
+     * Indica si el manejador de esta ruta escribe la respuesta en un flujo.
+     *
+     * @return true si la ruta usa un {@link StreamingRouteHandler}
+     */
+    public boolean isStreaming() {
+        return streamingHandler != null;
+    }
+
+    /**
+     * Indica si el manejador de esta ruta devuelve la respuesta de forma
+     * asíncrona.
+     *
+     * @return true si la ruta usa un {@link AsyncRouteHandler}
+     */
+    public boolean isAsync() {
+        return asyncHandler != null;
+    }
+
+    /**
+     * Inicia el manejador asíncrono de esta ruta.
+     *
+     * @param request  La solicitud HTTP
+     * @param response La respuesta HTTP
+     * @return La etapa que se completa con el cuerpo de la respuesta
+     * @throws Exception Si ocurre un error al iniciar el manejador
+     */
+    public CompletionStage<String> executeAsync(Request request, Response response) throws Exception {
+        if (asyncHandler == null) {
+            throw new IllegalStateException("La ruta " + path + " no es asíncrona");
+        }
+        return asyncHandler.handle(request, response);
+    }
+
+    /**
+     * Ejecuta el manejador de flujo de esta ruta.
+     *
+     * @param request  La solicitud HTTP
+     * @param response La respuesta HTTP
+     * @param body     El flujo donde escribir el cuerpo de la respuesta
+     * @throws Exception Si ocurre un error al manejar la solicitud
+     */
+    public void executeStreaming(Request request, Response response, OutputStream body) throws Exception {
+        if (streamingHandler == null) {
+            throw new IllegalStateException("La ruta " + path + " no escribe su respuesta en un flujo");
+        }
+        streamingHandler.handle(request, response, body);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package co.edu.eci.framework;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Resultado de buscar una ruta: la ruta encontrada y los valores de sus
+ * parámetros de ruta (por ejemplo {@code id} en {@code /users/{id}}).
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public final class RouteMatch {
+
+    private final Route route;
+    private final Map<String, String> pathParams;
+
+    /**
+     * Crea el resultado de una búsqueda.
+     *
+     * @param route      La ruta encontrada
+     * @param pathParams Los valores de los parámetros de la ruta
+     */
+    RouteMatch(Route route, Map<String, String> pathParams) {
+        this.route = route;
+        this.pathParams = pathParams;
+    }
+
+    /**
+     * Obtiene la ruta encontrada.
+     *
+     * @return La ruta
+     */
+    public Route getRoute() {
+        return route;
+    }
+
+    /**
+     * Obtiene los valores de los parámetros de la ruta.
+     *
+     * @return Un mapa inmodificable de nombre a valor
+     */
+    public Map<String, String> getPathParams() {
+        return Collections.unmodifiableMap(pathParams);
+    }
+}
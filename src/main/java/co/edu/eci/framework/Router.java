@@ -1,37 +1,126 @@
 package co.edu.eci.framework;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 /**
  * Enrutador para manejar las rutas y sus manejadores.
  * Esta clase registra las rutas y busca la ruta apropiada para cada solicitud.
- * 
+ * Las rutas admiten segmentos literales ({@code /users}), parámetros con
+ * nombre ({@code /users/{id}}) y un comodín final ({@code /files/*}). Ante
+ * varias coincidencias gana el segmento literal, luego el parámetro y por
+ * último el comodín.
+ * Las rutas se compilan en un árbol de prefijos por segmentos que se publica
+ * como una instantánea inmutable: las búsquedas no toman bloqueos y se pueden
+ * agregar rutas mientras el servidor atiende solicitudes.
+ *
  * @author Angie Ramos
  * @version 1.0
  */
 public class Router {
 
-    private final Map<String, Map<String, Route>> routes;
+    /** Nombre del parámetro que recibe el resto de la ruta en un comodín. */
+    public static final String WILDCARD_PARAM = "*";
+
+    private static final String[] NO_VALUES = new String[0];
+
+    private final Map<String, Route> routes;
+    private volatile Node root;
 
     /**
      * Constructor que inicializa el enrutador.
      */
     public Router() {
-        this.routes = new HashMap<>();
+        this.routes = new LinkedHashMap<>();
+        this.root = new Node();
     }
 
     /**
      * Agrega una nueva ruta al enrutador.
      *
      * @param method  El método HTTP (GET, POST, etc.)
-     * @param path    La ruta URL (por ejemplo, "/hello")
+     * @param path    La ruta URL (por ejemplo, "/hello" o "/users/{id}")
      * @param handler El manejador para esta ruta
      */
     public void addRoute(String method, String path, RouteHandler handler) {
-        Map<String, Route> methodRoutes = routes.computeIfAbsent(method, k -> new HashMap<>());
-        methodRoutes.put(path, new Route(method, path, handler));
+        register(new Route(method, path, handler));
+    }
+
+    /**
+     * Agrega una nueva ruta cuyas respuestas se guardan en caché según la
+     * política dada.
+     *
+     * @param method  El método HTTP (GET, POST, etc.)
+     * @param path    La ruta URL (por ejemplo, "/greeting")
+     * @param handler El manejador para esta ruta
+     * @param policy  Las opciones de la caché de respuestas
+     */
+    public void addRoute(String method, String path, RouteHandler handler, CachePolicy policy) {
+        register(new Route(method, path, handler, policy));
+    }
+
+    /**
+     * Agrega una nueva ruta cuyo manejador devuelve la respuesta de forma
+     * asíncrona.
+     *
+     * @param method  El método HTTP (GET, POST, etc.)
+     * @param path    La ruta URL (por ejemplo, "/orders/{id}")
+     * @param handler El manejador asíncrono para esta ruta
+     */
+    public void addAsyncRoute(String method, String path, AsyncRouteHandler handler) {
+        register(Route.async(method, path, handler));
+    }
+
+    /**
+     * Agrega una nueva ruta que responde siempre el mismo cuerpo, con la
+     * respuesta codificada de antemano.
+     *
+     * @param method      El método HTTP (GET, POST, etc.)
+     * @param path        La ruta URL (por ejemplo, "/hello")
+     * @param contentType El tipo MIME del cuerpo
+     * @param body        El cuerpo de la respuesta
+     */
+    public void addConstantRoute(String method, String path, String contentType, String body) {
+        register(Route.constant(method, path, contentType, body));
+    }
+
+    /**
+     * Agrega una nueva ruta cuyo manejador escribe la respuesta en un flujo.
+     *
+     * @param method  El método HTTP (GET, POST, etc.)
+     * @param path    La ruta URL (por ejemplo, "/export")
+     * @param handler El manejador de flujo para esta ruta
+     */
+    public void addRoute(String method, String path, StreamingRouteHandler handler) {
+        register(new Route(method, path, handler));
+    }
+
+    /**
+     * Registra una ruta, reemplazando la que tenga el mismo método y patrón, y
+     * publica un árbol nuevo que la incluye. Las búsquedas en curso siguen con
+     * el árbol anterior hasta el cambio.
+     *
+     * @param route La ruta a registrar
+     */
+    private synchronized void register(Route route) {
+        Pattern pattern = Pattern.parse(route.getPath());
+        routes.put(route.getMethod() + " " + pattern.key, route);
+        Node current = root;
+        Node next = current.insert(route, pattern);
+        next.maxParams = Math.max(current.maxParams, pattern.paramNames.size());
+        if (pattern.paramNames.isEmpty()) {
+            next.staticRoutes = new HashMap<>(current.staticRoutes);
+            next.staticRoutes.put(route.getPath(), withLeaf(current.staticRoutes.get(route.getPath()),
+                    route.getMethod(), new Leaf(route, pattern.paramNames)));
+        }
+        root = next;
     }
 
     /**
@@ -42,13 +131,40 @@ public class Router {
      * @return Optional con la ruta si se encuentra, o vacío si no
      */
     public Optional<Route> findRoute(String method, String path) {
-        Map<String, Route> methodRoutes = routes.get(method);
-        if (methodRoutes == null) {
+        return match(method, path).map(RouteMatch::getRoute);
+    }
+
+    /**
+     * Busca una ruta que coincida con el método y la ruta especificados y
+     * extrae los valores de sus parámetros.
+     *
+     * @param method El método HTTP
+     * @param path   La ruta URL
+     * @return Optional con la ruta y sus parámetros, o vacío si no hay
+     *         coincidencia
+     */
+    public Optional<RouteMatch> match(String method, String path) {
+        Node node = root;
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
             return Optional.empty();
         }
-
-        Route route = methodRoutes.get(path);
-        return Optional.ofNullable(route);
+        Map<String, Leaf> exact = node.staticRoutes.get(path);
+        if (exact != null && exact.containsKey(method)) {
+            return Optional.of(exact.get(method).match);
+        }
+        String[] values = node.maxParams == 0 ? NO_VALUES : new String[node.maxParams];
+        Leaf leaf = node.find(method, path, 1, values, 0);
+        if (leaf == null) {
+            return Optional.empty();
+        }
+        if (leaf.paramNames.length == 0) {
+            return Optional.of(leaf.match);
+        }
+        Map<String, String> params = new HashMap<>(leaf.paramNames.length * 2);
+        for (int i = 0; i < leaf.paramNames.length; i++) {
+            params.put(leaf.paramNames[i], decode(values[i]));
+        }
+        return Optional.of(new RouteMatch(leaf.match.getRoute(), params));
     }
 
     /**
@@ -56,9 +172,246 @@ public class Router {
      *
      * @return El número de rutas
      */
-    public int getRouteCount() {
-        return routes.values().stream()
-                .mapToInt(Map::size)
-                .sum();
+    public synchronized int getRouteCount() {
+        return routes.size();
+    }
+
+    /**
+     * Obtiene una copia de las rutas registradas, en orden de registro.
+     *
+     * @return Las rutas registradas
+     */
+    synchronized List<Route> getRoutes() {
+        return new ArrayList<>(routes.values());
+    }
+
+    /**
+     * Copia las rutas por método de un nodo agregando o reemplazando una.
+     *
+     * @param leaves Las rutas por método, o null si no hay
+     * @param method El método HTTP
+     * @param leaf   La ruta a agregar
+     * @return Un mapa nuevo con la ruta
+     */
+    private static Map<String, Leaf> withLeaf(Map<String, Leaf> leaves, String method, Leaf leaf) {
+        Map<String, Leaf> copy = leaves == null ? new HashMap<>() : new HashMap<>(leaves);
+        copy.put(method, leaf);
+        return copy;
+    }
+
+    /**
+     * Decodifica las secuencias {@code %XX} del valor de un parámetro. A
+     * diferencia de un formulario, en la ruta {@code +} no es un espacio.
+     *
+     * @param value El valor tal como llegó en la ruta
+     * @return El valor decodificado
+     */
+    private static String decode(String value) {
+        if (value.indexOf('%') < 0) {
+            return value;
+        }
+        try {
+            return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    /**
+     * Patrón de ruta descompuesto en segmentos.
+     */
+    private static final class Pattern {
+        final List<String> segments;
+        final List<String> paramNames;
+        final String key;
+
+        private Pattern(List<String> segments, List<String> paramNames, String key) {
+            this.segments = segments;
+            this.paramNames = paramNames;
+            this.key = key;
+        }
+
+        /**
+         * Descompone un patrón como {@code /users/{id}/files/*}.
+         *
+         * @param path El patrón de la ruta
+         * @return El patrón descompuesto
+         * @throws IllegalArgumentException Si el patrón no es válido
+         */
+        static Pattern parse(String path) {
+            if (path == null || !path.startsWith("/")) {
+                throw new IllegalArgumentException("La ruta debe empezar con '/': " + path);
+            }
+            String[] parts = path.substring(1).split("/", -1);
+            List<String> segments = new ArrayList<>(parts.length);
+            List<String> paramNames = new ArrayList<>();
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < parts.length; i++) {
+                String part = parts[i];
+                key.append('/');
+                if (part.equals(WILDCARD_PARAM)) {
+                    if (i != parts.length - 1) {
+                        throw new IllegalArgumentException("El comodín debe ser el último segmento: " + path);
+                    }
+                    paramNames.add(WILDCARD_PARAM);
+                    segments.add(null);
+                    key.append('*');
+                } else if (part.length() > 2 && part.startsWith("{") && part.endsWith("}")) {
+                    String name = part.substring(1, part.length() - 1);
+                    if (paramNames.contains(name)) {
+                        throw new IllegalArgumentException("Parámetro repetido '" + name + "' en " + path);
+                    }
+                    paramNames.add(name);
+                    segments.add("{}");
+                    key.append("{}");
+                } else {
+                    segments.add(part);
+                    key.append(part);
+                }
+            }
+            return new Pattern(segments, paramNames, key.toString());
+        }
+    }
+
+    /**
+     * Ruta almacenada en un nodo, con los nombres de sus parámetros en orden.
+     */
+    private static final class Leaf {
+        final RouteMatch match;
+        final String[] paramNames;
+
+        Leaf(Route route, List<String> paramNames) {
+            this.match = new RouteMatch(route, Collections.emptyMap());
+            this.paramNames = paramNames.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Nodo del árbol: un segmento de ruta con sus hijos literales, su hijo
+     * parámetro, su comodín y las rutas que terminan en él por método. Un nodo
+     * publicado no se modifica: al registrar una ruta se copian solo los nodos
+     * de su camino y el resto del árbol se comparte con la instantánea
+     * anterior.
+     */
+    private static final class Node {
+        private final Map<String, Node> staticChildren;
+        private Node paramChild;
+        private Map<String, Leaf> wildcardRoutes;
+        private Map<String, Leaf> routes;
+        /** En la raíz: máximo de parámetros de una ruta del árbol. */
+        private int maxParams;
+        /**
+         * En la raíz: rutas sin parámetros indexadas por la ruta completa, para
+         * resolverlas con una sola búsqueda sin recorrer el árbol.
+         */
+        private Map<String, Map<String, Leaf>> staticRoutes;
+
+        /**
+         * Crea un nodo vacío.
+         */
+        Node() {
+            this.staticChildren = new HashMap<>();
+            this.staticRoutes = Collections.emptyMap();
+        }
+
+        /**
+         * Crea una copia del nodo que comparte sus hijos y sus rutas.
+         *
+         * @param other El nodo a copiar
+         */
+        private Node(Node other) {
+            this.staticChildren = new HashMap<>(other.staticChildren);
+            this.paramChild = other.paramChild;
+            this.wildcardRoutes = other.wildcardRoutes;
+            this.routes = other.routes;
+            this.maxParams = other.maxParams;
+            this.staticRoutes = other.staticRoutes;
+        }
+
+        /**
+         * Obtiene una copia del subárbol con una ruta más, copiando solo los
+         * nodos del camino de la ruta.
+         *
+         * @param route   La ruta
+         * @param pattern El patrón descompuesto de la ruta
+         * @return La raíz del subárbol nuevo
+         */
+        Node insert(Route route, Pattern pattern) {
+            Node copy = new Node(this);
+            Node node = copy;
+            Leaf leaf = new Leaf(route, pattern.paramNames);
+            for (String segment : pattern.segments) {
+                if (segment == null) {
+                    node.wildcardRoutes = withLeaf(node.wildcardRoutes, route.getMethod(), leaf);
+                    return copy;
+                }
+                Node child;
+                if (segment.equals("{}")) {
+                    child = node.paramChild == null ? new Node() : new Node(node.paramChild);
+                    node.paramChild = child;
+                } else {
+                    Node existing = node.staticChildren.get(segment);
+                    child = existing == null ? new Node() : new Node(existing);
+                    node.staticChildren.put(segment, child);
+                }
+                node = child;
+            }
+            node.routes = withLeaf(node.routes, route.getMethod(), leaf);
+            return copy;
+        }
+
+        /**
+         * Busca una ruta desde este nodo, probando en orden el hijo literal, el
+         * parámetro y el comodín, y retrocediendo si una rama no lleva a una
+         * ruta del método pedido.
+         *
+         * @param method     El método HTTP
+         * @param path       La ruta de la solicitud
+         * @param start      Inicio del segmento actual en la ruta
+         * @param values     Valores capturados de los parámetros
+         * @param paramCount Número de valores capturados hasta ahora
+         * @return La ruta encontrada, o null
+         */
+        Leaf find(String method, String path, int start, String[] values, int paramCount) {
+            int end = path.indexOf('/', start);
+            boolean last = end < 0;
+            if (last) {
+                end = path.length();
+            }
+
+            Node child = staticChildren.get(path.substring(start, end));
+            if (child != null) {
+                Leaf leaf = last ? child.leafFor(method) : child.find(method, path, end + 1, values, paramCount);
+                if (leaf != null) {
+                    return leaf;
+                }
+            }
+            if (paramChild != null && end > start && paramCount < values.length) {
+                values[paramCount] = path.substring(start, end);
+                Leaf leaf = last ? paramChild.leafFor(method)
+                        : paramChild.find(method, path, end + 1, values, paramCount + 1);
+                if (leaf != null) {
+                    return leaf;
+                }
+            }
+            if (wildcardRoutes != null) {
+                Leaf leaf = wildcardRoutes.get(method);
+                if (leaf != null && paramCount < values.length) {
+                    values[paramCount] = path.substring(start);
+                    return leaf;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Obtiene la ruta del método dado que termina en este nodo.
+         *
+         * @param method El método HTTP
+         * @return La ruta, o null
+         */
+        private Leaf leafFor(String method) {
+            return routes != null ? routes.get(method) : null;
+        }
     }
-}
\ No newline at end of file
+}
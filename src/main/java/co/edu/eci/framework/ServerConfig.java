@@ -0,0 +1,859 @@
+package co.edu.eci.framework;
+
+import java.util.List;
+
+/**
+ * Opciones de configuración del servidor HTTP.
+ * Los métodos de configuración devuelven la misma instancia para permitir el
+ * encadenamiento, igual que {@link Response}.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class ServerConfig {
+
+    /**
+     * Transportes de red disponibles para aceptar y atender conexiones.
+     */
+    public enum Transport {
+        /** Un hilo del pool por conexión, con sockets bloqueantes. */
+        BLOCKING,
+        /**
+         * Selectores NIO: las conexiones inactivas no ocupan hilos del pool y solo
+         * se despachan cuando llega una solicitud completa.
+         */
+        NIO
+    }
+
+    /**
+     * Modos de ejecución de las solicitudes.
+     */
+    public enum Execution {
+        /** Pool fijo de hilos de plataforma de tamaño {@link #getWorkerThreads()}. */
+        PLATFORM_POOL,
+        /**
+         * Un hilo virtual por conexión: los manejadores bloqueantes no consumen
+         * hilos de plataforma mientras esperan.
+         */
+        VIRTUAL_THREADS
+    }
+
+    private Transport transport = Transport.BLOCKING;
+    private Execution execution = Execution.PLATFORM_POOL;
+    private int workerThreads = 10;
+    private int eventLoops = Runtime.getRuntime().availableProcessors();
+    private int acceptBacklog = 1024;
+    private boolean keepAliveEnabled = true;
+    private int keepAliveTimeoutMillis = 5000;
+    private int maxRequestsPerConnection = 1000;
+    private boolean compressionEnabled = true;
+    private int maxRequestLineSize = 8192;
+    private int maxHeaderCount = 100;
+    private int maxHeaderSize = 16384;
+    private int maxBufferedBodySize = 1024 * 1024;
+    private int maxBodyDiscardSize = 64 * 1024;
+    private int maxPipelinedRequests = 16;
+    private int maxQueuedRequests = 256;
+    private int maxConcurrentRequests = 10000;
+    private int queueDelayTargetMillis = 50;
+    private int retryAfterSeconds = 1;
+    private int asyncTimeoutMillis = 30_000;
+    private boolean metricsEnabled = true;
+    private String metricsPath = "/metrics";
+    private EventSink requestEvents;
+    private AccessLog accessLog;
+    private boolean http2Enabled = true;
+    private int http2MaxConcurrentStreams = 256;
+    private int warmupIterations = 0;
+    private List<String> warmupTargets = List.of();
+    private boolean readinessEnabled = true;
+    private String readinessPath = "/ready";
+    private int bufferPoolSize = 128;
+    private boolean bufferLeakDetection = false;
+    private int compressionMinSize = 1024;
+
+    /**
+     * Habilita o deshabilita las conexiones persistentes (keep-alive).
+     *
+     * @param enabled true para reutilizar la conexión entre solicitudes
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig keepAlive(boolean enabled) {
+        this.keepAliveEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Establece el tiempo máximo de inactividad de una conexión persistente.
+     * Pasado este tiempo sin recibir una nueva solicitud, la conexión se cierra.
+     *
+     * @param millis Tiempo de inactividad en milisegundos (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig keepAliveTimeout(int millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("El tiempo de inactividad debe ser mayor que cero");
+        }
+        this.keepAliveTimeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * Establece el número máximo de solicitudes atendidas por conexión.
+     *
+     * @param max Número máximo de solicitudes (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig maxRequestsPerConnection(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("El número máximo de solicitudes debe ser mayor que cero");
+        }
+        this.maxRequestsPerConnection = max;
+        return this;
+    }
+
+    /**
+     * Habilita o deshabilita la compresión gzip/deflate de las respuestas.
+     *
+     * @param enabled true para comprimir según Accept-Encoding
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig compression(boolean enabled) {
+        this.compressionEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Establece el tamaño mínimo del cuerpo para comprimirlo. Por debajo de este
+     * tamaño el ahorro no compensa el costo de CPU.
+     *
+     * @param bytes Tamaño mínimo en bytes (cero o mayor)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig compressionMinSize(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("El tamaño mínimo de compresión no puede ser negativo");
+        }
+        this.compressionMinSize = bytes;
+        return this;
+    }
+
+    /**
+     * Establece el tamaño máximo de la línea de solicitud. Las solicitudes que
+     * lo superan reciben 414 URI Too Long.
+     *
+     * @param bytes Tamaño máximo en bytes (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig maxRequestLineSize(int bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de la línea de solicitud debe ser mayor que cero");
+        }
+        this.maxRequestLineSize = bytes;
+        return this;
+    }
+
+    /**
+     * Establece el número máximo de encabezados por solicitud. Las solicitudes
+     * que lo superan reciben 431 Request Header Fields Too Large.
+     *
+     * @param count Número máximo de encabezados (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig maxHeaderCount(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("El número máximo de encabezados debe ser mayor que cero");
+        }
+        this.maxHeaderCount = count;
+        return this;
+    }
+
+    /**
+     * Establece el total máximo de bytes de los encabezados de una solicitud.
+     * Las solicitudes que lo superan reciben 431 Request Header Fields Too Large.
+     *
+     * @param bytes Tamaño máximo en bytes (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig maxHeaderSize(int bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de los encabezados debe ser mayor que cero");
+        }
+        this.maxHeaderSize = bytes;
+        return this;
+    }
+
+    /**
+     * Establece el máximo de bytes del cuerpo que se leen completos en memoria
+     * con {@link Request#getBodyBytes()}. Los cuerpos mayores reciben 413
+     * Payload Too Large; el flujo de {@link Request#getBodyStream()} no tiene
+     * este límite.
+     *
+     * @param bytes Tamaño máximo en bytes (no negativo)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig maxBufferedBodySize(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("El tamaño máximo del cuerpo no puede ser negativo");
+        }
+        this.maxBufferedBodySize = bytes;
+        return this;
+    }
+
+    /**
+     * Establece el máximo de bytes de un cuerpo no leído por el manejador que se
+     * descartan para reutilizar la conexión. Si queda más, la conexión se cierra.
+     *
+     * @param bytes Máximo de bytes a descartar (no negativo)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig maxBodyDiscardSize(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("El máximo de bytes a descartar no puede ser negativo");
+        }
+        this.maxBodyDiscardSize = bytes;
+        return this;
+    }
+
+    /**
+     * Establece cuántas respuestas a solicitudes encadenadas (pipelining) se
+     * acumulan antes de enviarlas juntas. Con 1 cada respuesta se envía por
+     * separado.
+     *
+     * @param count Máximo de respuestas por envío (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig maxPipelinedRequests(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("El máximo de solicitudes encadenadas debe ser mayor que cero");
+        }
+        this.maxPipelinedRequests = count;
+        return this;
+    }
+
+    /**
+     * Establece la capacidad de la cola del pool de hilos de plataforma.
+     * Cuando la cola está llena, las conexiones nuevas se rechazan con
+     * {@code 503 Service Unavailable} en lugar de esperar.
+     *
+     * @param count Máximo de tareas en cola (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig maxQueuedRequests(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("El máximo de tareas en cola debe ser mayor que cero");
+        }
+        this.maxQueuedRequests = count;
+        return this;
+    }
+
+    /**
+     * Establece cuántas tareas pueden ejecutarse a la vez con hilos virtuales.
+     * Por encima de este límite las conexiones se rechazan con {@code 503}.
+     *
+     * @param count Máximo de tareas simultáneas (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig maxConcurrentRequests(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("El máximo de tareas simultáneas debe ser mayor que cero");
+        }
+        this.maxConcurrentRequests = count;
+        return this;
+    }
+
+    /**
+     * Establece la espera en cola tolerada antes de rechazar tareas. Si las
+     * tareas esperan más que este objetivo de forma sostenida, las que lo
+     * superan se rechazan con {@code 503}. Con 0 no se rechaza por espera.
+     *
+     * @param millis Espera objetivo en milisegundos (no negativa)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig queueDelayTarget(int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("La espera objetivo en cola no puede ser negativa");
+        }
+        this.queueDelayTargetMillis = millis;
+        return this;
+    }
+
+    /**
+     * Establece el valor de {@code Retry-After} de las respuestas
+     * {@code 503} por sobrecarga.
+     *
+     * @param seconds Segundos que el cliente debe esperar (no negativo)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig retryAfter(int seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("El valor de Retry-After no puede ser negativo");
+        }
+        this.retryAfterSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Establece cuánto puede tardar un manejador asíncrono en completar su
+     * respuesta; al agotarse se responde {@code 504} y se cancela la etapa.
+     *
+     * @param millis Tiempo máximo en milisegundos (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig asyncTimeout(int millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("El tiempo máximo de los manejadores asíncronos debe ser mayor que cero");
+        }
+        this.asyncTimeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * Habilita o deshabilita la ruta de métricas en formato Prometheus.
+     *
+     * @param enabled true para registrar la ruta de métricas al crear el
+     *                servidor
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig metrics(boolean enabled) {
+        this.metricsEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Establece la ruta GET donde se exponen las métricas.
+     *
+     * @param path La ruta (debe empezar con '/')
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig metricsPath(String path) {
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("La ruta de métricas debe empezar con '/'");
+        }
+        this.metricsPath = path;
+        return this;
+    }
+
+    /**
+     * Registra un evento por cada solicitud atendida (fecha, método, ruta,
+     * plantilla de la ruta, estado y duración) en el sink indicado. El
+     * servidor solo encola el evento; la escritura ocurre por lotes en el
+     * hilo escritor del sink.
+     *
+     * @param events El sink de eventos, o null para no registrar solicitudes
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig requestEvents(EventSink events) {
+        this.requestEvents = events;
+        return this;
+    }
+
+    /**
+     * Escribe una línea por cada solicitud atendida en el registro de accesos
+     * indicado. El hilo de la solicitud solo copia los campos al búfer del
+     * registro; el formato y la escritura ocurren en su hilo escritor.
+     *
+     * @param accessLog El registro de accesos, o null para no registrarlos
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig accessLog(AccessLog accessLog) {
+        this.accessLog = accessLog;
+        return this;
+    }
+
+    /**
+     * Habilita o deshabilita HTTP/2 en texto plano (h2c), tanto con
+     * conocimiento previo como por actualización desde HTTP/1.1 con
+     * {@code Upgrade: h2c}. Sin HTTP/2 esas conexiones se atienden como
+     * HTTP/1.1.
+     *
+     * @param enabled true para aceptar HTTP/2
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig http2(boolean enabled) {
+        this.http2Enabled = enabled;
+        return this;
+    }
+
+    /**
+     * Establece cuántos flujos puede tener abiertos a la vez una conexión
+     * HTTP/2. Se anuncia al cliente en SETTINGS_MAX_CONCURRENT_STREAMS y los
+     * flujos por encima del límite se rechazan con REFUSED_STREAM.
+     *
+     * @param count Máximo de flujos simultáneos por conexión (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig http2MaxConcurrentStreams(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("El máximo de flujos HTTP/2 simultáneos debe ser mayor que cero");
+        }
+        this.http2MaxConcurrentStreams = count;
+        return this;
+    }
+
+    /**
+     * Establece cuántas veces se recorren las rutas GET al iniciar el
+     * servidor, antes de abrir el puerto, para que el JIT compile el camino
+     * de parseo, enrutamiento, manejadores y serialización antes de recibir
+     * tráfico real. Las solicitudes de calentamiento se atienden en memoria y
+     * no cuentan en las métricas ni en los registros.
+     *
+     * @param iterations Vueltas de calentamiento (0 lo deshabilita)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig warmupIterations(int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Las vueltas de calentamiento no pueden ser negativas");
+        }
+        this.warmupIterations = iterations;
+        return this;
+    }
+
+    /**
+     * Agrega solicitudes GET al calentamiento además de las rutas
+     * registradas, por ejemplo con la cadena de consulta que usan los
+     * clientes ({@code /greeting?name=Ana}) o un archivo estático.
+     *
+     * @param targets Las rutas con su cadena de consulta (deben empezar con '/')
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig warmupTargets(String... targets) {
+        for (String target : targets) {
+            if (target == null || !target.startsWith("/")) {
+                throw new IllegalArgumentException("Las rutas de calentamiento deben empezar con '/'");
+            }
+        }
+        this.warmupTargets = List.of(targets);
+        return this;
+    }
+
+    /**
+     * Habilita o deshabilita la ruta de disponibilidad que consultan los
+     * balanceadores de carga: responde {@code 200} mientras el servidor acepta
+     * tráfico y {@code 503} desde que empieza a detenerse.
+     *
+     * @param enabled true para registrar la ruta al crear el servidor
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig readiness(boolean enabled) {
+        this.readinessEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Establece la ruta GET de disponibilidad.
+     *
+     * @param path La ruta (debe empezar con '/')
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig readinessPath(String path) {
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("La ruta de disponibilidad debe empezar con '/'");
+        }
+        this.readinessPath = path;
+        return this;
+    }
+
+    /**
+     * Establece cuántos búferes de E/S libres guarda el servidor por clase de
+     * tamaño, además de la caché de cada hilo. Las conexiones toman de este
+     * pool sus búferes de lectura y escritura y los devuelven al quedar
+     * inactivas, en lugar de crearlos en cada conexión.
+     *
+     * @param buffers Búferes por clase de tamaño (0 deshabilita el pool)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig bufferPoolSize(int buffers) {
+        if (buffers < 0) {
+            throw new IllegalArgumentException("El tamaño del pool de búferes no puede ser negativo");
+        }
+        this.bufferPoolSize = buffers;
+        return this;
+    }
+
+    /**
+     * Habilita o deshabilita la detección de fugas del pool de búferes: cada
+     * búfer prestado guarda dónde se adquirió y se informa por la salida de
+     * error de los que se descartan sin devolverse y de los que se devuelven
+     * dos veces. Tiene un costo por préstamo; está pensada para depuración.
+     *
+     * @param enabled true para rastrear los búferes prestados
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig bufferLeakDetection(boolean enabled) {
+        this.bufferLeakDetection = enabled;
+        return this;
+    }
+
+    /**
+     * Selecciona el transporte de red del servidor.
+     *
+     * @param transport El transporte a utilizar
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig transport(Transport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException("El transporte no puede ser nulo");
+        }
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Establece cuántas conexiones pueden esperar a ser aceptadas. Con el
+     * valor por defecto de Java (50), una ráfaga de conexiones nuevas desborda
+     * la cola y los clientes esperan reintentos de TCP de varios segundos. El
+     * sistema operativo puede limitarlo (somaxconn en Linux).
+     *
+     * @param count Máximo de conexiones pendientes de aceptar (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig acceptBacklog(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("La cola de conexiones pendientes debe ser mayor que cero");
+        }
+        this.acceptBacklog = count;
+        return this;
+    }
+
+    /**
+     * Establece el número de hilos de eventos del transporte NIO.
+     *
+     * @param count Número de hilos de eventos (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig eventLoops(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("El número de hilos de eventos debe ser mayor que cero");
+        }
+        this.eventLoops = count;
+        return this;
+    }
+
+    /**
+     * Selecciona el modo de ejecución de las solicitudes.
+     *
+     * @param execution El modo de ejecución
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig execution(Execution execution) {
+        if (execution == null) {
+            throw new IllegalArgumentException("El modo de ejecución no puede ser nulo");
+        }
+        this.execution = execution;
+        return this;
+    }
+
+    /**
+     * Establece el tamaño del pool de hilos de plataforma.
+     *
+     * @param count Número de hilos del pool (mayor que cero)
+     * @return Esta configuración para encadenamiento de métodos
+     */
+    public ServerConfig workerThreads(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("El número de hilos del pool debe ser mayor que cero");
+        }
+        this.workerThreads = count;
+        return this;
+    }
+
+    /**
+     * Indica si la compresión de respuestas está habilitada.
+     *
+     * @return true si se comprime según Accept-Encoding
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Obtiene el tamaño mínimo del cuerpo para comprimirlo.
+     *
+     * @return Tamaño mínimo en bytes
+     */
+    public int getCompressionMinSize() {
+        return compressionMinSize;
+    }
+
+    /**
+     * Obtiene el tamaño máximo de la línea de solicitud.
+     *
+     * @return Tamaño máximo en bytes
+     */
+    public int getMaxRequestLineSize() {
+        return maxRequestLineSize;
+    }
+
+    /**
+     * Obtiene el número máximo de encabezados por solicitud.
+     *
+     * @return Número máximo de encabezados
+     */
+    public int getMaxHeaderCount() {
+        return maxHeaderCount;
+    }
+
+    /**
+     * Obtiene el total máximo de bytes de los encabezados de una solicitud.
+     *
+     * @return Tamaño máximo en bytes
+     */
+    public int getMaxHeaderSize() {
+        return maxHeaderSize;
+    }
+
+    /**
+     * Obtiene el máximo de bytes del cuerpo que se leen completos en memoria.
+     *
+     * @return Tamaño máximo en bytes
+     */
+    public int getMaxBufferedBodySize() {
+        return maxBufferedBodySize;
+    }
+
+    /**
+     * Obtiene el máximo de bytes de un cuerpo no leído que se descartan para
+     * reutilizar la conexión.
+     *
+     * @return Máximo de bytes a descartar
+     */
+    public int getMaxBodyDiscardSize() {
+        return maxBodyDiscardSize;
+    }
+
+    /**
+     * Obtiene cuántas respuestas a solicitudes encadenadas se acumulan antes de
+     * enviarlas juntas.
+     *
+     * @return Máximo de respuestas por envío
+     */
+    public int getMaxPipelinedRequests() {
+        return maxPipelinedRequests;
+    }
+
+    /**
+     * Obtiene la capacidad de la cola del pool de hilos de plataforma.
+     *
+     * @return Máximo de tareas en cola
+     */
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+
+    /**
+     * Obtiene el máximo de tareas simultáneas con hilos virtuales.
+     *
+     * @return Máximo de tareas simultáneas
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Obtiene la espera en cola tolerada antes de rechazar tareas.
+     *
+     * @return Espera objetivo en milisegundos, o 0 si no se rechaza por espera
+     */
+    public int getQueueDelayTargetMillis() {
+        return queueDelayTargetMillis;
+    }
+
+    /**
+     * Obtiene el valor de {@code Retry-After} de las respuestas {@code 503}.
+     *
+     * @return Segundos que el cliente debe esperar
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Obtiene el tiempo máximo de los manejadores asíncronos.
+     *
+     * @return El tiempo máximo en milisegundos
+     */
+    public int getAsyncTimeoutMillis() {
+        return asyncTimeoutMillis;
+    }
+
+    /**
+     * Indica si la ruta de métricas está habilitada.
+     *
+     * @return true si se registra la ruta de métricas
+     */
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Obtiene la ruta GET donde se exponen las métricas.
+     *
+     * @return La ruta de métricas
+     */
+    public String getMetricsPath() {
+        return metricsPath;
+    }
+
+    /**
+     * Obtiene el sink donde se registran las solicitudes atendidas.
+     *
+     * @return El sink de eventos, o null si no se registran
+     */
+    public EventSink getRequestEvents() {
+        return requestEvents;
+    }
+
+    /**
+     * Obtiene el registro de accesos del servidor.
+     *
+     * @return El registro de accesos, o null si no se registran
+     */
+    public AccessLog getAccessLog() {
+        return accessLog;
+    }
+
+    /**
+     * Indica si se acepta HTTP/2 en texto plano (h2c).
+     *
+     * @return true si HTTP/2 está habilitado
+     */
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+
+    /**
+     * Obtiene el máximo de flujos simultáneos por conexión HTTP/2.
+     *
+     * @return Máximo de flujos simultáneos
+     */
+    public int getHttp2MaxConcurrentStreams() {
+        return http2MaxConcurrentStreams;
+    }
+
+    /**
+     * Obtiene las vueltas de calentamiento al iniciar el servidor.
+     *
+     * @return Vueltas de calentamiento (0 si está deshabilitado)
+     */
+    public int getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    /**
+     * Obtiene las solicitudes GET adicionales del calentamiento.
+     *
+     * @return Las rutas con su cadena de consulta
+     */
+    public List<String> getWarmupTargets() {
+        return warmupTargets;
+    }
+
+    /**
+     * Indica si se registra la ruta de disponibilidad.
+     *
+     * @return true si la ruta de disponibilidad está habilitada
+     */
+    public boolean isReadinessEnabled() {
+        return readinessEnabled;
+    }
+
+    /**
+     * Obtiene la ruta GET de disponibilidad.
+     *
+     * @return La ruta de disponibilidad
+     */
+    public String getReadinessPath() {
+        return readinessPath;
+    }
+
+    /**
+     * Obtiene cuántos búferes de E/S libres se guardan por clase de tamaño.
+     *
+     * @return Búferes por clase de tamaño (0 si el pool está deshabilitado)
+     */
+    public int getBufferPoolSize() {
+        return bufferPoolSize;
+    }
+
+    /**
+     * Indica si está habilitada la detección de fugas del pool de búferes.
+     *
+     * @return true si se rastrean los búferes prestados
+     */
+    public boolean isBufferLeakDetectionEnabled() {
+        return bufferLeakDetection;
+    }
+
+    /**
+     * Obtiene el transporte de red del servidor.
+     *
+     * @return El transporte configurado
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Obtiene el modo de ejecución de las solicitudes.
+     *
+     * @return El modo de ejecución configurado
+     */
+    public Execution getExecution() {
+        return execution;
+    }
+
+    /**
+     * Obtiene el tamaño del pool de hilos de plataforma.
+     *
+     * @return Número de hilos del pool
+     */
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    /**
+     * Obtiene el máximo de conexiones pendientes de aceptar.
+     *
+     * @return El tamaño de la cola de aceptación
+     */
+    public int getAcceptBacklog() {
+        return acceptBacklog;
+    }
+
+    /**
+     * Obtiene el número de hilos de eventos del transporte NIO.
+     *
+     * @return Número de hilos de eventos
+     */
+    public int getEventLoops() {
+        return eventLoops;
+    }
+
+    /**
+     * Indica si las conexiones persistentes están habilitadas.
+     *
+     * @return true si keep-alive está habilitado
+     */
+    public boolean isKeepAliveEnabled() {
+        return keepAliveEnabled;
+    }
+
+    /**
+     * Obtiene el tiempo máximo de inactividad de una conexión persistente.
+     *
+     * @return Tiempo de inactividad en milisegundos
+     */
+    public int getKeepAliveTimeoutMillis() {
+        return keepAliveTimeoutMillis;
+    }
+
+    /**
+     * Obtiene el número máximo de solicitudes atendidas por conexión.
+     *
+     * @return Número máximo de solicitudes
+     */
+    public int getMaxRequestsPerConnection() {
+        return maxRequestsPerConnection;
+    }
+}
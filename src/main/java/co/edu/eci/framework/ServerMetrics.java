@@ -0,0 +1,469 @@
+package co.edu.eci.framework;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas del servidor: solicitudes por ruta y estado, histogramas de
+ * latencia por ruta, conexiones activas, estado del pool de trabajo y bytes
+ * de archivos estáticos servidos, y ocupación de los pools de búferes. Todo se registra con contadores
+ * {@link LongAdder} sin bloqueos, para poder hacerlo en cada solicitud, y se
+ * exporta en el formato de texto de Prometheus.
+ * Las solicitudes a archivos estáticos se agrupan en la ruta {@code static} y
+ * las que no encuentran ruta ni archivo en {@code unmatched}.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class ServerMetrics {
+
+    /** Tipo de contenido del formato de texto de Prometheus. */
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String STATIC_ROUTE = "static";
+    private static final String UNMATCHED_ROUTE = "unmatched";
+    private static final String OTHER_METHOD = "OTHER";
+    private static final int MAX_METHODS = 32;
+
+    private final AdmissionController admission;
+    private final EventSink events;
+    private final AccessLog accessLog;
+    private final List<BufferPool> bufferPools;
+    private final Map<Route, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final Map<String, RouteMetrics> byLabels = new ConcurrentHashMap<>();
+    private final Map<String, RouteMetrics> staticFiles = new ConcurrentHashMap<>();
+    private final Map<String, RouteMetrics> unmatched = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<LongAdder> malformed = new AtomicReferenceArray<>(600);
+    private final LongAdder activeConnections = new LongAdder();
+    private final LongAdder openedConnections = new LongAdder();
+    private final LongAdder staticBytes = new LongAdder();
+
+    /**
+     * Constructor de las métricas.
+     *
+     * @param admission El control de admisión del pool, del que se leen la
+     *                  cola y los rechazos
+     */
+    ServerMetrics(AdmissionController admission) {
+        this(admission, null, null);
+    }
+
+    /**
+     * Constructor de las métricas con los registros de solicitudes.
+     *
+     * @param admission El control de admisión del pool, del que se leen la
+     *                  cola y los rechazos
+     * @param events    El sink de eventos de solicitudes, o null si no hay
+     * @param accessLog El registro de accesos, o null si no hay
+     * @param pools     Los pools de búferes de E/S del servidor
+     */
+    ServerMetrics(AdmissionController admission, EventSink events, AccessLog accessLog, BufferPool... pools) {
+        this.admission = admission;
+        this.events = events;
+        this.accessLog = accessLog;
+        this.bufferPools = List.of(pools);
+    }
+
+    /**
+     * Obtiene el sink donde se registran las solicitudes atendidas.
+     *
+     * @return El sink de eventos, o null si no hay
+     */
+    EventSink getRequestEvents() {
+        return events;
+    }
+
+    /**
+     * Obtiene el registro de accesos de las solicitudes atendidas.
+     *
+     * @return El registro de accesos, o null si no hay
+     */
+    AccessLog getAccessLog() {
+        return accessLog;
+    }
+
+    /**
+     * Obtiene las métricas de una ruta registrada.
+     *
+     * @param route La ruta
+     * @return Las métricas de la ruta
+     */
+    RouteMetrics forRoute(Route route) {
+        RouteMetrics metrics = routes.get(route);
+        if (metrics == null) {
+            metrics = routes.computeIfAbsent(route, r -> labelled(r.getMethod(), r.getPath()));
+        }
+        return metrics;
+    }
+
+    /**
+     * Obtiene las métricas de los archivos estáticos para un método.
+     *
+     * @param method El método HTTP
+     * @return Las métricas de los archivos estáticos
+     */
+    RouteMetrics forStaticFile(String method) {
+        return forMethod(staticFiles, method, STATIC_ROUTE);
+    }
+
+    /**
+     * Obtiene las métricas de las solicitudes sin ruta ni archivo para un
+     * método.
+     *
+     * @param method El método HTTP
+     * @return Las métricas de las solicitudes no encontradas
+     */
+    RouteMetrics forUnmatched(String method) {
+        return forMethod(unmatched, method, UNMATCHED_ROUTE);
+    }
+
+    /**
+     * Cuenta una solicitud rechazada antes de despacharla por estar mal
+     * formada o no ser admisible (400, 414, 431, 501...).
+     *
+     * @param statusCode El código de estado de la respuesta
+     */
+    void recordMalformed(int statusCode) {
+        increment(malformed, statusCode);
+    }
+
+    /**
+     * Cuenta una conexión abierta.
+     */
+    void connectionOpened() {
+        openedConnections.increment();
+        activeConnections.increment();
+    }
+
+    /**
+     * Cuenta una conexión cerrada.
+     */
+    void connectionClosed() {
+        activeConnections.decrement();
+    }
+
+    /**
+     * Cuenta bytes de contenido estático enviados.
+     *
+     * @param bytes El número de bytes
+     */
+    void addStaticBytes(long bytes) {
+        staticBytes.add(bytes);
+    }
+
+    /**
+     * Exporta todas las métricas en el formato de texto de Prometheus.
+     *
+     * @return El texto de exposición
+     */
+    String toPrometheus() {
+        Map<String, RouteMetrics> sorted = new TreeMap<>(byLabels);
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "http_requests_total", "counter", "Solicitudes atendidas por método, ruta y estado.");
+        for (RouteMetrics metrics : sorted.values()) {
+            for (int status = 0; status < metrics.statuses.length(); status++) {
+                LongAdder count = metrics.statuses.get(status);
+                if (count != null) {
+                    out.append("http_requests_total{").append(metrics.labels).append(",status=\"").append(status)
+                            .append("\"} ").append(count.sum()).append('\n');
+                }
+            }
+        }
+
+        header(out, "http_request_duration_seconds", "histogram",
+                "Tiempo desde que se parsea la solicitud hasta que se escribe la respuesta.");
+        for (RouteMetrics metrics : sorted.values()) {
+            metrics.latency.writePrometheus(out, "http_request_duration_seconds", metrics.labels);
+        }
+
+        header(out, "http_malformed_requests_total", "counter",
+                "Solicitudes rechazadas antes de despacharlas, por estado.");
+        for (int status = 0; status < malformed.length(); status++) {
+            LongAdder count = malformed.get(status);
+            if (count != null) {
+                out.append("http_malformed_requests_total{status=\"").append(status).append("\"} ")
+                        .append(count.sum()).append('\n');
+            }
+        }
+
+        writeResponseCaches(out);
+
+        AdmissionStats stats = admission.stats();
+        gauge(out, "http_connections_active", "Conexiones abiertas.", activeConnections.sum());
+        counter(out, "http_connections_total", "Conexiones aceptadas.", openedConnections.sum());
+        gauge(out, "http_worker_queue_depth", "Tareas que esperan en la cola del pool.", stats.getQueued());
+        gauge(out, "http_workers_active", "Tareas en ejecución en el pool.", stats.getActive());
+        counter(out, "http_admitted_total", "Tareas admitidas por el control de admisión.", stats.getAdmitted());
+        header(out, "http_shed_total", "counter", "Tareas rechazadas con 503 por sobrecarga, por motivo.");
+        out.append("http_shed_total{reason=\"queue_full\"} ").append(stats.getShedQueueFull()).append('\n');
+        out.append("http_shed_total{reason=\"queue_delay\"} ").append(stats.getShedQueueDelay()).append('\n');
+        counter(out, "http_static_bytes_total", "Bytes de contenido estático enviados.", staticBytes.sum());
+        if (events != null) {
+            writeEventSink(out, events.getStats());
+        }
+        if (accessLog != null) {
+            writeAccessLog(out, accessLog.getStats());
+        }
+        if (!bufferPools.isEmpty()) {
+            writeBufferPools(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Exporta la ocupación y los aciertos de los pools de búferes.
+     *
+     * @param out Donde escribir
+     */
+    private void writeBufferPools(StringBuilder out) {
+        List<BufferPoolStats> pools = new ArrayList<>(bufferPools.size());
+        for (BufferPool pool : bufferPools) {
+            pools.add(pool.stats());
+        }
+        header(out, "buffer_pool_acquisitions_total", "counter",
+                "Búferes de E/S prestados, por resultado (miss crea un búfer nuevo).");
+        for (BufferPoolStats stats : pools) {
+            out.append("buffer_pool_acquisitions_total{pool=\"").append(stats.getName()).append("\",result=\"hit\"} ")
+                    .append(stats.getAcquired() - stats.getMisses()).append('\n');
+            out.append("buffer_pool_acquisitions_total{pool=\"").append(stats.getName())
+                    .append("\",result=\"miss\"} ").append(stats.getMisses()).append('\n');
+        }
+        header(out, "buffer_pool_releases_total", "counter",
+                "Búferes de E/S devueltos, por resultado (dropped se descarta con el pool lleno).");
+        for (BufferPoolStats stats : pools) {
+            out.append("buffer_pool_releases_total{pool=\"").append(stats.getName())
+                    .append("\",result=\"pooled\"} ").append(stats.getReleased() - stats.getDropped()).append('\n');
+            out.append("buffer_pool_releases_total{pool=\"").append(stats.getName())
+                    .append("\",result=\"dropped\"} ").append(stats.getDropped()).append('\n');
+        }
+        header(out, "buffer_pool_buffers", "gauge", "Búferes libres guardados en el pool.");
+        for (BufferPoolStats stats : pools) {
+            out.append("buffer_pool_buffers{pool=\"").append(stats.getName()).append("\"} ")
+                    .append(stats.getPooled()).append('\n');
+        }
+        header(out, "buffer_pool_bytes", "gauge", "Bytes de los búferes libres guardados en el pool.");
+        for (BufferPoolStats stats : pools) {
+            out.append("buffer_pool_bytes{pool=\"").append(stats.getName()).append("\"} ")
+                    .append(stats.getPooledBytes()).append('\n');
+        }
+        header(out, "buffer_pool_outstanding", "gauge", "Búferes prestados que aún no se devuelven.");
+        for (BufferPoolStats stats : pools) {
+            out.append("buffer_pool_outstanding{pool=\"").append(stats.getName()).append("\"} ")
+                    .append(stats.getOutstanding()).append('\n');
+        }
+        header(out, "buffer_pool_leaks_total", "counter",
+                "Búferes descartados sin devolverse (solo con la detección de fugas).");
+        for (BufferPoolStats stats : pools) {
+            out.append("buffer_pool_leaks_total{pool=\"").append(stats.getName()).append("\"} ")
+                    .append(stats.getLeaks()).append('\n');
+        }
+    }
+
+    /**
+     * Exporta las estadísticas de las cachés de respuestas de las rutas que
+     * ya atendieron alguna solicitud.
+     *
+     * @param out Donde escribir
+     */
+    private void writeResponseCaches(StringBuilder out) {
+        Map<String, ResponseCacheStats> caches = new TreeMap<>();
+        for (Map.Entry<Route, RouteMetrics> route : routes.entrySet()) {
+            ResponseCacheStats stats = route.getKey().getCacheStats();
+            if (stats != null) {
+                caches.put(route.getValue().labels, stats);
+            }
+        }
+        if (caches.isEmpty()) {
+            return;
+        }
+        header(out, "http_response_cache_requests_total", "counter",
+                "Solicitudes a rutas con caché, por resultado (hit incluye las coalesced).");
+        for (Map.Entry<String, ResponseCacheStats> cache : caches.entrySet()) {
+            ResponseCacheStats stats = cache.getValue();
+            out.append("http_response_cache_requests_total{").append(cache.getKey()).append(",result=\"hit\"} ")
+                    .append(stats.getHits()).append('\n');
+            out.append("http_response_cache_requests_total{").append(cache.getKey()).append(",result=\"miss\"} ")
+                    .append(stats.getMisses()).append('\n');
+            out.append("http_response_cache_requests_total{").append(cache.getKey())
+                    .append(",result=\"coalesced\"} ").append(stats.getCoalesced()).append('\n');
+        }
+        header(out, "http_response_cache_evictions_total", "counter",
+                "Respuestas descartadas de la caché, por motivo.");
+        for (Map.Entry<String, ResponseCacheStats> cache : caches.entrySet()) {
+            out.append("http_response_cache_evictions_total{").append(cache.getKey()).append(",reason=\"size\"} ")
+                    .append(cache.getValue().getEvictions()).append('\n');
+            out.append("http_response_cache_evictions_total{").append(cache.getKey())
+                    .append(",reason=\"expired\"} ").append(cache.getValue().getExpirations()).append('\n');
+        }
+        header(out, "http_response_cache_entries", "gauge", "Respuestas en caché.");
+        for (Map.Entry<String, ResponseCacheStats> cache : caches.entrySet()) {
+            out.append("http_response_cache_entries{").append(cache.getKey()).append("} ")
+                    .append(cache.getValue().getEntries()).append('\n');
+        }
+        header(out, "http_response_cache_bytes", "gauge", "Bytes de las respuestas en caché.");
+        for (Map.Entry<String, ResponseCacheStats> cache : caches.entrySet()) {
+            out.append("http_response_cache_bytes{").append(cache.getKey()).append("} ")
+                    .append(cache.getValue().getSizeBytes()).append('\n');
+        }
+    }
+
+    /**
+     * Exporta las estadísticas del sink de eventos de solicitudes.
+     *
+     * @param out   Donde escribir
+     * @param stats Las estadísticas del sink
+     */
+    private static void writeEventSink(StringBuilder out, EventSinkStats stats) {
+        header(out, "event_sink_events_total", "counter", "Eventos de solicitudes, por resultado.");
+        out.append("event_sink_events_total{result=\"accepted\"} ").append(stats.getAccepted()).append('\n');
+        out.append("event_sink_events_total{result=\"dropped\"} ").append(stats.getDropped()).append('\n');
+        out.append("event_sink_events_total{result=\"written\"} ").append(stats.getWritten()).append('\n');
+        out.append("event_sink_events_total{result=\"failed\"} ").append(stats.getFailed()).append('\n');
+        counter(out, "event_sink_batches_total", "Lotes de eventos escritos.", stats.getBatches());
+        gauge(out, "event_sink_queue_depth", "Eventos que esperan en la cola del sink.", stats.getQueued());
+    }
+
+    /**
+     * Exporta las estadísticas del registro de accesos.
+     *
+     * @param out   Donde escribir
+     * @param stats Las estadísticas del registro
+     */
+    private static void writeAccessLog(StringBuilder out, AccessLogStats stats) {
+        header(out, "access_log_events_total", "counter", "Eventos del registro de accesos, por resultado.");
+        out.append("access_log_events_total{result=\"recorded\"} ").append(stats.getRecorded()).append('\n');
+        out.append("access_log_events_total{result=\"dropped\"} ").append(stats.getDropped()).append('\n');
+        out.append("access_log_events_total{result=\"written\"} ").append(stats.getWritten()).append('\n');
+        out.append("access_log_events_total{result=\"failed\"} ").append(stats.getFailed()).append('\n');
+        gauge(out, "access_log_queue_depth", "Eventos que esperan en el búfer del registro de accesos.",
+                stats.getQueued());
+    }
+
+    /**
+     * Obtiene las métricas de una ruta agrupada por método, limitando el
+     * número de métodos distintos para que un cliente no pueda crear series
+     * sin límite.
+     *
+     * @param byMethod Las métricas por método
+     * @param method   El método HTTP
+     * @param route    La etiqueta de la ruta
+     * @return Las métricas
+     */
+    private RouteMetrics forMethod(Map<String, RouteMetrics> byMethod, String method, String route) {
+        RouteMetrics metrics = byMethod.get(method);
+        if (metrics == null) {
+            String key = byMethod.size() < MAX_METHODS ? method : OTHER_METHOD;
+            metrics = byMethod.computeIfAbsent(key, m -> labelled(m, route));
+        }
+        return metrics;
+    }
+
+    /**
+     * Obtiene o crea las métricas de un par método y ruta, compartidas por
+     * las rutas que se registran de nuevo con el mismo patrón.
+     *
+     * @param method El método HTTP
+     * @param route  La etiqueta de la ruta
+     * @return Las métricas
+     */
+    private RouteMetrics labelled(String method, String route) {
+        String labels = "method=\"" + escape(method) + "\",route=\"" + escape(route) + "\"";
+        return byLabels.computeIfAbsent(labels, l -> new RouteMetrics(l, method, route));
+    }
+
+    /**
+     * Incrementa el contador de un código de estado, creándolo si no existe.
+     *
+     * @param counters   Los contadores por código de estado
+     * @param statusCode El código de estado
+     */
+    private static void increment(AtomicReferenceArray<LongAdder> counters, int statusCode) {
+        if (statusCode < 0 || statusCode >= counters.length()) {
+            return;
+        }
+        LongAdder count = counters.get(statusCode);
+        if (count == null) {
+            counters.compareAndSet(statusCode, null, new LongAdder());
+            count = counters.get(statusCode);
+        }
+        count.increment();
+    }
+
+    /**
+     * Escapa un valor de etiqueta según el formato de Prometheus.
+     *
+     * @param value El valor
+     * @return El valor escapado
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Contadores por estado e histograma de latencia de una ruta y método.
+     */
+    static final class RouteMetrics {
+        private final String labels;
+        private final String method;
+        private final String route;
+        private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(600);
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        RouteMetrics(String labels, String method, String route) {
+            this.labels = labels;
+            this.method = method;
+            this.route = route;
+        }
+
+        /**
+         * Obtiene el método HTTP de la serie.
+         *
+         * @return El método, u {@code OTHER} si se agruparon métodos
+         */
+        String getMethod() {
+            return method;
+        }
+
+        /**
+         * Obtiene la etiqueta de la ruta: su patrón, {@code static} o
+         * {@code unmatched}.
+         *
+         * @return La etiqueta de la ruta
+         */
+        String getRoute() {
+            return route;
+        }
+
+        /**
+         * Registra una solicitud atendida.
+         *
+         * @param statusCode El código de estado de la respuesta
+         * @param nanos      La latencia en nanosegundos
+         */
+        void record(int statusCode, long nanos) {
+            increment(statuses, statusCode);
+            latency.record(nanos);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package co.edu.eci.framework;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU de archivos estáticos limitada por un presupuesto de bytes.
+ * Las entradas se indexan por la ruta completa del recurso y se desalojan en
+ * orden de uso menos reciente cuando el total de bytes supera el límite. Las
+ * variantes comprimidas que se crean para una entrada guardada también
+ * cuentan en el presupuesto.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+class StaticFileCache {
+
+    private final LinkedHashMap<String, StaticFileHandler.StaticFileResult> entries = new LinkedHashMap<>(64,
+            0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long maxBytes;
+    private long currentBytes;
+
+    /**
+     * Crea una caché con el presupuesto de bytes indicado.
+     *
+     * @param maxBytes Máximo de bytes de contenido en caché (0 la deshabilita)
+     */
+    StaticFileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Busca una entrada y la marca como usada recientemente.
+     *
+     * @param key La ruta completa del recurso
+     * @return La entrada, o null si no está en caché
+     */
+    StaticFileHandler.StaticFileResult get(String key) {
+        StaticFileHandler.StaticFileResult result;
+        synchronized (this) {
+            result = entries.get(key);
+        }
+        if (result != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Agrega una entrada, desalojando las menos usadas si se supera el límite.
+     * Las entradas mayores que el presupuesto completo no se guardan.
+     *
+     * @param key    La ruta completa del recurso
+     * @param result El archivo con su contenido
+     */
+    synchronized void put(String key, StaticFileHandler.StaticFileResult result) {
+        long size = result.getLength();
+        if (size > maxBytes) {
+            return;
+        }
+        StaticFileHandler.StaticFileResult previous = entries.put(key, result);
+        if (previous != null) {
+            currentBytes -= previous.cachedBytes;
+        }
+        result.cache = this;
+        result.cacheKey = key;
+        result.cachedBytes = size;
+        currentBytes += size;
+        evictToBudget();
+    }
+
+    /**
+     * Suma al presupuesto los bytes de una variante comprimida creada para una
+     * entrada, desalojando las menos usadas si se supera el límite. Si la
+     * entrada ya no está en caché, no se cuenta.
+     *
+     * @param key    La ruta completa del recurso
+     * @param result La entrada a la que pertenece la variante
+     * @param bytes  El tamaño de la variante
+     */
+    synchronized void charge(String key, StaticFileHandler.StaticFileResult result, long bytes) {
+        if (entries.get(key) != result) {
+            return;
+        }
+        result.cachedBytes += bytes;
+        currentBytes += bytes;
+        evictToBudget();
+    }
+
+    /**
+     * Cambia el presupuesto de bytes y desaloja lo que sobre.
+     *
+     * @param maxBytes Máximo de bytes de contenido en caché (0 la deshabilita)
+     */
+    synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evictToBudget();
+    }
+
+    /**
+     * Desaloja entradas en orden LRU hasta respetar el presupuesto.
+     */
+    private void evictToBudget() {
+        Iterator<Map.Entry<String, StaticFileHandler.StaticFileResult>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            currentBytes -= iterator.next().getValue().cachedBytes;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas de la caché.
+     *
+     * @return Las estadísticas actuales
+     */
+    synchronized StaticFileHandler.CacheStats stats() {
+        return new StaticFileHandler.CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size(),
+                currentBytes, maxBytes);
+    }
+}
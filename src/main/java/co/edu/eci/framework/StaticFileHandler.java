@@ -1,7 +1,24 @@
 package co.edu.eci.framework;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
 /**
  * Clase para manejar archivos estáticos desde recursos del classpath.
+ * Opcionalmente sirve también archivos desde un directorio del sistema de
+ * archivos; en ese caso el contenido no se carga en memoria, sino que se
+ * transfiere directamente del archivo al socket.
+ * Los recursos del classpath se guardan en una caché LRU limitada en bytes,
+ * junto con sus validadores (ETag y Last-Modified) calculados una sola vez.
  * 
  * @author Angie Ramos
  * @version 1.0
@@ -9,7 +26,10 @@ package co.edu.eci.framework;
 public class StaticFileHandler {
 
     private String staticFilesDirectory;
+    private volatile Path externalDirectory;
+    private final StaticFileCache cache;
     private static final String DEFAULT_DIRECTORY = "/public";
+    private static final long DEFAULT_CACHE_BYTES = 32L * 1024 * 1024;
 
     /**
      * Constructor que inicializa el manejador de archivos estáticos con el
@@ -17,6 +37,28 @@ public class StaticFileHandler {
      */
     public StaticFileHandler() {
         this.staticFilesDirectory = DEFAULT_DIRECTORY;
+        this.cache = new StaticFileCache(DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * Establece el presupuesto en bytes de la caché de recursos del classpath.
+     *
+     * @param maxBytes Máximo de bytes en caché; 0 deshabilita la caché
+     */
+    public void setCacheMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("El tamaño de la caché no puede ser negativo");
+        }
+        cache.setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Obtiene las estadísticas de la caché de recursos del classpath.
+     *
+     * @return Aciertos, fallos, desalojos y ocupación de la caché
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
     }
 
     /**
@@ -32,6 +74,36 @@ public class StaticFileHandler {
         System.out.println("Directorio de archivos estáticos configurado en: " + directory);
     }
 
+    /**
+     * Establece un directorio del sistema de archivos desde el que servir
+     * archivos estáticos. Los archivos de este directorio tienen prioridad sobre
+     * los recursos del classpath.
+     *
+     * @param directory La ruta del directorio en el sistema de archivos
+     * @throws IllegalArgumentException Si la ruta no es un directorio existente
+     */
+    public void setExternalStaticFilesDirectory(String directory) {
+        try {
+            Path root = Paths.get(directory).toRealPath();
+            if (!Files.isDirectory(root)) {
+                throw new IllegalArgumentException("No es un directorio: " + directory);
+            }
+            this.externalDirectory = root;
+            System.out.println("Directorio externo de archivos estáticos configurado en: " + root);
+        } catch (IOException | InvalidPathException e) {
+            throw new IllegalArgumentException("Directorio de archivos estáticos inválido: " + directory, e);
+        }
+    }
+
+    /**
+     * Obtiene el directorio externo de archivos estáticos.
+     *
+     * @return La ruta del directorio, o null si no está configurado
+     */
+    public Path getExternalStaticFilesDirectory() {
+        return externalDirectory;
+    }
+
     /**
      * Obtiene el directorio actual de archivos estáticos.
      *
@@ -52,24 +124,109 @@ public class StaticFileHandler {
         if ("/".equals(path)) {
             path = "/index.html";
         }
+        if (hasParentSegment(path)) {
+            return StaticFileResult.notFound();
+        }
 
-        String fullPath = staticFilesDirectory + path;
-
-        try (var inputStream = getClass().getResourceAsStream(fullPath)) {
-            if (inputStream == null) {
-                return StaticFileResult.notFound();
+        Path externalRoot = externalDirectory;
+        if (externalRoot != null) {
+            Path file = resolveExternalFile(externalRoot, path);
+            if (file != null) {
+                try {
+                    long length = Files.size(file);
+                    long lastModified = Files.getLastModifiedTime(file).toMillis();
+                    String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+                    return new StaticFileResult(file, length, determineContentType(path), etag, lastModified);
+                } catch (IOException e) {
+                    System.err.println("Error al leer archivo estático: " + e.getMessage());
+                }
             }
+        }
 
-            byte[] content = inputStream.readAllBytes();
-            String contentType = determineContentType(path);
+        String fullPath = staticFilesDirectory + path;
+        StaticFileResult cached = cache.get(fullPath);
+        if (cached != null) {
+            return cached;
+        }
 
-            return new StaticFileResult(true, content, contentType);
+        URL resource = getClass().getResource(fullPath);
+        if (resource == null) {
+            return StaticFileResult.notFound();
+        }
+        try {
+            URLConnection connection = resource.openConnection();
+            long lastModified = connection.getLastModified();
+            byte[] content;
+            try (InputStream inputStream = connection.getInputStream()) {
+                content = inputStream.readAllBytes();
+            }
+            StaticFileResult result = new StaticFileResult(content, determineContentType(path), computeETag(content),
+                    lastModified > 0 ? lastModified : -1);
+            cache.put(fullPath, result);
+            return result;
         } catch (Exception e) {
             System.err.println("Error al leer archivo estático: " + e.getMessage());
             return StaticFileResult.notFound();
         }
     }
 
+    /**
+     * Calcula un ETag fuerte a partir del contenido (SHA-256 truncado).
+     *
+     * @param content El contenido del recurso
+     * @return El ETag entre comillas
+     */
+    private static String computeETag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Comprueba si la ruta contiene un segmento "..".
+     *
+     * @param path La ruta solicitada
+     * @return true si la ruta intenta subir de directorio
+     */
+    private static boolean hasParentSegment(String path) {
+        for (String segment : path.split("[/\\\\]")) {
+            if ("..".equals(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resuelve una ruta solicitada dentro del directorio externo. La ruta
+     * resultante, incluidos los enlaces simbólicos, debe quedar dentro del
+     * directorio raíz.
+     *
+     * @param root La raíz real del directorio externo
+     * @param path La ruta solicitada
+     * @return El archivo regular a servir, o null si no existe o está fuera de
+     *         la raíz
+     */
+    private static Path resolveExternalFile(Path root, String path) {
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        if (relative.indexOf('\0') >= 0) {
+            return null;
+        }
+        try {
+            Path candidate = root.resolve(relative).normalize();
+            if (!candidate.startsWith(root) || !Files.isRegularFile(candidate)) {
+                return null;
+            }
+            Path real = candidate.toRealPath();
+            return real.startsWith(root) ? real : null;
+        } catch (InvalidPathException | IOException e) {
+            return null;
+        }
+    }
+
     /**
      * Determina el tipo de contenido (MIME type) basado en la extensión del
      * archivo.
@@ -96,6 +253,14 @@ public class StaticFileHandler {
             return "image/x-icon";
         } else if (path.endsWith(".svg")) {
             return "image/svg+xml";
+        } else if (path.endsWith(".txt")) {
+            return "text/plain; charset=utf-8";
+        } else if (path.endsWith(".pdf")) {
+            return "application/pdf";
+        } else if (path.endsWith(".mp4")) {
+            return "video/mp4";
+        } else if (path.endsWith(".webm")) {
+            return "video/webm";
         } else {
             return "application/octet-stream";
         }
@@ -103,20 +268,70 @@ public class StaticFileHandler {
 
     /**
      * Clase interna para encapsular el resultado de la búsqueda de un archivo
-     * estático.
+     * estático. El contenido está en memoria (recursos del classpath) o en un
+     * archivo del directorio externo.
      */
     public static class StaticFileResult {
         private final boolean found;
         private final byte[] content;
         private final String contentType;
+        private final Path file;
+        private final long length;
+        private final String etag;
+        private final long lastModified;
+        private final String lastModifiedHeader;
+        private volatile byte[] gzipContent;
+        private volatile byte[] deflateContent;
+        /** Caché que guarda el resultado y su clave, o null. */
+        StaticFileCache cache;
+        String cacheKey;
+        /** Bytes contados en el presupuesto de la caché; protegido por ella. */
+        long cachedBytes;
 
         /**
          * Constructor para un resultado de archivo encontrado.
          */
         public StaticFileResult(boolean found, byte[] content, String contentType) {
+            this(found, content, contentType, null, null, -1, content.length);
+        }
+
+        /**
+         * Constructor para un archivo en memoria con sus validadores.
+         *
+         * @param content      El contenido del archivo
+         * @param contentType  El tipo MIME del archivo
+         * @param etag         El ETag entre comillas, o null
+         * @param lastModified La fecha de modificación en milisegundos, o -1
+         */
+        public StaticFileResult(byte[] content, String contentType, String etag, long lastModified) {
+            this(true, content, contentType, null, etag, lastModified, content.length);
+        }
+
+        /**
+         * Constructor para un archivo del sistema de archivos que se transfiere
+         * sin cargarlo en memoria.
+         *
+         * @param file         La ruta del archivo
+         * @param length       La longitud del archivo en bytes
+         * @param contentType  El tipo MIME del archivo
+         * @param etag         El ETag entre comillas, o null
+         * @param lastModified La fecha de modificación en milisegundos, o -1
+         */
+        public StaticFileResult(Path file, long length, String contentType, String etag, long lastModified) {
+            this(true, new byte[0], contentType, file, etag, lastModified, length);
+        }
+
+        private StaticFileResult(boolean found, byte[] content, String contentType, Path file, String etag,
+                long lastModified, long length) {
             this.found = found;
             this.content = content;
             this.contentType = contentType;
+            this.file = file;
+            this.length = length;
+            this.etag = etag;
+            // Last-Modified tiene resolución de segundos.
+            this.lastModified = lastModified >= 0 ? lastModified / 1000 * 1000 : -1;
+            this.lastModifiedHeader = lastModified >= 0 ? HttpDates.format(this.lastModified) : null;
         }
 
         /**
@@ -134,12 +349,84 @@ public class StaticFileHandler {
         }
 
         /**
-         * Obtiene el contenido del archivo.
+         * Obtiene el archivo del sistema de archivos, si el resultado no está en
+         * memoria.
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Obtiene el ETag fuerte del archivo, entre comillas, o null.
+         */
+        public String getETag() {
+            return etag;
+        }
+
+        /**
+         * Obtiene la fecha de modificación en milisegundos, redondeada a
+         * segundos, o -1 si no se conoce.
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Obtiene el valor del encabezado Last-Modified, o null.
+         */
+        public String getLastModifiedHeader() {
+            return lastModifiedHeader;
+        }
+
+        /**
+         * Obtiene la longitud del contenido en bytes.
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Obtiene el contenido del archivo. Vacío para archivos del directorio
+         * externo.
          */
         public byte[] getContent() {
             return content;
         }
 
+        /**
+         * Obtiene el contenido comprimido con la codificación indicada. La
+         * variante se calcula la primera vez y se conserva junto al resultado,
+         * de modo que los archivos en caché se comprimen una sola vez; su
+         * tamaño se suma al presupuesto de la caché que guarda el resultado.
+         *
+         * @param encoding "gzip" o "deflate"
+         * @return El contenido comprimido
+         */
+        byte[] getCompressedContent(String encoding) {
+            boolean gzip = Compression.GZIP.equals(encoding);
+            byte[] variant = gzip ? gzipContent : deflateContent;
+            if (variant != null) {
+                return variant;
+            }
+            synchronized (this) {
+                variant = gzip ? gzipContent : deflateContent;
+                if (variant != null) {
+                    return variant;
+                }
+                variant = Compression.compress(content, encoding);
+                if (gzip) {
+                    gzipContent = variant;
+                } else {
+                    deflateContent = variant;
+                }
+            }
+            StaticFileCache owner = cache;
+            if (owner != null) {
+                owner.charge(cacheKey, this, variant.length);
+            }
+            return variant;
+        }
+
         /**
          * Obtiene el tipo de contenido del archivo.
          */
@@ -147,4 +434,76 @@ public class StaticFileHandler {
             return contentType;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Instantánea de las estadísticas de la caché de archivos estáticos.
+     */
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int entries;
+        private final long sizeBytes;
+        private final long maxBytes;
+
+        /**
+         * Constructor de la instantánea de estadísticas.
+         */
+        public CacheStats(long hits, long misses, long evictions, int entries, long sizeBytes, long maxBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entries = entries;
+            this.sizeBytes = sizeBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * Obtiene el número de aciertos.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Obtiene el número de fallos.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Obtiene el número de entradas desalojadas.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Obtiene el número de entradas en caché.
+         */
+        public int getEntries() {
+            return entries;
+        }
+
+        /**
+         * Obtiene los bytes de contenido en caché.
+         */
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        /**
+         * Obtiene el presupuesto de bytes de la caché.
+         */
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", entries="
+                    + entries + ", sizeBytes=" + sizeBytes + ", maxBytes=" + maxBytes + "}";
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package co.edu.eci.framework;
+
+import java.io.OutputStream;
+
+/**
+ * Interfaz funcional para manejadores de ruta que escriben el cuerpo de la
+ * respuesta en un flujo, en lugar de devolverlo como String.
+ * Sirve para respuestas grandes o que se generan poco a poco: los datos se
+ * envían a medida que se escriben, sin tener la respuesta completa en memoria.
+ * Si no se fija {@code Content-Length} con {@link Response#header}, la
+ * respuesta usa {@code Transfer-Encoding: chunked}; {@code body.flush()}
+ * envía de inmediato lo escrito hasta ese momento.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface StreamingRouteHandler {
+
+    /**
+     * Ejecuta el manejador de ruta escribiendo el cuerpo en el flujo dado.
+     * El estado y los encabezados de {@code response} deben fijarse antes de la
+     * primera escritura en {@code body}.
+     *
+     * @param request  La solicitud HTTP
+     * @param response La respuesta HTTP (estado, tipo y encabezados)
+     * @param body     El flujo del cuerpo de la respuesta
+     * @throws Exception Si ocurre un error al manejar la solicitud
+     */
+    void handle(Request request, Response response, OutputStream body) throws Exception;
+}
@@ -0,0 +1,139 @@
+package co.edu.eci.framework;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calentamiento del servidor antes de abrir el puerto. Envía solicitudes
+ * sintéticas a cada ruta GET registrada (y a las rutas adicionales de
+ * {@link ServerConfig#getWarmupTargets()}) por el mismo camino que el tráfico
+ * real: {@link ConnectionHandler#process} parsea, busca la ruta, ejecuta el
+ * manejador y serializa la respuesta sobre una conexión en memoria. Así las
+ * primeras solicitudes reales ya no corren en el intérprete.
+ * Los parámetros de la ruta se reemplazan por {@code 1} y el comodín por
+ * {@code warmup}. Las rutas asíncronas y de flujo no se calientan, porque su
+ * manejador puede esperar a otros servicios o no terminar; tampoco los
+ * métodos distintos de GET, que pueden modificar datos. Las solicitudes se
+ * registran en métricas propias, de modo que no aparecen en las del servidor
+ * ni en sus registros.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class Warmup {
+
+    private static final String NOT_FOUND_TARGET = "/warmup-not-found";
+
+    private final Router router;
+    private final ConnectionHandler handler;
+    private final ServerConfig config;
+    private final BufferPool buffers;
+
+    /**
+     * Constructor del calentamiento.
+     *
+     * @param router            El router con las rutas a calentar
+     * @param staticFileHandler El manejador de archivos estáticos
+     * @param config            Las opciones de configuración del servidor
+     * @param admission         El control de admisión del servidor
+     * @param buffers           El pool de búferes de las conexiones
+     */
+    Warmup(Router router, StaticFileHandler staticFileHandler, ServerConfig config, AdmissionController admission,
+            BufferPool buffers) {
+        this.router = router;
+        this.config = config;
+        this.buffers = buffers;
+        this.handler = new ConnectionHandler(router, staticFileHandler, config, new ServerMetrics(admission),
+                admission, () -> true);
+    }
+
+    /**
+     * Recorre las solicitudes de calentamiento las vueltas configuradas. Cada
+     * solicitud se envía una vez con {@code Accept-Encoding: gzip} y otra sin
+     * compresión, en una conexión nueva por vuelta.
+     *
+     * @return Número de solicitudes atendidas
+     */
+    int run() {
+        List<byte[]> requests = new ArrayList<>();
+        for (String target : targets()) {
+            requests.add(request(target, true));
+            requests.add(request(target, false));
+        }
+        int served = 0;
+        for (int i = 0; i < config.getWarmupIterations(); i++) {
+            for (byte[] request : requests) {
+                HttpConnection connection = new HttpConnection(new ByteArrayInputStream(request),
+                        OutputStream.nullOutputStream(), null, config, buffers);
+                try {
+                    handler.process(connection);
+                    served++;
+                } catch (IOException e) {
+                    System.err.println("Error en el calentamiento: " + e.getMessage());
+                    return served;
+                } finally {
+                    connection.release();
+                }
+            }
+        }
+        return served;
+    }
+
+    /**
+     * Obtiene las rutas que se calientan: las rutas GET síncronas
+     * registradas, las adicionales de la configuración y una ruta inexistente
+     * para el camino de archivos estáticos y {@code 404}.
+     *
+     * @return Las rutas con su cadena de consulta
+     */
+    private List<String> targets() {
+        List<String> targets = new ArrayList<>();
+        for (Route route : router.getRoutes()) {
+            if (route.getMethod().equals("GET") && !route.isAsync() && !route.isStreaming()) {
+                targets.add(concretePath(route.getPath()));
+            }
+        }
+        targets.addAll(config.getWarmupTargets());
+        targets.add(NOT_FOUND_TARGET);
+        return targets;
+    }
+
+    /**
+     * Convierte un patrón de ruta en una ruta concreta.
+     *
+     * @param pattern El patrón, por ejemplo {@code /users/{id}/files/*}
+     * @return La ruta, por ejemplo {@code /users/1/files/warmup}
+     */
+    private static String concretePath(String pattern) {
+        String[] segments = pattern.split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i].equals(Router.WILDCARD_PARAM)) {
+                segments[i] = "warmup";
+            } else if (segments[i].length() > 2 && segments[i].startsWith("{") && segments[i].endsWith("}")) {
+                segments[i] = "1";
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    /**
+     * Codifica una solicitud GET como la enviaría un navegador o un cliente
+     * HTTP habitual.
+     *
+     * @param target     La ruta con su cadena de consulta
+     * @param compressed true para aceptar respuestas comprimidas con gzip
+     * @return La solicitud codificada
+     */
+    private static byte[] request(String target, boolean compressed) {
+        return ("GET " + target + " HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "User-Agent: eci-warmup/1.0\r\n"
+                + "Accept: */*\r\n"
+                + (compressed ? "Accept-Encoding: gzip, deflate\r\n" : "")
+                + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+}
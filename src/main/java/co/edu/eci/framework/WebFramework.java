@@ -1,6 +1,7 @@
 package co.edu.eci.framework;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Punto de entrada principal para el Framework Web.
@@ -16,6 +17,7 @@ public class WebFramework {
 
     private static Router router = new Router();
     private static StaticFileHandler staticFileHandler = new StaticFileHandler();
+    private static ServerConfig config = new ServerConfig();
     private static HttpServer server;
     private static boolean isRunning = false;
 
@@ -31,6 +33,61 @@ public class WebFramework {
         router.addRoute("GET", path, handler);
     }
 
+    /**
+     * Registra una ruta GET cuyas respuestas se guardan en caché. El manejador
+     * solo se ejecuta cuando la respuesta para la clave de la solicitud (ruta,
+     * consulta y encabezados elegidos en la política) no está en caché o
+     * venció; si llegan varias solicitudes idénticas a la vez, lo ejecuta una
+     * sola y las demás reciben su respuesta.
+     *
+     * @param path    La ruta URL para la ruta
+     * @param handler La función lambda para manejar las solicitudes a esta ruta
+     * @param policy  Las opciones de la caché de respuestas
+     */
+    public static void get(String path, RouteHandler handler, CachePolicy policy) {
+        router.addRoute("GET", path, handler, policy);
+    }
+
+    /**
+     * Registra una ruta GET que responde siempre el mismo cuerpo, como una
+     * página de inicio o un saludo fijo. La respuesta completa se codifica una
+     * sola vez (y comprimida, si el cliente lo acepta) y cada solicitud la
+     * escribe tal cual, sin ejecutar ningún manejador.
+     *
+     * @param path        La ruta URL para la ruta
+     * @param contentType El tipo MIME del cuerpo (p. ej., "text/html; charset=utf-8")
+     * @param body        El cuerpo de la respuesta
+     */
+    public static void getConstant(String path, String contentType, String body) {
+        router.addConstantRoute("GET", path, contentType, body);
+    }
+
+    /**
+     * Registra una ruta GET cuyo manejador escribe la respuesta en un flujo.
+     * Los datos se envían a medida que se escriben (con
+     * {@code Transfer-Encoding: chunked} si no se fija Content-Length), sin
+     * tener la respuesta completa en memoria.
+     *
+     * @param path    La ruta URL para la ruta
+     * @param handler La función lambda que escribe el cuerpo de la respuesta
+     */
+    public static void get(String path, StreamingRouteHandler handler) {
+        router.addRoute("GET", path, handler);
+    }
+
+    /**
+     * Registra una ruta GET cuyo manejador devuelve la respuesta de forma
+     * asíncrona, por ejemplo tras una consulta a otro servicio. Con el
+     * transporte NIO ningún hilo del pool espera mientras la etapa está
+     * pendiente.
+     *
+     * @param path    La ruta URL para la ruta
+     * @param handler La función lambda que devuelve una etapa con el cuerpo
+     */
+    public static void getAsync(String path, AsyncRouteHandler handler) {
+        router.addAsyncRoute("GET", path, handler);
+    }
+
     /**
      * Registra una ruta POST con la ruta y el manejador especificados.
      *
@@ -41,6 +98,27 @@ public class WebFramework {
         router.addRoute("POST", path, handler);
     }
 
+    /**
+     * Registra una ruta POST cuyo manejador escribe la respuesta en un flujo.
+     *
+     * @param path    La ruta URL para la ruta
+     * @param handler La función lambda que escribe el cuerpo de la respuesta
+     */
+    public static void post(String path, StreamingRouteHandler handler) {
+        router.addRoute("POST", path, handler);
+    }
+
+    /**
+     * Registra una ruta POST cuyo manejador devuelve la respuesta de forma
+     * asíncrona.
+     *
+     * @param path    La ruta URL para la ruta
+     * @param handler La función lambda que devuelve una etapa con el cuerpo
+     */
+    public static void postAsync(String path, AsyncRouteHandler handler) {
+        router.addAsyncRoute("POST", path, handler);
+    }
+
     /**
      * Registra una ruta PUT con la ruta y el manejador especificados.
      *
@@ -51,6 +129,16 @@ public class WebFramework {
         router.addRoute("PUT", path, handler);
     }
 
+    /**
+     * Registra una ruta PUT cuyo manejador escribe la respuesta en un flujo.
+     *
+     * @param path    La ruta URL para la ruta
+     * @param handler La función lambda que escribe el cuerpo de la respuesta
+     */
+    public static void put(String path, StreamingRouteHandler handler) {
+        router.addRoute("PUT", path, handler);
+    }
+
     /**
      * Registra una ruta DELETE con la ruta y el manejador especificados.
      *
@@ -61,6 +149,16 @@ public class WebFramework {
         router.addRoute("DELETE", path, handler);
     }
 
+    /**
+     * Registra una ruta DELETE cuyo manejador escribe la respuesta en un flujo.
+     *
+     * @param path    La ruta URL para la ruta
+     * @param handler La función lambda que escribe el cuerpo de la respuesta
+     */
+    public static void delete(String path, StreamingRouteHandler handler) {
+        router.addRoute("DELETE", path, handler);
+    }
+
     /**
      * Establece el directorio donde se encuentran los archivos estáticos.
      * El framework buscará archivos estáticos en el directorio especificado
@@ -72,6 +170,38 @@ public class WebFramework {
         staticFileHandler.setStaticFilesDirectory(directory);
     }
 
+    /**
+     * Obtiene la configuración del servidor para ajustarla antes de iniciarlo.
+     * Por ejemplo: {@code WebFramework.config().keepAliveTimeout(10000);}
+     *
+     * @return La configuración del servidor
+     */
+    public static ServerConfig config() {
+        return config;
+    }
+
+    /**
+     * Establece un directorio del sistema de archivos desde el que servir
+     * archivos estáticos, con prioridad sobre los recursos del classpath.
+     * Los archivos se transfieren del disco al socket sin cargarse en memoria y
+     * admiten solicitudes parciales (encabezado Range).
+     *
+     * @param directory La ruta del directorio en el sistema de archivos
+     */
+    public static void externalStaticFiles(String directory) {
+        staticFileHandler.setExternalStaticFilesDirectory(directory);
+    }
+
+    /**
+     * Establece el presupuesto en bytes de la caché de archivos estáticos del
+     * classpath. Con 0 la caché se deshabilita.
+     *
+     * @param maxBytes Máximo de bytes en caché
+     */
+    public static void staticFilesCache(long maxBytes) {
+        staticFileHandler.setCacheMaxBytes(maxBytes);
+    }
+
     /**
      * Inicia el servidor web en el puerto predeterminado (8080).
      * Este método inicia automáticamente el servidor después de la configuración de
@@ -93,7 +223,7 @@ public class WebFramework {
         }
 
         try {
-            server = new HttpServer(port, router, staticFileHandler);
+            server = new HttpServer(port, router, staticFileHandler, config);
             server.start();
             isRunning = true;
 
@@ -101,6 +231,9 @@ public class WebFramework {
             System.out.println("Servidor Web Iniciado!");
             System.out.println("Puerto: " + port);
             System.out.println("Archivos estáticos: " + staticFileHandler.getStaticFilesDirectory());
+            if (staticFileHandler.getExternalStaticFilesDirectory() != null) {
+                System.out.println("Archivos estáticos externos: " + staticFileHandler.getExternalStaticFilesDirectory());
+            }
             System.out.println("Rutas registradas: " + router.getRouteCount());
             System.out.println("URL del servidor: http://localhost:" + port);
             System.out.println("=================================");
@@ -142,6 +275,37 @@ public class WebFramework {
         return staticFileHandler;
     }
 
+    /**
+     * Obtiene una instantánea de las estadísticas del control de admisión del
+     * servidor: tareas admitidas, rechazadas con 503, en cola y en ejecución.
+     *
+     * @return Las estadísticas, o null si el servidor no se ha iniciado
+     */
+    public static AdmissionStats getAdmissionStats() {
+        return server != null ? server.getAdmissionStats() : null;
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas de los pools de búferes de
+     * E/S del servidor: préstamos, fallos, búferes libres y prestados.
+     *
+     * @return Las estadísticas, o null si el servidor no se ha iniciado
+     */
+    public static List<BufferPoolStats> getBufferPoolStats() {
+        return server != null ? server.getBufferPoolStats() : null;
+    }
+
+    /**
+     * Obtiene una instantánea de las estadísticas de la caché de respuestas de
+     * una ruta GET registrada con una {@link CachePolicy}.
+     *
+     * @param path La ruta URL
+     * @return Las estadísticas, o null si la ruta no existe o no usa caché
+     */
+    public static ResponseCacheStats getResponseCacheStats(String path) {
+        return router.findRoute("GET", path).map(Route::getCacheStats).orElse(null);
+    }
+
     /**
      * Comprueba si el servidor está actualmente en ejecución.
      *
@@ -0,0 +1,169 @@
+package co.edu.eci.hello;
+
+/**
+ * Histograma de latencias en microsegundos con precisión relativa de 1 %:
+ * cada potencia de dos se divide en 128 cubetas lineales y los valores menores
+ * que 128 µs se guardan exactos. Lo usa un solo hilo; los de varios hilos se
+ * combinan con {@link #add(LatencyRecorder)} al terminar la prueba.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+final class LatencyRecorder {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Exponente máximo: 2^36 µs, unas 19 horas. */
+    private static final int MAX_EXPONENT = 36;
+
+    private final long[] counts = new long[SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long total;
+    private long sum;
+    private long max;
+
+    /**
+     * Registra una latencia.
+     *
+     * @param micros La latencia en microsegundos
+     */
+    void record(long micros) {
+        record(micros, 1);
+    }
+
+    /**
+     * Registra varias veces la misma latencia.
+     *
+     * @param micros La latencia en microsegundos
+     * @param count  El número de muestras
+     */
+    void record(long micros, long count) {
+        long value = Math.max(0, micros);
+        counts[indexOf(value)] += count;
+        total += count;
+        sum += value * count;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Suma a este histograma las muestras de otro.
+     *
+     * @param other El otro histograma
+     */
+    void add(LatencyRecorder other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Crea una copia corregida por omisión coordinada, como
+     * {@code copyCorrectedForCoordinatedOmission} de HdrHistogram: por cada
+     * muestra mayor que el intervalo esperado se agregan las muestras que el
+     * cliente no llegó a enviar mientras esperaba, con latencias decrecientes
+     * de un intervalo en un intervalo.
+     *
+     * @param expectedIntervalMicros El intervalo esperado entre solicitudes de
+     *                               una conexión
+     * @return El histograma corregido
+     */
+    LatencyRecorder copyCorrected(long expectedIntervalMicros) {
+        LatencyRecorder corrected = new LatencyRecorder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            long value = valueAt(i);
+            corrected.record(value, counts[i]);
+            if (expectedIntervalMicros <= 0) {
+                continue;
+            }
+            for (long missing = value - expectedIntervalMicros; missing >= expectedIntervalMicros;
+                    missing -= expectedIntervalMicros) {
+                corrected.record(missing, counts[i]);
+            }
+        }
+        return corrected;
+    }
+
+    /**
+     * Obtiene el valor bajo el cual queda el porcentaje dado de las muestras.
+     *
+     * @param percentile El percentil, de 0 a 100
+     * @return La latencia en microsegundos, o 0 si no hay muestras
+     */
+    long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.min(valueAt(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Obtiene el número de muestras.
+     *
+     * @return El número de muestras
+     */
+    long count() {
+        return total;
+    }
+
+    /**
+     * Obtiene la mayor latencia registrada.
+     *
+     * @return La latencia máxima en microsegundos
+     */
+    long max() {
+        return max;
+    }
+
+    /**
+     * Obtiene la latencia media.
+     *
+     * @return La media en microsegundos
+     */
+    double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /**
+     * Calcula la cubeta de un valor.
+     *
+     * @param value El valor en microsegundos
+     * @return El índice de la cubeta
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) Math.min((value >>> shift) - SUB_BUCKETS, SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Obtiene el mayor valor que cae en una cubeta.
+     *
+     * @param index El índice de la cubeta
+     * @return El valor en microsegundos
+     */
+    private static long valueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
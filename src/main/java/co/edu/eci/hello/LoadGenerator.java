@@ -0,0 +1,957 @@
+package co.edu.eci.hello;
+
+import co.edu.eci.framework.ServerConfig;
+import co.edu.eci.framework.WebFramework;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga HTTP de extremo a extremo para dimensionar el contenedor
+ * de la aplicación. Arranca el servidor en el mismo proceso con las rutas de
+ * {@link RestServiceApplication} o ataca un puerto ya en ejecución, y repite
+ * una mezcla de solicitudes a {@code /}, {@code /hello},
+ * {@code /greeting?name=...} y un archivo estático.
+ * Dos modos:
+ * <ul>
+ * <li>{@code closed}: N conexiones persistentes que envían la siguiente
+ * solicitud en cuanto reciben la respuesta. La latencia se corrige por
+ * omisión coordinada con el intervalo esperado entre solicitudes.</li>
+ * <li>{@code open}: una tasa fija de llegadas repartida entre las conexiones.
+ * La latencia se mide desde el instante en que la solicitud debía enviarse,
+ * así que una respuesta lenta también cuenta la espera de las siguientes.</li>
+ * </ul>
+ * Con {@code --protocol h2c} las conexiones de la prueba se vuelven
+ * solicitudes concurrentes multiplexadas en conexiones HTTP/2 (hasta
+ * {@code --streams} por conexión), con el cliente HTTP de Java; con
+ * {@code http1-jdk} el mismo cliente usa HTTP/1.1 con keep-alive, para
+ * comparar los protocolos sin que influya el costo del cliente.
+ * Con {@code --pipeline N} cada conexión HTTP/1.1 envía N solicitudes
+ * seguidas en una sola escritura y luego lee las N respuestas, para comparar
+ * el rendimiento con y sin pipelining.
+ * Con {@code --scenario async} la prueba ataca la ruta asíncrona de
+ * {@link ScenarioServer}, que arranca en otro proceso: cada conexión (un hilo
+ * virtual) deja una solicitud pendiente durante {@code --delay-ms}, y al final
+ * el informe incluye cuántas estuvieron en curso a la vez y cuántos hilos usó
+ * el servidor. La prueba falla (código de salida 1) si no llegaron a estar
+ * todas en curso o si el servidor superó {@code --max-server-threads}.
+ * Con {@code --scenario stream} o {@code string} cada solicitud descarga un
+ * cuerpo generado de {@code --body-mb} MiB, escrito en flujo o devuelto como
+ * String, y el informe incluye el tiempo hasta el primer byte y el máximo del
+ * heap del servidor.
+ * El resultado (rendimiento, estados y la distribución completa de
+ * percentiles) se escribe en un archivo de texto para comparar ejecuciones.
+ *
+ * <pre>
+ * java -cp target/classes co.edu.eci.hello.LoadGenerator --mode open --rate 5000 --duration 30
+ * java -cp target/classes co.edu.eci.hello.LoadGenerator --target localhost:8087 --connections 64
+ * java -cp target/classes co.edu.eci.hello.LoadGenerator --protocol h2c --connections 256 --streams 128
+ * java -cp target/classes co.edu.eci.hello.LoadGenerator --connections 8 --pipeline 16
+ * java -cp target/classes co.edu.eci.hello.LoadGenerator --scenario async --connections 10000 --max-server-threads 32
+ * java -cp target/classes co.edu.eci.hello.LoadGenerator --scenario stream --connections 1 --body-mb 100
+ * </pre>
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class LoadGenerator {
+
+    /** Modos de generación de carga. */
+    enum Mode {
+        CLOSED, OPEN
+    }
+
+    /** Escenarios de la prueba. */
+    enum Scenario {
+        /** La mezcla de rutas de la aplicación. */
+        MIX,
+        /** Solicitudes pendientes en la ruta asíncrona de {@link ScenarioServer}. */
+        ASYNC,
+        /** Un cuerpo grande escrito en flujo por {@link ScenarioServer}. */
+        STREAM,
+        /** El mismo cuerpo grande devuelto como String, para comparar. */
+        STRING
+    }
+
+    /** Protocolos y clientes de la prueba. */
+    enum Protocol {
+        /** HTTP/1.1 con keep-alive sobre un socket propio por conexión. */
+        HTTP1,
+        /** HTTP/1.1 con keep-alive con el cliente HTTP de Java. */
+        HTTP1_JDK,
+        /** HTTP/2 en texto plano con el cliente HTTP de Java, negociado con Upgrade. */
+        H2C
+    }
+
+    private static final String STATIC_FILE = "loadgen.css";
+    private static final String[] NAMES = { "Angie", "Angie Ramos", "José", "María Fernanda", "Zoë", "Li Wei" };
+
+    private final Options options;
+    private String host;
+    private int port;
+    private String staticPath;
+    private String negotiated = "HTTP/1.1";
+    private Process serverProcess;
+    private final Map<String, Long> serverStats = new LinkedHashMap<>();
+
+    /**
+     * Constructor del generador.
+     *
+     * @param options Las opciones de la prueba
+     */
+    LoadGenerator(Options options) {
+        this.options = options;
+    }
+
+    /**
+     * Punto de entrada desde la línea de comandos.
+     *
+     * @param args Las opciones; {@code --help} las describe
+     * @throws Exception Si la prueba no puede ejecutarse
+     */
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(Options.USAGE);
+            return;
+        }
+        System.exit(new LoadGenerator(options).run() ? 0 : 1);
+    }
+
+    /**
+     * Ejecuta la prueba completa: arranca el servidor si hace falta, genera la
+     * carga, combina los resultados y escribe el informe.
+     *
+     * @return false si el escenario no cumplió sus comprobaciones
+     * @throws Exception Si la prueba no puede ejecutarse
+     */
+    boolean run() throws Exception {
+        if (options.target == null && options.scenario != Scenario.MIX) {
+            startScenarioServer();
+        } else if (options.target == null) {
+            startInProcessServer();
+        } else {
+            int colon = options.target.lastIndexOf(':');
+            host = options.target.substring(0, colon);
+            port = Integer.parseInt(options.target.substring(colon + 1));
+            staticPath = options.staticPath;
+        }
+        RequestMix mix = new RequestMix(host + ":" + port, staticPath, options);
+        HttpClient[] clients = createClients(mix);
+        if (options.scenario != Scenario.MIX) {
+            readServerStats(true);
+        }
+
+        long now = System.nanoTime();
+        long measureStart = now + options.warmupSeconds * 1_000_000_000L;
+        long end = measureStart + options.durationSeconds * 1_000_000_000L;
+        Worker[] workers = new Worker[options.connections];
+        Thread[] threads = new Thread[options.connections];
+        for (int i = 0; i < workers.length; i++) {
+            long interval = options.mode == Mode.OPEN
+                    ? Math.round(1e9 * options.connections * options.pipeline / options.rate)
+                    : 0;
+            long firstSend = now
+                    + (options.mode == Mode.OPEN ? Math.round(1e9 * i * options.pipeline / options.rate) : 0);
+            workers[i] = new Worker(mix, new Random(options.seed + i), firstSend, interval, measureStart, end,
+                    clients != null ? clients[i * clients.length / workers.length] : null);
+            threads[i] = options.scenario == Scenario.ASYNC
+                    ? Thread.ofVirtual().name("LoadGen-" + i).start(workers[i])
+                    : Thread.ofPlatform().name("LoadGen-" + i).start(workers[i]);
+        }
+        System.out.println("Generando carga " + options.describe() + " contra " + host + ":" + port + "...");
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (options.scenario != Scenario.MIX) {
+            readServerStats(false);
+        }
+
+        Report report = new Report(mix);
+        for (Worker worker : workers) {
+            report.add(worker);
+        }
+        Path output = options.output != null ? options.output
+                : Paths.get("target", "loadgen-"
+                        + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt");
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(output), false, StandardCharsets.UTF_8)) {
+            report.write(out, true);
+        }
+        report.write(System.out, false);
+        System.out.println("Informe completo en " + output.toAbsolutePath());
+
+        if (serverProcess != null) {
+            serverProcess.destroy();
+            serverProcess.waitFor(10, TimeUnit.SECONDS);
+        } else if (options.target == null) {
+            WebFramework.stop();
+        }
+        return report.passed();
+    }
+
+    /**
+     * Crea los clientes HTTP de Java de la prueba. Cada cliente mantiene una
+     * sola conexión HTTP/2 por servidor, así que con h2c se crea uno por cada
+     * {@code --streams} solicitudes concurrentes; con HTTP/1.1 basta uno, que
+     * abre una conexión por solicitud concurrente. Cada cliente hace una
+     * primera solicitud antes de la prueba para negociar el protocolo.
+     *
+     * @param mix La mezcla de solicitudes
+     * @return Los clientes, o null si la prueba usa sockets propios
+     * @throws IOException Si la solicitud inicial falla
+     */
+    private HttpClient[] createClients(RequestMix mix) throws IOException {
+        if (options.protocol == Protocol.HTTP1) {
+            return null;
+        }
+        int count = options.protocol == Protocol.H2C
+                ? (options.connections + options.streams - 1) / options.streams
+                : 1;
+        HttpClient[] clients = new HttpClient[count];
+        for (int i = 0; i < count; i++) {
+            clients[i] = HttpClient.newBuilder()
+                    .version(options.protocol == Protocol.H2C ? HttpClient.Version.HTTP_2
+                            : HttpClient.Version.HTTP_1_1)
+                    .build();
+            try {
+                HttpResponse<Void> response = clients[i].send(mix.httpRequest(0, 0),
+                        HttpResponse.BodyHandlers.discarding());
+                negotiated = response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Negociación interrumpida", e);
+            }
+        }
+        return clients;
+    }
+
+    /**
+     * Arranca el servidor en este proceso con las rutas de la aplicación y un
+     * archivo estático en un directorio temporal.
+     *
+     * @throws IOException Si no se puede crear el archivo o abrir el puerto
+     */
+    private void startInProcessServer() throws IOException {
+        Path directory = Files.createTempDirectory("loadgen-static");
+        Path file = directory.resolve(STATIC_FILE);
+        StringBuilder css = new StringBuilder();
+        for (int i = 0; css.length() < 4096; i++) {
+            css.append(".item-").append(i).append(" { margin: ").append(i % 16).append("px; color: #333; }\n");
+        }
+        Files.writeString(file, css);
+        file.toFile().deleteOnExit();
+        directory.toFile().deleteOnExit();
+
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        host = "127.0.0.1";
+        staticPath = "/" + STATIC_FILE;
+        WebFramework.config().transport(options.transport);
+        RestServiceApplication.configureRoutes();
+        WebFramework.externalStaticFiles(directory.toString());
+        WebFramework.start(port);
+        if (!WebFramework.isRunning()) {
+            throw new IOException("No se pudo iniciar el servidor en el puerto " + port);
+        }
+    }
+
+    /**
+     * Arranca {@link ScenarioServer} en otro proceso con el mismo classpath y
+     * espera a que responda.
+     *
+     * @throws IOException Si el servidor no arranca
+     */
+    private void startScenarioServer() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        host = "127.0.0.1";
+        serverProcess = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), ScenarioServer.class.getName(),
+                String.valueOf(port), options.transport.name())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), 1000);
+                return;
+            } catch (IOException e) {
+                if (!serverProcess.isAlive() || System.nanoTime() > deadline) {
+                    serverProcess.destroy();
+                    throw new IOException("No se pudo iniciar ScenarioServer en el puerto " + port, e);
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+        }
+    }
+
+    /**
+     * Lee las métricas de {@code /loadgen/stats} del servidor de escenarios.
+     *
+     * @param reset true para reiniciar los máximos antes de la prueba
+     * @throws IOException Si la solicitud falla
+     */
+    private void readServerStats(boolean reset) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://" + host + ":" + port + "/loadgen/stats" + (reset ? "?reset=true" : ""))).build();
+        String body;
+        try {
+            body = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString()).body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lectura de métricas interrumpida", e);
+        }
+        serverStats.clear();
+        for (String line : body.split("\n")) {
+            int space = line.indexOf(' ');
+            if (space > 0) {
+                serverStats.put(line.substring(0, space), Long.parseLong(line.substring(space + 1).trim()));
+            }
+        }
+    }
+
+    /**
+     * Conexión de la prueba: envía solicitudes por un socket persistente y
+     * registra sus latencias en histogramas propios. Con pipelining cada envío
+     * es un lote de solicitudes, y la latencia de cada una se mide hasta que
+     * llega su propia respuesta.
+     */
+    private final class Worker implements Runnable {
+        private final RequestMix mix;
+        private final Random random;
+        private final long interval;
+        private final long measureStart;
+        private final long end;
+        private final LatencyRecorder latency = new LatencyRecorder();
+        private final LatencyRecorder serviceTime = new LatencyRecorder();
+        private final LatencyRecorder firstByteTime = new LatencyRecorder();
+        private final long[] statuses = new long[600];
+        private final long[] requestsByEntry;
+        private final HttpClient client;
+        private final int[] entries;
+        private final int[] variants;
+        private final int[] results;
+        private final long[] completed;
+        private final long[] firstBytes;
+        private long nextSend;
+        private long ioErrors;
+        private Socket socket;
+        private InputStream input;
+        private OutputStream output;
+
+        Worker(RequestMix mix, Random random, long firstSend, long interval, long measureStart, long end,
+                HttpClient client) {
+            this.mix = mix;
+            this.random = random;
+            this.nextSend = firstSend;
+            this.interval = interval;
+            this.measureStart = measureStart;
+            this.end = end;
+            this.client = client;
+            this.requestsByEntry = new long[mix.size()];
+            int depth = client != null ? 1 : options.pipeline;
+            this.entries = new int[depth];
+            this.variants = new int[depth];
+            this.results = new int[depth];
+            this.completed = new long[depth];
+            this.firstBytes = new long[depth];
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    long intended;
+                    if (interval > 0) {
+                        intended = nextSend;
+                        nextSend += interval;
+                        if (intended >= end) {
+                            break;
+                        }
+                        for (long wait = intended - System.nanoTime(); wait > 0;
+                                wait = intended - System.nanoTime()) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    } else {
+                        intended = System.nanoTime();
+                        if (intended >= end) {
+                            break;
+                        }
+                    }
+                    for (int i = 0; i < entries.length; i++) {
+                        entries[i] = mix.pick(random);
+                        variants[i] = mix.variant(entries[i], random);
+                    }
+                    long sent = System.nanoTime();
+                    if (client != null) {
+                        results[0] = send(mix.httpRequest(entries[0], variants[0]));
+                        completed[0] = System.nanoTime();
+                    } else {
+                        exchange();
+                    }
+                    if (intended < measureStart) {
+                        continue;
+                    }
+                    for (int i = 0; i < entries.length; i++) {
+                        if (results[i] < 0) {
+                            ioErrors++;
+                            continue;
+                        }
+                        latency.record((completed[i] - intended) / 1000);
+                        serviceTime.record((completed[i] - sent) / 1000);
+                        if (client == null) {
+                            firstByteTime.record((firstBytes[i] - sent) / 1000);
+                        }
+                        statuses[Math.min(results[i], statuses.length - 1)]++;
+                        requestsByEntry[entries[i]]++;
+                    }
+                }
+            } finally {
+                disconnect();
+            }
+        }
+
+        /**
+         * Envía el lote de solicitudes elegido en una sola escritura y lee sus
+         * respuestas completas, abriendo la conexión si hace falta. Si el
+         * servidor cierra la conexión antes de responder todo el lote, las
+         * solicitudes pendientes se reenvían por una conexión nueva. Deja en
+         * {@code results} el código de estado de cada solicitud, o -1 si hubo
+         * un error de red, en {@code firstBytes} el instante en que llegó su
+         * línea de estado y en {@code completed} el de su respuesta completa.
+         */
+        private void exchange() {
+            int answered = 0;
+            try {
+                while (answered < entries.length) {
+                    if (socket == null) {
+                        socket = new Socket();
+                        socket.setTcpNoDelay(true);
+                        socket.setSoTimeout(30_000);
+                        socket.connect(new InetSocketAddress(host, port), 10_000);
+                        input = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+                        output = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+                    }
+                    for (int i = answered; i < entries.length; i++) {
+                        output.write(mix.request(entries[i], variants[i]));
+                    }
+                    output.flush();
+                    while (answered < entries.length && socket != null) {
+                        results[answered] = readResponse(answered);
+                        completed[answered] = System.nanoTime();
+                        answered++;
+                    }
+                }
+            } catch (IOException e) {
+                disconnect();
+                for (; answered < entries.length; answered++) {
+                    results[answered] = -1;
+                }
+            }
+        }
+
+        /**
+         * Envía una solicitud con el cliente HTTP de Java, que en h2c la
+         * multiplexa con las de los demás hilos que comparten el cliente.
+         *
+         * @param request La solicitud
+         * @return El código de estado, o -1 si hubo un error de red
+         */
+        private int send(HttpRequest request) {
+            try {
+                return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                return -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+
+        /**
+         * Lee una respuesta: la línea de estado, los encabezados y el cuerpo
+         * delimitado por {@code Content-Length} o en chunked. Si el servidor
+         * anuncia {@code Connection: close}, cierra la conexión.
+         *
+         * @param index La posición de la solicitud en el lote
+         * @return El código de estado
+         * @throws IOException Si la respuesta está incompleta o mal formada
+         */
+        private int readResponse(int index) throws IOException {
+            String statusLine = readLine();
+            firstBytes[index] = System.nanoTime();
+            if (statusLine.length() < 12 || !statusLine.startsWith("HTTP/1.")) {
+                throw new IOException("Línea de estado inválida: " + statusLine);
+            }
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            long contentLength = -1;
+            boolean chunked = false;
+            boolean close = statusLine.startsWith("HTTP/1.0");
+            for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String name = line.substring(0, colon).trim();
+                String value = line.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Content-Length")) {
+                    contentLength = Long.parseLong(value);
+                } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                    chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+                } else if (name.equalsIgnoreCase("Connection")) {
+                    close = value.equalsIgnoreCase("close");
+                }
+            }
+            if (chunked) {
+                for (long size = Long.parseLong(readLine().split(";")[0].trim(), 16); size > 0;
+                        size = Long.parseLong(readLine().split(";")[0].trim(), 16)) {
+                    skip(size);
+                    readLine();
+                }
+                while (!readLine().isEmpty()) {
+                    // Trailers.
+                }
+            } else if (contentLength >= 0) {
+                skip(contentLength);
+            } else {
+                input.transferTo(OutputStream.nullOutputStream());
+                close = true;
+            }
+            if (close) {
+                disconnect();
+            }
+            return status;
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int c;
+            while ((c = input.read()) != '\n') {
+                if (c < 0) {
+                    throw new IOException("Conexión cerrada a mitad de la respuesta");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        private void skip(long count) throws IOException {
+            while (count > 0) {
+                long skipped = input.skip(count);
+                if (skipped <= 0) {
+                    if (input.read() < 0) {
+                        throw new IOException("Conexión cerrada a mitad del cuerpo");
+                    }
+                    skipped = 1;
+                }
+                count -= skipped;
+            }
+        }
+
+        private void disconnect() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Se descarta la conexión de todas formas.
+                }
+                socket = null;
+            }
+        }
+    }
+
+    /**
+     * Mezcla ponderada de solicitudes, con las solicitudes ya codificadas.
+     */
+    private static final class RequestMix {
+        private final List<String> labels = new ArrayList<>();
+        private final List<byte[][]> variants = new ArrayList<>();
+        private final List<HttpRequest[]> httpRequests = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+        private final Protocol protocol;
+        private int totalWeight;
+
+        RequestMix(String hostHeader, String staticPath, Options options) {
+            this.protocol = options.protocol;
+            if (options.scenario == Scenario.ASYNC) {
+                add(hostHeader, "/loadgen/async", 1, "/loadgen/async?delay_ms=" + options.delayMillis);
+                return;
+            }
+            if (options.scenario == Scenario.STREAM || options.scenario == Scenario.STRING) {
+                String path = "/loadgen/" + options.scenario.name().toLowerCase(Locale.ROOT);
+                add(hostHeader, path, 1, path + "?mb=" + options.bodyMegabytes);
+                return;
+            }
+            add(hostHeader, "/", 10, "/");
+            add(hostHeader, "/hello", 50, "/hello");
+            String[] greetings = new String[NAMES.length];
+            for (int i = 0; i < NAMES.length; i++) {
+                greetings[i] = "/greeting?name=" + URLEncoder.encode(NAMES[i], StandardCharsets.UTF_8);
+            }
+            add(hostHeader, "/greeting?name=...", 30, greetings);
+            if (staticPath != null) {
+                add(hostHeader, staticPath, 10, staticPath);
+            }
+        }
+
+        private void add(String hostHeader, String label, int weight, String... paths) {
+            byte[][] requests = new byte[paths.length][];
+            HttpRequest[] prepared = new HttpRequest[paths.length];
+            for (int i = 0; i < paths.length; i++) {
+                requests[i] = ("GET " + paths[i] + " HTTP/1.1\r\n"
+                        + "Host: " + hostHeader + "\r\n"
+                        + "User-Agent: eci-loadgen/1.0\r\n"
+                        + "Accept: */*\r\n"
+                        + "Accept-Encoding: gzip\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+                if (protocol != Protocol.HTTP1) {
+                    prepared[i] = HttpRequest.newBuilder(URI.create("http://" + hostHeader + paths[i]))
+                            .header("User-Agent", "eci-loadgen/1.0")
+                            .header("Accept", "*/*")
+                            .header("Accept-Encoding", "gzip")
+                            .build();
+                }
+            }
+            labels.add(label);
+            variants.add(requests);
+            httpRequests.add(prepared);
+            weights.add(weight);
+            totalWeight += weight;
+        }
+
+        int pick(Random random) {
+            int target = random.nextInt(totalWeight);
+            for (int i = 0; i < weights.size(); i++) {
+                target -= weights.get(i);
+                if (target < 0) {
+                    return i;
+                }
+            }
+            return weights.size() - 1;
+        }
+
+        int variant(int entry, Random random) {
+            return random.nextInt(variants.get(entry).length);
+        }
+
+        byte[] request(int entry, int variant) {
+            return variants.get(entry)[variant];
+        }
+
+        HttpRequest httpRequest(int entry, int variant) {
+            return httpRequests.get(entry)[variant];
+        }
+
+        int size() {
+            return labels.size();
+        }
+
+        String label(int entry) {
+            return labels.get(entry);
+        }
+    }
+
+    /**
+     * Resultados combinados de todas las conexiones.
+     */
+    private final class Report {
+        private final RequestMix mix;
+        private final LatencyRecorder latency = new LatencyRecorder();
+        private final LatencyRecorder serviceTime = new LatencyRecorder();
+        private final LatencyRecorder firstByteTime = new LatencyRecorder();
+        private final long[] statuses = new long[600];
+        private final long[] requestsByEntry;
+        private long ioErrors;
+
+        Report(RequestMix mix) {
+            this.mix = mix;
+            this.requestsByEntry = new long[mix.size()];
+        }
+
+        void add(Worker worker) {
+            latency.add(worker.latency);
+            serviceTime.add(worker.serviceTime);
+            firstByteTime.add(worker.firstByteTime);
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] += worker.statuses[i];
+            }
+            for (int i = 0; i < requestsByEntry.length; i++) {
+                requestsByEntry[i] += worker.requestsByEntry[i];
+            }
+            ioErrors += worker.ioErrors;
+        }
+
+        /**
+         * Escribe el informe. La latencia de la columna principal es la
+         * corregida por omisión coordinada; el tiempo de servicio es el medido
+         * desde el envío real de cada solicitud.
+         *
+         * @param out  Donde escribir
+         * @param full true para incluir la distribución completa de
+         *             percentiles
+         */
+        void write(PrintStream out, boolean full) {
+            LatencyRecorder corrected = latency;
+            long expectedInterval = 0;
+            if (options.mode == Mode.CLOSED) {
+                expectedInterval = options.expectedIntervalMicros > 0 ? options.expectedIntervalMicros
+                        : serviceTime.percentile(50);
+                corrected = serviceTime.copyCorrected(expectedInterval);
+            }
+
+            out.println("# Generador de carga - " + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            out.println("target\t" + (options.target != null ? options.target
+                    : host + ":" + port + (serverProcess != null ? " (ScenarioServer en otro proceso" : " (en proceso")
+                            + ", transporte " + options.transport + ")"));
+            out.println("mode\t" + options.describe());
+            out.println("protocol\t" + options.protocol.name().toLowerCase(Locale.ROOT).replace('_', '-')
+                    + " (" + negotiated + ")");
+            if (options.mode == Mode.CLOSED) {
+                out.println("expected_interval_us\t" + expectedInterval);
+            }
+            out.println("requests\t" + serviceTime.count());
+            out.printf(Locale.ROOT, "throughput_rps\t%.1f%n", serviceTime.count() / (double) options.durationSeconds);
+            out.println("io_errors\t" + ioErrors);
+            for (int status = 0; status < statuses.length; status++) {
+                if (statuses[status] > 0) {
+                    out.println("status_" + status + "\t" + statuses[status]);
+                }
+            }
+            for (int i = 0; i < requestsByEntry.length; i++) {
+                out.println("mix\t" + mix.label(i) + "\t" + requestsByEntry[i]);
+            }
+            out.printf(Locale.ROOT, "latency_mean_ms\t%.3f%n", corrected.mean() / 1000.0);
+            out.printf(Locale.ROOT, "service_mean_ms\t%.3f%n", serviceTime.mean() / 1000.0);
+            if (options.scenario == Scenario.STREAM || options.scenario == Scenario.STRING) {
+                out.printf(Locale.ROOT, "ttfb_mean_ms\t%.3f%n", firstByteTime.mean() / 1000.0);
+                out.printf(Locale.ROOT, "ttfb_p50_ms\t%.3f%n", firstByteTime.percentile(50) / 1000.0);
+                out.printf(Locale.ROOT, "ttfb_max_ms\t%.3f%n", firstByteTime.max() / 1000.0);
+            }
+            out.println();
+            out.println("percentile\tlatency_ms\tservice_ms");
+            if (full) {
+                long samples = Math.max(corrected.count(), 1);
+                for (int tick = 0;; tick++) {
+                    double percentile = 100.0 * (1.0 - Math.pow(2, -tick / 5.0));
+                    if ((100.0 - percentile) / 100.0 * samples < 1.0) {
+                        break;
+                    }
+                    writePercentile(out, percentile, corrected);
+                }
+            } else {
+                for (double percentile : new double[] { 50, 90, 99, 99.9, 99.99 }) {
+                    writePercentile(out, percentile, corrected);
+                }
+            }
+            writePercentile(out, 100, corrected);
+            if (options.scenario != Scenario.MIX) {
+                out.println();
+                for (Map.Entry<String, Long> stat : serverStats.entrySet()) {
+                    out.println("server_" + stat.getKey() + "\t" + stat.getValue());
+                }
+                out.println("check\t" + (passed() ? "ok" : "falló"));
+            }
+        }
+
+        /**
+         * Evalúa las comprobaciones del escenario: con {@code async}, que todas
+         * las conexiones tuvieran su solicitud en curso a la vez, sin errores,
+         * y que el servidor no superara {@code --max-server-threads}.
+         *
+         * @return true si la prueba pasó o el escenario no tiene comprobaciones
+         */
+        boolean passed() {
+            if (options.scenario != Scenario.ASYNC) {
+                return true;
+            }
+            long threadsPeak = serverStats.getOrDefault("threads_peak", 0L);
+            return ioErrors == 0 && serverStats.getOrDefault("async_in_flight_max", 0L) >= options.connections
+                    && (options.maxServerThreads == 0 || threadsPeak <= options.maxServerThreads);
+        }
+
+        private void writePercentile(PrintStream out, double percentile, LatencyRecorder corrected) {
+            out.printf(Locale.ROOT, "%.4f\t%.3f\t%.3f%n", percentile, corrected.percentile(percentile) / 1000.0,
+                    serviceTime.percentile(percentile) / 1000.0);
+        }
+    }
+
+    /**
+     * Opciones de la línea de comandos.
+     */
+    static final class Options {
+        static final String USAGE = String.join("\n",
+                "Uso: java -cp target/classes co.edu.eci.hello.LoadGenerator [opciones]",
+                "  --target HOST:PUERTO        servidor a probar; sin esta opción se arranca uno en proceso",
+                "  --mode closed|open          closed: N conexiones sin pausa; open: tasa fija (por defecto closed)",
+                "  --connections N             conexiones persistentes; con h2c, solicitudes concurrentes (por defecto 16)",
+                "  --rate R                    solicitudes por segundo en modo open",
+                "  --duration S                segundos de medición (por defecto 30)",
+                "  --warmup S                  segundos de calentamiento sin medir (por defecto 5)",
+                "  --static RUTA               archivo estático de la mezcla al usar --target",
+                "  --transport BLOCKING|NIO    transporte del servidor en proceso (por defecto BLOCKING)",
+                "  --protocol http1|http1-jdk|h2c",
+                "                              http1: socket propio por conexión (por defecto); http1-jdk y h2c:",
+                "                              cliente HTTP de Java con HTTP/1.1 o con HTTP/2 multiplexado",
+                "  --streams N                 solicitudes concurrentes por conexión h2c (por defecto 100)",
+                "  --pipeline N                solicitudes enviadas seguidas por conexión http1 antes de leer",
+                "                              las respuestas (por defecto 1, sin pipelining)",
+                "  --scenario mix|async|stream|string",
+                "                              mix: rutas de la aplicación (por defecto); los demás usan",
+                "                              ScenarioServer, arrancado en otro proceso. async: solicitudes",
+                "                              pendientes; stream y string: un cuerpo grande en flujo o como String",
+                "  --delay-ms MS               espera del servicio externo simulado en async (por defecto 5000)",
+                "  --max-server-threads N      en async, máximo de hilos del servidor para pasar (0: sin límite)",
+                "  --body-mb N                 MiB del cuerpo en stream y string (por defecto 100)",
+                "  --expected-interval-us US   intervalo para corregir la omisión coordinada en modo closed",
+                "                              (por defecto, la mediana del tiempo de servicio)",
+                "  --seed N                    semilla de la mezcla de solicitudes (por defecto 1)",
+                "  --output ARCHIVO            informe (por defecto target/loadgen-FECHA.txt)");
+
+        String target;
+        Mode mode = Mode.CLOSED;
+        int connections = 16;
+        double rate;
+        int durationSeconds = 30;
+        int warmupSeconds = 5;
+        String staticPath;
+        ServerConfig.Transport transport = ServerConfig.Transport.BLOCKING;
+        Protocol protocol = Protocol.HTTP1;
+        int streams = 100;
+        int pipeline = 1;
+        Scenario scenario = Scenario.MIX;
+        long delayMillis = 5000;
+        int maxServerThreads;
+        int bodyMegabytes = 100;
+        long expectedIntervalMicros;
+        long seed = 1;
+        Path output;
+        boolean help;
+
+        /**
+         * Interpreta las opciones.
+         *
+         * @param args Los argumentos de la línea de comandos
+         * @return Las opciones
+         * @throws IllegalArgumentException Si una opción no es válida
+         */
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String name = args[i];
+                if (name.equals("--help") || name.equals("-h")) {
+                    options.help = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Falta el valor de " + name);
+                }
+                String value = args[++i];
+                try {
+                    switch (name) {
+                        case "--target" -> {
+                            if (value.lastIndexOf(':') <= 0) {
+                                throw new IllegalArgumentException("El destino debe tener la forma HOST:PUERTO");
+                            }
+                            options.target = value;
+                        }
+                        case "--mode" -> options.mode = Mode.valueOf(value.toUpperCase(Locale.ROOT));
+                        case "--connections" -> options.connections = Integer.parseInt(value);
+                        case "--rate" -> options.rate = Double.parseDouble(value);
+                        case "--duration" -> options.durationSeconds = Integer.parseInt(value);
+                        case "--warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                        case "--static" -> options.staticPath = value;
+                        case "--transport" -> options.transport =
+                                ServerConfig.Transport.valueOf(value.toUpperCase(Locale.ROOT));
+                        case "--protocol" -> options.protocol =
+                                Protocol.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                        case "--streams" -> options.streams = Integer.parseInt(value);
+                        case "--pipeline" -> options.pipeline = Integer.parseInt(value);
+                        case "--scenario" -> options.scenario = Scenario.valueOf(value.toUpperCase(Locale.ROOT));
+                        case "--delay-ms" -> options.delayMillis = Long.parseLong(value);
+                        case "--max-server-threads" -> options.maxServerThreads = Integer.parseInt(value);
+                        case "--body-mb" -> options.bodyMegabytes = Integer.parseInt(value);
+                        case "--expected-interval-us" -> options.expectedIntervalMicros = Long.parseLong(value);
+                        case "--seed" -> options.seed = Long.parseLong(value);
+                        case "--output" -> options.output = Paths.get(value);
+                        default -> throw new IllegalArgumentException("Opción desconocida: " + name);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Valor inválido para " + name + ": " + value);
+                }
+            }
+            if (options.connections <= 0 || options.durationSeconds <= 0 || options.warmupSeconds < 0
+                    || options.streams <= 0 || options.pipeline <= 0 || options.bodyMegabytes <= 0) {
+                throw new IllegalArgumentException(
+                        "Las conexiones, los flujos, el pipelining y la duración deben ser mayores que cero");
+            }
+            if (options.pipeline > 1 && options.protocol != Protocol.HTTP1) {
+                throw new IllegalArgumentException("--pipeline solo aplica con --protocol http1");
+            }
+            if (options.scenario != Scenario.MIX && (options.protocol != Protocol.HTTP1 || options.pipeline > 1)) {
+                throw new IllegalArgumentException("Los escenarios usan --protocol http1 sin --pipeline");
+            }
+            if (options.mode == Mode.OPEN && options.rate <= 0) {
+                throw new IllegalArgumentException("El modo open requiere --rate mayor que cero");
+            }
+            return options;
+        }
+
+        String describe() {
+            String description = mode == Mode.OPEN
+                    ? String.format(Locale.ROOT, "open rate=%.0f/s connections=%d duration=%ds warmup=%ds", rate,
+                            connections, durationSeconds, warmupSeconds)
+                    : String.format(Locale.ROOT, "closed connections=%d duration=%ds warmup=%ds", connections,
+                            durationSeconds, warmupSeconds);
+            if (pipeline > 1) {
+                description += " pipeline=" + pipeline;
+            }
+            return switch (scenario) {
+                case MIX -> description;
+                case ASYNC -> "async delay=" + delayMillis + "ms " + description;
+                case STREAM, STRING -> scenario.name().toLowerCase(Locale.ROOT) + " body=" + bodyMegabytes + "MiB "
+                        + description;
+            };
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package co.edu.eci.hello;
+
+import co.edu.eci.framework.EventBackend;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+
+/**
+ * Destino de eventos en una colección de MongoDB: cada lote del sink se
+ * guarda con una sola inserción masiva.
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class MongoEventBackend implements EventBackend {
+
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
+
+    private final MongoClient client;
+    private final MongoCollection<Document> collection;
+
+    /**
+     * Conecta con MongoDB. La conexión se establece de forma perezosa con la
+     * primera escritura.
+     *
+     * @param uri        La URI de conexión, por ejemplo mongodb://db:27017
+     * @param database   El nombre de la base de datos
+     * @param collection El nombre de la colección
+     */
+    public MongoEventBackend(String uri, String database, String collection) {
+        this.client = MongoClients.create(uri);
+        this.collection = client.getDatabase(database).getCollection(collection);
+    }
+
+    /**
+     * Inserta el lote sin orden, de modo que un documento rechazado no
+     * impide guardar los demás.
+     *
+     * @param batch Los eventos del lote
+     */
+    @Override
+    public void write(List<Map<String, Object>> batch) {
+        List<Document> documents = new ArrayList<>(batch.size());
+        for (Map<String, Object> event : batch) {
+            Document document = new Document();
+            for (Map.Entry<String, Object> field : event.entrySet()) {
+                Object value = field.getValue();
+                document.append(field.getKey(), value instanceof Instant instant ? Date.from(instant) : value);
+            }
+            documents.add(document);
+        }
+        collection.insertMany(documents, UNORDERED);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+}
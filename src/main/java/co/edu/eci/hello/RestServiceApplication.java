@@ -1,6 +1,8 @@
 package co.edu.eci.hello;
 
 import co.edu.eci.framework.*;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Aplicación principal que utiliza el microframework web para crear un servicio
@@ -12,6 +14,9 @@ import co.edu.eci.framework.*;
  */
 public class RestServiceApplication {
 
+    private static EventSink requestEvents;
+    private static AccessLog accessLog;
+
     /**
      * Método principal para iniciar la aplicación.
      * Configura el servidor web con rutas y manejo de solicitudes.
@@ -20,18 +25,21 @@ public class RestServiceApplication {
      */
     public static void main(String[] args) {
         configureRoutes();
+        configureRequestEvents();
+        configureAccessLog();
+        configureWarmup();
         startServer(getPort());
         registerShutdownHook();
         waitForever();
     }
 
     /**
-     * Configura las rutas de la aplicación.
+     * Configura las rutas de la aplicación. La página de inicio y el saludo
+     * fijo son rutas constantes, con la respuesta precodificada. También la
+     * usa {@link LoadGenerator} para probar estas mismas rutas en proceso.
      */
-    private static void configureRoutes() {
-        WebFramework.get("/", (req, resp) -> {
-            resp.html();
-            return "<!DOCTYPE html>\n" +
+    static void configureRoutes() {
+        WebFramework.getConstant("/", "text/html; charset=utf-8", "<!DOCTYPE html>\n" +
                     "<html>\n" +
                     "<head>\n" +
                     "    <title>Bienvenido - Microframework Web</title>\n" +
@@ -62,12 +70,9 @@ public class RestServiceApplication {
                     "        <p>Desarrollado por Angie Ramos - AREP 2025</p>\n" +
                     "    </div>\n" +
                     "</body>\n" +
-                    "</html>";
-        });
+                    "</html>");
 
-        WebFramework.get("/hello", (req, resp) -> {
-            return "Hello Docker!";
-        });
+        WebFramework.getConstant("/hello", "text/plain; charset=utf-8", "Hello Docker!");
 
         WebFramework.get("/greeting", (req, resp) -> {
             String name = req.getValues("name");
@@ -76,7 +81,60 @@ public class RestServiceApplication {
             }
 
             return String.format("Hello, %s!", name);
-        });
+        }, new CachePolicy().ttl(60_000).maxEntries(10_000).varyByQuery("name"));
+    }
+
+    /**
+     * Habilita el registro de solicitudes. Con la variable de entorno
+     * MONGO_URI se guardan en la colección requests de la base de datos hello;
+     * con REQUEST_LOG_FILE, en un archivo con un documento JSON por línea. Sin
+     * ninguna de las dos no se registran.
+     */
+    private static void configureRequestEvents() {
+        EventBackend backend;
+        String mongoUri = System.getenv("MONGO_URI");
+        String logFile = System.getenv("REQUEST_LOG_FILE");
+        if (mongoUri != null && !mongoUri.isBlank()) {
+            backend = new MongoEventBackend(mongoUri, "hello", "requests");
+        } else if (logFile != null && !logFile.isBlank()) {
+            try {
+                backend = new FileEventBackend(Path.of(logFile));
+            } catch (IOException e) {
+                System.err.println("No se pudo abrir el registro de solicitudes " + logFile + ": " + e.getMessage());
+                return;
+            }
+        } else {
+            return;
+        }
+        requestEvents = new EventSink(backend).start();
+        WebFramework.config().requestEvents(requestEvents);
+    }
+
+    /**
+     * Habilita el registro de accesos en el archivo de la variable de entorno
+     * ACCESS_LOG, si está definida.
+     */
+    private static void configureAccessLog() {
+        String path = System.getenv("ACCESS_LOG");
+        if (path != null && !path.isBlank()) {
+            accessLog = new AccessLog(Path.of(path)).start();
+            WebFramework.config().accessLog(accessLog);
+        }
+    }
+
+    /**
+     * Habilita el calentamiento antes de abrir el puerto con las vueltas de la
+     * variable de entorno WARMUP_ITERATIONS, si está definida. Además de las
+     * rutas registradas se calienta el saludo con nombre, que usa la caché de
+     * respuestas.
+     */
+    private static void configureWarmup() {
+        String iterations = System.getenv("WARMUP_ITERATIONS");
+        if (iterations != null && !iterations.isBlank()) {
+            WebFramework.config()
+                    .warmupIterations(Integer.parseInt(iterations.trim()))
+                    .warmupTargets("/greeting?name=Angie%20Ramos");
+        }
     }
 
     /**
@@ -97,6 +155,12 @@ public class RestServiceApplication {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             System.out.println("Apagando el servidor...");
             WebFramework.stop();
+            if (requestEvents != null) {
+                requestEvents.close();
+            }
+            if (accessLog != null) {
+                accessLog.close();
+            }
         }));
     }
 
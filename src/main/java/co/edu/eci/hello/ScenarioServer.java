@@ -0,0 +1,153 @@
+package co.edu.eci.hello;
+
+import co.edu.eci.framework.ServerConfig;
+import co.edu.eci.framework.WebFramework;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor de los escenarios de {@link LoadGenerator} que no usan las rutas de
+ * la aplicación. Corre en su propio proceso para que los hilos y la memoria
+ * que reporta sean solo los del servidor.
+ * Rutas:
+ * <ul>
+ * <li>{@code /loadgen/async?delay_ms=N}: manejador asíncrono que responde
+ * cuando un servicio externo simulado, con un único hilo, termina tras
+ * {@code N} ms (5000 por defecto).</li>
+ * <li>{@code /loadgen/stream?mb=N}: cuerpo generado de {@code N} MiB (100 por
+ * defecto) escrito en flujo por un {@code StreamingRouteHandler}.</li>
+ * <li>{@code /loadgen/string?mb=N}: el mismo cuerpo, devuelto como String por
+ * un manejador normal, para comparar.</li>
+ * <li>{@code /loadgen/stats}: solicitudes asíncronas en curso y su máximo,
+ * hilos vivos del proceso y su máximo, y el máximo del heap usado (la suma de
+ * los máximos de cada zona), una métrica por línea. Con {@code ?reset=true}
+ * ejecuta un GC y reinicia los máximos antes de responder.</li>
+ * </ul>
+ *
+ * <pre>
+ * java -cp target/classes co.edu.eci.hello.ScenarioServer 4600 NIO
+ * </pre>
+ *
+ * @author Angie Ramos
+ * @version 1.0
+ */
+public class ScenarioServer {
+
+    private static final byte[] CHUNK = generateChunk();
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+    private static final AtomicInteger MAX_IN_FLIGHT = new AtomicInteger();
+    private static final ScheduledExecutorService DOWNSTREAM = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Downstream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Punto de entrada desde la línea de comandos.
+     *
+     * @param args El puerto y, opcionalmente, el transporte (BLOCKING o NIO,
+     *             por defecto NIO)
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Uso: java -cp target/classes co.edu.eci.hello.ScenarioServer PUERTO [BLOCKING|NIO]");
+            System.exit(2);
+        }
+        int port = Integer.parseInt(args[0]);
+        ServerConfig.Transport transport = args.length > 1 ? ServerConfig.Transport.valueOf(args[1])
+                : ServerConfig.Transport.NIO;
+        WebFramework.config().transport(transport);
+        configureRoutes();
+        WebFramework.start(port);
+        if (!WebFramework.isRunning()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Registra las rutas de los escenarios.
+     */
+    static void configureRoutes() {
+        WebFramework.getAsync("/loadgen/async", (req, resp) -> {
+            String delay = req.getValues("delay_ms");
+            long delayMillis = delay.isEmpty() ? 5000 : Long.parseLong(delay);
+            MAX_IN_FLIGHT.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+            CompletableFuture<String> result = new CompletableFuture<>();
+            DOWNSTREAM.schedule(() -> {
+                IN_FLIGHT.decrementAndGet();
+                result.complete("ok");
+            }, delayMillis, TimeUnit.MILLISECONDS);
+            return result;
+        });
+
+        WebFramework.get("/loadgen/stream", (req, resp, body) -> {
+            resp.type("application/octet-stream");
+            for (long remaining = bodyBytes(req.getValues("mb")); remaining > 0; remaining -= CHUNK.length) {
+                body.write(CHUNK, 0, (int) Math.min(CHUNK.length, remaining));
+            }
+        });
+
+        WebFramework.get("/loadgen/string", (req, resp) -> {
+            resp.type("application/octet-stream");
+            long bytes = bodyBytes(req.getValues("mb"));
+            String chunk = new String(CHUNK, StandardCharsets.US_ASCII);
+            StringBuilder content = new StringBuilder();
+            for (long remaining = bytes; remaining > 0; remaining -= chunk.length()) {
+                content.append(chunk, 0, (int) Math.min(chunk.length(), remaining));
+            }
+            return content.toString();
+        });
+
+        WebFramework.get("/loadgen/stats", (req, resp) -> {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            boolean reset = "true".equals(req.getValues("reset"));
+            if (reset) {
+                MAX_IN_FLIGHT.set(IN_FLIGHT.get());
+                threads.resetPeakThreadCount();
+                System.gc();
+            }
+            long heapPeak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    if (reset) {
+                        pool.resetPeakUsage();
+                    }
+                    heapPeak += pool.getPeakUsage().getUsed();
+                }
+            }
+            return "async_in_flight " + IN_FLIGHT.get() + "\n"
+                    + "async_in_flight_max " + MAX_IN_FLIGHT.get() + "\n"
+                    + "threads " + threads.getThreadCount() + "\n"
+                    + "threads_peak " + threads.getPeakThreadCount() + "\n"
+                    + "heap_peak_bytes " + heapPeak + "\n";
+        });
+    }
+
+    private static long bodyBytes(String megabytes) {
+        return (megabytes.isEmpty() ? 100 : Long.parseLong(megabytes)) * 1024 * 1024;
+    }
+
+    /**
+     * Genera un bloque de 8 KiB de líneas de texto numeradas, que se repite
+     * para formar los cuerpos grandes.
+     *
+     * @return El bloque
+     */
+    private static byte[] generateChunk() {
+        StringBuilder chunk = new StringBuilder(8192);
+        for (int i = 0; chunk.length() < 8192; i++) {
+            chunk.append("linea ").append(i).append(" del cuerpo generado por ScenarioServer\n");
+        }
+        chunk.setLength(8192);
+        return chunk.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}